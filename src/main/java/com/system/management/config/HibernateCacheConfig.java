@@ -0,0 +1,30 @@
+package com.system.management.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+
+@Configuration
+public class HibernateCacheConfig {
+
+    // CacheManager của second-level cache, đọc cấu hình vùng cache (kích thước / thời gian sống) từ ehcache.xml
+    @Bean
+    public CacheManager hibernateCacheManager(@Value("classpath:ehcache.xml") Resource config) throws IOException {
+        return Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager(config.getURI(), getClass().getClassLoader());
+    }
+
+    // Truyền CacheManager đã tạo cho Hibernate thay vì để Hibernate tự tìm file cấu hình
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
@@ -1,8 +1,8 @@
 package com.system.management.config;
 
-import com.google.gson.Gson;
 import com.system.management.config.filter.TokenFilter;
 import com.system.management.service.AuthService;
+import com.system.management.utils.JsonCodec;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,7 +32,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final AuthService authService;
 
-    private final Gson gson;
+    private final JsonCodec jsonCodec;
 
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
@@ -41,16 +41,17 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Override
     public void configure(WebSecurity web) {
-        web.ignoring().antMatchers("/auth/login", "/auth/forget-password", "/auth/refresh");
+        // EventSource của trình duyệt không gửi được header Authorization => Xác thực kết nối thông báo bằng vé trên query string
+        web.ignoring().antMatchers("/auth/login", "/auth/forget-password", "/auth/refresh", "/notification/subscribe");
     }
 
     @Override
     public void configure(HttpSecurity http) throws Exception {
         http.authorizeRequests()
-                .antMatchers("/auth/login", "/auth/forget-password", "/auth/refresh")
+                .antMatchers("/auth/login", "/auth/forget-password", "/auth/refresh", "/notification/subscribe")
                 .permitAll()
                 .anyRequest().authenticated()
-                .and().addFilterBefore(new TokenFilter(authService, gson), UsernamePasswordAuthenticationFilter.class)
+                .and().addFilterBefore(new TokenFilter(authService, jsonCodec), UsernamePasswordAuthenticationFilter.class)
                 .cors().and()
                 .csrf().disable();
     }
@@ -60,8 +61,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token"));
-        configuration.setExposedHeaders(List.of("x-auth-token"));
+        configuration.setAllowedHeaders(Arrays.asList("authorization", "content-type", "x-auth-token", "if-none-match"));
+        configuration.setExposedHeaders(List.of("x-auth-token", "etag"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,92 @@
+package com.system.management.config.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Chỉ bật khi có cấu hình config.datasource.replicas, ngược lại dùng datasource mặc định của Spring Boot.
+   Các hàm service đánh dấu @Transactional(readOnly = true) sẽ đọc từ replica, không ghi dữ liệu nào (kể cả second-level cache) */
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "config.datasource", name = "replicas[0].url")
+public class DataSourceConfig {
+
+    private final List<HikariDataSource> replicaPools = new ArrayList<>();
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaProperties properties) {
+
+        List<DataSource> replicas = new ArrayList<>();
+
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaProperties.Replica replica = properties.getReplicas().get(i);
+
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername());
+            pool.setPassword(replica.getPassword());
+            pool.setReadOnly(true);
+
+            replicaPools.add(pool);
+            replicas.add(pool);
+        }
+
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, properties);
+        routingDataSource.afterPropertiesSet();
+
+        // Lấy kết nối thật khi câu lệnh đầu tiên chạy, lúc đó cờ read-only của transaction đã được thiết lập
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // Transaction read-only đọc replica không ghi entity vào second-level cache (xem ReplicaJpaDialect)
+    // JpaTransactionManager lấy lại JpaDialect của EntityManagerFactory trong afterPropertiesSet => Gán sau bước đó
+    @Bean
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory) {
+            @Override
+            public void afterPropertiesSet() {
+                super.afterPropertiesSet();
+                setJpaDialect(new ReplicaJpaDialect());
+            }
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${config.datasource.lag_check_interval:5000}")
+    public void checkReplicaLag() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicaLag();
+        }
+    }
+
+    @PreDestroy
+    public void closeReplicaPools() {
+        replicaPools.forEach(HikariDataSource::close);
+    }
+}
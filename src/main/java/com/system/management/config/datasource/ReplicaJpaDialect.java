@@ -0,0 +1,61 @@
+package com.system.management.config.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+
+/* Transaction read-only đọc từ replica, dữ liệu replica có thể trễ so với database chính
+   => Không đưa entity đọc được vào second-level cache / query cache dùng chung (CacheMode.GET: chỉ đọc cache, không ghi)
+   Khôi phục CacheMode cũ khi transaction kết thúc: EntityManager mở theo request (open-in-view) còn dùng cho transaction ghi phía sau */
+
+public class ReplicaJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition) throws SQLException {
+
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly()) {
+            return transactionData;
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode previousCacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.GET);
+
+        return new ReadOnlyTransactionData(transactionData, session, previousCacheMode);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+
+        if (transactionData instanceof ReadOnlyTransactionData) {
+            ReadOnlyTransactionData readOnly = (ReadOnlyTransactionData) transactionData;
+            if (readOnly.session.isOpen()) {
+                readOnly.session.setCacheMode(readOnly.previousCacheMode);
+            }
+            super.cleanupTransaction(readOnly.transactionData);
+            return;
+        }
+
+        super.cleanupTransaction(transactionData);
+    }
+
+    private static final class ReadOnlyTransactionData {
+
+        private final Object transactionData;
+
+        private final Session session;
+
+        private final CacheMode previousCacheMode;
+
+        private ReadOnlyTransactionData(Object transactionData, Session session, CacheMode previousCacheMode) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.previousCacheMode = previousCacheMode;
+        }
+    }
+}
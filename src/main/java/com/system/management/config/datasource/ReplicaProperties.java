@@ -0,0 +1,36 @@
+package com.system.management.config.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Cấu hình các database replica chỉ đọc (config.datasource) */
+
+@Data
+@ConfigurationProperties(prefix = "config.datasource")
+public class ReplicaProperties {
+
+    // Danh sách replica, để trống thì toàn bộ truy vấn đi vào database chính
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Độ trễ đồng bộ tối đa (giây) để replica còn được dùng cho truy vấn đọc
+    private long maxLagSeconds = 5;
+
+    // Chu kỳ kiểm tra độ trễ của replica (ms)
+    private long lagCheckInterval = 5000;
+
+    // Trong khoảng thời gian này (ms) sau khi ghi, truy vấn đọc của cùng tài khoản vẫn đi vào database chính
+    private long readYourWritesWindow = 10000;
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,166 @@
+package com.system.management.config.datasource;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.utils.LruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Định tuyến kết nối database:
+   - Transaction ghi (hoặc không có transaction read-only) -> database chính
+   - Transaction read-only -> replica đang khỏe, lần lượt xoay vòng
+   - Tài khoản vừa ghi dữ liệu trong khoảng read_your_writes_window -> database chính để đọc được dữ liệu mình vừa ghi */
+
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final String REPLICA_PREFIX = "replica-";
+
+    private static final String STATUS_SQL = "show replica status";
+
+    private static final String LEGACY_STATUS_SQL = "show slave status";
+
+    private final Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    private final List<String> healthyReplicas = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final LruCache<Long, Long> lastWrites = new LruCache<>(10000);
+
+    private final Set<String> legacyStatusReplicas = ConcurrentHashMap.newKeySet();
+
+    private final ReplicaProperties properties;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, ReplicaProperties properties) {
+        this.properties = properties;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            String key = REPLICA_PREFIX + i;
+            replicas.put(key, replicaDataSources.get(i));
+            healthyReplicas.add(key);
+            targets.put(key, replicaDataSources.get(i));
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+
+        Long accountId = getLoggedAccountId();
+        long now = System.currentTimeMillis();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (accountId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                recordWriteAfterCommit(accountId);
+            }
+            return PRIMARY;
+        }
+
+        if (accountId != null) {
+            Long lastWrite = lastWrites.get(accountId);
+            if (lastWrite != null && now - lastWrite < properties.getReadYourWritesWindow()) {
+                return PRIMARY;
+            }
+        }
+
+        // Lấy bản sao một lần: checkReplicaLag có thể loại replica giữa các lần đọc danh sách
+        List<String> candidates = List.copyOf(healthyReplicas);
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+
+        return candidates.get(Math.floorMod(counter.getAndIncrement(), candidates.size()));
+    }
+
+    // Tính khoảng read_your_writes_window từ lúc commit: transaction ghi chạy lâu hơn khoảng này vẫn đọc được dữ liệu vừa ghi
+    // Transaction rollback không ghi nhận
+    private void recordWriteAfterCommit(Long accountId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWrites.put(accountId, System.currentTimeMillis());
+            }
+        });
+    }
+
+    // Kiểm tra độ trễ đồng bộ từng replica, replica trễ quá max_lag_seconds hoặc lỗi kết nối sẽ bị loại khỏi vòng đọc
+    public void checkReplicaLag() {
+        replicas.forEach((key, dataSource) -> {
+            boolean healthy = isHealthy(key, dataSource);
+            if (healthy && !healthyReplicas.contains(key)) {
+                log.info("Replica {} is back in rotation", key);
+                healthyReplicas.add(key);
+            } else if (!healthy && healthyReplicas.remove(key)) {
+                log.warn("Replica {} removed from rotation", key);
+            }
+        });
+    }
+
+    private boolean isHealthy(String key, DataSource dataSource) {
+        try {
+            return isHealthy(key, new JdbcTemplate(dataSource));
+        } catch (Exception e) {
+            log.error("Check replica {} error: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    // MySQL từ 8.0.22: "show replica status" / Seconds_Behind_Source
+    // MySQL cũ hơn: chỉ có "show slave status" / Seconds_Behind_Master => Chạy lỗi cú pháp lần đầu thì ghi nhớ dùng câu lệnh cũ cho replica đó
+    boolean isHealthy(String key, JdbcOperations jdbcOperations) {
+
+        List<Map<String, Object>> status;
+        if (legacyStatusReplicas.contains(key)) {
+            status = jdbcOperations.queryForList(LEGACY_STATUS_SQL);
+        } else {
+            try {
+                status = jdbcOperations.queryForList(STATUS_SQL);
+            } catch (BadSqlGrammarException e) {
+                log.info("Replica {} does not support \"{}\", using \"{}\"", key, STATUS_SQL, LEGACY_STATUS_SQL);
+                status = jdbcOperations.queryForList(LEGACY_STATUS_SQL);
+                legacyStatusReplicas.add(key);
+            }
+        }
+
+        // Database không cấu hình replication (ví dụ môi trường local) thì coi như không có độ trễ
+        if (status.isEmpty()) {
+            return true;
+        }
+
+        Map<String, Object> row = status.get(0);
+        Object lag = row.containsKey("Seconds_Behind_Source") ? row.get("Seconds_Behind_Source") : row.get("Seconds_Behind_Master");
+        return lag != null && Long.parseLong(lag.toString()) <= properties.getMaxLagSeconds();
+    }
+
+    private Long getLoggedAccountId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getDetails() instanceof PoliceDto) {
+            return ((PoliceDto) authentication.getDetails()).getId();
+        }
+        return null;
+    }
+}
@@ -1,10 +1,10 @@
 package com.system.management.config.filter;
 
-import com.google.gson.Gson;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.response.ErrorResponse;
 import com.system.management.model.response.SuccessResponse;
 import com.system.management.service.AuthService;
+import com.system.management.utils.JsonCodec;
 import com.system.management.utils.enums.LevelEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -30,7 +30,7 @@ import java.nio.charset.StandardCharsets;
 public class TokenFilter extends OncePerRequestFilter {
 
     private final AuthService authService;
-    private final Gson gson;
+    private final JsonCodec jsonCodec;
 
     @Override
     protected void doFilterInternal(
@@ -74,6 +74,6 @@ public class TokenFilter extends OncePerRequestFilter {
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-        response.getWriter().write(gson.toJson(new ErrorResponse(status, errorMessage, request.getRequestURI())));
+        response.getWriter().write(jsonCodec.write(new ErrorResponse(status, errorMessage, request.getRequestURI())));
     }
 }
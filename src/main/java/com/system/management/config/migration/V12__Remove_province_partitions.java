@@ -0,0 +1,55 @@
+package com.system.management.config.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/* Trả drug_addicts và assign_supports đã được phân vùng bởi bản V6 cũ về bảng thường với khóa chính id.
+   Giữ cột assign_supports.shard_city_id và index của cột này để lọc theo tỉnh thành phố.
+   Bảng chưa phân vùng (CSDL mới, H2 khi chạy test) bỏ qua bước này */
+
+@Slf4j
+@Component
+public class V12__Remove_province_partitions extends BaseJavaMigration {
+
+    public static final List<String> TABLES = List.of("drug_addicts", "assign_supports");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        String product = context.getConnection().getMetaData().getDatabaseProductName();
+        if (!"MySQL".equalsIgnoreCase(product)) {
+            log.info("Skip removing province partitions on {}", product);
+            return;
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        for (String table : TABLES) {
+
+            Integer partitions = jdbcTemplate.queryForObject(" select count(*) from information_schema.partitions "
+                    + " where table_schema = database() and table_name = ? and partition_name is not null ", Integer.class, table);
+            if (partitions == null || partitions == 0) {
+                continue;
+            }
+
+            jdbcTemplate.execute("alter table " + table + " remove partitioning");
+
+            // Đổi khóa chính trong cùng một câu lệnh để cột id auto_increment luôn có khóa
+            jdbcTemplate.execute("alter table " + table + " drop primary key, add primary key (id)");
+
+            if ("drug_addicts".equals(table)) {
+                // V6 cũ đổi tỉnh thành phố thường trú null thành 0 để đưa vào khóa chính
+                jdbcTemplate.execute("alter table drug_addicts modify permanent_city_id bigint null default null");
+                jdbcTemplate.update("update drug_addicts set permanent_city_id = null where permanent_city_id = 0");
+            }
+
+            log.info("Removed {} partitions of {}", partitions, table);
+        }
+    }
+}
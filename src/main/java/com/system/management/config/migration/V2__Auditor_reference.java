@@ -0,0 +1,66 @@
+package com.system.management.config.migration;
+
+import com.system.management.model.dto.Auditor;
+import com.system.management.utils.AuditorCache;
+import com.system.management.utils.JsonCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Chuyển cột created_by / modified_by từ chuỗi JSON {"identifyNumber": ..., "fullName": ...} sang id cán bộ.
+   Bản ghi do hệ thống tạo ("Hệ thống") hoặc cán bộ không còn tồn tại được chuyển thành 0.
+   Chỉ cập nhật theo từng giá trị JSON khác nhau nên số câu update bằng số người tạo, không phụ thuộc số bản ghi */
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class V2__Auditor_reference extends BaseJavaMigration {
+
+    private static final String[] TABLES = new String[]{
+            "cities", "districts", "wards", "polices", "police_requests",
+            "treatment_places", "drug_addicts", "drug_addict_requests", "assign_supports"
+    };
+
+    private static final String[] COLUMNS = new String[]{"created_by", "modified_by"};
+
+    private final JsonCodec jsonCodec;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        // Số CCCD -> id cán bộ, ưu tiên bản ghi mới nhất nếu số CCCD bị trùng
+        Map<String, Long> policeIds = new HashMap<>();
+        jdbcTemplate.query("select id, identify_number from polices order by id desc",
+                rs -> {
+                    policeIds.putIfAbsent(rs.getString("identify_number"), rs.getLong("id"));
+                });
+
+        for (String table : TABLES) {
+            for (String column : COLUMNS) {
+
+                List<String> values = jdbcTemplate.queryForList(
+                        "select distinct " + column + " from " + table + " where " + column + " like '{%'", String.class);
+
+                for (String value : values) {
+                    Auditor auditor = jsonCodec.read(value, Auditor.class);
+                    Long policeId = policeIds.get(auditor.getIdentifyNumber());
+                    String reference = policeId == null ? AuditorCache.SYSTEM_REFERENCE : String.valueOf(policeId);
+
+                    jdbcTemplate.update("update " + table + " set " + column + " = ? where " + column + " = ?", reference, value);
+                }
+
+                log.info("Migrated {} auditor values of {}.{}", values.size(), table, column);
+            }
+        }
+    }
+}
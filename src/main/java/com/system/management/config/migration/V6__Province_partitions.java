@@ -0,0 +1,20 @@
+package com.system.management.config.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+/* Đã bỏ phân vùng drug_addicts và assign_supports theo tỉnh thành phố.
+   Phân vùng bắt buộc khóa chính (id, cột tỉnh thành phố) trong khi Hibernate tìm bản ghi theo id => Tìm theo id phải đọc tất cả phân vùng.
+   Giữ lại version này để lịch sử migration không đổi, CSDL đã chạy bản phân vùng cũ được V12 trả về khóa chính id */
+
+@Slf4j
+@Component
+public class V6__Province_partitions extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) {
+        log.info("Province partitioning withdrawn, nothing to migrate");
+    }
+}
@@ -2,8 +2,8 @@ package com.system.management.controller;
 
 import com.system.management.model.request.assign_support.*;
 import com.system.management.service.AssignSupportService;
+import com.system.management.utils.constants.MediaTypes;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -11,7 +11,7 @@ import javax.validation.Valid;
 @RestController
 @RequiredArgsConstructor
 @CrossOrigin(origins = "**")
-@RequestMapping(value = "/assign-support", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/assign-support", produces = {MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class AssignSupportController {
 
     private final AssignSupportService assignSupportService;
@@ -28,6 +28,12 @@ public class AssignSupportController {
         return assignSupportService.assignDrugAddict(request);
     }
 
+    // Phân công tự động các đối tượng chưa được phân công trong địa chính cho danh sách cảnh sát
+    @PostMapping(value = "drug-addict/auto-assign")
+    public Object autoAssignDrugAddict(@Valid @RequestBody AutoAssignDrugAddictRequest request) {
+        return assignSupportService.autoAssignDrugAddict(request);
+    }
+
     // Lấy danh sách đối tượng đã được phân công cho cảnh sát
     @PostMapping(value = "drug-addict/get-list-assigned")
     public Object getListAssigned(@Valid @RequestBody GetListAssignedDrugAddictRequest request) {
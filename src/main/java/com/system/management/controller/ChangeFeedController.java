@@ -0,0 +1,24 @@
+package com.system.management.controller;
+
+import com.system.management.model.request.change_feed.GetChangeFeedRequest;
+import com.system.management.service.ChangeFeedService;
+import com.system.management.utils.constants.MediaTypes;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = "**")
+@RequestMapping(value = "/change-feed", produces = {MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    // Lấy các bản ghi thay đổi sau vị trí đồng bộ
+    @PostMapping("/get-list")
+    public Object getList(@RequestBody @Valid GetChangeFeedRequest request) {
+        return changeFeedService.getList(request);
+    }
+}
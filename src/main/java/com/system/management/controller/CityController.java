@@ -1,12 +1,15 @@
 package com.system.management.controller;
 
 import com.system.management.model.request.city.GetListCityRequest;
+import com.system.management.model.request.city.ImportCadastralRequest;
 import com.system.management.model.request.city.InsertCityRequest;
 import com.system.management.model.request.city.UpdateCityRequest;
+import com.system.management.service.CadastralImportService;
 import com.system.management.service.CityService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.Valid;
 
@@ -18,6 +21,8 @@ public class CityController {
 
     private final CityService cityService;
 
+    private final CadastralImportService cadastralImportService;
+
     // Thêm mới
     @PostMapping(value = "/insert")
     public Object insert(@Valid @RequestBody InsertCityRequest request) {
@@ -41,4 +46,17 @@ public class CityController {
     public Object getList(@Valid @RequestBody GetListCityRequest request) {
         return cityService.getList(request);
     }
+
+    // Nạp bộ dữ liệu địa chính (tỉnh thành phố, quận huyện, phường xã) dạng JSON
+    @PostMapping(value = "/import")
+    public Object importCadastral(@Valid @RequestBody ImportCadastralRequest request) {
+        return cadastralImportService.importRecords(request);
+    }
+
+    // Nạp bộ dữ liệu địa chính dạng file CSV
+    @PostMapping(value = "/import-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Object importCadastralCsv(@RequestParam MultipartFile file,
+                                     @RequestParam(required = false) Boolean deleteMissing) {
+        return cadastralImportService.importCsv(file, deleteMissing);
+    }
 }
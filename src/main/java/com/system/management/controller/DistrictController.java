@@ -2,6 +2,7 @@ package com.system.management.controller;
 
 import com.system.management.model.request.district.GetListDistrictRequest;
 import com.system.management.model.request.district.InsertDistrictRequest;
+import com.system.management.model.request.district.MergeDistrictRequest;
 import com.system.management.model.request.district.UpdateDistrictRequest;
 import com.system.management.service.DistrictService;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,12 @@ public class DistrictController {
         return districtService.delete(id);
     }
 
+    // Sáp nhập, dữ liệu tham chiếu được chuyển ở luồng nền => Trả về thông tin tác vụ để theo dõi tiến độ
+    @PostMapping(value = "/merge")
+    public Object merge(@Valid @RequestBody MergeDistrictRequest request) {
+        return districtService.merge(request);
+    }
+
     // Lấy danh sách
     @PostMapping(value = "/get-list")
     public Object getList(@Valid @RequestBody GetListDistrictRequest request) {
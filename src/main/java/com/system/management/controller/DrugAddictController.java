@@ -4,11 +4,12 @@ import com.system.management.model.request.drug_addict.GetListDrugAddictRequest;
 import com.system.management.model.request.drug_addict.InsertDrugAddictRequest;
 import com.system.management.model.request.drug_addict.UpdateDrugAddictRequest;
 import com.system.management.model.request.drug_addict_request.ConfirmDrugAddictRequestRequest;
+import com.system.management.model.request.drug_addict_request.ConfirmListDrugAddictRequestRequest;
 import com.system.management.model.request.drug_addict_request.GetListDrugAddictRequestRequest;
 import com.system.management.service.DrugAddictRequestService;
 import com.system.management.service.DrugAddictService;
+import com.system.management.utils.constants.MediaTypes;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -16,7 +17,7 @@ import javax.validation.Valid;
 @RestController
 @RequiredArgsConstructor
 @CrossOrigin(origins = "**")
-@RequestMapping(value = "/drug-addict", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/drug-addict", produces = {MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class DrugAddictController {
 
     private final DrugAddictService drugAddictService;
@@ -62,4 +63,10 @@ public class DrugAddictController {
     public Object confirm(@Valid @RequestBody ConfirmDrugAddictRequestRequest request) {
         return drugAddictRequestService.confirm(request);
     }
+
+    // Duyệt / từ chối nhiều yêu cầu, trả về kết quả của từng yêu cầu
+    @PostMapping(value = "/confirm-list")
+    public Object confirmList(@Valid @RequestBody ConfirmListDrugAddictRequestRequest request) {
+        return drugAddictRequestService.confirmList(request);
+    }
 }
@@ -0,0 +1,27 @@
+package com.system.management.controller;
+
+import com.system.management.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = "**")
+@RequestMapping(value = "/job", produces = MediaType.APPLICATION_JSON_VALUE)
+public class JobController {
+
+    private final JobService jobService;
+
+    // Lấy tiến độ tác vụ chạy nền
+    @GetMapping("/get")
+    public Object get(@RequestParam String id) {
+        return jobService.get(id);
+    }
+
+    // Lấy danh sách tác vụ chạy nền do tài khoản đang login tạo
+    @GetMapping("/get-list")
+    public Object getList() {
+        return jobService.getList();
+    }
+}
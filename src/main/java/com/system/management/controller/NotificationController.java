@@ -0,0 +1,28 @@
+package com.system.management.controller;
+
+import com.system.management.service.NotificationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequiredArgsConstructor
+@CrossOrigin(origins = "**")
+@RequestMapping(value = "/notification")
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    // Lấy vé đăng ký nhận thông báo (request có access token)
+    @PostMapping(value = "/ticket")
+    public Object createTicket() {
+        return notificationService.createTicket();
+    }
+
+    // Đăng ký nhận thông báo thay đổi (Server-Sent Events), xác thực bằng vé vì EventSource không gửi được header
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(value = "ticket", required = false) String ticket) {
+        return notificationService.subscribe(ticket);
+    }
+}
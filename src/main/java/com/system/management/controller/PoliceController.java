@@ -1,14 +1,16 @@
 package com.system.management.controller;
 
 import com.system.management.model.request.police.GetListPoliceRequest;
+import com.system.management.model.request.police.HandoverPoliceRequest;
 import com.system.management.model.request.police.InsertPoliceRequest;
 import com.system.management.model.request.police.UpdatePoliceRequest;
+import com.system.management.model.request.police_request.ConfirmListPoliceRequestRequest;
 import com.system.management.model.request.police_request.ConfirmPoliceRequestRequest;
 import com.system.management.model.request.police_request.GetListPoliceRequestRequest;
 import com.system.management.service.PoliceRequestService;
 import com.system.management.service.PoliceService;
+import com.system.management.utils.constants.MediaTypes;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -16,7 +18,7 @@ import javax.validation.Valid;
 @RestController
 @RequiredArgsConstructor
 @CrossOrigin(origins = "**")
-@RequestMapping(value = "/police", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/police", produces = {MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class PoliceController {
 
     private final PoliceService policeService;
@@ -33,9 +35,16 @@ public class PoliceController {
         return policeService.update(request);
     }
 
+    // Xóa cảnh sát, đối tượng và địa chính đang phụ trách được bàn giao cho handoverPoliceId hoặc trả về danh sách chưa phân công
     @DeleteMapping("/delete")
-    public Object delete(@RequestParam Long id) {
-        return policeService.delete(id);
+    public Object delete(@RequestParam Long id, @RequestParam(required = false) Long handoverPoliceId) {
+        return policeService.delete(id, handoverPoliceId);
+    }
+
+    // Bàn giao đối tượng và địa chính đang phụ trách của cảnh sát
+    @PostMapping(value = "/handover")
+    public Object handover(@Valid @RequestBody HandoverPoliceRequest request) {
+        return policeService.handover(request);
     }
 
     @PostMapping(value = "/get-list")
@@ -62,4 +71,10 @@ public class PoliceController {
     public Object confirm(@Valid @RequestBody ConfirmPoliceRequestRequest request) {
         return policeRequestService.confirm(request);
     }
+
+    // Duyệt / từ chối nhiều yêu cầu, trả về kết quả của từng yêu cầu
+    @PostMapping(value = "/confirm-list")
+    public Object confirmList(@Valid @RequestBody ConfirmListPoliceRequestRequest request) {
+        return policeRequestService.confirmList(request);
+    }
 }
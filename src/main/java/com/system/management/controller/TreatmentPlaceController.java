@@ -4,8 +4,8 @@ import com.system.management.model.request.treatment_place.GetListTreatmentPlace
 import com.system.management.model.request.treatment_place.InsertTreatmentPlacePlaceRequest;
 import com.system.management.model.request.treatment_place.UpdateTreatmentPlacePlaceRequest;
 import com.system.management.service.TreatmentPlaceService;
+import com.system.management.utils.constants.MediaTypes;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -13,7 +13,7 @@ import javax.validation.Valid;
 @RestController
 @RequiredArgsConstructor
 @CrossOrigin(origins = "**")
-@RequestMapping(value = "/treatment_place", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequestMapping(value = "/treatment_place", produces = {MediaTypes.APPLICATION_JSON, MediaTypes.APPLICATION_SMILE, MediaTypes.APPLICATION_CBOR})
 public class TreatmentPlaceController {
 
     private final TreatmentPlaceService treatmentPlaceService;
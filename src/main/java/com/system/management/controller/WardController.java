@@ -2,6 +2,7 @@ package com.system.management.controller;
 
 import com.system.management.model.request.ward.GetListWardRequest;
 import com.system.management.model.request.ward.InsertWardRequest;
+import com.system.management.model.request.ward.MergeWardRequest;
 import com.system.management.model.request.ward.UpdateWardRequest;
 import com.system.management.service.WardService;
 import lombok.RequiredArgsConstructor;
@@ -36,6 +37,12 @@ public class WardController {
         return wardService.delete(id);
     }
 
+    // Sáp nhập, dữ liệu tham chiếu được chuyển ở luồng nền => Trả về thông tin tác vụ để theo dõi tiến độ
+    @PostMapping(value = "/merge")
+    public Object merge(@Valid @RequestBody MergeWardRequest request) {
+        return wardService.merge(request);
+    }
+
     // Lấy danh sách
     @PostMapping(value = "/get-list")
     public Object getList(@Valid @RequestBody GetListWardRequest request) {
@@ -1,17 +1,26 @@
 package com.system.management.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Auditor {
+// Serializable để Hibernate lưu được các entity có cột created_by / modified_by vào second-level cache
+public class Auditor implements Serializable {
+
+    // Id cán bộ, được lưu vào cột created_by / modified_by thay cho chuỗi JSON
+    @JsonIgnore
+    private Long id;
 
     private String identifyNumber;
+
     private String fullName;
 
     public Auditor(String identifyNumber) {
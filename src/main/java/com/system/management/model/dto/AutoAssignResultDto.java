@@ -0,0 +1,29 @@
+package com.system.management.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Kết quả phân công tự động cho từng cảnh sát */
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AutoAssignResultDto {
+
+    private Long policeId;
+
+    private String fullName;
+
+    // Số đối tượng đang giám sát trước khi phân công
+    private Integer previousCaseload;
+
+    // Số đối tượng được phân công thêm
+    private Integer assignedCount;
+
+    // Số đối tượng đang giám sát sau khi phân công
+    private Integer caseload;
+
+    private List<Long> drugAddictIds = new ArrayList<>();
+}
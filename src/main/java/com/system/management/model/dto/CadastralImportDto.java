@@ -0,0 +1,27 @@
+package com.system.management.model.dto;
+
+import lombok.Data;
+
+/* Kết quả nạp bộ dữ liệu địa chính: số bản ghi thêm mới, cập nhật, xóa theo từng cấp */
+
+@Data
+public class CadastralImportDto {
+
+    private int insertedCities;
+
+    private int updatedCities;
+
+    private int deletedCities;
+
+    private int insertedDistricts;
+
+    private int updatedDistricts;
+
+    private int deletedDistricts;
+
+    private int insertedWards;
+
+    private int updatedWards;
+
+    private int deletedWards;
+}
@@ -0,0 +1,23 @@
+package com.system.management.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/* Các bản ghi thêm mới / cập nhật / xóa sau một vị trí đồng bộ, bản ghi có status = DELETED là bản ghi đã bị xóa */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDto {
+
+    private List<Object> items;
+
+    // Vị trí đồng bộ cho lần gọi tiếp theo, FE lưu lại và gửi lên ở lần gọi sau
+    private String nextCursor;
+
+    // true => Còn thay đổi chưa lấy hết, gọi tiếp ngay với nextCursor
+    private Boolean hasMore;
+}
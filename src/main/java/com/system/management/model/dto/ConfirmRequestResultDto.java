@@ -0,0 +1,25 @@
+package com.system.management.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Kết quả duyệt / từ chối của từng yêu cầu khi xử lý nhiều yêu cầu cùng lúc */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConfirmRequestResultDto {
+
+    private Long id;
+
+    // Trạng thái truyền xuống (ACCEPT / REJECT)
+    private String status;
+
+    private Boolean success;
+
+    // Lý do không xử lý được yêu cầu
+    private String message;
+}
@@ -0,0 +1,49 @@
+package com.system.management.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Date;
+
+/* Tiến độ tác vụ chạy nền */
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobDto {
+
+    private String id;
+
+    private String type;
+
+    private String typeName;
+
+    private String status;
+
+    private String statusName;
+
+    // Bước đang chạy (thường là tên bảng đang cập nhật) và số bước đã hoàn thành / tổng số bước
+    private String step;
+
+    private Integer completedSteps;
+
+    private Integer totalSteps;
+
+    // Khoảng id đã quét / tổng khoảng id của bước đang chạy
+    private Long processedRows;
+
+    private Long totalRows;
+
+    // Tổng số bản ghi đã được cập nhật
+    private Long affectedRows;
+
+    private String message;
+
+    private Long createdBy;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy HH:mm:ss", timezone = "Asia/Ho_Chi_Minh")
+    private Date startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy HH:mm:ss", timezone = "Asia/Ho_Chi_Minh")
+    private Date finishedAt;
+}
@@ -0,0 +1,21 @@
+package com.system.management.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Thông báo có thay đổi, FE nhận được thì tải lại danh sách tương ứng */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDto {
+
+    // Loại thông báo (NotificationTypeEnums)
+    private String type;
+
+    // Id bản ghi thay đổi (yêu cầu, cảnh sát được phân công)
+    private Long id;
+
+    private Long timestamp;
+}
@@ -1,5 +1,6 @@
 package com.system.management.model.entity;
 
+import com.system.management.utils.FunctionUtils;
 import lombok.*;
 
 import javax.persistence.*;
@@ -39,6 +40,16 @@ public class AssignSupport extends BaseEntity {
     @Column(name = "level")
     private Integer level;
 
+    @Column(name = "shard_city_id", nullable = false)
+    private Long shardCityId;
+
+    @Column(name = "cadastral_path")
+    private String cadastralPath;
+
+    // Đường dẫn địa chính trước lần chuyển địa chính gần nhất => Đồng bộ thay đổi trả bản ghi xóa cho đơn vị cũ
+    @Column(name = "previous_cadastral_path")
+    private String previousCadastralPath;
+
     @Transient
     private Long permanentCityId;
 
@@ -50,4 +61,17 @@ public class AssignSupport extends BaseEntity {
 
     @Transient
     private String permanentAddressDetail;
-}
\ No newline at end of file
+
+    // Phân công địa chính: đường dẫn theo địa chính được phân công. Phân công đối tượng: lấy theo đường dẫn của đối tượng
+    @PrePersist
+    @PreUpdate
+    private void updateCadastralPath() {
+        if (drugAddictId == null) {
+            String path = FunctionUtils.buildCadastralPath(cityId, districtId, wardId);
+            if (cadastralPath != null && !cadastralPath.equals(path)) {
+                previousCadastralPath = cadastralPath;
+            }
+            cadastralPath = path;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.system.management.model.entity;
 
+import com.system.management.utils.FunctionUtils;
 import lombok.*;
 
 import javax.persistence.*;
@@ -73,4 +74,22 @@ public class DrugAddict extends BaseEntity {
 
     @Column(name = "is_at_permanent")
     private Boolean isAtPermanent;
-}
\ No newline at end of file
+
+    @Column(name = "cadastral_path")
+    private String cadastralPath;
+
+    // Đường dẫn địa chính trước lần chuyển địa chính gần nhất => Đồng bộ thay đổi trả bản ghi xóa cho đơn vị cũ
+    @Column(name = "previous_cadastral_path")
+    private String previousCadastralPath;
+
+    // Cập nhật đường dẫn địa chính theo địa chỉ thường trú mỗi khi thêm / sửa
+    @PrePersist
+    @PreUpdate
+    private void updateCadastralPath() {
+        String path = FunctionUtils.buildCadastralPath(permanentCityId, permanentDistrictId, permanentWardId);
+        if (cadastralPath != null && !cadastralPath.equals(path)) {
+            previousCadastralPath = cadastralPath;
+        }
+        cadastralPath = path;
+    }
+}
@@ -1,11 +1,16 @@
 package com.system.management.model.entity;
 
+import com.system.management.utils.FunctionUtils;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "police")
 @Getter
 @Setter
 @ToString
@@ -61,4 +66,22 @@ public class Police extends BaseEntity {
 
     @Column(name = "assign_status")
     private Integer assignStatus;
+
+    @Column(name = "cadastral_path")
+    private String cadastralPath;
+
+    // Đường dẫn địa chính trước lần chuyển địa chính gần nhất => Đồng bộ thay đổi trả bản ghi xóa cho đơn vị cũ
+    @Column(name = "previous_cadastral_path")
+    private String previousCadastralPath;
+
+    // Cập nhật đường dẫn địa chính theo đơn vị mỗi khi thêm / sửa
+    @PrePersist
+    @PreUpdate
+    private void updateCadastralPath() {
+        String path = FunctionUtils.buildCadastralPath(cityId, districtId, wardId);
+        if (cadastralPath != null && !cadastralPath.equals(path)) {
+            previousCadastralPath = cadastralPath;
+        }
+        cadastralPath = path;
+    }
 }
@@ -1,10 +1,15 @@
 package com.system.management.model.entity;
 
+import com.system.management.utils.FunctionUtils;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "treatment_place")
 @Getter
 @Setter
 @ToString
@@ -48,4 +53,22 @@ public class TreatmentPlace extends BaseEntity {
 
     @Column(name = "leader_email")
     private String leaderEmail;
-}
\ No newline at end of file
+
+    @Column(name = "cadastral_path")
+    private String cadastralPath;
+
+    // Đường dẫn địa chính trước lần chuyển địa chính gần nhất => Đồng bộ thay đổi trả bản ghi xóa cho đơn vị cũ
+    @Column(name = "previous_cadastral_path")
+    private String previousCadastralPath;
+
+    // Cập nhật đường dẫn địa chính theo đơn vị mỗi khi thêm / sửa
+    @PrePersist
+    @PreUpdate
+    private void updateCadastralPath() {
+        String path = FunctionUtils.buildCadastralPath(cityId, districtId, wardId);
+        if (cadastralPath != null && !cadastralPath.equals(path)) {
+            previousCadastralPath = cadastralPath;
+        }
+        cadastralPath = path;
+    }
+}
@@ -0,0 +1,22 @@
+package com.system.management.model.request.assign_support;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+public class AutoAssignDrugAddictRequest {
+
+    @NotEmpty(message = "Danh sách cảnh sát không được để trống")
+    private List<Long> policeIds;
+
+    private Long cityId;
+
+    private Long districtId;
+
+    private Long wardId;
+
+    // Ưu tiên phân công đối tượng cho cảnh sát công tác cùng phường xã với nơi ở thường trú của đối tượng
+    private Boolean preferSameWard;
+}
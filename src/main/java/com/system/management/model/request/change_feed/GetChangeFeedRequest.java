@@ -0,0 +1,18 @@
+package com.system.management.model.request.change_feed;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+@Data
+public class GetChangeFeedRequest {
+
+    // Loại dữ liệu (ChangeFeedTypeEnums): DRUG_ADDICT, POLICE, TREATMENT_PLACE, ASSIGN_SUPPORT
+    @NotBlank(message = "Loại dữ liệu không được để trống")
+    private String type;
+
+    // nextCursor của lần gọi trước, không truyền => Lấy từ đầu
+    private String cursor;
+
+    private int size;
+}
@@ -0,0 +1,25 @@
+package com.system.management.model.request.city;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+
+/* Một dòng trong bộ dữ liệu địa chính: tỉnh thành phố, quận huyện (nếu có), phường xã (nếu có) */
+
+@Data
+public class CadastralRecordRequest {
+
+    @NotBlank(message = "Mã tỉnh/thành phố không được để trống")
+    private String cityCode;
+
+    @NotBlank(message = "Tên tỉnh/thành phố không được để trống")
+    private String cityName;
+
+    private String districtCode;
+
+    private String districtName;
+
+    private String wardCode;
+
+    private String wardName;
+}
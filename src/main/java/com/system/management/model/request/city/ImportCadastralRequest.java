@@ -0,0 +1,18 @@
+package com.system.management.model.request.city;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+public class ImportCadastralRequest {
+
+    @Valid
+    @NotEmpty(message = "Dữ liệu địa chính không được để trống")
+    private List<CadastralRecordRequest> records;
+
+    // Xóa các địa chính đang hoạt động không có trong bộ dữ liệu
+    private Boolean deleteMissing;
+}
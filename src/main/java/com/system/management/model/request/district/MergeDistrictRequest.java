@@ -0,0 +1,19 @@
+package com.system.management.model.request.district;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class MergeDistrictRequest {
+
+    // Các quận huyện bị sáp nhập, phường xã trực thuộc được chuyển sang quận huyện nhận sáp nhập
+    @NotEmpty(message = "Danh sách quận/huyện sáp nhập không được để trống")
+    private List<Long> sourceIds;
+
+    // Quận huyện nhận sáp nhập
+    @NotNull(message = "ID quận/huyện nhận sáp nhập không được để trống")
+    private Long targetId;
+}
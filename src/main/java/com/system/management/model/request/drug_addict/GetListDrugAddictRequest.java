@@ -2,6 +2,8 @@ package com.system.management.model.request.drug_addict;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class GetListDrugAddictRequest {
 
@@ -9,6 +11,9 @@ public class GetListDrugAddictRequest {
 
     private int size;
 
+    // Các trường cần lấy (VD: ["fullName", "identifyNumber"]), không truyền => Lấy toàn bộ
+    private List<String> fields;
+
     private String identifyNumber;
 
     private String fullName;
@@ -0,0 +1,13 @@
+package com.system.management.model.request.drug_addict_request;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+public class ConfirmListDrugAddictRequestRequest {
+
+    @NotEmpty(message = "Danh sách yêu cầu không được để trống")
+    private List<ConfirmDrugAddictRequestRequest> requests;
+}
@@ -2,6 +2,8 @@ package com.system.management.model.request.police;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class GetListPoliceRequest {
 
@@ -9,6 +11,9 @@ public class GetListPoliceRequest {
 
     private int size;
 
+    // Các trường cần lấy (VD: ["fullName", "identifyNumber"]), không truyền => Lấy toàn bộ
+    private List<String> fields;
+
     private String identifyNumber;
 
     private String fullName;
@@ -0,0 +1,16 @@
+package com.system.management.model.request.police;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class HandoverPoliceRequest {
+
+    // Cảnh sát bàn giao (đã bị xóa hoặc chuyển công tác)
+    @NotNull(message = "ID cảnh sát bàn giao không được để trống")
+    private Long policeId;
+
+    // Cảnh sát nhận bàn giao, không truyền => Trả đối tượng và địa chính về danh sách chưa phân công
+    private Long targetPoliceId;
+}
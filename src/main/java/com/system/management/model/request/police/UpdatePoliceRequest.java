@@ -42,4 +42,10 @@ public class UpdatePoliceRequest {
     private Long districtId;
 
     private Long wardId;
+
+    // Bàn giao đối tượng và địa chính đang phụ trách khi chuyển công tác
+    // Có handoverPoliceId => Chuyển cho cảnh sát đó, ngược lại trả về danh sách chưa phân công
+    private Boolean handover;
+
+    private Long handoverPoliceId;
 }
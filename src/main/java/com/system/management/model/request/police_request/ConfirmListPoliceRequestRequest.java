@@ -0,0 +1,13 @@
+package com.system.management.model.request.police_request;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+public class ConfirmListPoliceRequestRequest {
+
+    @NotEmpty(message = "Danh sách yêu cầu không được để trống")
+    private List<ConfirmPoliceRequestRequest> requests;
+}
@@ -2,6 +2,8 @@ package com.system.management.model.request.treatment_place;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class GetListTreatmentPlaceRequest {
 
@@ -9,6 +11,9 @@ public class GetListTreatmentPlaceRequest {
 
     private int size;
 
+    // Các trường cần lấy (VD: ["fullName", "identifyNumber"]), không truyền => Lấy toàn bộ
+    private List<String> fields;
+
     private String fullName;
 
     private String leaderFullName;
@@ -0,0 +1,19 @@
+package com.system.management.model.request.ward;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class MergeWardRequest {
+
+    // Các phường xã bị sáp nhập, sau khi sáp nhập sẽ bị xóa
+    @NotEmpty(message = "Danh sách phường/xã sáp nhập không được để trống")
+    private List<Long> sourceIds;
+
+    // Phường xã nhận sáp nhập
+    @NotNull(message = "ID phường/xã nhận sáp nhập không được để trống")
+    private Long targetId;
+}
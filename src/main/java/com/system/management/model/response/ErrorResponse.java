@@ -2,12 +2,10 @@ package com.system.management.model.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.system.management.utils.FunctionUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
 @Data
 @AllArgsConstructor
 @JsonInclude(Include.NON_NULL)
@@ -21,6 +19,6 @@ public class ErrorResponse {
         this.status = status;
         this.message = error;
         this.path = path;
-        this.timestamp = new SimpleDateFormat("HH:mm:ss dd-MM-yyyy").format(new Date());
+        this.timestamp = FunctionUtils.currentTimestamp();
     }
 }
@@ -2,13 +2,11 @@ package com.system.management.model.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.system.management.utils.FunctionUtils;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.http.HttpStatus;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
 @Getter
 @Setter
 @JsonInclude(Include.NON_NULL)
@@ -20,12 +18,12 @@ public class SuccessResponse<T> {
     private T data;
 
     public SuccessResponse() {
-        this.timestamp = new SimpleDateFormat("HH:mm:ss dd-MM-yyyy").format(new Date());
+        this.timestamp = FunctionUtils.currentTimestamp();
         this.message = "Thành công";
     }
 
     public SuccessResponse(T data) {
-        this.timestamp = new SimpleDateFormat("HH:mm:ss dd-MM-yyyy").format(new Date());
+        this.timestamp = FunctionUtils.currentTimestamp();
         this.message = "Thành công";
         this.data = data;
     }
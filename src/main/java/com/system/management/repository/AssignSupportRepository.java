@@ -2,6 +2,9 @@ package com.system.management.repository;
 
 import com.system.management.model.entity.AssignSupport;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
@@ -22,4 +25,14 @@ public interface AssignSupportRepository extends JpaRepository<AssignSupport, Lo
     boolean existsByPoliceIdAndDrugAddictIdAndStatus(Long policeId, Long drugAddictId, String status);
 
     boolean existsByPoliceIdAndCityIdAndDistrictIdAndWardIdAndStatus(Long policeId, Long cityId, Long districtId, Long wardId, String status);
+
+    @Transactional
+    @Modifying
+    @Query("update AssignSupport a set a.shardCityId = :shardCityId,"
+            + " a.previousCadastralPath = case when a.cadastralPath <> :cadastralPath then a.cadastralPath else a.previousCadastralPath end,"
+            + " a.cadastralPath = :cadastralPath, a.modifiedAt = CURRENT_TIMESTAMP where a.drugAddictId = :drugAddictId"
+            + " and (a.shardCityId <> :shardCityId or a.cadastralPath is null or a.cadastralPath <> :cadastralPath)")
+    int updateCadastralByDrugAddictId(@Param("drugAddictId") Long drugAddictId,
+                                      @Param("shardCityId") Long shardCityId,
+                                      @Param("cadastralPath") String cadastralPath);
 }
\ No newline at end of file
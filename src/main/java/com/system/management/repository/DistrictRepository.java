@@ -3,6 +3,8 @@ package com.system.management.repository;
 import com.system.management.model.entity.District;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DistrictRepository extends JpaRepository<District, Long> {
@@ -11,6 +13,8 @@ public interface DistrictRepository extends JpaRepository<District, Long> {
 
     Optional<District> findByIdAndStatus(Long id, String status);
 
+    List<District> findAllByIdInAndStatus(Collection<Long> ids, String status);
+
     boolean existsByCodeAndStatusAndCityId(String code, String status, Long id);
 
     boolean existsByCodeAndStatusAndIdNotAndCityId(String code, String status, Long id, Long cityId);
@@ -3,6 +3,8 @@ package com.system.management.repository;
 import com.system.management.model.entity.DrugAddict;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DrugAddictRepository extends JpaRepository<DrugAddict, Long> {
@@ -10,4 +12,6 @@ public interface DrugAddictRepository extends JpaRepository<DrugAddict, Long> {
     Optional<DrugAddict> findByIdAndStatus(Long id, String status);
 
     boolean existsByIdentifyNumberAndStatus(String identifyNumber, String status);
-}
\ No newline at end of file
+
+    List<DrugAddict> findAllByIdInAndStatus(Collection<Long> ids, String status);
+}
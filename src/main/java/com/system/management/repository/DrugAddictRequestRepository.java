@@ -3,6 +3,8 @@ package com.system.management.repository;
 import com.system.management.model.entity.DrugAddictRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface DrugAddictRequestRepository extends JpaRepository<DrugAddictRequest, Long> {
@@ -10,4 +12,6 @@ public interface DrugAddictRequestRepository extends JpaRepository<DrugAddictReq
     Optional<DrugAddictRequest> findByIdAndStatus(Long id, String status);
 
     Optional<DrugAddictRequest> findByDrugAddictIdAndStatus(Long drugAddictId, String status);
-}
\ No newline at end of file
+
+    List<DrugAddictRequest> findAllByIdInAndStatus(Collection<Long> ids, String status);
+}
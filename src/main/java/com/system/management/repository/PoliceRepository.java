@@ -4,14 +4,22 @@ import com.system.management.model.entity.Police;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface PoliceRepository extends JpaRepository<Police, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByIdAndStatus(Long id, String status);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Police> findByIdAndStatus(Long id, String status);
 
     boolean existsByIdentifyNumberAndStatus(String identifyNumber, String status);
@@ -19,6 +27,8 @@ public interface PoliceRepository extends JpaRepository<Police, Long> {
     Optional<Police> findByIdentifyNumberAndStatus(String identifyNumber, String status);
 
     @Modifying
-    @Query(value = "update polices set role = :role where id = :id", nativeQuery = true)
+    @Query(value = "update polices set role = :role, modified_at = now() where id = :id", nativeQuery = true)
     void updateRoleOldSheriff(@Param(value = "role") Integer role, @Param(value = "id") Long id);
-}
\ No newline at end of file
+
+    List<Police> findAllByIdInAndStatus(Collection<Long> ids, String status);
+}
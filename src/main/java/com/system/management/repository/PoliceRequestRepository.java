@@ -3,6 +3,8 @@ package com.system.management.repository;
 import com.system.management.model.entity.PoliceRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface PoliceRequestRepository extends JpaRepository<PoliceRequest, Long> {
@@ -10,4 +12,6 @@ public interface PoliceRequestRepository extends JpaRepository<PoliceRequest, Lo
     Optional<PoliceRequest> findByIdAndStatus(Long id, String status);
 
     Optional<PoliceRequest> findByPoliceIdAndStatus(Long policeId, String status);
-}
\ No newline at end of file
+
+    List<PoliceRequest> findAllByIdInAndStatus(Collection<Long> ids, String status);
+}
@@ -2,12 +2,18 @@ package com.system.management.repository;
 
 import com.system.management.model.entity.TreatmentPlace;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 public interface TreatmentPlaceRepository extends JpaRepository<TreatmentPlace, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByIdAndStatus(Long id, String status);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<TreatmentPlace> findByIdAndStatus(Long id, String status);
 }
\ No newline at end of file
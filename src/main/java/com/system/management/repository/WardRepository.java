@@ -3,6 +3,8 @@ package com.system.management.repository;
 import com.system.management.model.entity.Ward;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface WardRepository extends JpaRepository<Ward, Long> {
@@ -11,6 +13,8 @@ public interface WardRepository extends JpaRepository<Ward, Long> {
 
     Optional<Ward> findByIdAndStatus(Long id, String status);
 
+    List<Ward> findAllByIdInAndStatus(Collection<Long> ids, String status);
+
     boolean existsByCodeAndStatusAndDistrictIdAndCityId(String code, String status, Long districtId, Long cityId);
 
     boolean existsByCodeAndStatusAndIdNotAndDistrictIdAndCityId(String code, String status, Long id, Long districtId, Long cityId);
@@ -7,6 +7,7 @@ import com.system.management.model.response.SuccessResponse;
 import com.system.management.repository.DrugAddictRepository;
 import com.system.management.utils.FunctionUtils;
 import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.NotificationTypeEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.enums.StatusEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -16,12 +17,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
-import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
 import static com.system.management.utils.enums.AssignStatusEnums.ASSIGNED;
@@ -34,8 +35,13 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class AssignSupportService extends BaseCommonService {
 
+    // Độ lệch số đối tượng tối đa cho phép khi ưu tiên phân công cho cảnh sát cùng phường xã
+    private static final int SAME_WARD_TOLERANCE = 2;
+
     private final DrugAddictRepository drugAddictRepository;
 
+    private final NotificationService notificationService;
+
     public SuccessResponse<Object> isAssigned(Long drugAddictId) {
 
         // Tìm kiếm thông tin đối tượng nghiện hút trong bảng drug_addicts
@@ -80,6 +86,7 @@ public class AssignSupportService extends BaseCommonService {
         throw new BadRequestException(error);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public SuccessResponse<Object> assignDrugAddict(AssignDrugAddictRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -138,6 +145,9 @@ public class AssignSupportService extends BaseCommonService {
             }
         }
 
+        // Cảnh sát đang giám sát trước khi phân công lại, dùng để gửi thông báo
+        Long oldPoliceId = drugAddict.getPoliceId();
+
         // Cập nhật lại giá trị ID cảnh sát giám sát đối tượng
         drugAddict.setPoliceId(police.getId());
         drugAddictRepository.save(drugAddict);
@@ -146,6 +156,8 @@ public class AssignSupportService extends BaseCommonService {
         AssignSupport assignSupport = new AssignSupport();
         assignSupport.setPoliceId(police.getId());          // ID cảnh sát giám sát đối tượng
         assignSupport.setDrugAddictId(drugAddict.getId());  // ID đối tượng
+        assignSupport.setShardCityId(drugAddict.getPermanentCityId()); // Phân vùng theo tỉnh thành phố thường trú của đối tượng
+        assignSupport.setCadastralPath(drugAddict.getCadastralPath()); // Đường dẫn địa chính theo địa chỉ thường trú của đối tượng
         assignSupport.setStatus(ACTIVE.name());             // Trạng thái ACTIVE
         assignSupportRepository.save(assignSupport);        // Lưu vào database
 
@@ -153,10 +165,259 @@ public class AssignSupportService extends BaseCommonService {
         police.setAssignStatus(ASSIGNED.getValue());
         policeRepository.save(police);
 
+        // Đối tượng đổi cảnh sát giám sát, trạng thái phân công của cảnh sát cũ và mới thay đổi
+        detailCacheService.evictPolices(Arrays.asList(police.getId(), oldPoliceId));
+
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, Arrays.asList(police.getId(), oldPoliceId));
+
         // Trả về thành công kèm dữ liệu bản ghi assign_supports vừa tạo
         return new SuccessResponse<>(convertToAssignSupportDto(assignSupport));
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> autoAssignDrugAddict(AutoAssignDrugAddictRequest request) {
+
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
+
+        // Nếu tài khoản đang login không phải Cảnh sát trưởng thì không được phép phân công giám sát đối tượng cho cảnh sát khác
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        // Phạm vi địa chính phân công: theo đơn vị công tác của tài khoản đang login, nếu không có thì theo dữ liệu truyền xuống
+        Long cityId = FunctionUtils.isNullOrZero(loggedAccount.getCityId()) ? request.getCityId() : loggedAccount.getCityId();
+        Long districtId = FunctionUtils.isNullOrZero(loggedAccount.getDistrictId()) ? request.getDistrictId() : loggedAccount.getDistrictId();
+        Long wardId = FunctionUtils.isNullOrZero(loggedAccount.getWardId()) ? request.getWardId() : loggedAccount.getWardId();
+
+        // Bắt buộc phải có tỉnh thành phố => Chỉ đọc dữ liệu của tỉnh thành phố đó theo index
+        if (FunctionUtils.isNullOrZero(cityId)) {
+            throw new BadRequestException(CITY_NOT_EXISTS);
+        }
+
+        Set<Long> policeIds = new HashSet<>(request.getPoliceIds());
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("police_ids", policeIds);
+        params.addValue("status", ACTIVE.name());
+        params.addValue("city_id", cityId);
+
+        // Lấy ra thông tin cảnh sát kèm số đối tượng đang giám sát
+        StringBuilder sql = new StringBuilder();
+        sql.append(" select p.id, p.full_name, p.ward_id, p.role, p.cadastral_path,");
+        sql.append("        (select count(*) from assign_supports a");
+        sql.append("         where a.police_id = p.id and a.drug_addict_id is not null and a.status = :status) as caseload");
+        sql.append(" from polices p where p.id in (:police_ids) and p.status = :status ");
+
+        // Chỉ phân công cho cảnh sát (không phải cảnh sát trưởng) thuộc đơn vị công tác của tài khoản đang login
+        String scope = getLoggedScope();
+        List<Caseload> caseloads = namedParameterJdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            if (!isInCadastralScope(rs.getString("cadastral_path"), scope)) {
+                throw new ForbiddenException(NOT_ALLOW);
+            }
+            if (!RoleEnums.POLICE.value.equals(rs.getInt("role"))) {
+                throw new BadRequestException(NOT_POLICE_ROLE);
+            }
+            return new Caseload(rs.getLong("id"), rs.getString("full_name"),
+                    rs.getObject("ward_id", Long.class), rs.getInt("caseload"));
+        });
+
+        // Có cảnh sát không tồn tại hoặc đã bị xóa => Ném ra lỗi
+        if (caseloads.size() != policeIds.size()) {
+            throw new ProcessException(POLICE_NOT_EXISTS);
+        }
+
+        // Lấy ra danh sách đối tượng trong phạm vi địa chính chưa được phân công cho cảnh sát nào
+        sql = new StringBuilder();
+        // Giữ điều kiện permanent_city_id để dùng index theo tỉnh thành phố, lọc các cấp dưới theo tiền tố đường dẫn địa chính
+        // Có phường xã mà không có quận huyện => Đường dẫn chỉ đến tỉnh thành phố, vẫn lọc theo permanent_ward_id
+        sql.append(" select d.id, d.permanent_ward_id, d.cadastral_path, d.police_id from drug_addicts d");
+        sql.append(" where d.status = :status and d.permanent_city_id = :city_id ");
+        appendCadastralPathFilter(sql, bindCadastralPathFilter(params, cityId, districtId, wardId), "d.cadastral_path", "d.permanent_");
+
+        sql.append(" and not exists (select 1 from assign_supports a where a.drug_addict_id = d.id and a.status = :status) ");
+        sql.append(" order by d.id for update ");
+
+        // Khóa các đối tượng chưa phân công => Lần phân công tự động khác trên cùng phạm vi phải chờ transaction này commit
+        List<DrugAddict> drugAddicts = namedParameterJdbcTemplate
+                .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(DrugAddict.class));
+
+        // Điều kiện not exists phía trên có thể đọc dữ liệu cũ (snapshot trước khi chờ khóa)
+        // => Đọc lại có khóa bản ghi phân công đang hoạt động, bỏ đối tượng vừa được lần chạy đồng thời phân công xong
+        if (!drugAddicts.isEmpty()) {
+            Set<Long> assignedDrugAddictIds = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                    " select drug_addict_id from assign_supports where drug_addict_id in (:drug_addict_ids) and status = :status for update ",
+                    new MapSqlParameterSource()
+                            .addValue("drug_addict_ids", drugAddicts.stream().map(DrugAddict::getId).collect(Collectors.toList()))
+                            .addValue("status", ACTIVE.name()),
+                    Long.class));
+            drugAddicts.removeIf(drugAddict -> assignedDrugAddictIds.contains(drugAddict.getId()));
+        }
+
+        Map<Long, String> cadastralPaths = new HashMap<>(drugAddicts.size() * 2);
+        drugAddicts.forEach(drugAddict -> cadastralPaths.put(drugAddict.getId(), drugAddict.getCadastralPath()));
+
+        // Đối tượng còn police_id nhưng không còn bản ghi assign_supports đang hoạt động (dữ liệu cũ, xóa phân công lỗi)
+        // => Cảnh sát cũ mất đối tượng khi phân công lại, phải cập nhật lại trạng thái phân công như khi phân công thủ công
+        Set<Long> oldPoliceIds = new HashSet<>();
+        drugAddicts.forEach(drugAddict -> {
+            if (!FunctionUtils.isNullOrZero(drugAddict.getPoliceId())) {
+                oldPoliceIds.add(drugAddict.getPoliceId());
+            }
+        });
+
+        // Chia đối tượng cho cảnh sát trong bộ nhớ
+        balanceCaseloads(caseloads, drugAddicts, Boolean.TRUE.equals(request.getPreferSameWard()));
+
+        // Ghi dữ liệu phân công theo lô, mỗi đối tượng một bản ghi assign_supports và cập nhật cảnh sát giám sát trong drug_addicts
+        Date now = new Date();
+        String auditor = String.valueOf(loggedAccount.getId());
+
+        List<MapSqlParameterSource> batch = new ArrayList<>();
+        List<Long> assignedPoliceIds = new ArrayList<>();
+
+        for (Caseload caseload : caseloads) {
+            if (!caseload.drugAddictIds.isEmpty()) {
+                assignedPoliceIds.add(caseload.policeId);
+            }
+            for (Long drugAddictId : caseload.drugAddictIds) {
+                batch.add(new MapSqlParameterSource()
+                        .addValue("police_id", caseload.policeId)
+                        .addValue("drug_addict_id", drugAddictId)
+                        .addValue("city_id", cityId)
+                        .addValue("cadastral_path", cadastralPaths.get(drugAddictId))
+                        .addValue("status", ACTIVE.name())
+                        .addValue("now", now)
+                        .addValue("auditor", auditor));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            MapSqlParameterSource[] batchParams = batch.toArray(new MapSqlParameterSource[0]);
+
+            namedParameterJdbcTemplate.batchUpdate(" insert into assign_supports"
+                    + " (police_id, drug_addict_id, shard_city_id, cadastral_path, status, created_at, created_by, modified_at, modified_by)"
+                    + " values (:police_id, :drug_addict_id, :city_id, :cadastral_path, :status, :now, :auditor, :now, :auditor) ", batchParams);
+
+            namedParameterJdbcTemplate.batchUpdate(" update drug_addicts set police_id = :police_id, modified_at = :now, modified_by = :auditor"
+                    + " where id = :drug_addict_id and permanent_city_id = :city_id ", batchParams);
+
+            // Set lại trạng thái phân công của cảnh sát về Đã phân công
+            namedParameterJdbcTemplate.update(" update polices set assign_status = :assign_status, modified_at = :now where id in (:police_ids) ",
+                    new MapSqlParameterSource()
+                            .addValue("assign_status", ASSIGNED.getValue())
+                            .addValue("now", now)
+                            .addValue("police_ids", assignedPoliceIds));
+
+            // Cảnh sát cũ không còn đối tượng hay địa chính nào đang được phân công => Chưa phân công
+            // Cảnh sát cũ cũng nằm trong danh sách vừa được phân công thì đã có bản ghi assign_supports mới, không bị cập nhật
+            if (!oldPoliceIds.isEmpty()) {
+                namedParameterJdbcTemplate.update(" update polices set assign_status = :assign_status, modified_at = :now where id in (:police_ids) "
+                                + " and not exists (select 1 from assign_supports a where a.police_id = polices.id and a.status = :status) ",
+                        new MapSqlParameterSource()
+                                .addValue("assign_status", UN_ASSIGN.getValue())
+                                .addValue("now", now)
+                                .addValue("status", ACTIVE.name())
+                                .addValue("police_ids", oldPoliceIds));
+            }
+
+            Set<Long> changedPoliceIds = new HashSet<>(assignedPoliceIds);
+            changedPoliceIds.addAll(oldPoliceIds);
+
+            evictPoliceCache(changedPoliceIds);
+            notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, changedPoliceIds);
+        }
+
+        // Trả về thành công kèm kết quả phân công của từng cảnh sát
+        List<AutoAssignResultDto> results = new ArrayList<>();
+        caseloads.forEach(caseload -> results.add(caseload.toResult()));
+
+        return new SuccessResponse<>(results);
+    }
+
+    // Phân công lần lượt từng đối tượng cho cảnh sát đang giám sát ít đối tượng nhất
+    // Nếu ưu tiên cùng phường xã: chọn cảnh sát cùng phường xã ít việc nhất khi không lệch quá SAME_WARD_TOLERANCE đối tượng so với cảnh sát ít việc nhất
+    static void balanceCaseloads(List<Caseload> caseloads, List<DrugAddict> drugAddicts, boolean preferSameWard) {
+
+        if (caseloads.isEmpty()) {
+            return;
+        }
+
+        Comparator<Caseload> comparator = Comparator.comparingInt((Caseload caseload) -> caseload.caseload)
+                .thenComparing(caseload -> caseload.policeId);
+
+        TreeSet<Caseload> all = new TreeSet<>(comparator);
+        Map<Long, TreeSet<Caseload>> byWard = new HashMap<>();
+
+        for (Caseload caseload : caseloads) {
+            all.add(caseload);
+            if (preferSameWard && caseload.wardId != null) {
+                byWard.computeIfAbsent(caseload.wardId, key -> new TreeSet<>(comparator)).add(caseload);
+            }
+        }
+
+        for (DrugAddict drugAddict : drugAddicts) {
+
+            Caseload target = all.first();
+
+            TreeSet<Caseload> sameWard = byWard.get(drugAddict.getPermanentWardId());
+            if (sameWard != null && sameWard.first().caseload <= target.caseload + SAME_WARD_TOLERANCE) {
+                target = sameWard.first();
+            }
+
+            // Xóa khỏi TreeSet trước khi thay đổi số đối tượng để giữ đúng thứ tự sắp xếp
+            all.remove(target);
+            TreeSet<Caseload> targetWard = target.wardId == null ? null : byWard.get(target.wardId);
+            if (targetWard != null) {
+                targetWard.remove(target);
+            }
+
+            target.caseload++;
+            target.drugAddictIds.add(drugAddict.getId());
+
+            all.add(target);
+            if (targetWard != null) {
+                targetWard.add(target);
+            }
+        }
+    }
+
+    // Số đối tượng đang giám sát của một cảnh sát trong quá trình phân công tự động
+    static final class Caseload {
+
+        private final Long policeId;
+
+        private final String fullName;
+
+        private final Long wardId;
+
+        private final int previousCaseload;
+
+        private int caseload;
+
+        private final List<Long> drugAddictIds = new ArrayList<>();
+
+        Caseload(Long policeId, String fullName, Long wardId, int caseload) {
+            this.policeId = policeId;
+            this.fullName = fullName;
+            this.wardId = wardId;
+            this.previousCaseload = caseload;
+            this.caseload = caseload;
+        }
+
+        AutoAssignResultDto toResult() {
+            AutoAssignResultDto result = new AutoAssignResultDto();
+            result.setPoliceId(policeId);
+            result.setFullName(fullName);
+            result.setPreviousCaseload(previousCaseload);
+            result.setAssignedCount(drugAddictIds.size());
+            result.setCaseload(caseload);
+            result.setDrugAddictIds(drugAddictIds);
+            return result;
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
     public SuccessResponse<Object> assignCadastral(AssignCadastralRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -227,17 +488,24 @@ public class AssignSupportService extends BaseCommonService {
         assignSupport.setDistrictId(districtId);        // ID quận huyện hỗ trợ
         assignSupport.setWardId(wardId);                // ID phường xã hỗ trợ
         assignSupport.setLevel(level.value);            // Cấp địa chính hỗ trợ
+        assignSupport.setShardCityId(FunctionUtils.isNullOrZero(cityId) ? 0L : cityId); // Phân vùng, cấp trung ương là 0
         assignSupport.setStatus(ACTIVE.name());         // Trạng thái ACTIVE
         assignSupportRepository.save(assignSupport);    // Lưu vào database
+        cadastralCacheService.evictAssigned(police.getId());
 
         // Set lại trạng thái phân công của cảnh sát về Đã phân công
         police.setAssignStatus(ASSIGNED.getValue());
         policeRepository.save(police);
 
+        detailCacheService.evictPolices(List.of(police.getId()));
+
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(police.getId()));
+
         // Trả về thành công kèm dữ liệu bản ghi assign_supports vừa tạo
         return new SuccessResponse<>(convertToAssignSupportDto(assignSupport));
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public SuccessResponse<Object> delete(Long id) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -257,6 +525,8 @@ public class AssignSupportService extends BaseCommonService {
         // Cập nhật trạng thái bản ghi assign_supports về DELETED
         assignSupport.setStatus(DELETED.name());
         assignSupportRepository.save(assignSupport);
+        cadastralCacheService.evictAssigned(assignSupport.getPoliceId());
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(assignSupport.getPoliceId()));
 
         // Nếu cảnh sát gắn với bản ghi assign_supports không còn tổn tại bản ghi nào đang hoạt động trong assign_supports
         if (!assignSupportRepository.existsByPoliceIdAndStatus(assignSupport.getPoliceId(), ACTIVE.name())) {
@@ -271,10 +541,13 @@ public class AssignSupportService extends BaseCommonService {
             }
         }
 
+        detailCacheService.evictPolices(List.of(assignSupport.getPoliceId()));
+
         // Trả về thành công
         return new SuccessResponse<>();
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListAssignedDrugAddict(GetListAssignedDrugAddictRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -285,6 +558,9 @@ public class AssignSupportService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
+        // Tham số query riêng của request => Request đồng thời không ghi đè tham số của nhau (khóa gộp và query dùng cùng một bộ tham số)
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
         // Khởi tạo query lấy ra dữ liệu đối tượng đã được phân công của cảnh sát
         StringBuilder sql = new StringBuilder();
         sql.append(" select a.id                       as id,");
@@ -297,12 +573,13 @@ public class AssignSupportService extends BaseCommonService {
         sql.append("        a.police_id                as police_id,");
         sql.append("        a.drug_addict_id           as drug_addict_id,");
         sql.append("        a.created_at               as created_at,");
-        sql.append("        a.created_by               as txt_created_by");
+        sql.append("        a.created_by               as txt_created_by,");
+        sql.append("        greatest(a.modified_at, b.modified_at) as modified_at");
         sql.append(" from assign_supports a join drug_addicts b on a.drug_addict_id = b.id");
         sql.append(" where a.police_id = :police_id and a.drug_addict_id is not null");
 
         // Set tham số trong query là id cảnh sát muốn tìm kiếm
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
+        params.addValue("police_id", request.getPoliceId());
 
         // Nếu có dữ liệu số CCCD của đối tượng muốn tìm kiếm
         if (StringUtils.isNotBlank(request.getIdentifyNumber())) {
@@ -311,7 +588,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and b.identify_number like concat('%', :identify_number, '%') ");
 
             // Set tham số trong query là số CCCD của đối tượng
-            sqlParameterSource.addValue("identify_number", request.getIdentifyNumber());
+            params.addValue("identify_number", request.getIdentifyNumber());
         }
 
         // Nếu có dữ liệu họ tên của đối tượng muốn tìm kiếm
@@ -321,17 +598,18 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and b.full_name like concat('%', :full_name, '%') ");
 
             // Set tham số trong query là họ tên của đối tượng
-            sqlParameterSource.addValue("full_name", request.getFullName());
+            params.addValue("full_name", request.getFullName());
         }
 
         // Nếu có dữ liệu id tỉnh thành phố nơi ở thường trú của đối tượng muốn tìm kiếm
         if (!FunctionUtils.isNullOrZero(request.getCityId())) {
 
             // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố nơi ở thường trú của đối tượng
-            sql.append(" and b.permanent_city_id = :city_id ");
+            // Điều kiện shard_city_id để dùng index idx_assign_supports_shard_police_status
+            sql.append(" and b.permanent_city_id = :city_id and a.shard_city_id = :city_id ");
 
             // Set tham số trong query là id tỉnh thành phố nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("city_id", request.getCityId());
+            params.addValue("city_id", request.getCityId());
         }
 
         // Nếu có dữ liệu id quận huyện nơi ở thường trú của đối tượng muốn tìm kiếm
@@ -341,7 +619,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and b.permanent_district_id = :district_id ");
 
             // Set tham số trong query là id quận huyện nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
+            params.addValue("district_id", request.getDistrictId());
         }
 
         // Nếu có dữ liệu id phường xã nơi ở thường trú của đối tượng muốn tìm kiếm
@@ -351,7 +629,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and b.permanent_ward_id = :ward_id ");
 
             // Set tham số trong query là id phường xã nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("ward_id", request.getWardId());
+            params.addValue("ward_id", request.getWardId());
         }
 
         // Nếu có dữ liệu ngày bắt đầu khoảng thời gian tìm kiếm được phân công
@@ -361,7 +639,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and DATE (a.created_at) >= DATE (:start_date) ");
 
             // Set tham số trong query là ngày bắt đầu khoảng thời gian tìm kiếm được phân công
-            sqlParameterSource.addValue("start_date", request.getStartDate());
+            params.addValue("start_date", request.getStartDate());
         }
 
         // Nếu có dữ liệu ngày kết thúc khoảng thời gian tìm kiếm được phân công
@@ -371,12 +649,17 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and DATE (a.created_at) <= DATE (:end_date) ");
 
             // Set tham số trong query là ngày kết thúc khoảng thời gian tìm kiếm được phân công
-            sqlParameterSource.addValue("end_date", request.getEndDate());
+            params.addValue("end_date", request.getEndDate());
         }
 
         // Set trạng thái bản ghi assign_supports của cảnh sát bắt buộc phải là ACTIVE thì mới tính
         sql.append(" and a.status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         // Sắp xếp theo ngày tạo bản ghi assign_supports là từ mới nhất đến cũ nhất
         sql.append(" order by a.created_at desc ");
@@ -388,23 +671,28 @@ public class AssignSupportService extends BaseCommonService {
 
         // Cộng chuỗi query thông tin phân trang
         sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
+        params.addValue("page", (page - 1) * size); // Số thứ tự trang
+        params.addValue("size", size);                    // Số lượng bản ghi trên trang
 
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng AssignSupport
-        List<AssignSupport> assignSupports = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(AssignSupport.class));
+        // Các request đồng thời cùng điều kiện lọc dùng chung một lần query và convert
+        List<AssignSupportDto> assignSupportDtos = singleFlight.execute(buildQueryKey(sql.toString(), params), () -> {
 
-        // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng AssignSupportDto
-        List<AssignSupportDto> assignSupportDtos = new ArrayList<>();
+            // Thực thi query và trả về danh sách kết quả là một list đối tượng AssignSupport
+            List<AssignSupport> assignSupports = namedParameterJdbcTemplate
+                    .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(AssignSupport.class));
 
-        // Duyệt từng phần tử của assignSupports và convert sang AssignSupportDto rồi thêm vào danh sách assignSupportDtos
-        assignSupports.forEach(item -> assignSupportDtos.add(convertToAssignSupportDto(item)));
+            // Duyệt từng phần tử của assignSupports và convert sang AssignSupportDto
+            List<AssignSupportDto> result = new ArrayList<>();
+            assignSupports.forEach(item -> result.add(convertToAssignSupportDto(item)));
+
+            return result;
+        });
 
         // Trả về thành công kèm danh sách đối tượng AssignSupportDto
         return new SuccessResponse<>(assignSupportDtos);
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListUnassignedDrugAddict(GetListUnassignedDrugAddictRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -415,6 +703,9 @@ public class AssignSupportService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
+        // Tham số query riêng của request => Request đồng thời không ghi đè tham số của nhau (khóa gộp và query dùng cùng một bộ tham số)
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
         // Khởi tạo query lấy ra dữ liệu đối tượng chưa được phân công của cảnh sát
         StringBuilder sql = new StringBuilder();
         sql.append(" select id                       as id,");
@@ -423,11 +714,12 @@ public class AssignSupportService extends BaseCommonService {
         sql.append("        permanent_ward_id        as permanent_ward_id,");
         sql.append("        permanent_district_id    as permanent_district_id,");
         sql.append("        permanent_city_id        as permanent_city_id,");
-        sql.append("        permanent_address_detail as permanent_address_detail");
+        sql.append("        permanent_address_detail as permanent_address_detail,");
+        sql.append("        modified_at              as modified_at");
         sql.append(" from drug_addicts where (police_id is null or police_id <> :police_id)");
 
         // Set tham số trong query là id cảnh sát muốn tìm kiếm
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
+        params.addValue("police_id", request.getPoliceId());
 
         // Nếu có dữ liệu số CCCD của đối tượng muốn tìm kiếm
         if (StringUtils.isNotBlank(request.getIdentifyNumber())) {
@@ -436,7 +728,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and identify_number like concat('%', :identify_number, '%') ");
 
             // Set tham số trong query là số CCCD của đối tượng
-            sqlParameterSource.addValue("identify_number", request.getIdentifyNumber());
+            params.addValue("identify_number", request.getIdentifyNumber());
         }
 
         // Nếu có dữ liệu họ tên của đối tượng muốn tìm kiếm
@@ -446,7 +738,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and full_name like concat('%', :full_name, '%') ");
 
             // Set tham số trong query là họ tên của đối tượng
-            sqlParameterSource.addValue("full_name", request.getFullName());
+            params.addValue("full_name", request.getFullName());
         }
 
         // Nếu có dữ liệu id tỉnh thành phố nơi ở thường trú của đối tượng muốn tìm kiếm
@@ -456,7 +748,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and permanent_city_id = :city_id ");
 
             // Set tham số trong query là id tỉnh thành phố nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("city_id", request.getCityId());
+            params.addValue("city_id", request.getCityId());
         }
 
         // Nếu có dữ liệu id quận huyện nơi ở thường trú của đối tượng muốn tìm kiếm
@@ -466,7 +758,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and permanent_district_id = :district_id ");
 
             // Set tham số trong query là id quận huyện nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
+            params.addValue("district_id", request.getDistrictId());
         }
 
         // Nếu có dữ liệu id phường xã nơi ở thường trú của đối tượng muốn tìm kiếm
@@ -476,12 +768,17 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and permanent_ward_id = :ward_id ");
 
             // Set tham số trong query là id phường xã nơi ở thường trú của đối tượng
-            sqlParameterSource.addValue("ward_id", request.getWardId());
+            params.addValue("ward_id", request.getWardId());
         }
 
         // Set trạng thái của đối tượng bắt buộc phải là ACTIVE thì mới tính
         sql.append(" and status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         // Sắp xếp theo ngày tạo bản ghi đối tượng là từ mới nhất đến cũ nhất
         sql.append(" order by created_at desc ");
@@ -493,23 +790,28 @@ public class AssignSupportService extends BaseCommonService {
 
         // Cộng chuỗi query thông tin phân trang
         sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
+        params.addValue("page", (page - 1) * size); // Số thứ tự trang
+        params.addValue("size", size);                    // Số lượng bản ghi trên trang
 
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng DrugAddict
-        List<DrugAddict> drugAddicts = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(DrugAddict.class));
+        // Các request đồng thời cùng điều kiện lọc dùng chung một lần query và convert
+        List<DrugAddictDto> drugAddictDtos = singleFlight.execute(buildQueryKey(sql.toString(), params), () -> {
 
-        // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng DrugAddictDto
-        List<DrugAddictDto> drugAddictDtos = new ArrayList<>();
+            // Thực thi query và trả về danh sách kết quả là một list đối tượng DrugAddict
+            List<DrugAddict> drugAddicts = namedParameterJdbcTemplate
+                    .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(DrugAddict.class));
 
-        // Duyệt từng phần tử của drugAddicts và convert sang DrugAddictDto rồi thêm vào danh sách drugAddictDtos
-        drugAddicts.forEach(item -> drugAddictDtos.add(convertToDrugAddictDto(item)));
+            // Duyệt từng phần tử của drugAddicts và convert sang DrugAddictDto
+            List<DrugAddictDto> result = new ArrayList<>();
+            drugAddicts.forEach(item -> result.add(convertToDrugAddictDto(item)));
+
+            return result;
+        });
 
         // Trả về thành công kèm danh sách đối tượng DrugAddictDto
         return new SuccessResponse<>(drugAddictDtos);
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListAssignedCadastral(GetListAssignCadastralRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -520,22 +822,26 @@ public class AssignSupportService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
+        // Tham số query riêng của request => Request đồng thời không ghi đè tham số của nhau (khóa gộp và query dùng cùng một bộ tham số)
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
         // Khởi tạo query lấy ra dữ liệu địa chính đã được phân công của cảnh sát
         StringBuilder sql = new StringBuilder();
-        sql.append(" select id, city_id, district_id, ward_id, level, created_at, created_by as txt_created_by from assign_supports ");
+        sql.append(" select id, city_id, district_id, ward_id, level, created_at, created_by as txt_created_by, modified_at from assign_supports ");
         sql.append(" where police_id = :police_id and city_id is not null ");
 
         // Set tham số trong query là id cảnh sát muốn tìm kiếm
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
+        params.addValue("police_id", request.getPoliceId());
 
         // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
         if (!FunctionUtils.isNullOrZero(request.getCityId())) {
 
             // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố
-            sql.append(" and city_id = :city_id ");
+            // Điều kiện shard_city_id để dùng index idx_assign_supports_shard_police_status
+            sql.append(" and city_id = :city_id and shard_city_id = :city_id ");
 
             // Set tham số trong query là id tỉnh thành phố
-            sqlParameterSource.addValue("city_id", request.getCityId());
+            params.addValue("city_id", request.getCityId());
         }
 
         // Nếu có dữ liệu id quận huyện muốn tìm kiếm
@@ -545,7 +851,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and district_id = :district_id ");
 
             // Set tham số trong query là id quận huyện
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
+            params.addValue("district_id", request.getDistrictId());
         }
 
         // Nếu có dữ liệu id phường xã muốn tìm kiếm
@@ -555,7 +861,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and ward_id = :ward_id ");
 
             // Set tham số trong query là id phường xã
-            sqlParameterSource.addValue("ward_id", request.getWardId());
+            params.addValue("ward_id", request.getWardId());
         }
 
         // Nếu có dữ liệu ngày bắt đầu khoảng thời gian tìm kiếm được phân công
@@ -565,7 +871,7 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and DATE (created_at) >= DATE (:start_date) ");
 
             // Set tham số trong query là ngày bắt đầu khoảng thời gian tìm kiếm được phân công
-            sqlParameterSource.addValue("start_date", request.getStartDate());
+            params.addValue("start_date", request.getStartDate());
         }
 
         // Nếu có dữ liệu ngày kết thúc khoảng thời gian tìm kiếm được phân công
@@ -575,12 +881,17 @@ public class AssignSupportService extends BaseCommonService {
             sql.append(" and DATE (created_at) <= DATE (:end_date) ");
 
             // Set tham số trong query là ngày kết thúc khoảng thời gian tìm kiếm được phân công
-            sqlParameterSource.addValue("end_date", request.getEndDate());
+            params.addValue("end_date", request.getEndDate());
         }
 
         // Set trạng thái bản ghi assign_supports của cảnh sát bắt buộc phải là ACTIVE thì mới tính
         sql.append(" and status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         // Sắp xếp theo ngày tạo bản ghi assign_supports là từ mới nhất đến cũ nhất
         sql.append(" order by created_at desc ");
@@ -592,23 +903,28 @@ public class AssignSupportService extends BaseCommonService {
 
         // Cộng chuỗi query thông tin phân trang
         sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
+        params.addValue("page", (page - 1) * size); // Số thứ trang
+        params.addValue("size", size);                    // Số lượng bản ghi trên trang
+
+        // Các request đồng thời cùng điều kiện lọc dùng chung một lần query và convert
+        List<AssignSupportDto> assignSupportDtos = singleFlight.execute(buildQueryKey(sql.toString(), params), () -> {
 
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng AssignSupport
-        List<AssignSupport> assignSupports = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(AssignSupport.class));
+            // Thực thi query và trả về danh sách kết quả là một list đối tượng AssignSupport
+            List<AssignSupport> assignSupports = namedParameterJdbcTemplate
+                    .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(AssignSupport.class));
 
-        // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng AssignSupportDto
-        List<AssignSupportDto> assignSupportDtos = new ArrayList<>();
+            // Duyệt từng phần tử của assignSupports và convert sang AssignSupportDto
+            List<AssignSupportDto> result = new ArrayList<>();
+            assignSupports.forEach(item -> result.add(convertToAssignSupportDto(item)));
 
-        // Duyệt từng phần tử của assignSupports và convert sang AssignSupportDto rồi thêm vào danh sách assignSupportDtos
-        assignSupports.forEach(item -> assignSupportDtos.add(convertToAssignSupportDto(item)));
+            return result;
+        });
 
         // Trả về thành công kèm danh sách đối tượng AssignSupportDto
         return new SuccessResponse<>(assignSupportDtos);
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListUnassignedCadastral(GetListUnassignedCadastralRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -634,55 +950,14 @@ public class AssignSupportService extends BaseCommonService {
 
     public SuccessResponse<Object> getListUnassignedCity(GetListUnassignedCadastralRequest request) {
 
-        // Khởi tạo query lấy ra dữ liệu danh sách id tỉnh thành phố đã được phân công cho cảnh sát
-        StringBuilder sql = new StringBuilder();
-        sql.append(" select city_id from assign_supports where police_id = :police_id and level = :level ");
-
-        // Set tham số trong query là id cảnh sát muốn tìm kiếm và cấp địa chính là tỉnh thành phố
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
-        sqlParameterSource.addValue("level", LevelEnums.CITY.value);
-
-        // Thực thi query lấy ra danh sách id tỉnh thành phố đã được phân công cho cảnh sát
-        List<Long> ids = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, SingleColumnRowMapper.newInstance(Long.class));
-
-        // Khởi tạo query lấy ra dữ liệu thông tin tỉnh thành phố đang hoạt động
-        sql = new StringBuilder();
-        sql.append(" select id, code, full_name from cities where status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
-
-        // Loại bỏ các tỉnh thành phố cảnh sát đã được phân công
-        if (!ids.isEmpty()) {
-            sql.append(" and id not in (:ids) ");
-            sqlParameterSource.addValue("ids", ids);
-        }
-
-        // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getCityId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố muốn tìm kiếm
-            sql.append(" and id = :id ");
-
-            // Set tham số trong query là id tỉnh thành phố muốn tìm kiếm
-            sqlParameterSource.addValue("id", request.getCityId());
-        }
-
-        // Sắp xếp theo ngày tạo bản ghi cities là từ mới nhất đến cũ nhất
-        sql.append(" order by created_at desc ");
-
         // Lấy ra thông tin phân trang truyền xuống
         // Nếu không có thì mặc định lấy ra trang đầu tiên (page = 1) và số lượng bản ghi trên trang là 100 (size = 100)
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
         int size = FunctionUtils.isNullOrZero(request.getSize()) ? 100 : request.getSize();
 
-        // Cộng chuỗi query thông tin phân trang
-        sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
-
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng City
-        List<City> cities = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(City.class));
+        // Lấy ra danh sách tỉnh thành phố chưa được phân công cho cảnh sát từ cây địa chính trong bộ nhớ
+        List<City> cities = cadastralCacheService
+                .getUnassignedCities(request.getPoliceId(), request.getCityId(), page, size);
 
         // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng CityDto
         List<CityDto> cityDtos = new ArrayList<>();
@@ -696,65 +971,14 @@ public class AssignSupportService extends BaseCommonService {
 
     public SuccessResponse<Object> getListUnassignedDistrict(GetListUnassignedCadastralRequest request) {
 
-        // Khởi tạo query lấy ra dữ liệu danh sách id quận huyện đã được phân công cho cảnh sát
-        StringBuilder sql = new StringBuilder();
-        sql.append(" select district_id from assign_supports where police_id = :police_id and level = :level ");
-
-        // Set tham số trong query là id cảnh sát muốn tìm kiếm và cấp địa chính là quận huyện
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
-        sqlParameterSource.addValue("level", LevelEnums.DISTRICT.value);
-
-        // Thực thi query lấy ra danh sách id quận huyện đã được phân công cho cảnh sát
-        List<Long> ids = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, SingleColumnRowMapper.newInstance(Long.class));
-
-        // Khởi tạo query lấy ra dữ liệu thông tin quận huyện đang hoạt động
-        sql = new StringBuilder();
-        sql.append(" select id, code, full_name, city_id from districts where status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
-
-        // Loại bỏ các quận huyện cảnh sát đã được phân công
-        if (!ids.isEmpty()) {
-            sql.append(" and id not in (:ids) ");
-            sqlParameterSource.addValue("ids", ids);
-        }
-
-        // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getCityId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố muốn tìm kiếm
-            sql.append(" and city_id = :city_id ");
-
-            // Set tham số trong query là id tỉnh thành phố muốn tìm kiếm
-            sqlParameterSource.addValue("city_id", request.getCityId());
-        }
-
-        // Nếu có dữ liệu id quận huyện muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getDistrictId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id quận huyện muốn tìm kiếm
-            sql.append(" and id = :id ");
-
-            // Set tham số trong query là id quận huyện muốn tìm kiếm
-            sqlParameterSource.addValue("id", request.getDistrictId());
-        }
-
-        // Sắp xếp theo ngày tạo bản ghi districts là từ mới nhất đến cũ nhất
-        sql.append(" order by created_at desc ");
-
         // Lấy ra thông tin phân trang truyền xuống
         // Nếu không có thì mặc định lấy ra trang đầu tiên (page = 1) và số lượng bản ghi trên trang là 100 (size = 100)
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
         int size = FunctionUtils.isNullOrZero(request.getSize()) ? 100 : request.getSize();
 
-        // Cộng chuỗi query thông tin phân trang
-        sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
-
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng District
-        List<District> districts = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(District.class));
+        // Lấy ra danh sách quận huyện chưa được phân công cho cảnh sát từ cây địa chính trong bộ nhớ
+        List<District> districts = cadastralCacheService
+                .getUnassignedDistricts(request.getPoliceId(), request.getCityId(), request.getDistrictId(), page, size);
 
         // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng DistrictDto
         List<DistrictDto> districtDtos = new ArrayList<>();
@@ -762,9 +986,8 @@ public class AssignSupportService extends BaseCommonService {
         // Duyệt từng phần tử của districts và convert sang DistrictDto rồi thêm vào danh sách districtDtos
         districts.forEach(district -> {
             DistrictDto districtDto = modelMapper.map(district, DistrictDto.class);
-            districtDto.setCity(findCityByIdWithoutAuditor(districtDto.getCityId()));
+            districtDto.setCity(toCityDto(cadastralCacheService.findCity(district.getCityId())));
             districtDtos.add(districtDto);
-
         });
 
         // Trả về thành công kèm danh sách đối tượng DistrictDto
@@ -773,75 +996,14 @@ public class AssignSupportService extends BaseCommonService {
 
     public SuccessResponse<Object> getListUnassignedWard(GetListUnassignedCadastralRequest request) {
 
-        // Khởi tạo query lấy ra dữ liệu danh sách id phường xã đã được phân công cho cảnh sát
-        StringBuilder sql = new StringBuilder();
-        sql.append(" select ward_id from assign_supports where police_id = :police_id and level = :level ");
-
-        // Set tham số trong query là id cảnh sát muốn tìm kiếm và cấp địa chính là phường xã
-        sqlParameterSource.addValue("police_id", request.getPoliceId());
-        sqlParameterSource.addValue("level", LevelEnums.WARD.value);
-
-        // Thực thi query lấy ra danh sách id phường xã đã được phân công cho cảnh sát
-        List<Integer> ids = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, new SingleColumnRowMapper<>(Integer.class));
-
-        // Khởi tạo query lấy ra dữ liệu thông tin phường xã đang hoạt động
-        sql = new StringBuilder();
-        sql.append(" select id, code, full_name, city_id, district_id from wards where status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
-
-        // Loại bỏ các phường xã cảnh sát đã được phân công
-        if (!ids.isEmpty()) {
-            sql.append(" and id not in (:ids) ");
-            sqlParameterSource.addValue("ids", ids);
-        }
-
-        // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getCityId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố muốn tìm kiếm
-            sql.append(" and city_id = :city_id ");
-
-            // Set tham số trong query là id tỉnh thành phố muốn tìm kiếm
-            sqlParameterSource.addValue("city_id", request.getCityId());
-        }
-
-        // Nếu có dữ liệu id quận huyện muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getDistrictId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id quận huyện muốn tìm kiếm
-            sql.append(" and id = :id ");
-
-            // Set tham số trong query là id quận huyện muốn tìm kiếm
-            sqlParameterSource.addValue("id", request.getDistrictId());
-        }
-
-        // Nếu có dữ liệu id phường xã muốn tìm kiếm
-        if (!FunctionUtils.isNullOrZero(request.getWardId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id phường xã muốn tìm kiếm
-            sql.append(" and id = :id ");
-
-            // Set tham số trong query là id phường xã muốn tìm kiếm
-            sqlParameterSource.addValue("id", request.getWardId());
-        }
-
-        // Sắp xếp theo ngày tạo bản ghi wards là từ mới nhất đến cũ nhất
-        sql.append(" order by created_at desc ");
-
         // Lấy ra thông tin phân trang truyền xuống
         // Nếu không có thì mặc định lấy ra trang đầu tiên (page = 1) và số lượng bản ghi trên trang là 100 (size = 100)
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
         int size = FunctionUtils.isNullOrZero(request.getSize()) ? 100 : request.getSize();
 
-        // Cộng chuỗi query thông tin phân trang
-        sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
-
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng Ward
-        List<Ward> wards = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(Ward.class));
+        // Lấy ra danh sách phường xã chưa được phân công cho cảnh sát từ cây địa chính trong bộ nhớ
+        List<Ward> wards = cadastralCacheService.getUnassignedWards(request.getPoliceId(),
+                request.getCityId(), request.getDistrictId(), request.getWardId(), page, size);
 
         // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng WardDto
         List<WardDto> wardDtos = new ArrayList<>();
@@ -849,12 +1011,34 @@ public class AssignSupportService extends BaseCommonService {
         // Duyệt từng phần tử của wards và convert sang WardDto rồi thêm vào danh sách wardDtos
         wards.forEach(ward -> {
             WardDto wardDto = modelMapper.map(ward, WardDto.class);
-            wardDto.setCity(findCityByIdWithoutAuditor(wardDto.getCityId()));
-            wardDto.setDistrict(findDistrictByIdWithoutAuditor(wardDto.getDistrictId()));
+            wardDto.setCity(toCityDto(cadastralCacheService.findCity(ward.getCityId())));
+            wardDto.setDistrict(toDistrictDto(cadastralCacheService.findDistrict(ward.getDistrictId())));
             wardDtos.add(wardDto);
         });
 
         // Trả về thành công kèm danh sách đối tượng WardDto
         return new SuccessResponse<>(wardDtos);
     }
+
+    // Thông tin tỉnh thành phố / quận huyện cha lấy từ cây địa chính, trạng thái luôn là ACTIVE
+    private CityDto toCityDto(City city) {
+        if (city == null) {
+            return null;
+        }
+        CityDto cityDto = modelMapper.map(city, CityDto.class);
+        cityDto.setStatus(ACTIVE.name());
+        return cityDto;
+    }
+
+    private DistrictDto toDistrictDto(District district) {
+        if (district == null) {
+            return null;
+        }
+        DistrictDto districtDto = new DistrictDto();
+        districtDto.setId(district.getId());
+        districtDto.setCode(district.getCode());
+        districtDto.setFullName(district.getFullName());
+        districtDto.setStatus(ACTIVE.name());
+        return districtDto;
+    }
 }
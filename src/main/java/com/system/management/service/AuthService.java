@@ -15,6 +15,7 @@ import com.system.management.repository.RefreshTokenRepository;
 import com.system.management.utils.FunctionUtils;
 import com.system.management.utils.enums.GenderEnums;
 import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.NotificationTypeEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.enums.StatusEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -54,6 +55,7 @@ public class AuthService extends BaseCommonService {
     private final BlackListRepository blackListRepository;
     private final RefreshTokenRepository refreshTokenRepository;
     private final PoliceRequestRepository policeRequestRepository;
+    private final NotificationService notificationService;
 
     @Value("${config.jwt_key}")
     private String jwtKey;
@@ -318,6 +320,8 @@ public class AuthService extends BaseCommonService {
 
             // Lưu yêu cầu vào bảng police_requests
             policeRequest = policeRequestRepository.save(policeRequest);
+            notificationService.notifySheriffs(NotificationTypeEnums.POLICE_REQUEST, policeRequest.getId(),
+                    FunctionUtils.buildCadastralPath(cityId, districtId, wardId));
 
             // Trả về thành công kèm dữ liệu bản ghi police_requests vừa tạo
             response = new SuccessResponse<>(convertToPoliceRequestDto(policeRequest));
@@ -342,6 +346,8 @@ public class AuthService extends BaseCommonService {
 
             // Cập nhật thông tin cảnh sát trong bảng polices
             police = policeRepository.save(police);
+            auditorCache.evict(police.getId());
+            detailCacheService.evictPolices(List.of(police.getId()));
 
             // Trả về thành công kèm dữ liệu cảnh sát vừa được cập nhật
             response = new SuccessResponse<>(convertToPoliceDto(police));
@@ -1,36 +1,63 @@
 package com.system.management.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.gson.Gson;
 import com.system.management.model.dto.*;
 import com.system.management.model.entity.*;
 import com.system.management.repository.*;
+import com.system.management.utils.AuditorCache;
+import com.system.management.utils.FieldSet;
 import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.SingleFlight;
 import com.system.management.utils.constants.ErrorMessage;
 import com.system.management.utils.enums.AssignStatusEnums;
 import com.system.management.utils.enums.LevelEnums;
 import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.ForbiddenException;
 import com.system.management.utils.exception.ProcessException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.SessionFactory;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
-
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.system.management.utils.constants.ErrorMessage.NOT_ALLOW;
 import static com.system.management.utils.enums.StatusEnums.ACTIVE;
 
 @Slf4j
 @Service
 public class BaseCommonService {
 
-    @Autowired
-    protected Gson gson;
+    // Bit điều kiện phạm vi địa chính trong tổ hợp điều kiện lọc của SqlShapeCache
+    protected static final int SHAPE_SCOPE_PATH = 1;
+    protected static final int SHAPE_SCOPE_DISTRICT = 1 << 1;
+    protected static final int SHAPE_SCOPE_WARD = 1 << 2;
+
+    // Bit đầu tiên dành cho điều kiện lọc riêng của từng API danh sách
+    protected static final int SHAPE_FIRST_FILTER = 1 << 3;
 
     @Autowired
     protected ModelMapper modelMapper;
@@ -62,38 +89,263 @@ public class BaseCommonService {
     @Autowired
     protected NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
+    @Autowired
+    protected AuditorCache auditorCache;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    protected CadastralCacheService cadastralCacheService;
+
+    @Autowired
+    protected SingleFlight singleFlight;
+
+    @Autowired
+    protected DetailCacheService detailCacheService;
+
     protected PoliceDto getLoggedAccount() {
         return (PoliceDto) SecurityContextHolder.getContext().getAuthentication().getDetails();
     }
 
+    // Đường dẫn địa chính đơn vị công tác của tài khoản đang login, cấp trung ương là "/"
+    protected String getLoggedScope() {
+        PoliceDto loggedAccount = getLoggedAccount();
+        return FunctionUtils.buildCadastralPath(
+                loggedAccount.getCityId(), loggedAccount.getDistrictId(), loggedAccount.getWardId());
+    }
+
+    // Tài khoản đang login chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+    protected void checkCadastralScope(String cadastralPath) {
+        if (!isInCadastralScope(cadastralPath, getLoggedScope())) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+    }
+
+    // Bản ghi thuộc phạm vi đơn vị có đường dẫn scope, dùng khi kiểm tra nhiều bản ghi với cùng một tài khoản
+    protected static boolean isInCadastralScope(String cadastralPath, String scope) {
+        String path = cadastralPath == null ? FunctionUtils.ROOT_CADASTRAL_PATH : cadastralPath;
+        return path.startsWith(scope);
+    }
+
+    // Lọc danh sách theo phạm vi địa chính, các cấp liên tục từ tỉnh thành phố trở xuống gộp thành một điều kiện tiền tố đường dẫn
+    // => Một lần quét khoảng trên index (cadastral_path, status) thay vì so sánh lần lượt city_id, district_id, ward_id
+    // Cấp không có cấp cha (VD chỉ tìm kiếm theo quận huyện) vẫn lọc theo cột id
+    // Set tham số và trả về các bit SHAPE_SCOPE_* của điều kiện cần ghép vào câu query
+    protected int bindCadastralPathFilter(MapSqlParameterSource params, Long cityId, Long districtId, Long wardId) {
+
+        int shape = 0;
+
+        String path = FunctionUtils.buildCadastralPath(cityId, districtId, wardId);
+        if (!FunctionUtils.ROOT_CADASTRAL_PATH.equals(path)) {
+            shape |= SHAPE_SCOPE_PATH;
+            params.addValue("scope_path", path + "%");
+        }
+
+        if (FunctionUtils.isNullOrZero(cityId) && !FunctionUtils.isNullOrZero(districtId)) {
+            shape |= SHAPE_SCOPE_DISTRICT;
+            params.addValue("district_id", districtId);
+        }
+
+        if ((FunctionUtils.isNullOrZero(cityId) || FunctionUtils.isNullOrZero(districtId))
+                && !FunctionUtils.isNullOrZero(wardId)) {
+            shape |= SHAPE_SCOPE_WARD;
+            params.addValue("ward_id", wardId);
+        }
+
+        return shape;
+    }
+
+    // Ghép điều kiện phạm vi địa chính theo các bit SHAPE_SCOPE_* (chỉ chạy một lần cho mỗi tổ hợp trong SqlShapeCache)
+    protected static void appendCadastralPathFilter(StringBuilder sql, int shape, String pathColumn, String idColumnPrefix) {
+
+        if ((shape & SHAPE_SCOPE_PATH) != 0) {
+            sql.append(" and ").append(pathColumn).append(" like :scope_path ");
+        }
+
+        if ((shape & SHAPE_SCOPE_DISTRICT) != 0) {
+            sql.append(" and ").append(idColumnPrefix).append("district_id = :district_id ");
+        }
+
+        if ((shape & SHAPE_SCOPE_WARD) != 0) {
+            sql.append(" and ").append(idColumnPrefix).append("ward_id = :ward_id ");
+        }
+    }
+
+    // Cập nhật bảng polices bằng JDBC không đi qua Hibernate => Phải tự xóa second-level cache và query cache của cảnh sát
+    protected void evictPoliceCache(Collection<Long> policeIds) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        policeIds.forEach(id -> sessionFactory.getCache().evictEntityData(Police.class, id));
+        sessionFactory.getCache().evictDefaultQueryRegion();
+        detailCacheService.evictPolices(policeIds);
+    }
+
+    // Dữ liệu làm giàu đọc từ bảng khác (tên cảnh sát, nơi cai nghiện, tên địa chính, địa chỉ đầy đủ) không làm đổi modified_at của bản ghi
+    // => Băm thêm thời điểm cập nhật cuối của các bảng đó vào ETag
+    private static final String CADASTRAL_VERSION_COLUMNS = " (select max(modified_at) from cities) as cities_version, "
+            + " (select max(modified_at) from districts) as districts_version, "
+            + " (select max(modified_at) from wards) as wards_version ";
+
+    private static final String DETAIL_ENRICHMENT_SQL = " select "
+            + " (select max(modified_at) from polices where id in (:police_ids)) as polices_version, "
+            + " (select max(modified_at) from treatment_places where id in (:treatment_place_ids)) as treatment_places_version, "
+            + CADASTRAL_VERSION_COLUMNS;
+
+    // Danh sách không biết trước các bản ghi được tham chiếu => Lấy theo toàn bảng
+    private static final String LIST_ENRICHMENT_COLUMNS = " (select max(modified_at) from polices) as polices_version, "
+            + " (select max(modified_at) from treatment_places) as treatment_places_version, "
+            + CADASTRAL_VERSION_COLUMNS;
+
+    // ETag của bản ghi chi tiết: id + thời điểm cập nhật cuối (mili giây) của bản ghi và của các bản ghi được tham chiếu
+    // policeIds: cảnh sát giám sát, người tạo, người cập nhật; treatmentPlaceIds: nơi cai nghiện
+    // FE gửi lại trong If-None-Match mà bản ghi chưa thay đổi => Trả 304, bỏ qua convert DTO và serialize
+    protected boolean checkNotModified(String type, BaseEntity entity, Long id,
+                                       Collection<Long> policeIds, Collection<Long> treatmentPlaceIds) {
+
+        if (getCurrentRequestAttributes() == null) {
+            return false;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("police_ids", toReferenceIds(policeIds))
+                .addValue("treatment_place_ids", toReferenceIds(treatmentPlaceIds));
+
+        Map<String, Object> enrichment = namedParameterJdbcTemplate.queryForMap(DETAIL_ENRICHMENT_SQL, params);
+
+        String version = type + "|" + id + "|" + toVersion(entity.getModifiedAt()) + "|" + toVersion(enrichment.values());
+
+        return checkNotModified(DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Id người tạo, người cập nhật của bản ghi (bản ghi do hệ thống tạo không có cảnh sát tương ứng)
+    protected static List<Long> getAuditorIds(BaseEntity entity) {
+        List<Long> ids = new ArrayList<>();
+        if (entity.getCreatedBy() != null) {
+            ids.add(entity.getCreatedBy().getId());
+        }
+        if (entity.getModifiedBy() != null) {
+            ids.add(entity.getModifiedBy().getId());
+        }
+        return ids;
+    }
+
+    // ETag của danh sách: count(*) + max(modified_at) trên cùng điều kiện lọc (câu query chưa có order by, limit)
+    // Thêm mới, cập nhật hoặc xóa mềm bản ghi trong phạm vi lọc đều làm thay đổi một trong hai giá trị
+    // Kèm thời điểm cập nhật cuối của các bảng dữ liệu làm giàu => Đổi tên cảnh sát, nơi cai nghiện, địa chính cũng đổi ETag
+    // Câu aggregate chỉ chạy khi FE có gửi If-None-Match (ETag đã nhận, lần đầu gửi W/"0") => FE không dùng ETag không tốn thêm query
+    protected boolean checkListNotModified(String sql, MapSqlParameterSource params, Integer page, Integer size) {
+
+        ServletRequestAttributes attributes = getCurrentRequestAttributes();
+        if (attributes == null || attributes.getRequest().getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+
+        Map<String, Object> aggregate = namedParameterJdbcTemplate.queryForMap(
+                " select count(*) as total, max(modified_at) as last_modified, " + LIST_ENRICHMENT_COLUMNS
+                        + " from (" + sql + ") t ", params);
+
+        // Điều kiện lọc và giá trị các tham số có trong câu query được băm vào ETag => Mỗi bộ lọc, mỗi trang có ETag riêng
+        String version = buildQueryKey(sql, params) + "|" + page + "|" + size + "|" + toVersion(aggregate.values());
+
+        return checkNotModified(DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Thời điểm lấy theo mili giây, không phụ thuộc định dạng toString của Timestamp / Date
+    private static String toVersion(Collection<Object> values) {
+        return values.stream().map(BaseCommonService::toVersion).collect(Collectors.joining("|"));
+    }
+
+    private static String toVersion(Object value) {
+        return String.valueOf(value instanceof Date ? ((Date) value).getTime() : value);
+    }
+
+    // Câu "in ()" rỗng không hợp lệ => Dùng id 0 (không có bản ghi) khi không tham chiếu bản ghi nào
+    private static List<Long> toReferenceIds(Collection<Long> ids) {
+        List<Long> result = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        return result.isEmpty() ? List.of(0L) : result;
+    }
+
+    // Khóa của câu query: câu SQL kèm giá trị các tham số có trong câu (điều kiện lọc, phạm vi địa chính, phân trang)
+    // Chỉ lấy tham số có trong câu => Không bị ảnh hưởng bởi tham số thừa còn lại của câu query khác
+    protected static String buildQueryKey(String sql, MapSqlParameterSource params) {
+        Object[] values = NamedParameterUtils.buildValueArray(NamedParameterUtils.parseSqlStatement(sql), params, null);
+        return sql + Arrays.deepToString(values);
+    }
+
+    // Gắn ETag vào response, trả về true và set status 304 nếu trùng với If-None-Match FE gửi lên
+    // Áp dụng cả với danh sách lấy bằng POST (điều kiện lọc nằm trong body) nên không dùng ServletWebRequest.checkNotModified (trả 412 với POST)
+    private boolean checkNotModified(String version) {
+
+        ServletRequestAttributes attributes = getCurrentRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+
+        // Cùng dữ liệu nhưng định dạng body khác nhau (JSON / Smile / CBOR) theo Accept => ETag khác nhau
+        String accept = attributes.getRequest().getHeader(HttpHeaders.ACCEPT);
+        String tag = accept == null ? version : DigestUtils.md5DigestAsHex((version + "|" + accept).getBytes(StandardCharsets.UTF_8));
+        String etag = "W/\"" + tag + "\"";
+
+        HttpServletResponse response = attributes.getResponse();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+        String ifNoneMatch = attributes.getRequest().getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals(etag.substring(2))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Gọi ngoài request (luồng nền, test) => Không có request / response, bỏ qua ETag
+    private static ServletRequestAttributes getCurrentRequestAttributes() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes && ((ServletRequestAttributes) attributes).getResponse() != null) {
+            return (ServletRequestAttributes) attributes;
+        }
+        return null;
+    }
+
     protected PoliceDto convertToPoliceDto(Police police) {
+        return convertToPoliceDto(police, FieldSet.ALL);
+    }
+
+    // Bản ghi chỉ được select các cột của trường FE yêu cầu => Cột không được select thì bỏ qua bước làm giàu tương ứng
+    protected PoliceDto convertToPoliceDto(Police police, FieldSet fields) {
 
         PoliceDto policeDto = modelMapper.map(police, PoliceDto.class);
-        policeDto.setRoleName(RoleEnums.dict.get(police.getRole()).label);
-        policeDto.setLevelName(LevelEnums.dict.get(police.getLevel()).label);
-        policeDto.setAssignStatusName(AssignStatusEnums.dict.get(police.getAssignStatus()).label);
-        setAuditorInfo(police, policeDto);
-        setCadastralInfo(policeDto);
 
-        if (police.getAvatar() != null) {
-            policeDto.setStrAvatar(Base64.getEncoder().encodeToString(police.getAvatar()));
+        if (police.getRole() != null) {
+            policeDto.setRoleName(RoleEnums.dict.get(police.getRole()).label);
         }
 
-        String workPlace = "";
-
-        if (police.getLevel() > LevelEnums.CENTRAL.value) {
-            workPlace = policeDto.getCity().getFullName() + workPlace;
+        if (police.getLevel() != null) {
+            policeDto.setLevelName(LevelEnums.dict.get(police.getLevel()).label);
         }
 
-        if (police.getLevel() > LevelEnums.CITY.value) {
-            workPlace = policeDto.getDistrict().getFullName() + ", " + workPlace;
+        if (police.getAssignStatus() != null) {
+            policeDto.setAssignStatusName(AssignStatusEnums.dict.get(police.getAssignStatus()).label);
         }
 
-        if (police.getLevel() > LevelEnums.DISTRICT.value) {
-            workPlace = policeDto.getWard().getFullName() + ", " + workPlace;
+        setAuditorInfo(police, policeDto);
+        setCadastralInfo(policeDto);
+
+        if (police.getAvatar() != null) {
+            policeDto.setStrAvatar(Base64.getEncoder().encodeToString(police.getAvatar()));
         }
 
-        policeDto.setWorkPlace(workPlace);
+        if (police.getLevel() != null && fields.has("workPlace")) {
+            policeDto.setWorkPlace(buildWorkPlace(police.getLevel(), policeDto));
+        }
 
         return policeDto;
     }
@@ -109,26 +361,16 @@ public class BaseCommonService {
             policeRequestDto.setStrAvatar(Base64.getEncoder().encodeToString(policeRequestDto.getAvatar()));
         }
 
-        String workPlace = "";
-
-        if (policeRequest.getLevel() > LevelEnums.CENTRAL.value) {
-            workPlace = policeRequestDto.getCity().getFullName() + workPlace;
-        }
-
-        if (policeRequest.getLevel() > LevelEnums.CITY.value) {
-            workPlace = policeRequestDto.getDistrict().getFullName() + ", " + workPlace;
-        }
-
-        if (policeRequest.getLevel() > LevelEnums.DISTRICT.value) {
-            workPlace = policeRequestDto.getWard().getFullName() + ", " + workPlace;
-        }
-
-        policeRequestDto.setWorkPlace(workPlace);
+        policeRequestDto.setWorkPlace(buildWorkPlace(policeRequest.getLevel(), policeRequestDto));
 
         return policeRequestDto;
     }
 
     protected DrugAddictDto convertToDrugAddictDto(DrugAddict drugAddict) {
+        return convertToDrugAddictDto(drugAddict, FieldSet.ALL);
+    }
+
+    protected DrugAddictDto convertToDrugAddictDto(DrugAddict drugAddict, FieldSet fields) {
 
         DrugAddictDto drugAddictDto = modelMapper.map(drugAddict, DrugAddictDto.class);
         setAuditorInfo(drugAddict, drugAddictDto);
@@ -137,9 +379,11 @@ public class BaseCommonService {
             drugAddictDto.setStrAvatar(Base64.getEncoder().encodeToString(drugAddictDto.getAvatar()));
         }
 
-        if (!FunctionUtils.isNullOrZero(drugAddict.getPoliceId())) {
+        if (!FunctionUtils.isNullOrZero(drugAddict.getPoliceId()) && fields.has("police")) {
             drugAddictDto.setPolice(findPoliceByIdWithoutAuditor(drugAddict.getPoliceId()));
+        }
 
+        if (!FunctionUtils.isNullOrZero(drugAddict.getPoliceId()) && fields.has("assignAt")) {
             AssignSupport assignSupport = assignSupportRepository
                     .findByDrugAddictIdAndPoliceId(drugAddict.getId(), drugAddict.getPoliceId())
                     .orElse(new AssignSupport());
@@ -150,51 +394,39 @@ public class BaseCommonService {
             drugAddictDto.setTreatmentPlace(findTreatmentPlaceByIdWithoutAuditor(drugAddict.getTreatmentPlaceId()));
         }
 
-        String fullPermanent = "";
-
-        if (StringUtils.isNotBlank(drugAddictDto.getPermanentAddressDetail())) {
-            fullPermanent = drugAddictDto.getPermanentAddressDetail() + ", ";
-        }
-
         if (!FunctionUtils.isNullOrZero(drugAddict.getPermanentWardId())) {
             drugAddictDto.setPermanentWard(findWardByIdWithoutAuditor(drugAddict.getPermanentWardId()));
-            fullPermanent = fullPermanent + drugAddictDto.getPermanentWard().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddict.getPermanentDistrictId())) {
             drugAddictDto.setPermanentDistrict(findDistrictByIdWithoutAuditor(drugAddict.getPermanentDistrictId()));
-            fullPermanent = fullPermanent + drugAddictDto.getPermanentDistrict().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddict.getPermanentCityId())) {
             drugAddictDto.setPermanentCity(findCityByIdWithoutAuditor(drugAddict.getPermanentCityId()));
-            fullPermanent = fullPermanent + drugAddictDto.getPermanentCity().getFullName();
         }
 
-        drugAddictDto.setFullPermanent(fullPermanent);
-
-        String fullCurrent = "";
-
-        if (StringUtils.isNotBlank(drugAddictDto.getCurrentAddressDetail())) {
-            fullCurrent = drugAddictDto.getCurrentAddressDetail() + ", ";
+        if (fields.has("fullPermanent")) {
+            drugAddictDto.setFullPermanent(buildFullAddress(drugAddictDto.getPermanentAddressDetail(),
+                    drugAddictDto.getPermanentCity(), drugAddictDto.getPermanentDistrict(), drugAddictDto.getPermanentWard()));
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddict.getCurrentWardId())) {
             drugAddictDto.setCurrentWard(findWardByIdWithoutAuditor(drugAddict.getCurrentWardId()));
-            fullCurrent = fullCurrent + drugAddictDto.getCurrentWard().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddict.getCurrentDistrictId())) {
             drugAddictDto.setCurrentDistrict(findDistrictByIdWithoutAuditor(drugAddict.getCurrentDistrictId()));
-            fullCurrent = fullCurrent + drugAddictDto.getCurrentDistrict().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddict.getCurrentCityId())) {
             drugAddictDto.setCurrentCity(findCityByIdWithoutAuditor(drugAddict.getCurrentCityId()));
-            fullCurrent = fullCurrent + drugAddictDto.getCurrentCity().getFullName();
         }
 
-        drugAddictDto.setFullCurrent(fullCurrent);
+        if (fields.has("fullCurrent")) {
+            drugAddictDto.setFullCurrent(buildFullAddress(drugAddictDto.getCurrentAddressDetail(),
+                    drugAddictDto.getCurrentCity(), drugAddictDto.getCurrentDistrict(), drugAddictDto.getCurrentWard()));
+        }
 
         return drugAddictDto;
     }
@@ -202,12 +434,6 @@ public class BaseCommonService {
     protected DrugAddictRequestDto convertToDrugAddictRequestDto(DrugAddictRequest drugAddictRequest) {
 
         DrugAddictRequestDto drugAddictRequestDto = modelMapper.map(drugAddictRequest, DrugAddictRequestDto.class);
-        drugAddictRequestDto.setPermanentCity(findCityByIdWithoutAuditor(drugAddictRequest.getPermanentCityId()));
-        drugAddictRequestDto.setPermanentDistrict(findDistrictByIdWithoutAuditor(drugAddictRequest.getPermanentDistrictId()));
-        drugAddictRequestDto.setPermanentWard(findWardByIdWithoutAuditor(drugAddictRequest.getPermanentWardId()));
-        drugAddictRequestDto.setCurrentCity(findCityByIdWithoutAuditor(drugAddictRequest.getCurrentCityId()));
-        drugAddictRequestDto.setCurrentDistrict(findDistrictByIdWithoutAuditor(drugAddictRequest.getCurrentDistrictId()));
-        drugAddictRequestDto.setCurrentWard(findWardByIdWithoutAuditor(drugAddictRequest.getCurrentWardId()));
         setAuditorInfo(drugAddictRequest, drugAddictRequestDto);
 
         if (drugAddictRequestDto.getAvatar() != null) {
@@ -222,56 +448,44 @@ public class BaseCommonService {
             drugAddictRequestDto.setTreatmentPlace(findTreatmentPlaceByIdWithoutAuditor(drugAddictRequest.getTreatmentPlaceId()));
         }
 
-        String fullPermanent = "";
-
-        if (StringUtils.isNotBlank(drugAddictRequestDto.getPermanentAddressDetail())) {
-            fullPermanent = drugAddictRequestDto.getPermanentAddressDetail() + ", ";
-        }
-
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getPermanentWardId())) {
             drugAddictRequestDto.setPermanentWard(findWardByIdWithoutAuditor(drugAddictRequest.getPermanentWardId()));
-            fullPermanent = fullPermanent + drugAddictRequestDto.getPermanentWard().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getPermanentDistrictId())) {
             drugAddictRequestDto.setPermanentDistrict(findDistrictByIdWithoutAuditor(drugAddictRequest.getPermanentDistrictId()));
-            fullPermanent = fullPermanent + drugAddictRequestDto.getPermanentDistrict().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getPermanentCityId())) {
             drugAddictRequestDto.setPermanentCity(findCityByIdWithoutAuditor(drugAddictRequest.getPermanentCityId()));
-            fullPermanent = fullPermanent + drugAddictRequestDto.getPermanentCity().getFullName();
         }
 
-        drugAddictRequestDto.setFullPermanent(fullPermanent);
-
-        String fullCurrent = "";
-
-        if (StringUtils.isNotBlank(drugAddictRequestDto.getCurrentAddressDetail())) {
-            fullCurrent = drugAddictRequestDto.getCurrentAddressDetail() + ", ";
-        }
+        drugAddictRequestDto.setFullPermanent(buildFullAddress(drugAddictRequestDto.getPermanentAddressDetail(),
+                drugAddictRequestDto.getPermanentCity(), drugAddictRequestDto.getPermanentDistrict(), drugAddictRequestDto.getPermanentWard()));
 
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getCurrentWardId())) {
             drugAddictRequestDto.setCurrentWard(findWardByIdWithoutAuditor(drugAddictRequest.getCurrentWardId()));
-            fullCurrent = fullCurrent + drugAddictRequestDto.getCurrentWard().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getCurrentDistrictId())) {
             drugAddictRequestDto.setCurrentDistrict(findDistrictByIdWithoutAuditor(drugAddictRequest.getCurrentDistrictId()));
-            fullCurrent = fullCurrent + drugAddictRequestDto.getCurrentDistrict().getFullName() + ", ";
         }
 
         if (!FunctionUtils.isNullOrZero(drugAddictRequest.getCurrentCityId())) {
             drugAddictRequestDto.setCurrentCity(findCityByIdWithoutAuditor(drugAddictRequest.getCurrentCityId()));
-            fullCurrent = fullCurrent + drugAddictRequestDto.getCurrentCity().getFullName();
         }
 
-        drugAddictRequestDto.setFullCurrent(fullCurrent);
+        drugAddictRequestDto.setFullCurrent(buildFullAddress(drugAddictRequestDto.getCurrentAddressDetail(),
+                drugAddictRequestDto.getCurrentCity(), drugAddictRequestDto.getCurrentDistrict(), drugAddictRequestDto.getCurrentWard()));
 
         return drugAddictRequestDto;
     }
 
     protected TreatmentPlaceDto convertToTreatmentPlaceDto(TreatmentPlace treatmentPlace) {
+        return convertToTreatmentPlaceDto(treatmentPlace, FieldSet.ALL);
+    }
+
+    protected TreatmentPlaceDto convertToTreatmentPlaceDto(TreatmentPlace treatmentPlace, FieldSet fields) {
 
         TreatmentPlaceDto treatmentPlaceDto = modelMapper.map(treatmentPlace, TreatmentPlaceDto.class);
         setAuditorInfo(treatmentPlace, treatmentPlaceDto);
@@ -281,26 +495,11 @@ public class BaseCommonService {
             treatmentPlaceDto.setStrLogo(Base64.getEncoder().encodeToString(treatmentPlaceDto.getLogo()));
         }
 
-        String fullAddress = "";
-
-        if (StringUtils.isNotBlank(treatmentPlace.getAddressDetail())) {
-            fullAddress = treatmentPlace.getAddressDetail() + ", ";
+        if (fields.has("fullAddress")) {
+            treatmentPlaceDto.setFullAddress(buildFullAddress(treatmentPlace.getAddressDetail(),
+                    treatmentPlaceDto.getCity(), treatmentPlaceDto.getDistrict(), treatmentPlaceDto.getWard()));
         }
 
-        if (!FunctionUtils.isNullOrZero(treatmentPlace.getWardId())) {
-            fullAddress = fullAddress + treatmentPlaceDto.getWard().getFullName() + ", ";
-        }
-
-        if (!FunctionUtils.isNullOrZero(treatmentPlace.getDistrictId())) {
-            fullAddress = fullAddress + treatmentPlaceDto.getDistrict().getFullName() + ", ";
-        }
-
-        if (!FunctionUtils.isNullOrZero(treatmentPlace.getCityId())) {
-            fullAddress = fullAddress + treatmentPlaceDto.getCity().getFullName();
-        }
-
-        treatmentPlaceDto.setFullAddress(fullAddress);
-
         return treatmentPlaceDto;
     }
 
@@ -326,6 +525,44 @@ public class BaseCommonService {
         return assignSupportDto;
     }
 
+    // Đơn vị công tác theo cấp bậc: "Phường xã, Quận huyện, Tỉnh thành phố", cấp trung ương là chuỗi rỗng
+    private String buildWorkPlace(Integer level, BaseCadastralDto dto) {
+        return buildFullAddress(null,
+                level > LevelEnums.CENTRAL.value ? dto.getCity() : null,
+                level > LevelEnums.CITY.value ? dto.getDistrict() : null,
+                level > LevelEnums.DISTRICT.value ? dto.getWard() : null);
+    }
+
+    // Ghép địa chỉ chi tiết với chuỗi địa chỉ đã tính sẵn trong cache địa chính
+    // Không có trong cache (địa chính vừa thêm, cache đang được tính lại) => Ghép từ tên từng cấp
+    private String buildFullAddress(String addressDetail, CityDto city, DistrictDto district, WardDto ward) {
+
+        String fullAddress = StringUtils.isNotBlank(addressDetail) ? addressDetail + ", " : "";
+
+        String suffix = cadastralCacheService.getAddressSuffix(
+                city == null ? null : city.getId(),
+                district == null ? null : district.getId(),
+                ward == null ? null : ward.getId());
+
+        if (suffix != null) {
+            return fullAddress + suffix;
+        }
+
+        if (ward != null) {
+            fullAddress = fullAddress + ward.getFullName() + ", ";
+        }
+
+        if (district != null) {
+            fullAddress = fullAddress + district.getFullName() + ", ";
+        }
+
+        if (city != null) {
+            fullAddress = fullAddress + city.getFullName();
+        }
+
+        return fullAddress;
+    }
+
     protected void setCadastralInfo(BaseCadastralDto dto) {
         if (!FunctionUtils.isNullOrZero(dto.getCityId())) {
             dto.setCity(findCityByIdWithoutAuditor(dto.getCityId()));
@@ -343,15 +580,20 @@ public class BaseCommonService {
     private void setAuditorInfo(BaseEntity entity, BaseDto dto) {
 
         if (StringUtils.isNotBlank(entity.getTxtCreatedBy())) {
-            dto.setCreatedBy(gson.fromJson(entity.getTxtCreatedBy(), Auditor.class));
+            dto.setCreatedBy(auditorCache.resolve(entity.getTxtCreatedBy()));
         }
 
         if (StringUtils.isNotBlank(entity.getTxtModifiedBy())) {
-            dto.setModifiedBy(gson.fromJson(entity.getTxtModifiedBy(), Auditor.class));
+            dto.setModifiedBy(auditorCache.resolve(entity.getTxtModifiedBy()));
         }
     }
 
     protected CityDto findCityByIdWithoutAuditor(Long id) {
+        CityDto cached = cadastralCacheService.findCityDto(id);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "select id, code, full_name, status from cities where id = :id";
         sqlParameterSource.addValue("id", id);
         return namedParameterJdbcTemplate
@@ -359,6 +601,11 @@ public class BaseCommonService {
     }
 
     public DistrictDto findDistrictByIdWithoutAuditor(Long id) {
+        DistrictDto cached = cadastralCacheService.findDistrictDto(id);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "select id, code, full_name, status from districts where id = :id";
         sqlParameterSource.addValue("id", id);
         return namedParameterJdbcTemplate
@@ -366,6 +613,11 @@ public class BaseCommonService {
     }
 
     public WardDto findWardByIdWithoutAuditor(Long id) {
+        WardDto cached = cadastralCacheService.findWardDto(id);
+        if (cached != null) {
+            return cached;
+        }
+
         String sql = "select id, code, full_name, status from wards where id = :id";
         sqlParameterSource.addValue("id", id);
         return namedParameterJdbcTemplate
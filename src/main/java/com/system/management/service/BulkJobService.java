@@ -0,0 +1,242 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.utils.LruCache;
+import com.system.management.utils.enums.JobStatusEnums;
+import com.system.management.utils.enums.JobTypeEnums;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/* Chạy các tác vụ cập nhật dữ liệu lớn ở luồng nền và lưu tiến độ trong bộ nhớ.
+   Dữ liệu được cập nhật theo từng khoảng id (mỗi khoảng là một câu lệnh, tự commit)
+   => Không giữ khóa bảng lâu, các request khác vẫn đọc ghi bình thường trong lúc tác vụ chạy */
+
+@Slf4j
+@Service
+public class BulkJobService {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final int chunkSize;
+
+    private final ExecutorService executor;
+
+    private final LruCache<String, Job> jobs;
+
+    public BulkJobService(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                          @Value("${config.bulk_job.chunk_size:5000}") int chunkSize,
+                          @Value("${config.bulk_job.threads:1}") int threads,
+                          @Value("${config.bulk_job.max_jobs:200}") int maxJobs) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.jobs = new LruCache<>(maxJobs);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Đưa tác vụ vào hàng đợi, trả về ngay thông tin tác vụ để FE theo dõi tiến độ
+    public JobDto submit(JobTypeEnums type, Long createdBy, int totalSteps, Consumer<Job> work) {
+
+        Job job = new Job(UUID.randomUUID().toString(), type, createdBy, totalSteps);
+        jobs.put(job.id, job);
+
+        Runnable task = () -> {
+            job.start();
+            try {
+                work.accept(job);
+                job.finish(JobStatusEnums.SUCCESS, null);
+            } catch (Exception e) {
+                log.error("Bulk job {} ({}) error: {}", job.id, type, e.getMessage(), e);
+                job.finish(JobStatusEnums.FAILED, e.getMessage());
+            }
+            log.info("Bulk job {} ({}) finished: {}", job.id, type, job.toDto());
+        };
+
+        // Được gọi trong transaction => Chỉ chạy sau khi commit để tác vụ nhìn thấy dữ liệu vừa ghi
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(task);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        job.finish(JobStatusEnums.FAILED, null);
+                    }
+                }
+            });
+        } else {
+            executor.execute(task);
+        }
+
+        return job.toDto();
+    }
+
+    public JobDto get(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.toDto();
+    }
+
+    public List<JobDto> getList(Long createdBy) {
+        List<JobDto> result = new ArrayList<>();
+        jobs.values().stream()
+                .filter(job -> Objects.equals(job.createdBy, createdBy))
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .forEach(job -> result.add(job.toDto()));
+        return result;
+    }
+
+    // Chạy câu lệnh cập nhật lần lượt trên từng khoảng id [:from_id, :to_id] của bảng
+    // Câu lệnh phải có điều kiện "id between :from_id and :to_id", trả về tổng số bản ghi được cập nhật
+    public long updateInChunks(Job job, String table, String sql, MapSqlParameterSource params) {
+        return updateInChunks(job, table, null, sql, params);
+    }
+
+    // rangeFilter: điều kiện (có index) thu hẹp khoảng id cần quét, dùng chung tham số với câu lệnh cập nhật
+    // Tham số :now là thời điểm chạy từng lô => Lô commit muộn không bị đồng bộ thay đổi (change feed) bỏ qua
+    public long updateInChunks(Job job, String table, String rangeFilter, String sql, MapSqlParameterSource params) {
+
+        Map<String, Object> range = namedParameterJdbcTemplate.queryForMap(
+                " select min(id) as min_id, max(id) as max_id from " + table
+                        + (rangeFilter == null ? "" : " where " + rangeFilter), params);
+
+        job.startStep(table);
+
+        if (range.get("min_id") == null) {
+            job.completeStep();
+            return 0;
+        }
+
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+        job.totalRows = maxId - minId + 1;
+
+        long affected = 0;
+
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long toId = Math.min(fromId + chunkSize - 1, maxId);
+
+            params.addValue("from_id", fromId);
+            params.addValue("to_id", toId);
+            params.addValue("now", new Date());
+
+            int count = namedParameterJdbcTemplate.update(sql, params);
+            affected += count;
+            job.addAffectedRows(count);
+            job.processedRows = toId - minId + 1;
+        }
+
+        job.completeStep();
+
+        return affected;
+    }
+
+    // Tiến độ một tác vụ, chỉ luồng chạy tác vụ được cập nhật các giá trị
+    public static final class Job {
+
+        private final String id;
+
+        private final JobTypeEnums type;
+
+        private final Long createdBy;
+
+        private final int totalSteps;
+
+        private final Date createdAt = new Date();
+
+        private volatile JobStatusEnums status = JobStatusEnums.WAITING;
+
+        private volatile String step;
+
+        private volatile int completedSteps;
+
+        private volatile long processedRows;
+
+        private volatile long totalRows;
+
+        private volatile long affectedRows;
+
+        private volatile String message;
+
+        private volatile Date startedAt;
+
+        private volatile Date finishedAt;
+
+        private Job(String id, JobTypeEnums type, Long createdBy, int totalSteps) {
+            this.id = id;
+            this.type = type;
+            this.createdBy = createdBy;
+            this.totalSteps = totalSteps;
+        }
+
+        public void startStep(String step) {
+            this.step = step;
+            this.processedRows = 0;
+            this.totalRows = 0;
+        }
+
+        public void completeStep() {
+            this.processedRows = this.totalRows;
+            this.completedSteps++;
+        }
+
+        public void addAffectedRows(long count) {
+            this.affectedRows += count;
+        }
+
+        private void start() {
+            this.status = JobStatusEnums.RUNNING;
+            this.startedAt = new Date();
+        }
+
+        private void finish(JobStatusEnums status, String message) {
+            this.message = message;
+            this.finishedAt = new Date();
+            this.status = status;
+        }
+
+        private JobDto toDto() {
+            JobDto jobDto = new JobDto();
+            jobDto.setId(id);
+            jobDto.setType(type.name());
+            jobDto.setTypeName(type.getValue());
+            jobDto.setStatus(status.name());
+            jobDto.setStatusName(status.getValue());
+            jobDto.setStep(step);
+            jobDto.setCompletedSteps(completedSteps);
+            jobDto.setTotalSteps(totalSteps);
+            jobDto.setProcessedRows(processedRows);
+            jobDto.setTotalRows(totalRows);
+            jobDto.setAffectedRows(affectedRows);
+            jobDto.setMessage(message);
+            jobDto.setCreatedBy(createdBy);
+            jobDto.setStartedAt(startedAt);
+            jobDto.setFinishedAt(finishedAt);
+            return jobDto;
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.CityDto;
+import com.system.management.model.dto.DistrictDto;
+import com.system.management.model.dto.WardDto;
+import com.system.management.model.entity.City;
+import com.system.management.model.entity.District;
+import com.system.management.model.entity.Ward;
+import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.LruCache;
+import com.system.management.utils.enums.LevelEnums;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+
+/* Cây địa chính (tỉnh thành phố / quận huyện / phường xã đang hoạt động) giữ trong bộ nhớ.
+   Mỗi địa chính có một chỉ số liên tục theo thứ tự ngày tạo mới nhất trước,
+   địa chính đã phân công cho từng cảnh sát được lưu thành BitSet trên các chỉ số này
+   => Lấy danh sách địa chính chưa phân công và phân trang không cần query "not in (...)"
+   Tên địa chính (mọi trạng thái) và chuỗi địa chỉ "Phường xã, Quận huyện, Tỉnh thành phố" được tính sẵn,
+   chỉ tính lại toàn bộ ở luồng nền khi thêm / sửa / xóa địa chính */
+
+@Slf4j
+@Service
+public class CadastralCacheService {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final DetailCacheService detailCacheService;
+
+    private final long ttl;
+
+    private final LruCache<Long, AssignedCadastral> assignedCadastrals;
+
+    private final ExecutorService addressRefresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cadastral-address-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean addressRefreshPending = new AtomicBoolean();
+
+    private volatile Hierarchy hierarchy;
+
+    private volatile AddressBook addressBook;
+
+    // Có cấu hình replica => Đọc cây địa chính và phân công từ database chính: replica trễ có thể trả dữ liệu trước khi thay đổi
+    // và dữ liệu cũ đó bị giữ trong cache đến lần xóa sau
+    public CadastralCacheService(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 @Qualifier("primaryDataSource") ObjectProvider<DataSource> primaryDataSource,
+                                 DetailCacheService detailCacheService,
+                                 @Value("${config.cadastral_cache.max_polices:1024}") int maxPolices,
+                                 @Value("${config.cadastral_cache.ttl:600000}") long ttl) {
+        DataSource primary = primaryDataSource.getIfAvailable();
+        this.namedParameterJdbcTemplate = primary == null ? namedParameterJdbcTemplate : new NamedParameterJdbcTemplate(primary);
+        this.detailCacheService = detailCacheService;
+        this.ttl = ttl;
+        this.assignedCadastrals = new LruCache<>(maxPolices);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        addressRefresher.shutdownNow();
+    }
+
+    public City findCity(Long id) {
+        Hierarchy current = getHierarchy();
+        Integer index = current.cityIndexes.get(id);
+        return index == null ? null : current.cities.get(index);
+    }
+
+    public District findDistrict(Long id) {
+        Hierarchy current = getHierarchy();
+        Integer index = current.districtIndexes.get(id);
+        return index == null ? null : current.districts.get(index);
+    }
+
+    public List<City> getUnassignedCities(Long policeId, Long cityId, int page, int size) {
+        Hierarchy current = getHierarchy();
+        return page(current.cities, getAssigned(policeId, current).cities,
+                city -> FunctionUtils.isNullOrZero(cityId) || cityId.equals(city.getId()), page, size);
+    }
+
+    public List<District> getUnassignedDistricts(Long policeId, Long cityId, Long districtId, int page, int size) {
+        Hierarchy current = getHierarchy();
+        return page(current.districts, getAssigned(policeId, current).districts,
+                district -> (FunctionUtils.isNullOrZero(cityId) || cityId.equals(district.getCityId()))
+                        && (FunctionUtils.isNullOrZero(districtId) || districtId.equals(district.getId())),
+                page, size);
+    }
+
+    public List<Ward> getUnassignedWards(Long policeId, Long cityId, Long districtId, Long wardId, int page, int size) {
+        Hierarchy current = getHierarchy();
+        return page(current.wards, getAssigned(policeId, current).wards,
+                ward -> (FunctionUtils.isNullOrZero(cityId) || cityId.equals(ward.getCityId()))
+                        && (FunctionUtils.isNullOrZero(districtId) || districtId.equals(ward.getDistrictId()))
+                        && (FunctionUtils.isNullOrZero(wardId) || wardId.equals(ward.getId())),
+                page, size);
+    }
+
+    // Trả về bản sao để nơi gọi có thể gán thêm dữ liệu mà không làm thay đổi cache. Không có trong cache trả về null
+    public CityDto findCityDto(Long id) {
+        CityDto cached = getAddressBook().cities.get(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    public DistrictDto findDistrictDto(Long id) {
+        DistrictDto cached = getAddressBook().districts.get(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    public WardDto findWardDto(Long id) {
+        WardDto cached = getAddressBook().wards.get(id);
+        return cached == null ? null : copy(cached);
+    }
+
+    // Chuỗi địa chỉ "Phường xã, Quận huyện, Tỉnh thành phố" đã tính sẵn theo cấp thấp nhất có dữ liệu
+    // Trả về null khi có địa chính chưa có trong cache hoặc các cấp không thuộc nhau => Nơi gọi tự ghép chuỗi
+    public String getAddressSuffix(Long cityId, Long districtId, Long wardId) {
+
+        AddressBook book = getAddressBook();
+
+        if (!FunctionUtils.isNullOrZero(wardId)) {
+            WardDto ward = book.wards.get(wardId);
+            return ward != null && Objects.equals(ward.getDistrictId(), districtId) && Objects.equals(ward.getCityId(), cityId)
+                    ? book.wardSuffixes.get(wardId) : null;
+        }
+
+        if (!FunctionUtils.isNullOrZero(districtId)) {
+            DistrictDto district = book.districts.get(districtId);
+            return district != null && Objects.equals(district.getCityId(), cityId)
+                    ? book.districtSuffixes.get(districtId) : null;
+        }
+
+        if (!FunctionUtils.isNullOrZero(cityId)) {
+            CityDto city = book.cities.get(cityId);
+            return city == null ? null : city.getFullName();
+        }
+
+        return "";
+    }
+
+    // Gọi sau khi thêm / sửa / xóa tỉnh thành phố, quận huyện, phường xã
+    // Xóa ngay và xóa lại sau khi commit: request đọc chạy xen giữa có thể đã nạp lại dữ liệu trước khi commit
+    public void evictHierarchy() {
+        runNowAndAfterCommit(() -> {
+            synchronized (this) {
+                hierarchy = null;
+                assignedCadastrals.clear();
+            }
+        });
+        detailCacheService.clear();
+        refreshAddressesAfterCommit();
+    }
+
+    // Tính lại toàn bộ chuỗi địa chỉ ở luồng nền sau khi dữ liệu đã commit, trong lúc tính vẫn đọc bản cũ
+    // Nhiều lần đổi tên liên tiếp khi chưa bắt đầu tính lại chỉ tính một lần
+    private void refreshAddressesAfterCommit() {
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refreshAddresses();
+                }
+            });
+            return;
+        }
+
+        refreshAddresses();
+    }
+
+    private void refreshAddresses() {
+
+        if (addressBook == null || !addressRefreshPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        addressRefresher.execute(() -> {
+            addressRefreshPending.set(false);
+            try {
+                addressBook = queryAddressBook();
+            } catch (Exception e) {
+                log.error("Refresh cadastral addresses error: {}", e.getMessage());
+                addressBook = null;
+            }
+        });
+    }
+
+    // Gọi sau khi phân công / xóa phân công hỗ trợ địa chính của cảnh sát
+    public void evictAssigned(Long policeId) {
+        runNowAndAfterCommit(() -> assignedCadastrals.evict(policeId));
+    }
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    // Duyệt các chỉ số chưa được phân công theo thứ tự, bỏ qua các phần tử của trang trước
+    private static <T> List<T> page(List<T> items, BitSet assigned, Predicate<T> filter, int page, int size) {
+
+        List<T> result = new ArrayList<>();
+        int skip = (page - 1) * size;
+
+        for (int i = assigned.nextClearBit(0); i < items.size() && result.size() < size; i = assigned.nextClearBit(i + 1)) {
+            T item = items.get(i);
+            if (!filter.test(item)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            result.add(item);
+        }
+
+        return result;
+    }
+
+    private Hierarchy getHierarchy() {
+        Hierarchy current = hierarchy;
+        return current != null && !isExpired(current.loadedAt) ? current : loadHierarchy();
+    }
+
+    // Quá ttl => Nạp lại, phòng trường hợp dữ liệu địa chính bị sửa trực tiếp trong database không qua API
+    private boolean isExpired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt > ttl;
+    }
+
+    private synchronized Hierarchy loadHierarchy() {
+
+        if (hierarchy != null && !isExpired(hierarchy.loadedAt)) {
+            return hierarchy;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource("status", ACTIVE.name());
+
+        List<City> cities = namedParameterJdbcTemplate.query(
+                " select id, code, full_name from cities where status = :status order by created_at desc, id desc ",
+                params, BeanPropertyRowMapper.newInstance(City.class));
+
+        List<District> districts = namedParameterJdbcTemplate.query(
+                " select id, code, full_name, city_id from districts where status = :status order by created_at desc, id desc ",
+                params, BeanPropertyRowMapper.newInstance(District.class));
+
+        List<Ward> wards = namedParameterJdbcTemplate.query(
+                " select id, code, full_name, city_id, district_id from wards where status = :status order by created_at desc, id desc ",
+                params, BeanPropertyRowMapper.newInstance(Ward.class));
+
+        hierarchy = new Hierarchy(cities, districts, wards);
+        log.info("Loaded cadastral hierarchy: {} cities, {} districts, {} wards", cities.size(), districts.size(), wards.size());
+
+        return hierarchy;
+    }
+
+    private AddressBook getAddressBook() {
+        AddressBook current = addressBook;
+        return current != null ? current : loadAddressBook();
+    }
+
+    private synchronized AddressBook loadAddressBook() {
+        if (addressBook == null) {
+            addressBook = queryAddressBook();
+        }
+        return addressBook;
+    }
+
+    private AddressBook queryAddressBook() {
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        List<CityDto> cities = namedParameterJdbcTemplate.query(
+                " select id, code, full_name, status from cities ",
+                params, BeanPropertyRowMapper.newInstance(CityDto.class));
+
+        List<DistrictDto> districts = namedParameterJdbcTemplate.query(
+                " select id, code, full_name, status, city_id from districts ",
+                params, BeanPropertyRowMapper.newInstance(DistrictDto.class));
+
+        List<WardDto> wards = namedParameterJdbcTemplate.query(
+                " select id, code, full_name, status, city_id, district_id from wards ",
+                params, BeanPropertyRowMapper.newInstance(WardDto.class));
+
+        AddressBook book = new AddressBook(cities, districts, wards);
+        log.info("Loaded cadastral addresses: {} cities, {} districts, {} wards", cities.size(), districts.size(), wards.size());
+
+        return book;
+    }
+
+    private static CityDto copy(CityDto source) {
+        CityDto city = new CityDto();
+        city.setId(source.getId());
+        city.setCode(source.getCode());
+        city.setFullName(source.getFullName());
+        city.setStatus(source.getStatus());
+        return city;
+    }
+
+    private static DistrictDto copy(DistrictDto source) {
+        DistrictDto district = new DistrictDto();
+        district.setId(source.getId());
+        district.setCode(source.getCode());
+        district.setFullName(source.getFullName());
+        district.setStatus(source.getStatus());
+        district.setCityId(source.getCityId());
+        return district;
+    }
+
+    private static WardDto copy(WardDto source) {
+        WardDto ward = new WardDto();
+        ward.setId(source.getId());
+        ward.setCode(source.getCode());
+        ward.setFullName(source.getFullName());
+        ward.setStatus(source.getStatus());
+        ward.setCityId(source.getCityId());
+        ward.setDistrictId(source.getDistrictId());
+        return ward;
+    }
+
+    private AssignedCadastral getAssigned(Long policeId, Hierarchy current) {
+
+        long stamp = assignedCadastrals.stamp();
+
+        AssignedCadastral assigned = assignedCadastrals.get(policeId);
+
+        // BitSet được tạo theo cây địa chính cũ hoặc quá ttl => Tạo lại theo cây địa chính hiện tại
+        // Bị xóa trong lúc tạo (phân công thay đổi) => Không đưa BitSet vừa tạo vào cache
+        if (assigned == null || assigned.hierarchy != current || isExpired(assigned.loadedAt)) {
+            assigned = loadAssigned(policeId, current);
+            assignedCadastrals.putIfNotEvicted(policeId, assigned, stamp);
+        }
+
+        return assigned;
+    }
+
+    private AssignedCadastral loadAssigned(Long policeId, Hierarchy current) {
+
+        AssignedCadastral assigned = new AssignedCadastral(current);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("police_id", policeId);
+        params.addValue("status", ACTIVE.name());
+
+        namedParameterJdbcTemplate.query(
+                " select level, city_id, district_id, ward_id from assign_supports"
+                        + " where police_id = :police_id and city_id is not null and status = :status ",
+                params, rs -> {
+                    int level = rs.getInt("level");
+                    if (level == LevelEnums.CITY.value) {
+                        set(assigned.cities, current.cityIndexes, rs.getLong("city_id"));
+                    } else if (level == LevelEnums.DISTRICT.value) {
+                        set(assigned.districts, current.districtIndexes, rs.getLong("district_id"));
+                    } else if (level == LevelEnums.WARD.value) {
+                        set(assigned.wards, current.wardIndexes, rs.getLong("ward_id"));
+                    }
+                });
+
+        return assigned;
+    }
+
+    private static void set(BitSet bits, Map<Long, Integer> indexes, Long id) {
+        Integer index = indexes.get(id);
+        if (index != null) {
+            bits.set(index);
+        }
+    }
+
+    private static <T> Map<Long, Integer> index(List<T> items, Function<T, Long> id) {
+        Map<Long, Integer> indexes = new HashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) {
+            indexes.put(id.apply(items.get(i)), i);
+        }
+        return indexes;
+    }
+
+    private static final class Hierarchy {
+
+        private final List<City> cities;
+
+        private final List<District> districts;
+
+        private final List<Ward> wards;
+
+        private final Map<Long, Integer> cityIndexes;
+
+        private final Map<Long, Integer> districtIndexes;
+
+        private final Map<Long, Integer> wardIndexes;
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Hierarchy(List<City> cities, List<District> districts, List<Ward> wards) {
+            this.cities = cities;
+            this.districts = districts;
+            this.wards = wards;
+            this.cityIndexes = index(cities, City::getId);
+            this.districtIndexes = index(districts, District::getId);
+            this.wardIndexes = index(wards, Ward::getId);
+        }
+    }
+
+    // Tên địa chính theo id và chuỗi địa chỉ tính sẵn: quận huyện "Quận huyện, Tỉnh thành phố", phường xã "Phường xã, Quận huyện, Tỉnh thành phố"
+    private static final class AddressBook {
+
+        private final Map<Long, CityDto> cities;
+
+        private final Map<Long, DistrictDto> districts;
+
+        private final Map<Long, WardDto> wards;
+
+        private final Map<Long, String> districtSuffixes;
+
+        private final Map<Long, String> wardSuffixes;
+
+        private AddressBook(List<CityDto> cities, List<DistrictDto> districts, List<WardDto> wards) {
+
+            this.cities = new HashMap<>(cities.size() * 2);
+            cities.forEach(city -> this.cities.put(city.getId(), city));
+
+            this.districts = new HashMap<>(districts.size() * 2);
+            this.districtSuffixes = new HashMap<>(districts.size() * 2);
+            for (DistrictDto district : districts) {
+                this.districts.put(district.getId(), district);
+                this.districtSuffixes.put(district.getId(), join(district.getFullName(), this.cities.get(district.getCityId())));
+            }
+
+            this.wards = new HashMap<>(wards.size() * 2);
+            this.wardSuffixes = new HashMap<>(wards.size() * 2);
+            for (WardDto ward : wards) {
+                this.wards.put(ward.getId(), ward);
+                String districtSuffix = this.districtSuffixes.get(ward.getDistrictId());
+                this.wardSuffixes.put(ward.getId(), districtSuffix == null
+                        ? join(ward.getFullName(), this.cities.get(ward.getCityId()))
+                        : ward.getFullName() + ", " + districtSuffix);
+            }
+        }
+
+        private static String join(String name, CityDto city) {
+            return city == null ? name : name + ", " + city.getFullName();
+        }
+    }
+
+    // Địa chính đã phân công cho một cảnh sát, mỗi bit ứng với một chỉ số trong cây địa chính
+    private static final class AssignedCadastral {
+
+        private final Hierarchy hierarchy;
+
+        private final BitSet cities;
+
+        private final BitSet districts;
+
+        private final BitSet wards;
+
+        private final long loadedAt = System.currentTimeMillis();
+
+        private AssignedCadastral(Hierarchy hierarchy) {
+            this.hierarchy = hierarchy;
+            this.cities = new BitSet(hierarchy.cities.size());
+            this.districts = new BitSet(hierarchy.districts.size());
+            this.wards = new BitSet(hierarchy.wards.size());
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.CadastralImportDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.city.CadastralRecordRequest;
+import com.system.management.model.request.city.ImportCadastralRequest;
+import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.BadRequestException;
+import com.system.management.utils.exception.ForbiddenException;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static com.system.management.utils.constants.ErrorMessage.*;
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+import static com.system.management.utils.enums.StatusEnums.DELETED;
+
+/* Nạp bộ dữ liệu địa chính chuẩn (CSV hoặc JSON) trong một lần:
+   so sánh với địa chính đang hoạt động theo mã rồi thêm mới, cập nhật, xóa theo lô JDBC */
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CadastralImportService extends BaseCommonService {
+
+    private static final int CITY_CODE = 0;
+    private static final int CITY_NAME = 1;
+    private static final int DISTRICT_CODE = 2;
+    private static final int DISTRICT_NAME = 3;
+    private static final int WARD_CODE = 4;
+    private static final int WARD_NAME = 5;
+
+    // Tên cột trong file CSV (viết thường không dấu): tên cột tiếng Anh hoặc tên cột của danh mục đơn vị hành chính
+    private static final Map<String, Integer> CSV_COLUMNS = Map.ofEntries(
+            Map.entry("city_code", CITY_CODE), Map.entry("ma tp", CITY_CODE),
+            Map.entry("city_name", CITY_NAME), Map.entry("tinh thanh pho", CITY_NAME),
+            Map.entry("district_code", DISTRICT_CODE), Map.entry("ma qh", DISTRICT_CODE),
+            Map.entry("district_name", DISTRICT_NAME), Map.entry("quan huyen", DISTRICT_NAME),
+            Map.entry("ward_code", WARD_CODE), Map.entry("ma px", WARD_CODE),
+            Map.entry("ward_name", WARD_NAME), Map.entry("phuong xa", WARD_NAME));
+
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> importRecords(ImportCadastralRequest request) {
+
+        checkPermission();
+
+        for (int i = 0; i < request.getRecords().size(); i++) {
+            validate(request.getRecords().get(i), i + 1);
+        }
+
+        return new SuccessResponse<>(importCadastral(request.getRecords(), Boolean.TRUE.equals(request.getDeleteMissing())));
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> importCsv(MultipartFile file, Boolean deleteMissing) {
+
+        checkPermission();
+
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException(INVALID_IMPORT_FILE);
+        }
+
+        List<CadastralRecordRequest> records = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+
+            // Dòng đầu tiên là tên cột, bỏ ký tự BOM nếu file được lưu từ Excel
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BadRequestException(INVALID_IMPORT_FILE);
+            }
+            int[] columns = resolveColumns(parseCsvLine(StringUtils.removeStart(header, "\uFEFF")));
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+
+                List<String> values = parseCsvLine(line);
+
+                CadastralRecordRequest record = new CadastralRecordRequest();
+                record.setCityCode(valueAt(values, columns[CITY_CODE]));
+                record.setCityName(valueAt(values, columns[CITY_NAME]));
+                record.setDistrictCode(valueAt(values, columns[DISTRICT_CODE]));
+                record.setDistrictName(valueAt(values, columns[DISTRICT_NAME]));
+                record.setWardCode(valueAt(values, columns[WARD_CODE]));
+                record.setWardName(valueAt(values, columns[WARD_NAME]));
+
+                validate(record, lineNumber);
+                records.add(record);
+            }
+
+        } catch (IOException e) {
+            log.error("Read cadastral import file failed", e);
+            throw new BadRequestException(INVALID_IMPORT_FILE);
+        }
+
+        if (records.isEmpty()) {
+            throw new BadRequestException(INVALID_IMPORT_FILE);
+        }
+
+        return new SuccessResponse<>(importCadastral(records, Boolean.TRUE.equals(deleteMissing)));
+    }
+
+    private void checkPermission() {
+
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
+
+        // Chỉ Cảnh sát trưởng cấp trung ương được phép nạp bộ dữ liệu địa chính
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)
+                || loggedAccount.getLevel() > LevelEnums.CENTRAL.value) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+    }
+
+    // Có mã thì phải có tên, có phường xã thì phải có quận huyện
+    private void validate(CadastralRecordRequest record, int lineNumber) {
+
+        boolean hasDistrict = StringUtils.isNotBlank(record.getDistrictCode());
+        boolean hasWard = StringUtils.isNotBlank(record.getWardCode());
+
+        if (StringUtils.isAnyBlank(record.getCityCode(), record.getCityName())
+                || (hasDistrict && StringUtils.isBlank(record.getDistrictName()))
+                || (hasWard && (!hasDistrict || StringUtils.isBlank(record.getWardName())))) {
+            throw new BadRequestException(INVALID_IMPORT_RECORD.replace("$[0]", String.valueOf(lineNumber)));
+        }
+    }
+
+    private CadastralImportDto importCadastral(List<CadastralRecordRequest> records, boolean deleteMissing) {
+
+        long startTime = System.currentTimeMillis();
+
+        // Gom địa chính trong bộ dữ liệu theo mã, mỗi địa chính chỉ giữ một bản (dòng sau ghi đè tên của dòng trước)
+        Map<String, Unit> cities = new LinkedHashMap<>();
+        Map<String, Unit> districts = new LinkedHashMap<>();
+        Map<String, Unit> wards = new LinkedHashMap<>();
+
+        for (CadastralRecordRequest record : records) {
+
+            String cityCode = record.getCityCode().trim();
+            Unit city = cities.computeIfAbsent(cityCode, code -> new Unit(code, null));
+            city.rawName = record.getCityName();
+
+            if (StringUtils.isBlank(record.getDistrictCode())) {
+                continue;
+            }
+
+            String districtCode = record.getDistrictCode().trim();
+            Unit district = districts.computeIfAbsent(cityCode + "/" + districtCode, key -> new Unit(districtCode, city));
+            district.rawName = record.getDistrictName();
+
+            if (StringUtils.isBlank(record.getWardCode())) {
+                continue;
+            }
+
+            String wardCode = record.getWardCode().trim();
+            Unit ward = wards.computeIfAbsent(cityCode + "/" + districtCode + "/" + wardCode, key -> new Unit(wardCode, district));
+            ward.rawName = record.getWardName();
+        }
+
+        // Chuẩn hóa tên và tên không dấu song song, hàm chuẩn hóa không giữ trạng thái nên an toàn khi chạy nhiều luồng
+        // Tên không dấu tính từ tên đã bỏ khoảng trắng thừa để nạp lại cùng bộ dữ liệu không sinh ra cập nhật
+        Stream.of(cities.values(), districts.values(), wards.values())
+                .flatMap(Collection::stream)
+                .parallel()
+                .forEach(unit -> {
+                    unit.fullName = FunctionUtils.capitalizeFully(unit.rawName.trim());
+                    unit.unsignedName = FunctionUtils.normalizeAndLowercase(unit.fullName);
+                });
+
+        Date now = new Date();
+        String auditor = String.valueOf(getLoggedAccount().getId());
+
+        // Cấp cha phải được ghi trước để có id cho cấp con
+        CadastralImportDto result = new CadastralImportDto();
+
+        int[] cityCounts = applyLevel("cities", List.of(), cities.values(), deleteMissing, now, auditor);
+        result.setInsertedCities(cityCounts[0]);
+        result.setUpdatedCities(cityCounts[1]);
+        result.setDeletedCities(cityCounts[2]);
+
+        int[] districtCounts = applyLevel("districts", List.of("city_id"), districts.values(), deleteMissing, now, auditor);
+        result.setInsertedDistricts(districtCounts[0]);
+        result.setUpdatedDistricts(districtCounts[1]);
+        result.setDeletedDistricts(districtCounts[2]);
+
+        int[] wardCounts = applyLevel("wards", List.of("city_id", "district_id"), wards.values(), deleteMissing, now, auditor);
+        result.setInsertedWards(wardCounts[0]);
+        result.setUpdatedWards(wardCounts[1]);
+        result.setDeletedWards(wardCounts[2]);
+
+        cadastralCacheService.evictHierarchy();
+
+        log.info("Imported cadastral dataset: {} records in {} ms - {}", records.size(), System.currentTimeMillis() - startTime, result);
+
+        return result;
+    }
+
+    // So sánh địa chính một cấp với dữ liệu đang hoạt động, trả về số bản ghi thêm mới, cập nhật, xóa
+    // Cột cha cuối cùng trong parentColumns là cột xác định địa chính cha trực tiếp (mã chỉ duy nhất trong địa chính cha)
+    private int[] applyLevel(String table, List<String> parentColumns, Collection<Unit> units,
+                             boolean deleteMissing, Date now, String auditor) {
+
+        String parentColumn = parentColumns.isEmpty() ? null : parentColumns.get(parentColumns.size() - 1);
+
+        Map<String, ExistingUnit> existingUnits = loadExisting(table, parentColumn);
+
+        List<MapSqlParameterSource> inserts = new ArrayList<>();
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        Set<Long> matchedIds = new HashSet<>();
+
+        for (Unit unit : units) {
+
+            ExistingUnit existing = existingUnits.get(unit.key());
+
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("code", unit.code)
+                    .addValue("full_name", unit.fullName)
+                    .addValue("unsigned_name", unit.unsignedName)
+                    .addValue("now", now)
+                    .addValue("auditor", auditor);
+
+            if (existing == null) {
+                inserts.add(params
+                        .addValue("status", ACTIVE.name())
+                        .addValue("city_id", unit.cityId())
+                        .addValue("district_id", unit.districtId()));
+                continue;
+            }
+
+            unit.id = existing.id;
+            matchedIds.add(existing.id);
+
+            if (!Objects.equals(unit.fullName, existing.fullName) || !Objects.equals(unit.unsignedName, existing.unsignedName)) {
+                updates.add(params.addValue("id", existing.id));
+            }
+        }
+
+        List<MapSqlParameterSource> deletes = new ArrayList<>();
+        if (deleteMissing) {
+            existingUnits.values().stream()
+                    .flatMap(existing -> existing.ids.stream())
+                    .filter(id -> !matchedIds.contains(id))
+                    .forEach(id -> deletes.add(new MapSqlParameterSource()
+                            .addValue("id", id)
+                            .addValue("status", DELETED.name())
+                            .addValue("now", now)
+                            .addValue("auditor", auditor)));
+        }
+
+        if (!inserts.isEmpty()) {
+            StringBuilder columns = new StringBuilder();
+            StringBuilder values = new StringBuilder();
+            parentColumns.forEach(column -> {
+                columns.append(", ").append(column);
+                values.append(", :").append(column);
+            });
+
+            namedParameterJdbcTemplate.batchUpdate(" insert into " + table
+                    + " (code, full_name, unsigned_name" + columns + ", status, created_at, created_by, modified_at, modified_by)"
+                    + " values (:code, :full_name, :unsigned_name" + values + ", :status, :now, :auditor, :now, :auditor) ",
+                    inserts.toArray(new MapSqlParameterSource[0]));
+
+            // Lấy lại id của các địa chính vừa thêm để cấp con tham chiếu
+            Map<String, ExistingUnit> reloadedUnits = loadExisting(table, parentColumn);
+            units.stream()
+                    .filter(unit -> unit.id == null)
+                    .forEach(unit -> unit.id = reloadedUnits.get(unit.key()).id);
+        }
+
+        if (!updates.isEmpty()) {
+            namedParameterJdbcTemplate.batchUpdate(" update " + table
+                    + " set full_name = :full_name, unsigned_name = :unsigned_name, modified_at = :now, modified_by = :auditor"
+                    + " where id = :id ", updates.toArray(new MapSqlParameterSource[0]));
+        }
+
+        if (!deletes.isEmpty()) {
+            namedParameterJdbcTemplate.batchUpdate(" update " + table
+                    + " set status = :status, modified_at = :now, modified_by = :auditor where id = :id ",
+                    deletes.toArray(new MapSqlParameterSource[0]));
+        }
+
+        return new int[]{inserts.size(), updates.size(), deletes.size()};
+    }
+
+    // Địa chính đang hoạt động theo khóa id cha/mã. Nếu trùng khóa thì bản ghi có id nhỏ nhất được so sánh, các bản ghi còn lại là dữ liệu thừa
+    private Map<String, ExistingUnit> loadExisting(String table, String parentColumn) {
+
+        Map<String, ExistingUnit> existingUnits = new HashMap<>();
+
+        namedParameterJdbcTemplate.query(" select id, code, full_name, unsigned_name, "
+                        + (parentColumn == null ? "null" : parentColumn) + " as parent_id from " + table
+                        + " where status = :status order by id ",
+                new MapSqlParameterSource("status", ACTIVE.name()),
+                rs -> {
+                    ExistingUnit existing = new ExistingUnit(rs.getLong("id"), rs.getString("full_name"),
+                            rs.getString("unsigned_name"), new ArrayList<>());
+                    String key = buildKey(getNullableLong(rs, "parent_id"), StringUtils.trim(rs.getString("code")));
+
+                    ExistingUnit first = existingUnits.putIfAbsent(key, existing);
+                    (first == null ? existing : first).ids.add(existing.id);
+                });
+
+        return existingUnits;
+    }
+
+    private static Long getNullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static String buildKey(Long parentId, String code) {
+        return parentId == null ? code : parentId + "/" + code;
+    }
+
+    private static int[] resolveColumns(List<String> headers) {
+
+        int[] columns = new int[]{-1, -1, -1, -1, -1, -1};
+
+        for (int i = 0; i < headers.size(); i++) {
+            Integer field = CSV_COLUMNS.get(FunctionUtils.normalizeAndLowercase(headers.get(i)).trim());
+            if (field != null) {
+                columns[field] = i;
+            }
+        }
+
+        if (columns[CITY_CODE] < 0 || columns[CITY_NAME] < 0) {
+            throw new BadRequestException(INVALID_IMPORT_FILE);
+        }
+
+        return columns;
+    }
+
+    private static String valueAt(List<String> values, int column) {
+        return column >= 0 && column < values.size() ? StringUtils.trimToNull(values.get(column)) : null;
+    }
+
+    // Tách một dòng CSV theo dấu phẩy, giá trị có thể nằm trong dấu nháy kép ("" là một dấu nháy kép)
+    private static List<String> parseCsvLine(String line) {
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+
+        return values;
+    }
+
+    // Địa chính trong bộ dữ liệu, id được gán sau khi so sánh hoặc thêm mới
+    private static final class Unit {
+
+        private final String code;
+
+        private final Unit parent;
+
+        private String rawName;
+
+        private String fullName;
+
+        private String unsignedName;
+
+        private Long id;
+
+        private Unit(String code, Unit parent) {
+            this.code = code;
+            this.parent = parent;
+        }
+
+        private String key() {
+            return buildKey(parent == null ? null : parent.id, code);
+        }
+
+        private Long cityId() {
+            Unit city = this;
+            while (city.parent != null) {
+                city = city.parent;
+            }
+            return city.id;
+        }
+
+        private Long districtId() {
+            return parent != null && parent.parent != null ? parent.id : null;
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class ExistingUnit {
+
+        private final long id;
+
+        private final String fullName;
+
+        private final String unsignedName;
+
+        // Id của bản ghi này và các bản ghi đang hoạt động khác trùng khóa
+        private final List<Long> ids;
+    }
+}
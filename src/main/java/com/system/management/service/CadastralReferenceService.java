@@ -0,0 +1,191 @@
+package com.system.management.service;
+
+import com.system.management.model.entity.Police;
+import com.system.management.model.entity.TreatmentPlace;
+import com.system.management.utils.FunctionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+import static com.system.management.utils.enums.StatusEnums.DELETED;
+
+/* Chuyển toàn bộ dữ liệu đang tham chiếu tới phường xã / quận huyện sang địa chính mới
+   khi sáp nhập hoặc chuyển địa chính sang đơn vị cấp trên khác.
+   Mỗi bảng được cập nhật theo từng khoảng id bằng BulkJobService, chạy ở luồng nền */
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CadastralReferenceService extends BaseCommonService {
+
+    // Các bảng có cột địa chính: tên bảng, tiền tố cột, bảng có lưu đường dẫn địa chính theo các cột này hay không
+    private static final List<ReferenceColumns> REFERENCES = List.of(
+            new ReferenceColumns("drug_addicts", "permanent_", true),
+            new ReferenceColumns("drug_addicts", "current_", false),
+            new ReferenceColumns("drug_addict_requests", "permanent_", false),
+            new ReferenceColumns("drug_addict_requests", "current_", false),
+            new ReferenceColumns("polices", "", true),
+            new ReferenceColumns("police_requests", "", false),
+            new ReferenceColumns("treatment_places", "", true),
+            new ReferenceColumns("assign_supports", "", true));
+
+    private final BulkJobService bulkJobService;
+
+    // Số bước của một tác vụ: các bảng tham chiếu, bản ghi phân công đối tượng theo từng địa chính nguồn, hủy phân công trùng
+    public static int totalSteps(int sourceCount) {
+        return REFERENCES.size() + sourceCount + 1;
+    }
+
+    // Chuyển tham chiếu của các phường xã sourceWardIds sang phường xã (cityId, districtId, wardId)
+    // sourcePaths: đường dẫn địa chính cũ của từng phường xã nguồn
+    public void moveWards(BulkJobService.Job job, Collection<Long> sourceWardIds, Map<Long, String> sourcePaths,
+                          Long cityId, Long districtId, Long wardId, Long auditorId) {
+
+        String targetPath = FunctionUtils.buildCadastralPath(cityId, districtId, wardId);
+
+        MapSqlParameterSource params = newParams(auditorId)
+                .addValue("source_ids", sourceWardIds)
+                .addValue("city_id", cityId)
+                .addValue("district_id", districtId)
+                .addValue("ward_id", wardId)
+                .addValue("cadastral_path", targetPath);
+
+        for (ReferenceColumns reference : REFERENCES) {
+            String p = reference.prefix;
+
+            StringBuilder sql = new StringBuilder();
+            sql.append(" update ").append(reference.table).append(" set ");
+            sql.append(p).append("city_id = :city_id, ");
+            sql.append(p).append("district_id = :district_id, ");
+            sql.append(p).append("ward_id = :ward_id, ");
+            appendPathAndAudit(sql, reference, "cadastral_path = :cadastral_path, ");
+            sql.append(" where id between :from_id and :to_id and ").append(p).append("ward_id in (:source_ids) ");
+
+            bulkJobService.updateInChunks(job, reference.table, sql.toString(), params);
+        }
+
+        moveDrugAddictAssignments(job, sourcePaths, targetPath, cityId, auditorId);
+        afterMove(job, params, "ward_id");
+    }
+
+    // Chuyển tham chiếu của các quận huyện sourceDistrictIds sang quận huyện (cityId, districtId), giữ nguyên phường xã
+    public void moveDistricts(BulkJobService.Job job, Collection<Long> sourceDistrictIds, Map<Long, String> sourcePaths,
+                              Long cityId, Long districtId, Long auditorId) {
+
+        String targetPath = FunctionUtils.buildCadastralPath(cityId, districtId, null);
+
+        MapSqlParameterSource params = newParams(auditorId)
+                .addValue("source_ids", sourceDistrictIds)
+                .addValue("city_id", cityId)
+                .addValue("district_id", districtId)
+                .addValue("cadastral_path", targetPath);
+
+        for (ReferenceColumns reference : REFERENCES) {
+            String p = reference.prefix;
+
+            StringBuilder sql = new StringBuilder();
+            sql.append(" update ").append(reference.table).append(" set ");
+            sql.append(p).append("city_id = :city_id, ");
+            sql.append(p).append("district_id = :district_id, ");
+            appendPathAndAudit(sql, reference, "cadastral_path = case when " + p + "ward_id is null or " + p + "ward_id = 0"
+                    + " then :cadastral_path else concat(:cadastral_path, " + p + "ward_id, '/') end, ");
+            sql.append(" where id between :from_id and :to_id and ").append(p).append("district_id in (:source_ids) ");
+
+            bulkJobService.updateInChunks(job, reference.table, sql.toString(), params);
+        }
+
+        moveDrugAddictAssignments(job, sourcePaths, targetPath, cityId, auditorId);
+        afterMove(job, params, "district_id");
+    }
+
+    private MapSqlParameterSource newParams(Long auditorId) {
+        return new MapSqlParameterSource()
+                .addValue("auditor", String.valueOf(auditorId));
+    }
+
+    private static void appendPathAndAudit(StringBuilder sql, ReferenceColumns reference, String pathAssignment) {
+        if (reference.ownsPath) {
+            // Gán trước cadastral_path: MySQL tính các phép gán trong set lần lượt từ trái sang phải
+            sql.append("previous_cadastral_path = cadastral_path, ");
+            sql.append(pathAssignment);
+        }
+        if ("assign_supports".equals(reference.table)) {
+            sql.append("shard_city_id = :city_id, ");
+        }
+        sql.append("modified_at = :now, modified_by = :auditor ");
+    }
+
+    // Bản ghi phân công đối tượng không có cột địa chính, đường dẫn và tỉnh thành phố (shard_city_id) theo địa chỉ thường trú của đối tượng
+    // => Thay tiền tố đường dẫn cũ bằng đường dẫn mới
+    private void moveDrugAddictAssignments(BulkJobService.Job job, Map<Long, String> sourcePaths,
+                                           String targetPath, Long cityId, Long auditorId) {
+
+        String sql = " update assign_supports set previous_cadastral_path = cadastral_path,"
+                + " cadastral_path = concat(:target_path, substring(cadastral_path, :source_length + 1)),"
+                + " shard_city_id = :city_id, modified_at = :now, modified_by = :auditor"
+                + " where id between :from_id and :to_id and drug_addict_id is not null and cadastral_path like :source_like ";
+
+        long affected = 0;
+        for (String sourcePath : sourcePaths.values()) {
+            MapSqlParameterSource params = newParams(auditorId)
+                    .addValue("target_path", targetPath)
+                    .addValue("source_length", sourcePath.length())
+                    .addValue("source_like", sourcePath + "%")
+                    .addValue("city_id", cityId);
+            affected += bulkJobService.updateInChunks(job, "assign_supports", sql, params);
+        }
+
+        log.info("Moved {} drug addict assignments to {}", affected, targetPath);
+    }
+
+    // Sau khi chuyển: hủy phân công hỗ trợ địa chính bị trùng, xóa cache của các bản ghi đã cập nhật bằng JDBC
+    private void afterMove(BulkJobService.Job job, MapSqlParameterSource params, String column) {
+
+        job.startStep("assign_supports (duplicate)");
+
+        params.addValue("status", ACTIVE.name());
+        params.addValue("deleted", DELETED.name());
+        params.addValue("now", new Date());
+
+        // Giữ lại bản ghi phân công cũ nhất của mỗi cảnh sát trên cùng một địa chính
+        int duplicates = namedParameterJdbcTemplate.update(
+                " update assign_supports set status = :deleted, modified_at = :now, modified_by = :auditor"
+                        + " where drug_addict_id is null and status = :status and " + column + " = :" + column
+                        + " and id not in (select keep_id from (select min(id) as keep_id from assign_supports"
+                        + "     where drug_addict_id is null and status = :status and " + column + " = :" + column
+                        + "     group by police_id, level, coalesce(ward_id, 0)) k) ", params);
+
+        job.addAffectedRows(duplicates);
+        job.completeStep();
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityData(Police.class);
+        sessionFactory.getCache().evictEntityData(TreatmentPlace.class);
+        sessionFactory.getCache().evictDefaultQueryRegion();
+
+        cadastralCacheService.evictHierarchy();
+    }
+
+    private static final class ReferenceColumns {
+
+        private final String table;
+
+        private final String prefix;
+
+        private final boolean ownsPath;
+
+        private ReferenceColumns(String table, String prefix, boolean ownsPath) {
+            this.table = table;
+            this.prefix = prefix;
+            this.ownsPath = ownsPath;
+        }
+    }
+}
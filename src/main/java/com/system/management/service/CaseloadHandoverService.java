@@ -0,0 +1,141 @@
+package com.system.management.service;
+
+import com.system.management.utils.enums.NotificationTypeEnums;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static com.system.management.utils.enums.AssignStatusEnums.ASSIGNED;
+import static com.system.management.utils.enums.AssignStatusEnums.UN_ASSIGN;
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+import static com.system.management.utils.enums.StatusEnums.DELETED;
+
+/* Bàn giao toàn bộ đối tượng đang giám sát và địa chính đang hỗ trợ của một cảnh sát khi cảnh sát bị xóa hoặc chuyển công tác:
+   chuyển sang cảnh sát nhận bàn giao hoặc trả về danh sách chưa phân công.
+   Mỗi bảng được cập nhật theo từng khoảng id bằng BulkJobService, chạy ở luồng nền */
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CaseloadHandoverService extends BaseCommonService {
+
+    // Số bước của một tác vụ: đối tượng, phân công đối tượng, hủy phân công địa chính, chuyển phân công địa chính, trạng thái phân công
+    public static final int TOTAL_STEPS = 5;
+
+    private final BulkJobService bulkJobService;
+
+    private final NotificationService notificationService;
+
+    // targetPoliceId = null => Trả đối tượng và địa chính về danh sách chưa phân công
+    public void handover(BulkJobService.Job job, Long sourcePoliceId, Long targetPoliceId, Long auditorId) {
+
+        boolean toTarget = targetPoliceId != null;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("source_id", sourcePoliceId)
+                .addValue("target_id", targetPoliceId)
+                .addValue("active", ACTIVE.name())
+                .addValue("deleted", DELETED.name())
+                .addValue("auditor", String.valueOf(auditorId));
+
+        String rangeFilter = " police_id = :source_id ";
+
+        // Cảnh sát giám sát đối tượng
+        bulkJobService.updateInChunks(job, "drug_addicts", rangeFilter,
+                " update drug_addicts set police_id = " + (toTarget ? ":target_id" : "null")
+                        + ", modified_at = :now, modified_by = :auditor"
+                        + " where id between :from_id and :to_id and police_id = :source_id and status = :active ", params);
+
+        // Bản ghi phân công đối tượng: chuyển sang cảnh sát nhận bàn giao hoặc hủy phân công
+        bulkJobService.updateInChunks(job, "assign_supports", rangeFilter,
+                " update assign_supports set " + (toTarget ? "police_id = :target_id" : "status = :deleted")
+                        + ", modified_at = :now, modified_by = :auditor"
+                        + " where id between :from_id and :to_id and police_id = :source_id"
+                        + " and drug_addict_id is not null and status = :active ", params);
+
+        // Bản ghi phân công địa chính: hủy toàn bộ nếu không có cảnh sát nhận bàn giao,
+        // ngược lại chỉ hủy địa chính cảnh sát nhận bàn giao đã được phân công hoặc trùng đơn vị công tác
+        StringBuilder dropSql = new StringBuilder();
+        dropSql.append(" update assign_supports set status = :deleted, modified_at = :now, modified_by = :auditor ");
+        dropSql.append(" where id between :from_id and :to_id and police_id = :source_id and drug_addict_id is null and status = :active ");
+
+        if (toTarget) {
+            params.addValue("target_paths", findTargetPaths(targetPoliceId));
+            dropSql.append(" and cadastral_path in (:target_paths) ");
+        }
+
+        bulkJobService.updateInChunks(job, "assign_supports", rangeFilter, dropSql.toString(), params);
+
+        // Chuyển các địa chính còn lại sang cảnh sát nhận bàn giao
+        if (toTarget) {
+            bulkJobService.updateInChunks(job, "assign_supports", rangeFilter,
+                    " update assign_supports set police_id = :target_id, modified_at = :now, modified_by = :auditor"
+                            + " where id between :from_id and :to_id and police_id = :source_id"
+                            + " and drug_addict_id is null and status = :active ", params);
+        } else {
+            job.startStep("assign_supports");
+            job.completeStep();
+        }
+
+        updateAssignStatus(job, sourcePoliceId, targetPoliceId);
+    }
+
+    // Đường dẫn địa chính đơn vị công tác và các địa chính đang được phân công hỗ trợ của cảnh sát nhận bàn giao
+    private List<String> findTargetPaths(Long targetPoliceId) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("police_id", targetPoliceId)
+                .addValue("status", ACTIVE.name());
+
+        List<String> paths = new ArrayList<>(namedParameterJdbcTemplate.queryForList(
+                " select cadastral_path from polices where id = :police_id ", params, String.class));
+
+        paths.addAll(namedParameterJdbcTemplate.queryForList(
+                " select cadastral_path from assign_supports where police_id = :police_id"
+                        + " and drug_addict_id is null and status = :status ", params, String.class));
+
+        paths.removeIf(path -> path == null);
+
+        return paths.isEmpty() ? List.of("") : paths;
+    }
+
+    // Cảnh sát bàn giao không còn phân công nào, cảnh sát nhận bàn giao là Đã phân công nếu có phân công đang hoạt động
+    private void updateAssignStatus(BulkJobService.Job job, Long sourcePoliceId, Long targetPoliceId) {
+
+        job.startStep("polices");
+
+        Date now = new Date();
+
+        List<Long> policeIds = new ArrayList<>();
+        policeIds.add(sourcePoliceId);
+
+        namedParameterJdbcTemplate.update(" update polices set assign_status = :assign_status, modified_at = :now where id = :police_id ",
+                new MapSqlParameterSource()
+                        .addValue("assign_status", UN_ASSIGN.getValue())
+                        .addValue("now", now)
+                        .addValue("police_id", sourcePoliceId));
+
+        if (targetPoliceId != null) {
+            policeIds.add(targetPoliceId);
+
+            namedParameterJdbcTemplate.update(" update polices set assign_status = :assign_status, modified_at = :now where id = :police_id"
+                            + " and exists (select 1 from assign_supports a where a.police_id = :police_id and a.status = :status) ",
+                    new MapSqlParameterSource()
+                            .addValue("assign_status", ASSIGNED.getValue())
+                            .addValue("now", now)
+                            .addValue("police_id", targetPoliceId)
+                            .addValue("status", ACTIVE.name()));
+        }
+
+        evictPoliceCache(policeIds);
+        policeIds.forEach(cadastralCacheService::evictAssigned);
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, policeIds);
+
+        job.completeStep();
+    }
+}
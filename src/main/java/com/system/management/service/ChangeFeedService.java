@@ -0,0 +1,185 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.ChangeFeedDto;
+import com.system.management.model.entity.AssignSupport;
+import com.system.management.model.entity.BaseEntity;
+import com.system.management.model.entity.DrugAddict;
+import com.system.management.model.entity.Police;
+import com.system.management.model.entity.TreatmentPlace;
+import com.system.management.model.request.change_feed.GetChangeFeedRequest;
+import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.enums.ChangeFeedTypeEnums;
+import com.system.management.utils.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static com.system.management.utils.constants.ErrorMessage.INVALID_CHANGE_FEED_TYPE;
+import static com.system.management.utils.constants.ErrorMessage.INVALID_CURSOR;
+import static com.system.management.utils.constants.ErrorMessage.INVALID_SIZE;
+import static com.system.management.utils.enums.StatusEnums.DELETED;
+
+/* Đồng bộ thay đổi: trả các bản ghi thêm mới / cập nhật / xóa mềm sau vị trí đồng bộ (modified_at, id) của FE,
+   thay cho việc tải lại toàn bộ danh sách. Bản ghi bị xóa mềm (status = DELETED) đóng vai trò bản ghi xóa (tombstone),
+   bản ghi chuyển ra khỏi đơn vị của tài khoản được trả cho đơn vị cũ dưới dạng bản ghi xóa chỉ có id */
+
+@Slf4j
+@Service
+public class ChangeFeedService extends BaseCommonService {
+
+    private final long safetyLag;
+
+    private final int maxSize;
+
+    public ChangeFeedService(@Value("${config.change_feed.safety_lag:5000}") long safetyLag,
+                             @Value("${config.change_feed.max_size:1000}") int maxSize) {
+        this.safetyLag = safetyLag;
+        this.maxSize = maxSize;
+    }
+
+    @Transactional(readOnly = true)
+    public SuccessResponse<Object> getList(GetChangeFeedRequest request) {
+
+        ChangeFeedTypeEnums type = parseType(request.getType());
+
+        switch (type) {
+            case DRUG_ADDICT:
+                return new SuccessResponse<>(getChanges(type, request, new Source<>(DrugAddict.class, DrugAddict::getId,
+                        DrugAddict::setId, DrugAddict::getCadastralPath, this::convertToDrugAddictDto)));
+            case POLICE:
+                return new SuccessResponse<>(getChanges(type, request, new Source<>(Police.class, Police::getId,
+                        Police::setId, Police::getCadastralPath, this::convertToPoliceDto)));
+            case TREATMENT_PLACE:
+                return new SuccessResponse<>(getChanges(type, request, new Source<>(TreatmentPlace.class, TreatmentPlace::getId,
+                        TreatmentPlace::setId, TreatmentPlace::getCadastralPath, this::convertToTreatmentPlaceDto)));
+            default:
+                return new SuccessResponse<>(getChanges(type, request, new Source<>(AssignSupport.class, AssignSupport::getId,
+                        AssignSupport::setId, AssignSupport::getCadastralPath, this::convertToAssignSupportDto)));
+        }
+    }
+
+    private <T extends BaseEntity> ChangeFeedDto getChanges(ChangeFeedTypeEnums type, GetChangeFeedRequest request, Source<T> source) {
+
+        long[] cursor = parseCursor(request.getCursor());
+
+        if (request.getSize() < 0) {
+            throw new BadRequestException(INVALID_SIZE);
+        }
+
+        int size = FunctionUtils.isNullOrZero(request.getSize()) ? 500 : Math.min(request.getSize(), maxSize);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        StringBuilder sql = new StringBuilder();
+        sql.append(" select *, created_by as txt_created_by, modified_by as txt_modified_by from ").append(type.getValue());
+
+        // Bỏ qua các bản ghi vừa cập nhật trong khoảng safety_lag: giao dịch cập nhật trước nhưng commit sau
+        // hoặc replica chưa kịp đồng bộ sẽ có modified_at nhỏ hơn vị trí FE đã lưu và bị bỏ sót vĩnh viễn
+        sql.append(" where modified_at <= :upper_bound ");
+        params.addValue("upper_bound", new Date(System.currentTimeMillis() - safetyLag));
+
+        // Khóa (modified_at, id) tăng dần, dùng index (modified_at, id) => Mỗi lần gọi là một lần quét khoảng
+        if (cursor != null) {
+            sql.append(" and (modified_at > :cursor_time or (modified_at = :cursor_time and id > :cursor_id)) ");
+            params.addValue("cursor_time", new Date(cursor[0]));
+            params.addValue("cursor_id", cursor[1]);
+        }
+
+        // Phạm vi đơn vị công tác của tài khoản đang login, cấp trung ương lấy toàn bộ
+        // Bản ghi vừa chuyển ra khỏi đơn vị (đường dẫn trước lần chuyển gần nhất thuộc đơn vị) cũng được lấy để trả bản ghi xóa
+        String scope = getLoggedScope();
+        if (!FunctionUtils.ROOT_CADASTRAL_PATH.equals(scope)) {
+            sql.append(" and (cadastral_path like :scope_path or previous_cadastral_path like :scope_path) ");
+            params.addValue("scope_path", scope + "%");
+        }
+
+        // Lấy dư một bản ghi để biết còn thay đổi phía sau hay không
+        sql.append(" order by modified_at, id limit :size ");
+        params.addValue("size", size + 1);
+
+        List<T> entities = namedParameterJdbcTemplate
+                .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(source.entityClass));
+
+        boolean hasMore = entities.size() > size;
+        if (hasMore) {
+            entities = entities.subList(0, size);
+        }
+
+        List<Object> items = new ArrayList<>();
+        entities.forEach(item -> items.add(isInCadastralScope(source.pathGetter.apply(item), scope)
+                ? source.converter.apply(item) : source.converter.apply(toTombstone(source, item))));
+
+        // Không có thay đổi mới => Giữ nguyên vị trí đồng bộ FE gửi lên
+        String nextCursor = request.getCursor();
+        if (!entities.isEmpty()) {
+            T last = entities.get(entities.size() - 1);
+            nextCursor = last.getModifiedAt().getTime() + "_" + source.idGetter.apply(last);
+        }
+
+        return new ChangeFeedDto(items, nextCursor, hasMore);
+    }
+
+    // Bản ghi đã chuyển ra khỏi đơn vị: chỉ trả id và trạng thái DELETED, không trả dữ liệu thuộc đơn vị khác
+    private static <T extends BaseEntity> T toTombstone(Source<T> source, T entity) {
+        T tombstone = BeanUtils.instantiateClass(source.entityClass);
+        source.idSetter.accept(tombstone, source.idGetter.apply(entity));
+        tombstone.setStatus(DELETED.name());
+        tombstone.setModifiedAt(entity.getModifiedAt());
+        return tombstone;
+    }
+
+    private static ChangeFeedTypeEnums parseType(String type) {
+        try {
+            return ChangeFeedTypeEnums.valueOf(type.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(INVALID_CHANGE_FEED_TYPE);
+        }
+    }
+
+    // Vị trí đồng bộ dạng "<modified_at tính bằng millisecond>_<id>", không truyền => Lấy từ đầu
+    private static long[] parseCursor(String cursor) {
+
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+
+        String[] parts = cursor.trim().split("_");
+        if (parts.length != 2) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+
+        try {
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(INVALID_CURSOR);
+        }
+    }
+
+    // Bảng dữ liệu đồng bộ: lớp bản ghi, id, đường dẫn địa chính và hàm convert sang DTO
+    @AllArgsConstructor
+    private static final class Source<T extends BaseEntity> {
+
+        private final Class<T> entityClass;
+
+        private final Function<T, Long> idGetter;
+
+        private final BiConsumer<T, Long> idSetter;
+
+        private final Function<T, String> pathGetter;
+
+        private final Function<T, Object> converter;
+    }
+}
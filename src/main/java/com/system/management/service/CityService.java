@@ -17,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
@@ -58,8 +59,11 @@ public class CityService extends BaseCommonService {
         city.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));             // Tên tỉnh thành phố
         city.setUnsignedName(FunctionUtils.normalizeAndLowercase(request.getFullName()));   // Tên tỉnh thành phố viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        city = cityRepository.save(city);
+        cadastralCacheService.evictHierarchy();
+
         // Trả về thành công kèm thông tin tỉnh thành phố vừa tạo
-        return new SuccessResponse<>(modelMapper.map(cityRepository.save(city), CityDto.class));
+        return new SuccessResponse<>(modelMapper.map(city, CityDto.class));
     }
 
     public SuccessResponse<Object> update(UpdateCityRequest request) {
@@ -94,8 +98,11 @@ public class CityService extends BaseCommonService {
         city.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));             // Tên tỉnh thành phố
         city.setUnsignedName(FunctionUtils.normalizeAndLowercase(request.getFullName()));   // Tên tỉnh thành phố viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        city = cityRepository.save(city);
+        cadastralCacheService.evictHierarchy();
+
         // Trả về thành công kèm thông tin tỉnh thành phố vừa cập nhật
-        return new SuccessResponse<>(modelMapper.map(cityRepository.save(city), CityDto.class));
+        return new SuccessResponse<>(modelMapper.map(city, CityDto.class));
     }
 
     public SuccessResponse<Object> delete(Long id) {
@@ -122,11 +129,13 @@ public class CityService extends BaseCommonService {
         // Cập nhật trạng thái bản ghi tỉnh thành phố là DELETED
         city.setStatus(DELETED.name());
         cityRepository.save(city);
+        cadastralCacheService.evictHierarchy();
 
         // Trả về thành công
         return new SuccessResponse<>();
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getList(GetListCityRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -134,7 +143,7 @@ public class CityService extends BaseCommonService {
 
         // Khởi tạo query lấy ra danh sách tỉnh thành phố
         StringBuilder sql = new StringBuilder();
-        sql.append(" select id, code, full_name, status from cities where 1 = 1 ");
+        sql.append(" select id, code, full_name, status, modified_at from cities where 1 = 1 ");
 
         // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
         if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
@@ -176,6 +185,11 @@ public class CityService extends BaseCommonService {
         // Set tham số trong query là trạng thái bản ghi tỉnh thành phố muốn tìm kiếm
         sqlParameterSource.addValue("status", status.toUpperCase());
 
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), sqlParameterSource, request.getPage(), request.getSize())) {
+            return null;
+        }
+
         // Sắp xếp theo mã tỉnh thành phố
         sql.append(" order by code ");
 
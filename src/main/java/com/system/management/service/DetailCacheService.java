@@ -0,0 +1,134 @@
+package com.system.management.service;
+
+import com.system.management.utils.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/* DTO chi tiết (đối tượng nghiện, cảnh sát, nơi cai nghiện) đã convert, giữ trong bộ nhớ theo id + modified_at của bản ghi.
+   API chi tiết vẫn đọc bản ghi và kiểm tra quyền, phạm vi địa chính như cũ, chỉ bỏ qua bước convert khi bản ghi chưa thay đổi.
+   DTO chứa dữ liệu của bản ghi khác (cảnh sát giám sát, địa chính...) không làm đổi modified_at của bản ghi
+   => Vẫn phải xóa cache khi thêm / sửa / xóa / duyệt, ttl giới hạn thời gian dữ liệu kèm theo (tên người tạo...) bị cũ */
+
+@Service
+public class DetailCacheService {
+
+    public static final String DRUG_ADDICT = "drug-addict";
+
+    public static final String POLICE = "police";
+
+    public static final String TREATMENT_PLACE = "treatment-place";
+
+    private final long ttl;
+
+    private final LruCache<Long, Entry> drugAddicts;
+
+    private final LruCache<Long, Entry> polices;
+
+    private final LruCache<Long, Entry> treatmentPlaces;
+
+    public DetailCacheService(@Value("${config.detail_cache.ttl:600000}") long ttl,
+                              @Value("${config.detail_cache.max_size:5000}") int maxSize) {
+        this.ttl = ttl;
+        this.drugAddicts = new LruCache<>(maxSize);
+        this.polices = new LruCache<>(maxSize);
+        this.treatmentPlaces = new LruCache<>(maxSize);
+    }
+
+    // DTO trả về được dùng chung giữa các request => Nơi gọi chỉ trả về cho FE, không gán thêm dữ liệu
+    @SuppressWarnings("unchecked")
+    public <V> V get(String type, Long id, Date modifiedAt, Supplier<V> loader) {
+
+        LruCache<Long, Entry> cache = getCache(type);
+        long version = modifiedAt == null ? 0 : modifiedAt.getTime();
+
+        long stamp = cache.stamp();
+
+        Entry entry = cache.get(id);
+        if (entry != null && entry.version == version && System.currentTimeMillis() - entry.cachedAt <= ttl) {
+            return (V) entry.dto;
+        }
+
+        // Cache bị xóa trong lúc convert => DTO có thể chứa dữ liệu kèm theo đã cũ, không đưa vào cache
+        V dto = loader.get();
+        cache.putIfNotEvicted(id, new Entry(version, dto), stamp);
+        return dto;
+    }
+
+    public void evictDrugAddicts(Collection<Long> ids) {
+        afterCommit(() -> ids.stream().filter(Objects::nonNull).forEach(drugAddicts::evict));
+    }
+
+    // DTO đối tượng nghiện chứa thông tin cảnh sát giám sát => Xóa toàn bộ cache đối tượng nghiện
+    public void evictPolices(Collection<Long> ids) {
+        afterCommit(() -> {
+            ids.stream().filter(Objects::nonNull).forEach(polices::evict);
+            drugAddicts.clear();
+        });
+    }
+
+    // DTO đối tượng nghiện chứa thông tin nơi cai nghiện => Xóa toàn bộ cache đối tượng nghiện
+    public void evictTreatmentPlace(Long id) {
+        afterCommit(() -> {
+            treatmentPlaces.evict(id);
+            drugAddicts.clear();
+        });
+    }
+
+    // Thêm / sửa / xóa / sáp nhập địa chính => Tên địa chính và địa chỉ đầy đủ trong mọi DTO chi tiết có thể đã cũ
+    public void clear() {
+        afterCommit(() -> {
+            drugAddicts.clear();
+            polices.clear();
+            treatmentPlaces.clear();
+        });
+    }
+
+    // Xóa ngay và xóa lại sau khi commit: request đọc chạy xen giữa có thể đã đưa lại bản cũ vào cache
+    private static void afterCommit(Runnable eviction) {
+
+        eviction.run();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private LruCache<Long, Entry> getCache(String type) {
+        switch (type) {
+            case DRUG_ADDICT:
+                return drugAddicts;
+            case POLICE:
+                return polices;
+            case TREATMENT_PLACE:
+                return treatmentPlaces;
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    private static class Entry {
+
+        private final long version;
+
+        private final Object dto;
+
+        private final long cachedAt = System.currentTimeMillis();
+
+        private Entry(long version, Object dto) {
+            this.version = version;
+            this.dto = dto;
+        }
+    }
+}
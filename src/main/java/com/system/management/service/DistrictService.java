@@ -1,13 +1,16 @@
 package com.system.management.service;
 
 import com.system.management.model.dto.DistrictDto;
+import com.system.management.model.dto.JobDto;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.entity.District;
 import com.system.management.model.request.district.GetListDistrictRequest;
 import com.system.management.model.request.district.InsertDistrictRequest;
+import com.system.management.model.request.district.MergeDistrictRequest;
 import com.system.management.model.request.district.UpdateDistrictRequest;
 import com.system.management.model.response.SuccessResponse;
 import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.enums.JobTypeEnums;
 import com.system.management.utils.enums.LevelEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -17,10 +20,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
 import static com.system.management.utils.enums.StatusEnums.ACTIVE;
@@ -31,6 +35,10 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class DistrictService extends BaseCommonService {
 
+    private final BulkJobService bulkJobService;
+
+    private final CadastralReferenceService cadastralReferenceService;
+
     public SuccessResponse<Object> insert(InsertDistrictRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -75,8 +83,11 @@ public class DistrictService extends BaseCommonService {
         district.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));             // Tên quận huyện
         district.setUnsignedName(FunctionUtils.normalizeAndLowercase(district.getFullName()));  // Tên quận huyện viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        district = districtRepository.save(district);
+        cadastralCacheService.evictHierarchy();
+
         // Trả về thành công kèm thông tin quận huyện vừa tạo
-        return new SuccessResponse<>(modelMapper.map(districtRepository.save(district), DistrictDto.class));
+        return new SuccessResponse<>(modelMapper.map(district, DistrictDto.class));
     }
 
     public SuccessResponse<Object> update(UpdateDistrictRequest request) {
@@ -121,14 +132,27 @@ public class DistrictService extends BaseCommonService {
             throw new ProcessException(DISTRICT_EXISTS_WITH_CODE);
         }
 
+        // Đường dẫn địa chính cũ, dùng để chuyển dữ liệu tham chiếu khi quận huyện chuyển sang tỉnh thành phố khác
+        String oldPath = FunctionUtils.buildCadastralPath(district.getCityId(), district.getId(), null);
+
         // Cập nhật thông tin quận huyện
         district.setCityId(cityId);                                                             // ID tỉnh thành phố trực thuộc
         district.setCode(request.getCode());                                                    // Mã quận huyện
         district.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));             // Tên quận huyện
         district.setUnsignedName(FunctionUtils.normalizeAndLowercase(district.getFullName()));  // Tên quận huyện viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        district = districtRepository.save(district);
+
+        // Quận huyện chuyển sang tỉnh thành phố khác => Chuyển các phường xã trực thuộc và toàn bộ dữ liệu tham chiếu ở luồng nền
+        if (!oldPath.equals(FunctionUtils.buildCadastralPath(cityId, districtId, null))) {
+            moveWardsToDistrict(List.of(districtId), district);
+            submitMoveDistricts(JobTypeEnums.MOVE_DISTRICT, Map.of(districtId, oldPath), district, loggedAccount.getId());
+        }
+
+        cadastralCacheService.evictHierarchy();
+
         // Trả về thành công kèm thông tin quận huyện vừa cập nhật
-        return new SuccessResponse<>(modelMapper.map(districtRepository.save(district), DistrictDto.class));
+        return new SuccessResponse<>(modelMapper.map(district, DistrictDto.class));
     }
 
     public SuccessResponse<Object> delete(Long id) {
@@ -161,11 +185,80 @@ public class DistrictService extends BaseCommonService {
         // Cập nhật trạng thái bản ghi quận huyện là DELETED
         district.setStatus(DELETED.name());
         districtRepository.save(district);
+        cadastralCacheService.evictHierarchy();
 
         // Trả về thành công
         return new SuccessResponse<>();
     }
 
+    public SuccessResponse<Object> merge(MergeDistrictRequest request) {
+
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
+
+        // Nếu tài khoản đang login không phải Cảnh sát trưởng thì không được phép
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        // Nếu tài khoản đang login có cấp bậc là quận huyện hoặc phường xã thì không được phép
+        if (loggedAccount.getLevel() > LevelEnums.CITY.value) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        // Tìm kiếm quận huyện nhận sáp nhập, nếu không tìm thấy hoặc bản ghi đã bị xóa => Ném ra lỗi
+        District target = districtRepository
+                .findByIdAndStatus(request.getTargetId(), ACTIVE.name())
+                .orElseThrow(() -> new ProcessException(DISTRICT_NOT_EXISTS));
+
+        Set<Long> sourceIds = new LinkedHashSet<>(request.getSourceIds());
+        if (sourceIds.contains(target.getId())) {
+            throw new BadRequestException(INVALID_MERGE_SOURCE);
+        }
+
+        // Các quận huyện bị sáp nhập phải đang hoạt động
+        List<District> sources = districtRepository.findAllByIdInAndStatus(sourceIds, ACTIVE.name());
+        if (sources.size() != sourceIds.size()) {
+            throw new ProcessException(DISTRICT_NOT_EXISTS);
+        }
+
+        // Tài khoản đang login chỉ được phép sáp nhập các quận huyện thuộc tỉnh thành phố đơn vị mình công tác
+        checkCadastralScope(FunctionUtils.buildCadastralPath(target.getCityId(), target.getId(), null));
+
+        Map<Long, String> sourcePaths = new LinkedHashMap<>();
+        for (District source : sources) {
+            String sourcePath = FunctionUtils.buildCadastralPath(source.getCityId(), source.getId(), null);
+            checkCadastralScope(sourcePath);
+            sourcePaths.put(source.getId(), sourcePath);
+        }
+
+        // Chuyển các phường xã trực thuộc sang quận huyện nhận sáp nhập, cập nhật trạng thái các quận huyện bị sáp nhập là DELETED
+        moveWardsToDistrict(sourceIds, target);
+        sources.forEach(source -> source.setStatus(DELETED.name()));
+        districtRepository.saveAll(sources);
+        cadastralCacheService.evictHierarchy();
+
+        // Chuyển toàn bộ dữ liệu tham chiếu sang quận huyện nhận sáp nhập ở luồng nền, trả về thông tin tác vụ để theo dõi tiến độ
+        return new SuccessResponse<>(submitMoveDistricts(JobTypeEnums.MERGE_DISTRICT, sourcePaths, target, loggedAccount.getId()));
+    }
+
+    // Số phường xã trong một quận huyện không lớn => Cập nhật bằng một câu lệnh
+    private void moveWardsToDistrict(Collection<Long> sourceIds, District target) {
+        namedParameterJdbcTemplate.update(
+                " update wards set city_id = :city_id, district_id = :district_id where district_id in (:source_ids) ",
+                new MapSqlParameterSource()
+                        .addValue("city_id", target.getCityId())
+                        .addValue("district_id", target.getId())
+                        .addValue("source_ids", sourceIds));
+    }
+
+    private JobDto submitMoveDistricts(JobTypeEnums type, Map<Long, String> sourcePaths, District target, Long auditorId) {
+        return bulkJobService.submit(type, auditorId, CadastralReferenceService.totalSteps(sourcePaths.size()),
+                job -> cadastralReferenceService.moveDistricts(job, sourcePaths.keySet(), sourcePaths,
+                        target.getCityId(), target.getId(), auditorId));
+    }
+
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getList(GetListDistrictRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -173,7 +266,7 @@ public class DistrictService extends BaseCommonService {
 
         // Khởi tạo query lấy ra danh sách quận huyện
         StringBuilder sql = new StringBuilder();
-        sql.append(" select id, code, full_name, city_id, status from districts where 1 = 1 ");
+        sql.append(" select id, code, full_name, city_id, status, modified_at from districts where 1 = 1 ");
 
         // Tài khoản đang login chỉ được phép tìm kiếm quận huyện trực thuộc tỉnh thành phố đơn vị mình công tác
         if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
@@ -231,6 +324,11 @@ public class DistrictService extends BaseCommonService {
         sql.append(" and status = :status ");
         sqlParameterSource.addValue("status", status.toUpperCase());
 
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), sqlParameterSource, request.getPage(), request.getSize())) {
+            return null;
+        }
+
         // Sắp xếp theo mã quận huyện
         sql.append(" order by code ");
 
@@ -1,10 +1,12 @@
 package com.system.management.service;
 
+import com.system.management.model.dto.ConfirmRequestResultDto;
 import com.system.management.model.dto.DrugAddictRequestDto;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.entity.DrugAddict;
 import com.system.management.model.entity.DrugAddictRequest;
 import com.system.management.model.request.drug_addict_request.ConfirmDrugAddictRequestRequest;
+import com.system.management.model.request.drug_addict_request.ConfirmListDrugAddictRequestRequest;
 import com.system.management.model.request.drug_addict_request.GetListDrugAddictRequestRequest;
 import com.system.management.model.response.SuccessResponse;
 import com.system.management.repository.DrugAddictRepository;
@@ -18,11 +20,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
 import static com.system.management.utils.enums.StatusEnums.*;
@@ -36,6 +40,7 @@ public class DrugAddictRequestService extends BaseCommonService {
 
     private final DrugAddictRequestRepository drugAddictRequestRepository;
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListRequest(GetListDrugAddictRequestRequest request) {
 
         PoliceDto loggedAccount = getLoggedAccount();
@@ -95,6 +100,11 @@ public class DrugAddictRequestService extends BaseCommonService {
         sql.append(" and status = :status ");
         sqlParameterSource.addValue("status", status);
 
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), sqlParameterSource, request.getPage(), request.getSize())) {
+            return null;
+        }
+
         sql.append(" order by created_at desc ");
 
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
@@ -114,6 +124,7 @@ public class DrugAddictRequestService extends BaseCommonService {
         return new SuccessResponse<>(drugAddictRequestDtos);
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getRequest(Long id) {
 
         DrugAddictRequest drugAddictRequest = drugAddictRequestRepository.findById(id)
@@ -124,20 +135,9 @@ public class DrugAddictRequestService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(drugAddictRequest.getPermanentCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(drugAddictRequest.getPermanentDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(drugAddictRequest.getPermanentWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+        checkCadastralScope(FunctionUtils.buildCadastralPath(
+                drugAddictRequest.getPermanentCityId(), drugAddictRequest.getPermanentDistrictId(), drugAddictRequest.getPermanentWardId()));
 
         return new SuccessResponse<>(convertToDrugAddictRequestDto(drugAddictRequest));
     }
@@ -153,20 +153,9 @@ public class DrugAddictRequestService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(drugAddictRequest.getPermanentCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(drugAddictRequest.getPermanentDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(drugAddictRequest.getPermanentWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+        checkCadastralScope(FunctionUtils.buildCadastralPath(
+                drugAddictRequest.getPermanentCityId(), drugAddictRequest.getPermanentDistrictId(), drugAddictRequest.getPermanentWardId()));
 
         if (request.getStatus().equalsIgnoreCase(ACCEPT.name())) {
 
@@ -174,24 +163,12 @@ public class DrugAddictRequestService extends BaseCommonService {
                     .findByIdAndStatus(drugAddictRequest.getDrugAddictId(), ACTIVE.name())
                     .orElseThrow(() -> new ProcessException(DRUG_ADDICT_NOT_EXISTS));
 
-            drugAddict.setAvatar(drugAddictRequest.getAvatar());
-            drugAddict.setFullName(drugAddictRequest.getFullName());
-            drugAddict.setGender(drugAddictRequest.getGender());
-            drugAddict.setDateOfBirth(drugAddictRequest.getDateOfBirth());
-            drugAddict.setPhoneNumber(drugAddictRequest.getPhoneNumber());
-            drugAddict.setEmail(drugAddictRequest.getEmail());
-            drugAddict.setTreatmentPlaceId(drugAddictRequest.getTreatmentPlaceId());
-            drugAddict.setPermanentWardId(drugAddictRequest.getPermanentWardId());
-            drugAddict.setPermanentDistrictId(drugAddictRequest.getPermanentDistrictId());
-            drugAddict.setPermanentCityId(drugAddictRequest.getPermanentCityId());
-            drugAddict.setPermanentAddressDetail(drugAddictRequest.getPermanentAddressDetail());
-            drugAddict.setIsAtPermanent(drugAddictRequest.getIsAtPermanent());
-            drugAddict.setCurrentWardId(drugAddictRequest.getCurrentWardId());
-            drugAddict.setCurrentDistrictId(drugAddictRequest.getCurrentDistrictId());
-            drugAddict.setCurrentCityId(drugAddictRequest.getCurrentCityId());
-            drugAddict.setCurrentAddressDetail(drugAddictRequest.getCurrentAddressDetail());
-            drugAddict.setIsAtPermanent(drugAddictRequest.getIsAtPermanent());
+            applyRequest(drugAddict, drugAddictRequest);
             drugAddictRepository.save(drugAddict);
+            detailCacheService.evictDrugAddicts(List.of(drugAddict.getId()));
+            assignSupportRepository.updateCadastralByDrugAddictId(drugAddict.getId(), drugAddict.getPermanentCityId(),
+                    FunctionUtils.buildCadastralPath(drugAddict.getPermanentCityId(),
+                            drugAddict.getPermanentDistrictId(), drugAddict.getPermanentWardId()));
 
             drugAddictRequest.setStatus(ACCEPT.name());
 
@@ -212,4 +189,129 @@ public class DrugAddictRequestService extends BaseCommonService {
 
         return new SuccessResponse<>();
     }
+
+    // Duyệt / từ chối nhiều yêu cầu trong một transaction: yêu cầu và đối tượng được lấy bằng một câu truy vấn mỗi loại,
+    // cập nhật trên bộ nhớ rồi ghi theo lô. Yêu cầu không hợp lệ được bỏ qua và trả về lý do trong kết quả
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> confirmList(ConfirmListDrugAddictRequestRequest request) {
+
+        PoliceDto loggedAccount = getLoggedAccount();
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        String loggedScope = getLoggedScope();
+
+        Set<Long> ids = request.getRequests().stream()
+                .map(ConfirmDrugAddictRequestRequest::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, DrugAddictRequest> drugAddictRequests = drugAddictRequestRepository.findAllByIdInAndStatus(ids, WAIT.name()).stream()
+                .collect(Collectors.toMap(DrugAddictRequest::getId, Function.identity()));
+
+        Set<Long> drugAddictIds = drugAddictRequests.values().stream()
+                .map(DrugAddictRequest::getDrugAddictId)
+                .collect(Collectors.toSet());
+
+        Map<Long, DrugAddict> drugAddicts = drugAddictIds.isEmpty() ? Map.of() : drugAddictRepository.findAllByIdInAndStatus(drugAddictIds, ACTIVE.name()).stream()
+                .collect(Collectors.toMap(DrugAddict::getId, Function.identity()));
+
+        List<ConfirmRequestResultDto> results = new ArrayList<>();
+        List<DrugAddictRequest> confirmedRequests = new ArrayList<>();
+        Map<Long, DrugAddict> acceptedDrugAddicts = new LinkedHashMap<>();
+
+        for (ConfirmDrugAddictRequestRequest item : request.getRequests()) {
+
+            // Lấy ra khỏi map => Id lặp lại trong danh sách chỉ được xử lý một lần
+            DrugAddictRequest drugAddictRequest = drugAddictRequests.remove(item.getId());
+
+            String error = null;
+
+            if (drugAddictRequest == null) {
+                error = REQUEST_NOT_EXISTS;
+
+            } else if (!isInCadastralScope(FunctionUtils.buildCadastralPath(drugAddictRequest.getPermanentCityId(),
+                    drugAddictRequest.getPermanentDistrictId(), drugAddictRequest.getPermanentWardId()), loggedScope)) {
+                // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+                error = NOT_ALLOW;
+
+            } else if (ACCEPT.name().equalsIgnoreCase(item.getStatus())) {
+
+                DrugAddict drugAddict = drugAddicts.get(drugAddictRequest.getDrugAddictId());
+
+                if (drugAddict == null) {
+                    error = DRUG_ADDICT_NOT_EXISTS;
+                } else {
+                    applyRequest(drugAddict, drugAddictRequest);
+                    acceptedDrugAddicts.put(drugAddict.getId(), drugAddict);
+
+                    drugAddictRequest.setStatus(ACCEPT.name());
+                }
+
+            } else if (REJECT.name().equalsIgnoreCase(item.getStatus())) {
+
+                if (StringUtils.isBlank(item.getReasonRejected())) {
+                    error = REASON_REJECTED_REQUIRED;
+                } else {
+                    drugAddictRequest.setStatus(REJECT.name());
+                    drugAddictRequest.setReasonRejected(item.getReasonRejected());
+                }
+
+            } else {
+                error = INVALID_STATUS;
+            }
+
+            if (error == null) {
+                confirmedRequests.add(drugAddictRequest);
+            }
+
+            results.add(new ConfirmRequestResultDto(item.getId(), item.getStatus(), error == null, error));
+        }
+
+        // Ghi theo lô khi flush (hibernate.jdbc.batch_size)
+        drugAddictRepository.saveAll(acceptedDrugAddicts.values());
+        drugAddictRequestRepository.saveAll(confirmedRequests);
+        detailCacheService.evictDrugAddicts(acceptedDrugAddicts.keySet());
+
+        // Đường dẫn địa chính và tỉnh thành phố (shard_city_id) của bản ghi phân công đối tượng theo địa chỉ thường trú mới
+        if (!acceptedDrugAddicts.isEmpty()) {
+            MapSqlParameterSource[] batchParams = acceptedDrugAddicts.values().stream()
+                    .map(drugAddict -> new MapSqlParameterSource()
+                            .addValue("drug_addict_id", drugAddict.getId())
+                            .addValue("now", new Date())
+                            .addValue("shard_city_id", drugAddict.getPermanentCityId())
+                            .addValue("cadastral_path", FunctionUtils.buildCadastralPath(drugAddict.getPermanentCityId(),
+                                    drugAddict.getPermanentDistrictId(), drugAddict.getPermanentWardId())))
+                    .toArray(MapSqlParameterSource[]::new);
+
+            namedParameterJdbcTemplate.batchUpdate(" update assign_supports set shard_city_id = :shard_city_id,"
+                    + " previous_cadastral_path = case when cadastral_path <> :cadastral_path then cadastral_path else previous_cadastral_path end,"
+                    + " cadastral_path = :cadastral_path, modified_at = :now"
+                    + " where drug_addict_id = :drug_addict_id"
+                    + " and (shard_city_id <> :shard_city_id or cadastral_path is null or cadastral_path <> :cadastral_path) ", batchParams);
+        }
+
+        return new SuccessResponse<>(results);
+    }
+
+    private static void applyRequest(DrugAddict drugAddict, DrugAddictRequest drugAddictRequest) {
+        drugAddict.setAvatar(drugAddictRequest.getAvatar());
+        drugAddict.setFullName(drugAddictRequest.getFullName());
+        drugAddict.setGender(drugAddictRequest.getGender());
+        drugAddict.setDateOfBirth(drugAddictRequest.getDateOfBirth());
+        drugAddict.setPhoneNumber(drugAddictRequest.getPhoneNumber());
+        drugAddict.setEmail(drugAddictRequest.getEmail());
+        drugAddict.setTreatmentPlaceId(drugAddictRequest.getTreatmentPlaceId());
+        drugAddict.setPermanentWardId(drugAddictRequest.getPermanentWardId());
+        drugAddict.setPermanentDistrictId(drugAddictRequest.getPermanentDistrictId());
+        drugAddict.setPermanentCityId(drugAddictRequest.getPermanentCityId());
+        drugAddict.setPermanentAddressDetail(drugAddictRequest.getPermanentAddressDetail());
+        drugAddict.setIsAtPermanent(drugAddictRequest.getIsAtPermanent());
+        drugAddict.setCurrentWardId(drugAddictRequest.getCurrentWardId());
+        drugAddict.setCurrentDistrictId(drugAddictRequest.getCurrentDistrictId());
+        drugAddict.setCurrentCityId(drugAddictRequest.getCurrentCityId());
+        drugAddict.setCurrentAddressDetail(drugAddictRequest.getCurrentAddressDetail());
+        drugAddict.setIsAtPermanent(drugAddictRequest.getIsAtPermanent());
+    }
 }
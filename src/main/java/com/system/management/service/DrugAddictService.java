@@ -11,8 +11,12 @@ import com.system.management.model.response.SuccessResponse;
 import com.system.management.repository.DrugAddictRepository;
 import com.system.management.repository.DrugAddictRequestRepository;
 import com.system.management.repository.TreatmentPlaceRepository;
+import com.system.management.utils.FieldSet;
 import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.SqlShapeCache;
+import com.system.management.utils.SqlShapeCache.SqlShape;
 import com.system.management.utils.enums.GenderEnums;
+import com.system.management.utils.enums.NotificationTypeEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.enums.StatusEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -22,12 +26,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
@@ -39,12 +46,52 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class DrugAddictService extends BaseCommonService {
 
+    // Trường của DrugAddictDto FE được chọn ở API danh sách => Các cột cần select
+    private static final Map<String, List<String>> FIELD_COLUMNS = Map.ofEntries(
+            Map.entry("strAvatar", List.of("avatar")),
+            Map.entry("identifyNumber", List.of("identify_number")),
+            Map.entry("fullName", List.of("full_name")),
+            Map.entry("gender", List.of("gender")),
+            Map.entry("dateOfBirth", List.of("date_of_birth")),
+            Map.entry("phoneNumber", List.of("phone_number")),
+            Map.entry("email", List.of("email")),
+            Map.entry("police", List.of("police_id")),
+            Map.entry("assignAt", List.of("police_id")),
+            Map.entry("treatmentPlace", List.of("treatment_place_id")),
+            Map.entry("permanentCity", List.of("permanent_city_id")),
+            Map.entry("permanentDistrict", List.of("permanent_district_id")),
+            Map.entry("permanentWard", List.of("permanent_ward_id")),
+            Map.entry("permanentAddressDetail", List.of("permanent_address_detail")),
+            Map.entry("fullPermanent", List.of("permanent_city_id", "permanent_district_id", "permanent_ward_id", "permanent_address_detail")),
+            Map.entry("currentCity", List.of("current_city_id")),
+            Map.entry("currentDistrict", List.of("current_district_id")),
+            Map.entry("currentWard", List.of("current_ward_id")),
+            Map.entry("currentAddressDetail", List.of("current_address_detail")),
+            Map.entry("fullCurrent", List.of("current_city_id", "current_district_id", "current_ward_id", "current_address_detail")),
+            Map.entry("isAtPermanent", List.of("is_at_permanent")));
+
+    // Bit điều kiện lọc của API danh sách
+    private static final int SHAPE_IDENTIFY_NUMBER = SHAPE_FIRST_FILTER;
+    private static final int SHAPE_FULL_NAME = SHAPE_FIRST_FILTER << 1;
+    private static final int SHAPE_SUPERVISED = SHAPE_FIRST_FILTER << 2;
+    private static final int SHAPE_UNSUPERVISED = SHAPE_FIRST_FILTER << 3;
+    private static final int SHAPE_SUPERVISOR_LEVEL = SHAPE_FIRST_FILTER << 4;
+    private static final int SHAPE_SUPERVISOR_IDENTIFY_NUMBER = SHAPE_FIRST_FILTER << 5;
+    private static final int SHAPE_SUPERVISOR_FULL_NAME = SHAPE_FIRST_FILTER << 6;
+    private static final int SHAPE_CITY_PARTITION = SHAPE_FIRST_FILTER << 7;
+    private static final int SHAPE_TREATMENT_PLACE = SHAPE_FIRST_FILTER << 8;
+    private static final int SHAPE_POLICE = SHAPE_FIRST_FILTER << 9;
+
+    private static final SqlShapeCache LIST_SHAPES = new SqlShapeCache();
+
     private final DrugAddictRepository drugAddictRepository;
 
     private final TreatmentPlaceRepository treatmentPlaceRepository;
 
     private final DrugAddictRequestRepository drugAddictRequestRepository;
 
+    private final NotificationService notificationService;
+
     @Transactional(rollbackFor = Exception.class)
     public SuccessResponse<Object> insert(InsertDrugAddictRequest request) {
 
@@ -287,6 +334,8 @@ public class DrugAddictService extends BaseCommonService {
             }
 
             drugAddictRequest = drugAddictRequestRepository.save(drugAddictRequest);
+            notificationService.notifySheriffs(NotificationTypeEnums.DRUG_ADDICT_REQUEST, drugAddictRequest.getId(),
+                    FunctionUtils.buildCadastralPath(permanentCityId, permanentDistrictId, permanentWardId));
 
             response = new SuccessResponse<>(convertToDrugAddictRequestDto(drugAddictRequest));
 
@@ -341,6 +390,11 @@ public class DrugAddictService extends BaseCommonService {
             }
 
             drugAddict = drugAddictRepository.save(drugAddict);
+            detailCacheService.evictDrugAddicts(List.of(drugAddict.getId()));
+
+            // Chuyển các bản ghi phân công sang tỉnh thành phố và đường dẫn địa chính của địa chỉ thường trú mới
+            assignSupportRepository.updateCadastralByDrugAddictId(drugAddict.getId(), permanentCityId,
+                    FunctionUtils.buildCadastralPath(permanentCityId, permanentDistrictId, permanentWardId));
 
             response = new SuccessResponse<>(convertToDrugAddictDto(drugAddict));
         }
@@ -359,26 +413,16 @@ public class DrugAddictService extends BaseCommonService {
                 .findByIdAndStatus(id, ACTIVE.name())
                 .orElseThrow(() -> new ProcessException(DRUG_ADDICT_NOT_EXISTS));
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(drugAddict.getPermanentCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(drugAddict.getPermanentDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(drugAddict.getPermanentWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(drugAddict.getCadastralPath());
 
         drugAddict.setStatus(DELETED.name());
         drugAddictRepository.save(drugAddict);
+        detailCacheService.evictDrugAddicts(List.of(drugAddict.getId()));
         return new SuccessResponse<>();
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getList(GetListDrugAddictRequest request) {
 
         PoliceDto loggedAccount = getLoggedAccount();
@@ -386,100 +430,162 @@ public class DrugAddictService extends BaseCommonService {
             request.setPoliceId(loggedAccount.getId());
         }
 
-        StringBuilder sql = new StringBuilder();
+        // Chỉ select các cột của trường FE yêu cầu
+        FieldSet fields = FieldSet.of(request.getFields(), FIELD_COLUMNS);
 
-        sql.append(" select da.*, da.created_by as txt_created_by, da.modified_by as txt_modified_by ");
-        sql.append(" from drug_addicts da left join polices p on da.police_id = p.id where 1 = 1 ");
+        // Tham số query riêng của request => Request đồng thời không ghi đè tham số của nhau (khóa gộp và query dùng cùng một bộ tham số)
+        MapSqlParameterSource params = new MapSqlParameterSource();
+
+        int shape = 0;
 
         if (StringUtils.isNotBlank(request.getIdentifyNumber())) {
-            sql.append(" and da.identify_number like concat('%', :da_identify_number, '%') ");
-            sqlParameterSource.addValue("da_identify_number", request.getIdentifyNumber());
+            shape |= SHAPE_IDENTIFY_NUMBER;
+            params.addValue("da_identify_number", request.getIdentifyNumber());
         }
 
         if (StringUtils.isNotBlank(request.getFullName())) {
-            sql.append(" and da.full_name like concat('%', :da_full_name, '%') ");
-            sqlParameterSource.addValue("da_full_name", request.getFullName());
+            shape |= SHAPE_FULL_NAME;
+            params.addValue("da_full_name", request.getFullName());
         }
 
         if (request.getSupervisorStatus() != null) {
             if (request.getSupervisorStatus() == 0) {
-                sql.append(" and da.police_id is not null ");
+                shape |= SHAPE_SUPERVISED;
             } else if (request.getSupervisorStatus() == 1) {
-                sql.append(" and da.police_id is null ");
+                shape |= SHAPE_UNSUPERVISED;
             }
         }
 
         if (!FunctionUtils.isNullOrZero(request.getSupervisorLevel())) {
-            sql.append(" and p.level = :level ");
-            sqlParameterSource.addValue("level", request.getSupervisorLevel());
+            shape |= SHAPE_SUPERVISOR_LEVEL;
+            params.addValue("level", request.getSupervisorLevel());
         }
 
         if (StringUtils.isNotBlank(request.getSupervisorIdentifyNumber())) {
-            sql.append(" and da.identify_number like concat('%', :p_identify_number, '%') ");
-            sqlParameterSource.addValue("p_identify_number", request.getSupervisorIdentifyNumber());
+            shape |= SHAPE_SUPERVISOR_IDENTIFY_NUMBER;
+            params.addValue("p_identify_number", request.getSupervisorIdentifyNumber());
         }
 
         if (StringUtils.isNotBlank(request.getSupervisorFullName())) {
-            sql.append(" and p.full_name like concat('%', :p_full_name, '%') ");
-            sqlParameterSource.addValue("p_full_name", request.getSupervisorFullName());
+            shape |= SHAPE_SUPERVISOR_FULL_NAME;
+            params.addValue("p_full_name", request.getSupervisorFullName());
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
-            sql.append(" and da.permanent_city_id = :city_id ");
-            sqlParameterSource.addValue("city_id", loggedAccount.getCityId());
-        } else if (!FunctionUtils.isNullOrZero(request.getCityId())) {
-            sql.append(" and da.permanent_city_id = :city_id ");
-            sqlParameterSource.addValue("city_id", request.getCityId());
-        }
+        // Phạm vi địa chính: theo đơn vị công tác của tài khoản đang login, nếu không có thì theo dữ liệu tìm kiếm
+        Long cityId = FunctionUtils.isNullOrZero(loggedAccount.getCityId()) ? request.getCityId() : loggedAccount.getCityId();
+        Long districtId = FunctionUtils.isNullOrZero(loggedAccount.getDistrictId()) ? request.getDistrictId() : loggedAccount.getDistrictId();
+        Long wardId = FunctionUtils.isNullOrZero(loggedAccount.getWardId()) ? request.getWardId() : loggedAccount.getWardId();
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())) {
-            sql.append(" and da.permanent_district_id = :district_id ");
-            sqlParameterSource.addValue("district_id", loggedAccount.getDistrictId());
-        } else if (!FunctionUtils.isNullOrZero(request.getDistrictId())) {
-            sql.append(" and da.permanent_district_id = :district_id ");
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
+        // Giữ điều kiện permanent_city_id để dùng index theo tỉnh thành phố
+        if (!FunctionUtils.isNullOrZero(cityId)) {
+            shape |= SHAPE_CITY_PARTITION;
+            params.addValue("city_id", cityId);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())) {
-            sql.append(" and da.permanent_ward_id = :ward_id ");
-            sqlParameterSource.addValue("ward_id", loggedAccount.getWardId());
-        } else if (!FunctionUtils.isNullOrZero(request.getWardId())) {
-            sql.append(" and da.permanent_ward_id = :ward_id ");
-            sqlParameterSource.addValue("ward_id", request.getWardId());
-        }
+        shape |= bindCadastralPathFilter(params, cityId, districtId, wardId);
 
         if (!FunctionUtils.isNullOrZero(request.getTreatmentPlaceId())) {
-            sql.append(" and da.treatment_place_id = :treatment_place_id ");
-            sqlParameterSource.addValue("treatment_place_id", request.getTreatmentPlaceId());
+            shape |= SHAPE_TREATMENT_PLACE;
+            params.addValue("treatment_place_id", request.getTreatmentPlaceId());
         }
 
         if (!FunctionUtils.isNullOrZero(request.getPoliceId())) {
-            sql.append(" and da.police_id = :police_id ");
-            sqlParameterSource.addValue("police_id", request.getPoliceId());
+            shape |= SHAPE_POLICE;
+            params.addValue("police_id", request.getPoliceId());
         }
 
-        sql.append(" and da.status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
 
-        sql.append(" order by da.created_at desc ");
+        // Câu query theo tổ hợp điều kiện lọc, chỉ ghép chuỗi ở lần đầu gặp tổ hợp
+        SqlShape sql = LIST_SHAPES.get(shape, fields.isAll(), s -> buildListSql(fields, s));
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.getFilterSql(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
         int size = FunctionUtils.isNullOrZero(request.getSize()) ? 100 : request.getSize();
 
-        sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size);
-        sqlParameterSource.addValue("size", size);
+        params.addValue("page", (page - 1) * size);
+        params.addValue("size", size);
+
+        // Các request đồng thời cùng điều kiện lọc và phạm vi địa chính dùng chung một lần query và convert
+        List<DrugAddictDto> drugAddictDtos = singleFlight.execute(buildQueryKey(sql.getListSql(), params), () -> {
 
-        List<DrugAddict> drugAddicts = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(DrugAddict.class));
+            List<DrugAddict> drugAddicts = namedParameterJdbcTemplate
+                    .query(sql.getListSql(), params, BeanPropertyRowMapper.newInstance(DrugAddict.class));
 
-        List<DrugAddictDto> drugAddictDtos = new ArrayList<>();
+            List<DrugAddictDto> result = new ArrayList<>();
 
-        drugAddicts.forEach(item -> drugAddictDtos.add(convertToDrugAddictDto(item)));
+            drugAddicts.forEach(item -> result.add(convertToDrugAddictDto(item, fields)));
+
+            return result;
+        });
 
         return new SuccessResponse<>(drugAddictDtos);
     }
 
+    // Ghép câu query danh sách đối tượng nghiện theo tổ hợp điều kiện lọc
+    private static SqlShape buildListSql(FieldSet fields, int shape) {
+
+        StringBuilder sql = new StringBuilder();
+
+        sql.append(" select ").append(fields.toSelect("da", FIELD_COLUMNS));
+        sql.append(" from drug_addicts da left join polices p on da.police_id = p.id where 1 = 1 ");
+
+        if ((shape & SHAPE_IDENTIFY_NUMBER) != 0) {
+            sql.append(" and da.identify_number like concat('%', :da_identify_number, '%') ");
+        }
+
+        if ((shape & SHAPE_FULL_NAME) != 0) {
+            sql.append(" and da.full_name like concat('%', :da_full_name, '%') ");
+        }
+
+        if ((shape & SHAPE_SUPERVISED) != 0) {
+            sql.append(" and da.police_id is not null ");
+        }
+
+        if ((shape & SHAPE_UNSUPERVISED) != 0) {
+            sql.append(" and da.police_id is null ");
+        }
+
+        if ((shape & SHAPE_SUPERVISOR_LEVEL) != 0) {
+            sql.append(" and p.level = :level ");
+        }
+
+        if ((shape & SHAPE_SUPERVISOR_IDENTIFY_NUMBER) != 0) {
+            sql.append(" and da.identify_number like concat('%', :p_identify_number, '%') ");
+        }
+
+        if ((shape & SHAPE_SUPERVISOR_FULL_NAME) != 0) {
+            sql.append(" and p.full_name like concat('%', :p_full_name, '%') ");
+        }
+
+        if ((shape & SHAPE_CITY_PARTITION) != 0) {
+            sql.append(" and da.permanent_city_id = :city_id ");
+        }
+
+        appendCadastralPathFilter(sql, shape, "da.cadastral_path", "da.permanent_");
+
+        if ((shape & SHAPE_TREATMENT_PLACE) != 0) {
+            sql.append(" and da.treatment_place_id = :treatment_place_id ");
+        }
+
+        if ((shape & SHAPE_POLICE) != 0) {
+            sql.append(" and da.police_id = :police_id ");
+        }
+
+        sql.append(" and da.status = :status ");
+        String filterSql = sql.toString();
+
+        sql.append(" order by da.created_at desc ");
+        sql.append(" limit :page, :size ");
+
+        return new SqlShape(filterSql, sql.toString());
+    }
+
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> get(Long id) {
 
         DrugAddict drugAddict = drugAddictRepository
@@ -492,21 +598,21 @@ public class DrugAddictService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(drugAddict.getPermanentCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(drugAddict.getCadastralPath());
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(drugAddict.getPermanentDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Cảnh sát được tham chiếu: người tạo, người cập nhật và cảnh sát giám sát
+        List<Long> policeIds = getAuditorIds(drugAddict);
+        policeIds.add(drugAddict.getPoliceId());
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(drugAddict.getPermanentWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+        // Bản ghi chưa thay đổi so với bản FE đang có => Trả 304
+        if (checkNotModified(DetailCacheService.DRUG_ADDICT, drugAddict, drugAddict.getId(),
+                policeIds, Collections.singletonList(drugAddict.getTreatmentPlaceId()))) {
+            return null;
         }
 
-        return new SuccessResponse<>(convertToDrugAddictDto(drugAddict));
+        // Bản ghi chưa thay đổi kể từ lần convert trước => Dùng lại DTO đã convert
+        return new SuccessResponse<>(detailCacheService.get(DetailCacheService.DRUG_ADDICT, drugAddict.getId(), drugAddict.getModifiedAt(),
+                () -> convertToDrugAddictDto(drugAddict)));
     }
 }
@@ -0,0 +1,44 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.exception.ForbiddenException;
+import com.system.management.utils.exception.ProcessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+
+import static com.system.management.utils.constants.ErrorMessage.JOB_NOT_EXISTS;
+import static com.system.management.utils.constants.ErrorMessage.NOT_ALLOW;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JobService extends BaseCommonService {
+
+    private final BulkJobService bulkJobService;
+
+    public SuccessResponse<Object> get(String id) {
+
+        // Tìm kiếm tác vụ theo id truyền xuống, nếu không tìm thấy (đã quá cũ hoặc server khởi động lại) => Ném ra lỗi
+        JobDto job = bulkJobService.get(id);
+        if (job == null) {
+            throw new ProcessException(JOB_NOT_EXISTS);
+        }
+
+        // Tài khoản đang login chỉ được phép xem tác vụ do mình tạo
+        PoliceDto loggedAccount = getLoggedAccount();
+        if (!Objects.equals(loggedAccount.getId(), job.getCreatedBy())) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        return new SuccessResponse<>(job);
+    }
+
+    public SuccessResponse<Object> getList() {
+        return new SuccessResponse<>(bulkJobService.getList(getLoggedAccount().getId()));
+    }
+}
@@ -0,0 +1,307 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.NotificationDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.LruCache;
+import com.system.management.utils.enums.NotificationTypeEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.UnauthorizedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.system.management.utils.constants.ErrorMessage.INVALID_NOTIFICATION_TICKET;
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+
+/* Đẩy thông báo qua Server-Sent Events thay cho việc FE gọi lại danh sách theo chu kỳ:
+   - Yêu cầu cập nhật thông tin mới => Cảnh sát trưởng quản lý địa chính của yêu cầu
+   - Thay đổi phân công => Cảnh sát được phân công
+   Nơi gọi trong transaction => Thông báo gửi sau khi commit, ngoài transaction (tác vụ nền, mỗi câu lệnh tự commit) => Gửi ngay.
+   Vai trò, đơn vị công tác của người nhận đọc lại ở mỗi thông báo
+   (cảnh sát chuyển công tác không còn nhận thông báo của đơn vị cũ).
+   Mỗi kết nối có hàng đợi riêng, ghi ra kết nối chạy trên nhóm luồng gửi => Một kết nối chậm không chặn kết nối khác,
+   kết nối dồn quá max_pending thông báo chưa gửi được bị đóng, FE kết nối lại và tải lại dữ liệu.
+   EventSource của trình duyệt không gửi được header Authorization => FE lấy vé (ticket) bằng access token,
+   mở kết nối với /notification/subscribe?ticket=..., vé chỉ dùng một lần và hết hạn sau ticket_ttl */
+
+@Slf4j
+@Service
+public class NotificationService extends BaseCommonService {
+
+    public static final String TICKET = "ticket";
+
+    public static final String TICKET_EXPIRY = "ticketExpiry";
+
+    private final long timeout;
+
+    private final int maxPending;
+
+    private final long ticketTtl;
+
+    // Vé đăng ký chưa dùng, vé tạo ra mà không dùng bị đẩy ra khi vượt max_tickets
+    private final LruCache<String, Ticket> tickets;
+
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+    // Lọc người nhận, xếp thông báo vào hàng đợi và gửi ping định kỳ, không ghi ra kết nối
+    private final ScheduledExecutorService pusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-push");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Ghi thông báo ra kết nối, mỗi kết nối tối đa một luồng tại một thời điểm
+    private final ExecutorService sender;
+
+    public NotificationService(@Value("${config.notification.timeout:1800000}") long timeout,
+                               @Value("${config.notification.heartbeat:25000}") long heartbeat,
+                               @Value("${config.notification.send_threads:4}") int sendThreads,
+                               @Value("${config.notification.max_pending:100}") int maxPending,
+                               @Value("${config.notification.ticket_ttl:30000}") long ticketTtl,
+                               @Value("${config.notification.max_tickets:10000}") int maxTickets) {
+        this.timeout = timeout;
+        this.maxPending = maxPending;
+        this.ticketTtl = ticketTtl;
+        this.tickets = new LruCache<>(maxTickets);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(sendThreads, runnable -> {
+            Thread thread = new Thread(runnable, "notification-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Gửi comment định kỳ để proxy không đóng kết nối rảnh và phát hiện kết nối đã đóng phía FE
+        pusher.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pusher.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // Vé đăng ký nhận thông báo của tài khoản đang login (request có access token)
+    public SuccessResponse<Object> createTicket() {
+
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
+
+        String ticket = UUID.randomUUID().toString();
+        tickets.put(ticket, new Ticket(loggedAccount.getId(), System.currentTimeMillis() + ticketTtl));
+
+        return new SuccessResponse<>(Map.of(TICKET, ticket, TICKET_EXPIRY, ticketTtl));
+    }
+
+    // Kết nối không đi qua TokenFilter => Xác định tài khoản theo vé, vé không tồn tại, đã dùng hoặc hết hạn => Ném ra lỗi
+    public SseEmitter subscribe(String ticket) {
+
+        Ticket value = StringUtils.isBlank(ticket) ? null : tickets.remove(ticket);
+        if (value == null || value.expiresAt < System.currentTimeMillis()) {
+            throw new UnauthorizedException(INVALID_NOTIFICATION_TICKET);
+        }
+
+        return subscribe(new SseEmitter(timeout), value.policeId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long policeId) {
+
+        Subscriber subscriber = new Subscriber(emitter, policeId);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        return emitter;
+    }
+
+    // Yêu cầu cập nhật thông tin thuộc địa chính cadastralPath => Cảnh sát trưởng có đơn vị công tác bao gồm địa chính này
+    // Vai trò và đơn vị công tác lấy theo dữ liệu hiện tại của cảnh sát, không theo thời điểm đăng ký
+    public void notifySheriffs(NotificationTypeEnums type, Long id, String cadastralPath) {
+        publish(type, id, () -> {
+            Set<Long> sheriffIds = findSheriffsInScope(cadastralPath);
+            return subscriber -> sheriffIds.contains(subscriber.policeId);
+        });
+    }
+
+    // Thay đổi phân công => Các cảnh sát được phân công / hủy phân công
+    public void notifyPolices(NotificationTypeEnums type, Collection<Long> policeIds) {
+        policeIds.stream()
+                .filter(policeId -> !FunctionUtils.isNullOrZero(policeId))
+                .distinct()
+                .forEach(policeId -> publish(type, policeId, () -> subscriber -> policeId.equals(subscriber.policeId)));
+    }
+
+    // filter được tạo trên luồng push (có thể đọc database), không chạy trong request
+    private void publish(NotificationTypeEnums type, Long id, Supplier<Predicate<Subscriber>> filter) {
+
+        Runnable task = () -> pusher.execute(() -> {
+
+            if (subscribers.isEmpty()) {
+                return;
+            }
+
+            NotificationDto notification = new NotificationDto(type.name(), id, System.currentTimeMillis());
+            subscribers.stream()
+                    .filter(filter.get())
+                    .forEach(subscriber -> enqueue(subscriber, SseEmitter.event().name(type.name()).data(notification)));
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    // Cảnh sát trưởng đang kết nối có đơn vị công tác hiện tại bao gồm địa chính cadastralPath
+    private Set<Long> findSheriffsInScope(String cadastralPath) {
+
+        Set<Long> policeIds = new HashSet<>();
+        subscribers.forEach(subscriber -> policeIds.add(subscriber.policeId));
+
+        if (policeIds.isEmpty()) {
+            return policeIds;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("police_ids", policeIds)
+                .addValue("role", RoleEnums.SHERIFF.value)
+                .addValue("status", ACTIVE.name());
+
+        Set<Long> sheriffIds = new HashSet<>();
+        namedParameterJdbcTemplate.query(" select id, cadastral_path from polices "
+                + " where id in (:police_ids) and role = :role and status = :status ", params, rs -> {
+            String scope = rs.getString("cadastral_path");
+            if (isInCadastralScope(cadastralPath, scope == null ? FunctionUtils.ROOT_CADASTRAL_PATH : scope)) {
+                sheriffIds.add(rs.getLong("id"));
+            }
+        });
+
+        return sheriffIds;
+    }
+
+    // Kết nối đang gửi dở ping trước => Bỏ qua lần ping này
+    private void heartbeat() {
+        subscribers.stream()
+                .filter(subscriber -> subscriber.pending.isEmpty())
+                .forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("ping")));
+    }
+
+    // Xếp vào hàng đợi của kết nối, hàng đợi đầy (FE không đọc kịp) => Đóng kết nối
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+
+        if (subscriber.pendingCount.incrementAndGet() > maxPending) {
+            log.warn("Notification subscriber {} too slow, closing", subscriber.policeId);
+            close(subscriber, null);
+            return;
+        }
+
+        subscriber.pending.add(event);
+
+        if (subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Gửi lần lượt các thông báo trong hàng đợi, đảm bảo thứ tự và chỉ một luồng ghi vào một kết nối
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.pending.poll()) != null) {
+                subscriber.pendingCount.decrementAndGet();
+                if (!send(subscriber, event)) {
+                    subscriber.pending.clear();
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+
+            // Thông báo được xếp vào sau lần poll cuối nhưng trước khi set sending = false => Gửi tiếp
+        } while (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    // Kết nối đã đóng => Bỏ khỏi danh sách nhận thông báo
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber, e);
+            return false;
+        }
+    }
+
+    // Đóng một lần: luồng gửi và luồng xếp hàng đợi có thể cùng phát hiện kết nối hỏng
+    private void close(Subscriber subscriber, Throwable error) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.remove(subscriber);
+        if (error == null) {
+            subscriber.emitter.complete();
+        } else {
+            subscriber.emitter.completeWithError(error);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Ticket {
+
+        private final Long policeId;
+
+        private final long expiresAt;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Long policeId;
+
+        // Thông báo chờ gửi của kết nối
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pendingCount = new AtomicInteger();
+
+        // Đang có luồng gửi hàng đợi của kết nối
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+    }
+}
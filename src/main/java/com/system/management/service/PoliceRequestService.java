@@ -1,9 +1,11 @@
 package com.system.management.service;
 
+import com.system.management.model.dto.ConfirmRequestResultDto;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.dto.PoliceRequestDto;
 import com.system.management.model.entity.Police;
 import com.system.management.model.entity.PoliceRequest;
+import com.system.management.model.request.police_request.ConfirmListPoliceRequestRequest;
 import com.system.management.model.request.police_request.ConfirmPoliceRequestRequest;
 import com.system.management.model.request.police_request.GetListPoliceRequestRequest;
 import com.system.management.model.response.SuccessResponse;
@@ -18,10 +20,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
 import static com.system.management.utils.enums.StatusEnums.*;
@@ -33,6 +36,7 @@ public class PoliceRequestService extends BaseCommonService {
 
     private final PoliceRequestRepository policeRequestRepository;
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getListRequest(GetListPoliceRequestRequest request) {
 
         PoliceDto loggedAccount = getLoggedAccount();
@@ -92,6 +96,11 @@ public class PoliceRequestService extends BaseCommonService {
         sql.append(" and status = :status ");
         sqlParameterSource.addValue("status", status);
 
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), sqlParameterSource, request.getPage(), request.getSize())) {
+            return null;
+        }
+
         sql.append(" order by created_at desc ");
 
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
@@ -111,6 +120,7 @@ public class PoliceRequestService extends BaseCommonService {
         return new SuccessResponse<>(policeRequestDtos);
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getRequest(Long id) {
         PoliceRequest policeRequest = policeRequestRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException(REQUEST_NOT_EXISTS));
@@ -120,20 +130,9 @@ public class PoliceRequestService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(policeRequest.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(policeRequest.getDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(policeRequest.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+        checkCadastralScope(FunctionUtils.buildCadastralPath(
+                policeRequest.getCityId(), policeRequest.getDistrictId(), policeRequest.getWardId()));
 
         return new SuccessResponse<>(convertToPoliceRequestDto(policeRequest));
     }
@@ -149,20 +148,9 @@ public class PoliceRequestService extends BaseCommonService {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(policeRequest.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(policeRequest.getDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(policeRequest.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+        checkCadastralScope(FunctionUtils.buildCadastralPath(
+                policeRequest.getCityId(), policeRequest.getDistrictId(), policeRequest.getWardId()));
 
         if (request.getStatus().equalsIgnoreCase(ACCEPT.name())) {
 
@@ -182,6 +170,8 @@ public class PoliceRequestService extends BaseCommonService {
             police.setDistrictId(policeRequest.getDistrictId());
             police.setWardId(policeRequest.getWardId());
             policeRepository.save(police);
+            auditorCache.evict(police.getId());
+            detailCacheService.evictPolices(List.of(police.getId()));
 
             policeRequest.setStatus(ACCEPT.name());
 
@@ -202,4 +192,102 @@ public class PoliceRequestService extends BaseCommonService {
 
         return new SuccessResponse<>();
     }
+
+    // Duyệt / từ chối nhiều yêu cầu trong một transaction: yêu cầu và cảnh sát được lấy bằng một câu truy vấn mỗi loại,
+    // cập nhật trên bộ nhớ rồi ghi theo lô. Yêu cầu không hợp lệ được bỏ qua và trả về lý do trong kết quả
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> confirmList(ConfirmListPoliceRequestRequest request) {
+
+        PoliceDto loggedAccount = getLoggedAccount();
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        String loggedScope = getLoggedScope();
+
+        Set<Long> ids = request.getRequests().stream()
+                .map(ConfirmPoliceRequestRequest::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, PoliceRequest> policeRequests = policeRequestRepository.findAllByIdInAndStatus(ids, WAIT.name()).stream()
+                .collect(Collectors.toMap(PoliceRequest::getId, Function.identity()));
+
+        Set<Long> policeIds = policeRequests.values().stream()
+                .map(PoliceRequest::getPoliceId)
+                .collect(Collectors.toSet());
+
+        Map<Long, Police> polices = policeIds.isEmpty() ? Map.of() : policeRepository.findAllByIdInAndStatus(policeIds, ACTIVE.name()).stream()
+                .collect(Collectors.toMap(Police::getId, Function.identity()));
+
+        List<ConfirmRequestResultDto> results = new ArrayList<>();
+        List<PoliceRequest> confirmedRequests = new ArrayList<>();
+        Map<Long, Police> acceptedPolices = new LinkedHashMap<>();
+
+        for (ConfirmPoliceRequestRequest item : request.getRequests()) {
+
+            // Lấy ra khỏi map => Id lặp lại trong danh sách chỉ được xử lý một lần
+            PoliceRequest policeRequest = policeRequests.remove(item.getId());
+
+            String error = null;
+
+            if (policeRequest == null) {
+                error = REQUEST_NOT_EXISTS;
+
+            } else if (!isInCadastralScope(FunctionUtils.buildCadastralPath(
+                    policeRequest.getCityId(), policeRequest.getDistrictId(), policeRequest.getWardId()), loggedScope)) {
+                // Yêu cầu chỉ được xử lý bởi cảnh sát trưởng thuộc đơn vị quản lý địa chính của yêu cầu
+                error = NOT_ALLOW;
+
+            } else if (ACCEPT.name().equalsIgnoreCase(item.getStatus())) {
+
+                Police police = polices.get(policeRequest.getPoliceId());
+
+                if (police == null) {
+                    error = POLICE_NOT_EXISTS;
+                } else {
+                    police.setAvatar(policeRequest.getAvatar());
+                    police.setFullName(policeRequest.getFullName());
+                    police.setGender(policeRequest.getGender());
+                    police.setDateOfBirth(policeRequest.getDateOfBirth());
+                    police.setPhoneNumber(policeRequest.getPhoneNumber());
+                    police.setEmail(policeRequest.getEmail());
+                    police.setLevel(policeRequest.getLevel());
+                    police.setRole(policeRequest.getRole());
+                    police.setCityId(policeRequest.getCityId());
+                    police.setDistrictId(policeRequest.getDistrictId());
+                    police.setWardId(policeRequest.getWardId());
+                    acceptedPolices.put(police.getId(), police);
+
+                    policeRequest.setStatus(ACCEPT.name());
+                }
+
+            } else if (REJECT.name().equalsIgnoreCase(item.getStatus())) {
+
+                if (StringUtils.isBlank(item.getReasonRejected())) {
+                    error = REASON_REJECTED_REQUIRED;
+                } else {
+                    policeRequest.setStatus(REJECT.name());
+                    policeRequest.setReasonRejected(item.getReasonRejected());
+                }
+
+            } else {
+                error = INVALID_STATUS;
+            }
+
+            if (error == null) {
+                confirmedRequests.add(policeRequest);
+            }
+
+            results.add(new ConfirmRequestResultDto(item.getId(), item.getStatus(), error == null, error));
+        }
+
+        // Ghi theo lô khi flush (hibernate.jdbc.batch_size)
+        policeRepository.saveAll(acceptedPolices.values());
+        policeRequestRepository.saveAll(confirmedRequests);
+        acceptedPolices.keySet().forEach(auditorCache::evict);
+        detailCacheService.evictPolices(acceptedPolices.keySet());
+
+        return new SuccessResponse<>(results);
+    }
 }
@@ -1,13 +1,17 @@
 package com.system.management.service;
 
+import com.system.management.model.dto.JobDto;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.entity.Police;
 import com.system.management.model.request.police.GetListPoliceRequest;
+import com.system.management.model.request.police.HandoverPoliceRequest;
 import com.system.management.model.request.police.InsertPoliceRequest;
 import com.system.management.model.request.police.UpdatePoliceRequest;
 import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.FieldSet;
 import com.system.management.utils.FunctionUtils;
 import com.system.management.utils.enums.GenderEnums;
+import com.system.management.utils.enums.JobTypeEnums;
 import com.system.management.utils.enums.LevelEnums;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.enums.StatusEnums;
@@ -18,7 +22,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
-import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
@@ -38,10 +43,34 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class PoliceService extends BaseCommonService {
 
+    // Trường của PoliceDto FE được chọn ở API danh sách => Các cột cần select
+    private static final Map<String, List<String>> FIELD_COLUMNS = Map.ofEntries(
+            Map.entry("strAvatar", List.of("avatar")),
+            Map.entry("identifyNumber", List.of("identify_number")),
+            Map.entry("fullName", List.of("full_name")),
+            Map.entry("gender", List.of("gender")),
+            Map.entry("dateOfBirth", List.of("date_of_birth")),
+            Map.entry("phoneNumber", List.of("phone_number")),
+            Map.entry("email", List.of("email")),
+            Map.entry("level", List.of("level")),
+            Map.entry("levelName", List.of("level")),
+            Map.entry("role", List.of("role")),
+            Map.entry("roleName", List.of("role")),
+            Map.entry("assignStatus", List.of("assign_status")),
+            Map.entry("assignStatusName", List.of("assign_status")),
+            Map.entry("city", List.of("city_id")),
+            Map.entry("district", List.of("district_id")),
+            Map.entry("ward", List.of("ward_id")),
+            Map.entry("workPlace", List.of("level", "city_id", "district_id", "ward_id")));
+
     private final EmailService emailService;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final BulkJobService bulkJobService;
+
+    private final CaseloadHandoverService caseloadHandoverService;
+
     @Transactional(rollbackFor = Exception.class)
     public SuccessResponse<Object> insert(InsertPoliceRequest request) {
 
@@ -157,6 +186,8 @@ public class PoliceService extends BaseCommonService {
 
         Police oldSheriff = getSheriff(police);
 
+        String oldPath = police.getCadastralPath();
+
         Long cityId;
         if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
             cityId = loggedAccount.getCityId();
@@ -255,15 +286,25 @@ public class PoliceService extends BaseCommonService {
         }
 
         police = policeRepository.save(police);
+        auditorCache.evict(police.getId());
+        detailCacheService.evictPolices(List.of(police.getId()));
 
         if (Objects.equals(role.value, RoleEnums.SHERIFF.value)) {
             policeRepository.updateRoleOldSheriff(RoleEnums.POLICE.value, oldSheriff.getId());
+            detailCacheService.evictPolices(List.of(oldSheriff.getId()));
+        }
+
+        // Chuyển công tác => Bàn giao đối tượng và địa chính đang phụ trách sau khi commit
+        String newPath = FunctionUtils.buildCadastralPath(police.getCityId(), police.getDistrictId(), police.getWardId());
+        if (Boolean.TRUE.equals(request.getHandover()) && !Objects.equals(oldPath, newPath)) {
+            submitHandover(police.getId(), request.getHandoverPoliceId(), loggedAccount.getId());
         }
 
         return new SuccessResponse<>(convertToPoliceDto(police));
     }
 
-    public SuccessResponse<Object> delete(Long id) {
+    @Transactional(rollbackFor = Exception.class)
+    public SuccessResponse<Object> delete(Long id, Long handoverPoliceId) {
 
         PoliceDto loggedAccount = getLoggedAccount();
         if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
@@ -274,145 +315,160 @@ public class PoliceService extends BaseCommonService {
                 .findByIdAndStatus(id, ACTIVE.name())
                 .orElseThrow(() -> new ProcessException(POLICE_NOT_EXISTS));
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(police.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(police.getCadastralPath());
+
+        police.setStatus(DELETED.name());
+        policeRepository.save(police);
+        detailCacheService.evictPolices(List.of(police.getId()));
+
+        // Cảnh sát bị xóa không còn phụ trách đối tượng và địa chính nào => Bàn giao sau khi commit
+        return new SuccessResponse<>(submitHandover(police.getId(), handoverPoliceId, loggedAccount.getId()));
+    }
+
+    public SuccessResponse<Object> handover(HandoverPoliceRequest request) {
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(police.getDistrictId())) {
+        PoliceDto loggedAccount = getLoggedAccount();
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)) {
             throw new ForbiddenException(NOT_ALLOW);
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(police.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+        // Cho phép bàn giao cả cảnh sát đã bị xóa trước đó: bàn giao lại khi lần bàn giao lúc xóa chưa chuyển hết (tác vụ lỗi, dừng giữa chừng)
+        Police police = policeRepository
+                .findById(request.getPoliceId())
+                .orElseThrow(() -> new ProcessException(POLICE_NOT_EXISTS));
+
+        checkCadastralScope(police.getCadastralPath());
+
+        // Cảnh sát đã bị xóa mà không còn đối tượng, địa chính đang phụ trách => Không có gì để bàn giao lại
+        if (!ACTIVE.name().equals(police.getStatus())
+                && (!DELETED.name().equals(police.getStatus()) || !hasCaseload(police.getId()))) {
+            throw new ProcessException(NOTHING_TO_HANDOVER);
         }
 
-        police.setStatus(DELETED.name());
-        policeRepository.save(police);
-        return new SuccessResponse<>();
+        return new SuccessResponse<>(submitHandover(police.getId(), request.getTargetPoliceId(), loggedAccount.getId()));
     }
 
-    public SuccessResponse<Object> getList(GetListPoliceRequest request) {
+    // Cảnh sát còn đối tượng đang giám sát hoặc bản ghi phân công đang hoạt động
+    private boolean hasCaseload(Long policeId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("police_id", policeId)
+                .addValue("status", ACTIVE.name());
 
-        // Lấy ra thông tin tài khoản đang login
-        PoliceDto loggedAccount = getLoggedAccount();
+        return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(" select "
+                + " exists (select 1 from drug_addicts where police_id = :police_id and status = :status) "
+                + " or exists (select 1 from assign_supports where police_id = :police_id and status = :status) ", params, Boolean.class));
+    }
 
-        // Khởi tạo query lấy ra danh sách id cảnh sát thuộc đơn vị công tác của tài khoản đang login
-        StringBuilder sql = new StringBuilder();
-        sql.append(" select id from polices where 1 = 1 ");
+    private JobDto submitHandover(Long policeId, Long targetPoliceId, Long auditorId) {
 
-        // Nếu tài khoản có id tỉnh thành phố đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát có cùng id tỉnh thành phố đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
-            sql.append(" and city_id = :city_id ");
-            sqlParameterSource.addValue("city_id", loggedAccount.getCityId());
-        }
+        if (targetPoliceId != null) {
 
-        // Nếu tài khoản có id quận huyện đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát có cùng id quận huyện đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())) {
-            sql.append(" and district_id = :district_id ");
-            sqlParameterSource.addValue("district_id", loggedAccount.getDistrictId());
-        }
+            if (targetPoliceId.equals(policeId)) {
+                throw new BadRequestException(INVALID_HANDOVER_POLICE);
+            }
 
-        // Nếu tài khoản có id phường xã đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát có cùng id phường xã đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())) {
-            sql.append(" and ward_id = :ward_id ");
-            sqlParameterSource.addValue("ward_id", loggedAccount.getWardId());
+            Police target = policeRepository
+                    .findByIdAndStatus(targetPoliceId, ACTIVE.name())
+                    .orElseThrow(() -> new ProcessException(POLICE_NOT_EXISTS));
+
+            // Cảnh sát nhận bàn giao phải thuộc đơn vị công tác của tài khoản đang login
+            checkCadastralScope(target.getCadastralPath());
         }
 
-        // Thực thi query lấy ra danh sách id cảnh sát được phép xem
-        List<Long> ids = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, SingleColumnRowMapper.newInstance(Long.class));
+        return bulkJobService.submit(JobTypeEnums.HANDOVER_CASELOAD, auditorId, CaseloadHandoverService.TOTAL_STEPS,
+                job -> caseloadHandoverService.handover(job, policeId, targetPoliceId, auditorId));
+    }
 
-        // Khởi tạo query lấy ra danh sách id cảnh sát được phân công hỗ trợ địa chính đơn vị công tác của tài khoản login
-        sql = new StringBuilder();
-        sql.append(" select police_id from police_requests where 1 = 1 ");
+    @Transactional(readOnly = true)
+    public SuccessResponse<Object> getList(GetListPoliceRequest request) {
 
-        // Nếu tài khoản có id tỉnh thành phố đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát được phân công hỗ trợ tỉnh thành phố đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
-            sql.append(" and city_id = :city_id ");
-            sqlParameterSource.addValue("city_id", loggedAccount.getCityId());
-        }
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
 
-        // Nếu tài khoản có id quận huyện đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát được phân công hỗ trợ quận huyện đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())) {
-            sql.append(" and district_id = :district_id ");
-            sqlParameterSource.addValue("district_id", loggedAccount.getDistrictId());
-        }
+        // Chỉ select các cột của trường FE yêu cầu
+        FieldSet fields = FieldSet.of(request.getFields(), FIELD_COLUMNS);
 
-        // Nếu tài khoản có id phường xã đơn vị công tác
-        // => Chỉ được phép lấy ra các cảnh sát được phân công hỗ trợ phường xã đơn vị công tác
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())) {
-            sql.append(" and ward_id = :ward_id ");
-            sqlParameterSource.addValue("ward_id", loggedAccount.getWardId());
-        }
+        // Tham số riêng cho từng request, không dùng chung bean sqlParameterSource giữa các request đồng thời
+        MapSqlParameterSource params = new MapSqlParameterSource();
 
-        // Thực thi query lấy ra bổ sung danh sách id cảnh sát được phép xem
-        ids.addAll(namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, SingleColumnRowMapper.newInstance(Long.class)));
+        // Khởi tạo query lấy ra danh sách cảnh sát được phép xem
+        StringBuilder sql = new StringBuilder();
+        sql.append(" select ").append(fields.toSelect("p", FIELD_COLUMNS)).append(" from polices p where 1 = 1 ");
 
-        // Khởi tạo query lấy ra danh sách cảnh sát được phép xem theo danh sách id đã lấy ra
-        sql = new StringBuilder();
-        sql.append(" select *, created_by as txt_created_by, modified_by as txt_modified_by from polices where id in (:ids) ");
-        sqlParameterSource.addValue("ids", ids);
+        // Nếu tài khoản không phải cấp trung ương
+        // => Chỉ được phép xem cảnh sát thuộc đơn vị công tác của tài khoản
+        //    hoặc cảnh sát có yêu cầu (police_requests) gắn với đơn vị công tác của tài khoản
+        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
+
+            params.addValue("scope_path", getLoggedScope() + "%");
+            params.addValue("scope_city_id", loggedAccount.getCityId());
+            params.addValue("scope_district_id", loggedAccount.getDistrictId());
+            params.addValue("scope_ward_id", loggedAccount.getWardId());
+
+            // Bảng police_requests không có đường dẫn địa chính => Vẫn so sánh theo từng cấp địa chính
+            sql.append(" and (p.cadastral_path like :scope_path ");
+            sql.append(" or exists (select 1 from police_requests r where r.police_id = p.id ");
+            appendCadastralScope(sql, "r", loggedAccount);
+            sql.append(" )) ");
+        }
 
         // Nếu có dữ liệu tìm kiếm theo số CCCD
         if (StringUtils.isNotBlank(request.getIdentifyNumber())) {
             sql.append(" and identify_number like concat('%', :identify_number, '%') ");
-            sqlParameterSource.addValue("identify_number", request.getIdentifyNumber());
+            params.addValue("identify_number", request.getIdentifyNumber());
         }
 
         // Nếu có dữ liệu tìm kiếm theo họ tên
         if (StringUtils.isNotBlank(request.getFullName())) {
             sql.append(" and full_name like concat('%', :full_name, '%') ");
-            sqlParameterSource.addValue("full_name", request.getFullName());
+            params.addValue("full_name", request.getFullName());
         }
 
         // Nếu có dữ liệu tìm kiếm theo vai trò
         if (!FunctionUtils.isNullOrZero(request.getRole())) {
             sql.append(" and role = :role ");
-            sqlParameterSource.addValue("role", request.getRole());
+            params.addValue("role", request.getRole());
         }
 
         // Nếu có dữ liệu tìm kiếm theo cấp bậc
         if (!FunctionUtils.isNullOrZero(request.getLevel())) {
             sql.append(" and level = :level ");
-            sqlParameterSource.addValue("level", request.getLevel());
+            params.addValue("level", request.getLevel());
         }
 
         // Nếu có dữ liệu tìm kiếm theo tỉnh thành phố đơn vị công tác
         if (!FunctionUtils.isNullOrZero(request.getCityId())) {
             sql.append(" and city_id = :city_id ");
-            sqlParameterSource.addValue("city_id", request.getCityId());
+            params.addValue("city_id", request.getCityId());
         }
 
         // Nếu có dữ liệu tìm kiếm theo quận huyện đơn vị công tác
         if (!FunctionUtils.isNullOrZero(request.getDistrictId())) {
             sql.append(" and district_id = :district_id ");
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
+            params.addValue("district_id", request.getDistrictId());
         }
 
         // Nếu có dữ liệu tìm kiếm theo phường xã đơn vị công tác
         if (!FunctionUtils.isNullOrZero(request.getWardId())) {
             sql.append(" and ward_id = :ward_id ");
-            sqlParameterSource.addValue("ward_id", request.getWardId());
+            params.addValue("ward_id", request.getWardId());
         }
 
         // Nếu có dữ liệu tìm kiếm theo trạng thái phân công
         if (request.getAssignStatus() != null) {
             sql.append(" and assign_status = :assign_status ");
-            sqlParameterSource.addValue("assign_status", request.getAssignStatus());
+            params.addValue("assign_status", request.getAssignStatus());
         }
 
         // Mặc định lấy trạng thái Hoạt động
         sql.append(" and status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         // Sắp xếp theo ngày tạo từ mới nhất đến cũ nhất
         sql.append(" order by created_at desc ");
@@ -424,45 +480,53 @@ public class PoliceService extends BaseCommonService {
 
         // Cộng chuỗi query thông tin phân trang
         sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
+        params.addValue("page", (page - 1) * size); // Số thứ tự trang
+        params.addValue("size", size);                    // Số lượng bản ghi trên trang
 
         // Thực thi query và trả về danh sách kết quả là một list đối tượng Police
         List<Police> polices = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(Police.class));
+                .query(sql.toString(), params, BeanPropertyRowMapper.newInstance(Police.class));
 
         // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng PoliceDto
         List<PoliceDto> policeDtos = new ArrayList<>();
 
         // Duyệt từng phần tử của polices và convert sang PoliceDto rồi thêm vào danh sách policeDtos
-        polices.forEach(police -> policeDtos.add(convertToPoliceDto(police)));
+        polices.forEach(police -> policeDtos.add(convertToPoliceDto(police, fields)));
 
         // Trả về thành công kèm danh sách đối tượng PoliceDto
         return new SuccessResponse<>(policeDtos);
     }
 
-    public SuccessResponse<Object> get(Long id) {
-        Police police = policeRepository
-                .findByIdAndStatus(id, ACTIVE.name())
-                .orElseThrow(() -> new ProcessException(POLICE_NOT_EXISTS));
+    // Điều kiện đơn vị công tác của tài khoản đang login theo bảng có alias truyền vào
+    private void appendCadastralScope(StringBuilder sql, String alias, PoliceDto loggedAccount) {
 
-        PoliceDto loggedAccount = getLoggedAccount();
+        sql.append(" and ").append(alias).append(".city_id = :scope_city_id ");
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(police.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())) {
+            sql.append(" and ").append(alias).append(".district_id = :scope_district_id ");
         }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(police.getDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())) {
+            sql.append(" and ").append(alias).append(".ward_id = :scope_ward_id ");
         }
+    }
 
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(police.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+    @Transactional(readOnly = true)
+    public SuccessResponse<Object> get(Long id) {
+        Police police = policeRepository
+                .findByIdAndStatus(id, ACTIVE.name())
+                .orElseThrow(() -> new ProcessException(POLICE_NOT_EXISTS));
+
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(police.getCadastralPath());
+
+        // Bản ghi chưa thay đổi so với bản FE đang có => Trả 304
+        if (checkNotModified(DetailCacheService.POLICE, police, police.getId(), getAuditorIds(police), List.of())) {
+            return null;
         }
 
-        return new SuccessResponse<>(convertToPoliceDto(police));
+        // Bản ghi chưa thay đổi kể từ lần convert trước => Dùng lại DTO đã convert
+        return new SuccessResponse<>(detailCacheService.get(DetailCacheService.POLICE, police.getId(), police.getModifiedAt(),
+                () -> convertToPoliceDto(police)));
     }
 }
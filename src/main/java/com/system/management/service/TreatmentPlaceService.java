@@ -8,7 +8,10 @@ import com.system.management.model.request.treatment_place.InsertTreatmentPlaceP
 import com.system.management.model.request.treatment_place.UpdateTreatmentPlacePlaceRequest;
 import com.system.management.model.response.SuccessResponse;
 import com.system.management.repository.TreatmentPlaceRepository;
+import com.system.management.utils.FieldSet;
 import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.SqlShapeCache;
+import com.system.management.utils.SqlShapeCache.SqlShape;
 import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.enums.StatusEnums;
 import com.system.management.utils.exception.BadRequestException;
@@ -18,12 +21,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
@@ -35,6 +40,27 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class TreatmentPlaceService extends BaseCommonService {
 
+    // Trường của TreatmentPlaceDto FE được chọn ở API danh sách => Các cột cần select
+    private static final Map<String, List<String>> FIELD_COLUMNS = Map.ofEntries(
+            Map.entry("strLogo", List.of("logo")),
+            Map.entry("fullName", List.of("full_name")),
+            Map.entry("addressDetail", List.of("address_detail")),
+            Map.entry("leaderFullName", List.of("leader_full_name")),
+            Map.entry("leaderIdentifyNumber", List.of("leader_identify_number")),
+            Map.entry("leaderPhoneNumber", List.of("leader_phone_number")),
+            Map.entry("leaderEmail", List.of("leader_email")),
+            Map.entry("city", List.of("city_id")),
+            Map.entry("district", List.of("district_id")),
+            Map.entry("ward", List.of("ward_id")),
+            Map.entry("fullAddress", List.of("city_id", "district_id", "ward_id", "address_detail")));
+
+    // Bit điều kiện lọc của API danh sách
+    private static final int SHAPE_FULL_NAME = SHAPE_FIRST_FILTER;
+    private static final int SHAPE_LEADER_FULL_NAME = SHAPE_FIRST_FILTER << 1;
+    private static final int SHAPE_LEADER_PHONE_NUMBER = SHAPE_FIRST_FILTER << 2;
+
+    private static final SqlShapeCache LIST_SHAPES = new SqlShapeCache();
+
     private final TreatmentPlaceRepository treatmentPlaceRepository;
 
     @Transactional(rollbackFor = Exception.class)
@@ -211,6 +237,7 @@ public class TreatmentPlaceService extends BaseCommonService {
 
         // Lưu thông tin bản ghi vào bảng treatment_places
         treatmentPlace = treatmentPlaceRepository.save(treatmentPlace);
+        detailCacheService.evictTreatmentPlace(treatmentPlace.getId());
 
         // Trả về thành công kèm với thông tin nơi cai nghiện vừa cập nhật
         return new SuccessResponse<>(convertToTreatmentPlaceDto(treatmentPlace));
@@ -232,159 +259,136 @@ public class TreatmentPlaceService extends BaseCommonService {
                 .findByIdAndStatus(id, StatusEnums.ACTIVE.name())
                 .orElseThrow(() -> new ProcessException(TREATMENT_PLACE_NOT_EXISTS));
 
-        // Nếu tài khoản có id tỉnh thành phố đơn vị công tác
-        // => Tài khoản chỉ được phép xóa nơi cai nghiện thuộc tỉnh thành phố đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(treatmentPlace.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        // Nếu tài khoản có id quận huyện đơn vị công tác
-        // => Tài khoản chỉ được phép xóa nơi cai nghiện thuộc quận huyện đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(treatmentPlace.getDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        // Nếu tài khoản có id phường xã đơn vị công tác
-        // => Tài khoản chỉ được phép xóa nơi cai nghiện thuộc phường xã đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(treatmentPlace.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(treatmentPlace.getCadastralPath());
 
         // // Cập nhật trạng thái bản ghi nơi cai nghiện là DELETED
         treatmentPlace.setStatus(DELETED.name());
         treatmentPlaceRepository.save(treatmentPlace);
+        detailCacheService.evictTreatmentPlace(treatmentPlace.getId());
 
         // Trả về thành công
         return new SuccessResponse<>();
     }
 
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getList(GetListTreatmentPlaceRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
         PoliceDto loggedAccount = getLoggedAccount();
 
-        // Khởi tạo query lấy ra danh sách nơi cai nghiện
-        StringBuilder sql = new StringBuilder();
-        sql.append(" select *, created_by as txt_created_by, modified_by as txt_modified_by from treatment_places where 1 = 1 ");
-
-        // Nếu tài khoản có id tỉnh thành phố đơn vị công tác
-        // => Tài khoản chỉ được phép tìm kiếm nơi cai nghiện thuộc tỉnh thành phố đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố địa chỉ nơi cai nghiện
-            sql.append(" and city_id = :city_id ");
-
-            // Set tham số trong query là id tỉnh thành phố đơn vị công tác của cảnh sát
-            sqlParameterSource.addValue("city_id", loggedAccount.getCityId());
+        // Chỉ select các cột của trường FE yêu cầu
+        FieldSet fields = FieldSet.of(request.getFields(), FIELD_COLUMNS);
 
-        } else if (!FunctionUtils.isNullOrZero(request.getCityId())) { // Nếu có dữ liệu id tỉnh thành phố muốn tìm kiếm
+        // Phạm vi địa chính: theo đơn vị công tác của tài khoản đang login, nếu không có thì theo dữ liệu id địa chính muốn tìm kiếm
+        // => Tài khoản chỉ được phép tìm kiếm nơi cai nghiện thuộc đơn vị công tác của mình
+        Long cityId = FunctionUtils.isNullOrZero(loggedAccount.getCityId()) ? request.getCityId() : loggedAccount.getCityId();
+        Long districtId = FunctionUtils.isNullOrZero(loggedAccount.getDistrictId()) ? request.getDistrictId() : loggedAccount.getDistrictId();
+        Long wardId = FunctionUtils.isNullOrZero(loggedAccount.getWardId()) ? request.getWardId() : loggedAccount.getWardId();
 
-            // Cộng chuỗi query thêm tìm kiếm theo id tỉnh thành phố địa chỉ nơi cai nghiện
-            sql.append(" and city_id = :city_id ");
-
-            // Set tham số trong query là id tỉnh thành phố muốn tìm kiếm
-            sqlParameterSource.addValue("city_id", request.getCityId());
-        }
-
-        // Nếu tài khoản có id quận huyện đơn vị công tác
-        // => Tài khoản chỉ được phép tìm kiếm nơi cai nghiện thuộc quận huyện đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())) {
+        // Tham số query riêng của request => Request đồng thời không ghi đè tham số của nhau (khóa gộp và query dùng cùng một bộ tham số)
+        MapSqlParameterSource params = new MapSqlParameterSource();
 
-            // Cộng chuỗi query thêm tìm kiếm theo id quận huyện địa chỉ nơi cai nghiện
-            sql.append(" and district_id = :district_id ");
-
-            // Set tham số trong query là id quận huyện đơn vị công tác của cảnh sát
-            sqlParameterSource.addValue("district_id", loggedAccount.getDistrictId());
-        } else if (!FunctionUtils.isNullOrZero(request.getDistrictId())) { // Nếu có dữ liệu id quận huyện muốn tìm kiếm
-
-            // Cộng chuỗi query thêm tìm kiếm theo id quận huyện địa chỉ nơi cai nghiện
-            sql.append(" and district_id = :district_id ");
-
-            // Set tham số trong query là id quận huyện muốn tìm kiếm
-            sqlParameterSource.addValue("district_id", request.getDistrictId());
-        }
-
-        // Nếu tài khoản có id phường xã đơn vị công tác
-        // => Tài khoản chỉ được phép tìm kiếm nơi cai nghiện thuộc phường xã đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())) {
-
-            // Cộng chuỗi query thêm tìm kiếm theo id phường xã địa chỉ nơi cai nghiện
-            sql.append(" and ward_id = :ward_id ");
-
-            // Set tham số trong query là id phường xã đơn vị công tác của cảnh sát
-            sqlParameterSource.addValue("ward_id", loggedAccount.getWardId());
-        } else if (!FunctionUtils.isNullOrZero(request.getWardId())) { // Nếu có dữ liệu id phường xã muốn tìm kiếm
-
-            // Cộng chuỗi query thêm tìm kiếm theo id phường xã địa chỉ nơi cai nghiện
-            sql.append(" and ward_id = :ward_id ");
-
-            // Set tham số trong query là id phường xã muốn tìm kiếm
-            sqlParameterSource.addValue("ward_id", request.getWardId());
-        }
+        // Set tham số tiền tố đường dẫn địa chính của nơi cai nghiện, ghi nhận tổ hợp điều kiện lọc
+        int shape = bindCadastralPathFilter(params, cityId, districtId, wardId);
 
         // Nếu có dữ liệu tên nơi cai nghiện muốn tìm kiếm
         if (StringUtils.isNotBlank(request.getFullName())) {
 
-            // Cộng chuỗi query thêm tìm kiếm theo tên nơi cai nghiện muốn tìm kiếm
-            sql.append(" and full_name like concat('%', :full_name, '%') ");
-
             // Set tham số trong query là tên nơi cai nghiện muốn tìm kiếm
-            sqlParameterSource.addValue("full_name", request.getFullName());
+            shape |= SHAPE_FULL_NAME;
+            params.addValue("full_name", request.getFullName());
         }
 
         // Nếu có dữ liệu họ tên người đứng đầu muốn tìm kiếm
         if (StringUtils.isNotBlank(request.getLeaderFullName())) {
 
-            // Cộng chuỗi query thêm tìm kiếm theo họ tên người đứng đầu muốn tìm kiếm
-            sql.append(" and leader_full_name like concat('%', :leader_full_name, '%') ");
-
             // Set tham số trong query là họ tên người đứng đầu muốn tìm kiếm
-            sqlParameterSource.addValue("leader_full_name", request.getLeaderFullName());
+            shape |= SHAPE_LEADER_FULL_NAME;
+            params.addValue("leader_full_name", request.getLeaderFullName());
         }
 
         // Nếu có dữ liệu số điện thoại người đứng đầu muốn tìm kiếm
         if (StringUtils.isNotBlank(request.getLeaderPhoneNumber())) {
 
-            // Cộng chuỗi query thêm tìm kiếm theo số điện thoại người đứng đầu muốn tìm kiếm
-            sql.append(" and leader_phone_number like concat('%', :leader_phone_number, '%') ");
-
             // Set tham số trong query là số điện thoại người đứng đầu muốn tìm kiếm
-            sqlParameterSource.addValue("leader_phone_number", request.getLeaderPhoneNumber());
+            shape |= SHAPE_LEADER_PHONE_NUMBER;
+            params.addValue("leader_phone_number", request.getLeaderPhoneNumber());
         }
 
         // Nếu không có dữ liệu trạng thái muốn tìm kiếm truyền xuống thì mặc định lấy Hoạt động (ACTIVE)
-        sql.append(" and status = :status ");
-        sqlParameterSource.addValue("status", ACTIVE.name());
+        params.addValue("status", ACTIVE.name());
 
-        // Sắp xếp theo ngày tạo từ mới nhất đến cũ nhất
-        sql.append(" order by created_at desc ");
+        // Câu query theo tổ hợp điều kiện lọc, chỉ ghép chuỗi ở lần đầu gặp tổ hợp
+        SqlShape sql = LIST_SHAPES.get(shape, fields.isAll(), s -> buildListSql(fields, s));
+
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.getFilterSql(), params, request.getPage(), request.getSize())) {
+            return null;
+        }
 
         // Lấy ra thông tin phân trang truyền xuống
         // Nếu không có thì mặc định lấy ra trang đầu tiên (page = 1) và số lượng bản ghi trên trang là 100 (size = 100)
         int page = FunctionUtils.isNullOrZero(request.getPage()) ? 1 : request.getPage();
         int size = FunctionUtils.isNullOrZero(request.getSize()) ? 100 : request.getSize();
 
-        sql.append(" limit :page, :size ");
-        sqlParameterSource.addValue("page", (page - 1) * size); // Số thứ tự trang
-        sqlParameterSource.addValue("size", size);                    // Số lượng bản ghi trên trang
+        params.addValue("page", (page - 1) * size); // Số thứ tự trang
+        params.addValue("size", size);                    // Số lượng bản ghi trên trang
+
+        // Các request đồng thời cùng điều kiện lọc và phạm vi địa chính dùng chung một lần query và convert
+        List<TreatmentPlaceDto> treatmentPlaceDtos = singleFlight.execute(buildQueryKey(sql.getListSql(), params), () -> {
 
-        // Thực thi query và trả về danh sách kết quả là một list đối tượng TreatmentPlace
-        List<TreatmentPlace> treatmentPlaces = namedParameterJdbcTemplate
-                .query(sql.toString(), sqlParameterSource, BeanPropertyRowMapper.newInstance(TreatmentPlace.class));
+            // Thực thi query và trả về danh sách kết quả là một list đối tượng TreatmentPlace
+            List<TreatmentPlace> treatmentPlaces = namedParameterJdbcTemplate
+                    .query(sql.getListSql(), params, BeanPropertyRowMapper.newInstance(TreatmentPlace.class));
 
-        // Khởi tạo danh sách kết quả trả ra cho FE là một list danh sách đối tượng TreatmentPlaceDto
-        List<TreatmentPlaceDto> treatmentPlaceDtos = new ArrayList<>();
+            // Duyệt từng phần tử của treatmentPlaces và convert sang TreatmentPlaceDto
+            List<TreatmentPlaceDto> result = new ArrayList<>();
+            treatmentPlaces.forEach(treatmentPlace -> result.add(convertToTreatmentPlaceDto(treatmentPlace, fields)));
 
-        // Duyệt từng phần tử của treatmentPlaces và convert sang TreatmentPlaceDto rồi thêm vào danh sách treatmentPlaceDtos
-        treatmentPlaces.forEach(treatmentPlace -> treatmentPlaceDtos.add(convertToTreatmentPlaceDto(treatmentPlace)));
+            return result;
+        });
 
         // Trả về thành công kèm danh sách đối tượng TreatmentPlaceDto
         return new SuccessResponse<>(treatmentPlaceDtos);
     }
 
+    // Ghép câu query danh sách nơi cai nghiện theo tổ hợp điều kiện lọc
+    private static SqlShape buildListSql(FieldSet fields, int shape) {
+
+        // Khởi tạo query lấy ra danh sách nơi cai nghiện
+        StringBuilder sql = new StringBuilder();
+        sql.append(" select ").append(fields.toSelect(null, FIELD_COLUMNS)).append(" from treatment_places where 1 = 1 ");
+
+        // Cộng chuỗi query thêm tìm kiếm theo tiền tố đường dẫn địa chính của nơi cai nghiện
+        appendCadastralPathFilter(sql, shape, "cadastral_path", "");
+
+        // Cộng chuỗi query thêm tìm kiếm theo tên nơi cai nghiện muốn tìm kiếm
+        if ((shape & SHAPE_FULL_NAME) != 0) {
+            sql.append(" and full_name like concat('%', :full_name, '%') ");
+        }
+
+        // Cộng chuỗi query thêm tìm kiếm theo họ tên người đứng đầu muốn tìm kiếm
+        if ((shape & SHAPE_LEADER_FULL_NAME) != 0) {
+            sql.append(" and leader_full_name like concat('%', :leader_full_name, '%') ");
+        }
+
+        // Cộng chuỗi query thêm tìm kiếm theo số điện thoại người đứng đầu muốn tìm kiếm
+        if ((shape & SHAPE_LEADER_PHONE_NUMBER) != 0) {
+            sql.append(" and leader_phone_number like concat('%', :leader_phone_number, '%') ");
+        }
+
+        sql.append(" and status = :status ");
+        String filterSql = sql.toString();
+
+        // Sắp xếp theo ngày tạo từ mới nhất đến cũ nhất, phân trang
+        sql.append(" order by created_at desc ");
+        sql.append(" limit :page, :size ");
+
+        return new SqlShape(filterSql, sql.toString());
+    }
+
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> get(Long id) {
 
         // Tìm kiếm bản ghi trong treatment_places theo id truyền xuống
@@ -393,31 +397,18 @@ public class TreatmentPlaceService extends BaseCommonService {
                 .findByIdAndStatus(id, StatusEnums.ACTIVE.name())
                 .orElseThrow(() -> new ProcessException(TREATMENT_PLACE_NOT_EXISTS));
 
-        // Lấy ra thông tin tài khoản đang login
-        PoliceDto loggedAccount = getLoggedAccount();
-
-        // Nếu tài khoản có id tỉnh thành phố đơn vị công tác
-        // => Tài khoản chỉ được phép xem nơi cai nghiện thuộc tỉnh thành phố đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())
-                && !loggedAccount.getCityId().equals(treatmentPlace.getCityId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
+        // Tài khoản chỉ được phép thao tác với bản ghi thuộc đơn vị công tác của mình
+        checkCadastralScope(treatmentPlace.getCadastralPath());
 
-        // Nếu tài khoản có id quận huyện đơn vị công tác
-        // => Tài khoản chỉ được phép xem nơi cai nghiện thuộc quận huyện đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getDistrictId())
-                && !loggedAccount.getDistrictId().equals(treatmentPlace.getDistrictId())) {
-            throw new ForbiddenException(NOT_ALLOW);
-        }
-
-        // Nếu tài khoản có id phường xã đơn vị công tác
-        // => Tài khoản chỉ được phép xem nơi cai nghiện thuộc phường xã đơn vị công tác của mình
-        if (!FunctionUtils.isNullOrZero(loggedAccount.getWardId())
-                && !loggedAccount.getWardId().equals(treatmentPlace.getWardId())) {
-            throw new ForbiddenException(NOT_ALLOW);
+        // Bản ghi chưa thay đổi so với bản FE đang có => Trả 304
+        if (checkNotModified(DetailCacheService.TREATMENT_PLACE, treatmentPlace, treatmentPlace.getId(),
+                getAuditorIds(treatmentPlace), List.of())) {
+            return null;
         }
 
         // // Trả về thành công kèm thông tin chi tiết nơi cai nghiện
-        return new SuccessResponse<>(convertToTreatmentPlaceDto(treatmentPlace));
+        // Bản ghi chưa thay đổi kể từ lần convert trước => Dùng lại DTO đã convert
+        return new SuccessResponse<>(detailCacheService.get(DetailCacheService.TREATMENT_PLACE, treatmentPlace.getId(),
+                treatmentPlace.getModifiedAt(), () -> convertToTreatmentPlaceDto(treatmentPlace)));
     }
 }
@@ -1,14 +1,18 @@
 package com.system.management.service;
 
+import com.system.management.model.dto.JobDto;
 import com.system.management.model.dto.PoliceDto;
 import com.system.management.model.dto.WardDto;
 import com.system.management.model.entity.Ward;
 import com.system.management.model.request.ward.GetListWardRequest;
 import com.system.management.model.request.ward.InsertWardRequest;
+import com.system.management.model.request.ward.MergeWardRequest;
 import com.system.management.model.request.ward.UpdateWardRequest;
 import com.system.management.model.response.SuccessResponse;
 import com.system.management.utils.FunctionUtils;
+import com.system.management.utils.enums.JobTypeEnums;
 import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
 import com.system.management.utils.exception.BadRequestException;
 import com.system.management.utils.exception.ForbiddenException;
 import com.system.management.utils.exception.ProcessException;
@@ -17,9 +21,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 import static com.system.management.utils.constants.ErrorMessage.*;
 import static com.system.management.utils.enums.StatusEnums.ACTIVE;
@@ -30,6 +34,10 @@ import static com.system.management.utils.enums.StatusEnums.DELETED;
 @RequiredArgsConstructor
 public class WardService extends BaseCommonService {
 
+    private final BulkJobService bulkJobService;
+
+    private final CadastralReferenceService cadastralReferenceService;
+
     public SuccessResponse<Object> insert(InsertWardRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -85,8 +93,11 @@ public class WardService extends BaseCommonService {
         ward.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));         // Tên phường xã
         ward.setUnsignedName(FunctionUtils.normalizeAndLowercase(ward.getFullName()));  // Tên phường xã viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        ward = wardRepository.save(ward);
+        cadastralCacheService.evictHierarchy();
+
         // Trả về thành công kèm thông tin phường xã vừa tạo
-        return new SuccessResponse<>(modelMapper.map(wardRepository.save(ward), WardDto.class));
+        return new SuccessResponse<>(modelMapper.map(ward, WardDto.class));
     }
 
     public SuccessResponse<Object> update(UpdateWardRequest request) {
@@ -140,6 +151,9 @@ public class WardService extends BaseCommonService {
             throw new ProcessException(WARD_EXISTS_WITH_CODE);
         }
 
+        // Đường dẫn địa chính cũ, dùng để chuyển dữ liệu tham chiếu khi phường xã chuyển sang quận huyện khác
+        String oldPath = FunctionUtils.buildCadastralPath(ward.getCityId(), ward.getDistrictId(), ward.getId());
+
         // Cập nhật thông tin phường xã
         ward.setCityId(cityId);                                                         // ID tỉnh thành phố trực thuộc
         ward.setDistrictId(districtId);                                                 // ID quận huyện trực thuộc
@@ -147,8 +161,16 @@ public class WardService extends BaseCommonService {
         ward.setFullName(FunctionUtils.capitalizeFully(request.getFullName()));         // Tên phường xã
         ward.setUnsignedName(FunctionUtils.normalizeAndLowercase(ward.getFullName()));  // Tên phường xã viết thường không dấu dùng để phục vụ tìm kiếm địa chính
 
+        ward = wardRepository.save(ward);
+        cadastralCacheService.evictHierarchy();
+
+        // Phường xã chuyển sang quận huyện khác => Chuyển toàn bộ dữ liệu tham chiếu ở luồng nền
+        if (!oldPath.equals(FunctionUtils.buildCadastralPath(cityId, districtId, wardId))) {
+            submitMoveWards(JobTypeEnums.MOVE_WARD, Map.of(wardId, oldPath), ward, loggedAccount.getId());
+        }
+
         // Trả về thành công kèm thông tin phường xã vừa cập nhật
-        return new SuccessResponse<>(modelMapper.map(wardRepository.save(ward), WardDto.class));
+        return new SuccessResponse<>(modelMapper.map(ward, WardDto.class));
     }
 
     public SuccessResponse<Object> delete(Long id) {
@@ -182,11 +204,65 @@ public class WardService extends BaseCommonService {
         // Cập nhật trạng thái bản ghi quận huyện là DELETED
         ward.setStatus(DELETED.name());
         wardRepository.save(ward);
+        cadastralCacheService.evictHierarchy();
 
         // Trả về thành công
         return new SuccessResponse<>();
     }
 
+    public SuccessResponse<Object> merge(MergeWardRequest request) {
+
+        // Lấy ra thông tin tài khoản đang login
+        PoliceDto loggedAccount = getLoggedAccount();
+
+        // Nếu tài khoản đang login không phải Cảnh sát trưởng hoặc có cấp bậc là phường xã thì không được phép
+        if (!Objects.equals(loggedAccount.getRole(), RoleEnums.SHERIFF.value)
+                || Objects.equals(loggedAccount.getLevel(), LevelEnums.WARD.value)) {
+            throw new ForbiddenException(NOT_ALLOW);
+        }
+
+        // Tìm kiếm phường xã nhận sáp nhập, nếu không tìm thấy hoặc bản ghi đã bị xóa => Ném ra lỗi
+        Ward target = wardRepository
+                .findByIdAndStatus(request.getTargetId(), ACTIVE.name())
+                .orElseThrow(() -> new ProcessException(WARD_NOT_EXISTS));
+
+        Set<Long> sourceIds = new LinkedHashSet<>(request.getSourceIds());
+        if (sourceIds.contains(target.getId())) {
+            throw new BadRequestException(INVALID_MERGE_SOURCE);
+        }
+
+        // Các phường xã bị sáp nhập phải đang hoạt động
+        List<Ward> sources = wardRepository.findAllByIdInAndStatus(sourceIds, ACTIVE.name());
+        if (sources.size() != sourceIds.size()) {
+            throw new ProcessException(WARD_NOT_EXISTS);
+        }
+
+        // Tài khoản đang login chỉ được phép sáp nhập các phường xã thuộc đơn vị mình công tác
+        checkCadastralScope(FunctionUtils.buildCadastralPath(target.getCityId(), target.getDistrictId(), target.getId()));
+
+        Map<Long, String> sourcePaths = new LinkedHashMap<>();
+        for (Ward source : sources) {
+            String sourcePath = FunctionUtils.buildCadastralPath(source.getCityId(), source.getDistrictId(), source.getId());
+            checkCadastralScope(sourcePath);
+            sourcePaths.put(source.getId(), sourcePath);
+        }
+
+        // Cập nhật trạng thái các phường xã bị sáp nhập là DELETED
+        sources.forEach(source -> source.setStatus(DELETED.name()));
+        wardRepository.saveAll(sources);
+        cadastralCacheService.evictHierarchy();
+
+        // Chuyển toàn bộ dữ liệu tham chiếu sang phường xã nhận sáp nhập ở luồng nền, trả về thông tin tác vụ để theo dõi tiến độ
+        return new SuccessResponse<>(submitMoveWards(JobTypeEnums.MERGE_WARD, sourcePaths, target, loggedAccount.getId()));
+    }
+
+    private JobDto submitMoveWards(JobTypeEnums type, Map<Long, String> sourcePaths, Ward target, Long auditorId) {
+        return bulkJobService.submit(type, auditorId, CadastralReferenceService.totalSteps(sourcePaths.size()),
+                job -> cadastralReferenceService.moveWards(job, sourcePaths.keySet(), sourcePaths,
+                        target.getCityId(), target.getDistrictId(), target.getId(), auditorId));
+    }
+
+    @Transactional(readOnly = true)
     public SuccessResponse<Object> getList(GetListWardRequest request) {
 
         // Lấy ra thông tin tài khoản đang login
@@ -194,7 +270,7 @@ public class WardService extends BaseCommonService {
 
         // Khởi tạo query lấy ra danh sách phường xã
         StringBuilder sql = new StringBuilder();
-        sql.append(" select id, code, full_name, city_id, district_id, status from wards where 1 = 1 ");
+        sql.append(" select id, code, full_name, city_id, district_id, status, modified_at from wards where 1 = 1 ");
 
         // Tài khoản đang login chỉ được phép tìm kiếm phường xã trực thuộc tỉnh thành phố đơn vị mình công tác
         if (!FunctionUtils.isNullOrZero(loggedAccount.getCityId())) {
@@ -270,6 +346,11 @@ public class WardService extends BaseCommonService {
         sql.append(" and status = :status ");
         sqlParameterSource.addValue("status", status.toUpperCase());
 
+        // Danh sách không thay đổi so với bản FE đang có => Trả 304
+        if (checkListNotModified(sql.toString(), sqlParameterSource, request.getPage(), request.getSize())) {
+            return null;
+        }
+
         // Sắp xếp theo mã phường xã
         sql.append(" order by code ");
 
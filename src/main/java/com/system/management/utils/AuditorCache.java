@@ -0,0 +1,111 @@
+package com.system.management.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.system.management.model.dto.Auditor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/* Cache người tạo / người cập nhật. Cột created_by, modified_by chỉ lưu id cán bộ,
+   thông tin Auditor được load một lần và dùng chung cho mọi bản ghi cùng người tạo.
+   Auditor có setter => Mỗi lần đọc trả về bản sao, nơi gọi sửa bản sao không làm hỏng giá trị trong cache */
+
+@Slf4j
+@Component
+public class AuditorCache {
+
+    // Tham chiếu dành cho các bản ghi do hệ thống tạo (không có người đăng nhập)
+    public static final String SYSTEM_REFERENCE = "0";
+
+    private static final Auditor SYSTEM_AUDITOR = new Auditor(0L, "Hệ thống", null);
+
+    private final JsonCodec jsonCodec;
+
+    private final LruCache<Long, Auditor> auditors;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public AuditorCache(JsonCodec jsonCodec,
+                        NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                        @Value("${config.auditor_cache.max_size:1024}") int maxSize) {
+        this.jsonCodec = jsonCodec;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.auditors = new LruCache<>(maxSize);
+    }
+
+    // Chuyển Auditor thành giá trị lưu xuống database
+    public static String toReference(Auditor auditor) {
+        return auditor == null || auditor.getId() == null ? SYSTEM_REFERENCE : String.valueOf(auditor.getId());
+    }
+
+    // Chuyển giá trị trong database thành Auditor
+    public Auditor resolve(String reference) {
+
+        if (StringUtils.isBlank(reference)) {
+            return null;
+        }
+
+        // Dữ liệu cũ lưu dạng JSON, chưa được chạy script chuyển đổi
+        if (reference.charAt(0) == '{') {
+            try {
+                return jsonCodec.read(reference, Auditor.class);
+            } catch (JsonProcessingException e) {
+                log.error("Parse auditor error: {}", e.getMessage());
+                return null;
+            }
+        }
+
+        long id = NumberUtils.toLong(reference, -1L);
+
+        if (id == 0L) {
+            return copyOf(SYSTEM_AUDITOR);
+        }
+
+        if (id < 0L) {
+            return new Auditor(reference);
+        }
+
+        return copyOf(auditors.get(id, this::load));
+    }
+
+    // Xóa cache khi thông tin cán bộ thay đổi
+    // Xóa ngay và xóa lại sau khi commit: request đọc chạy xen giữa có thể đã load lại tên cũ trước khi commit
+    public void evict(Long policeId) {
+
+        if (policeId == null) {
+            return;
+        }
+
+        auditors.evict(policeId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditors.evict(policeId);
+                }
+            });
+        }
+    }
+
+    private static Auditor copyOf(Auditor auditor) {
+        return new Auditor(auditor.getId(), auditor.getIdentifyNumber(), auditor.getFullName());
+    }
+
+    private Auditor load(Long id) {
+        String sql = "select id, identify_number, full_name from polices where id = :id";
+
+        List<Auditor> result = namedParameterJdbcTemplate.query(sql, new MapSqlParameterSource("id", id),
+                (rs, rowNum) -> new Auditor(rs.getLong("id"), rs.getString("identify_number"), rs.getString("full_name")));
+
+        return result.isEmpty() ? new Auditor(id, null, null) : result.get(0);
+    }
+}
@@ -1,10 +1,8 @@
 package com.system.management.utils;
 
-import com.google.gson.Gson;
 import com.system.management.model.dto.Auditor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.AttributeConverter;
 import javax.persistence.Convert;
@@ -16,15 +14,15 @@ import javax.persistence.Converter;
 @RequiredArgsConstructor
 public class AuditorConverter implements AttributeConverter<Auditor, String> {
 
-    private final Gson gson;
+    private final AuditorCache auditorCache;
 
     @Override
     public String convertToDatabaseColumn(Auditor auditor) {
-        return auditor == null ? gson.toJson(new Auditor("Hệ thống")) : gson.toJson(auditor);
+        return AuditorCache.toReference(auditor);
     }
 
     @Override
     public Auditor convertToEntityAttribute(String str) {
-        return StringUtils.isBlank(str) ? null : gson.fromJson(str, Auditor.class);
+        return auditorCache.resolve(str);
     }
 }
@@ -11,7 +11,7 @@ import java.util.Optional;
 public class AuditorProvider implements AuditorAware<Auditor> {
 
     private Auditor buildAuditor(PoliceDto police) {
-        return police == null ? null : new Auditor(police.getIdentifyNumber(), police.getFullName());
+        return police == null ? null : new Auditor(police.getId(), police.getIdentifyNumber(), police.getFullName());
     }
 
     @Override
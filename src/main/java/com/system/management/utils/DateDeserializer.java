@@ -1,21 +1,42 @@
 package com.system.management.utils;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.system.management.utils.exception.BadRequestException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.time.DateUtils;
 
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
+import java.util.GregorianCalendar;
 
-/* Class dùng để chuyển đổi dữ liệu STRING truyền xuống thành biến kiểu DATE */
+/* Class dùng để chuyển đổi dữ liệu STRING truyền xuống thành biến kiểu DATE.
+   Các định dạng hỗ trợ:
+   dd/MM/yyyy, dd/MM/yyyy HH:mm:ss, dd/MM/yyyy HH:mm, dd/MM/yyyy HH,
+   dd-MM-yyyy, dd-MM-yyyy HH:mm:ss, dd-MM-yyyy HH:mm, dd-MM-yyyy HH,
+   ddMMyyyyHHmmss
+   Dựa vào ký tự phân cách và số thành phần thời gian để chọn thẳng một formatter, không thử lần lượt từng định dạng.
+   Chuỗi không đúng dạng chuẩn (năm không đủ 4 chữ số như "8/2/38", ngày tháng nhiều hơn 2 chữ số...) vẫn được parse
+   theo cách cũ (thử lần lượt LEGACY_FORMATS) để không từ chối dữ liệu trước đây đã nhận */
 
 @Slf4j
 public class DateDeserializer extends StdDeserializer<Date> {
 
-    private static final String[] DATE_FORMATS = new String[]{
+    private static final String INVALID_DATE = "Định dạng chuỗi không đúng để convert thành Date";
+
+    private static final String[] LEGACY_FORMATS = new String[]{
             "dd/MM/yyyy",
             "dd/MM/yyyy HH:mm:ss",
             "dd/MM/yyyy HH:mm",
@@ -27,6 +48,49 @@ public class DateDeserializer extends StdDeserializer<Date> {
             "ddMMyyyyHHmmss"
     };
 
+    private static final char[] SEPARATORS = new char[]{'/', '-'};
+
+    // FORMATTERS[ký tự phân cách][số thành phần giờ:phút:giây]
+    private static final DateTimeFormatter[][] FORMATTERS = new DateTimeFormatter[SEPARATORS.length][4];
+
+    private static final DateTimeFormatter COMPACT_FORMATTER = new DateTimeFormatterBuilder()
+            .appendValue(ChronoField.DAY_OF_MONTH, 2)
+            .appendValue(ChronoField.MONTH_OF_YEAR, 2)
+            .appendValue(ChronoField.YEAR, 4)
+            .appendValue(ChronoField.HOUR_OF_DAY, 2)
+            .appendValue(ChronoField.MINUTE_OF_HOUR, 2)
+            .appendValue(ChronoField.SECOND_OF_MINUTE, 2)
+            .toFormatter();
+
+    private static final int COMPACT_LENGTH = 14;
+
+    // Năm đầu tiên dùng trọn lịch Gregory (lịch Gregory bắt đầu từ 15/10/1582)
+    private static final int GREGORIAN_YEAR = 1583;
+
+    static {
+        ChronoField[] timeFields = new ChronoField[]{
+                ChronoField.HOUR_OF_DAY, ChronoField.MINUTE_OF_HOUR, ChronoField.SECOND_OF_MINUTE
+        };
+
+        for (int i = 0; i < SEPARATORS.length; i++) {
+            for (int timeParts = 0; timeParts <= timeFields.length; timeParts++) {
+                DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+                        .appendValue(ChronoField.DAY_OF_MONTH, 1, 2, SignStyle.NOT_NEGATIVE)
+                        .appendLiteral(SEPARATORS[i])
+                        .appendValue(ChronoField.MONTH_OF_YEAR, 1, 2, SignStyle.NOT_NEGATIVE)
+                        .appendLiteral(SEPARATORS[i])
+                        .appendValue(ChronoField.YEAR, 4);
+
+                for (int j = 0; j < timeParts; j++) {
+                    builder.appendLiteral(j == 0 ? ' ' : ':')
+                            .appendValue(timeFields[j], 1, 2, SignStyle.NOT_NEGATIVE);
+                }
+
+                FORMATTERS[i][timeParts] = builder.toFormatter();
+            }
+        }
+    }
+
     public DateDeserializer() {
         this(null);
     }
@@ -36,13 +100,123 @@ public class DateDeserializer extends StdDeserializer<Date> {
     }
 
     @Override
-    public Date deserialize(JsonParser parser, DeserializationContext ctx) throws BadRequestException {
+    public Date deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
+        Date date = parser.hasToken(JsonToken.VALUE_STRING) ? parse(parser.getText()) : null;
+        if (date == null) {
+            throw new BadRequestException(INVALID_DATE);
+        }
+        return date;
+    }
+
+    // Chuyển chuỗi thành Date, trả về null nếu chuỗi không đúng định dạng hoặc giá trị ngày giờ không hợp lệ
+    public static Date parse(String value) {
+
+        if (value == null) {
+            return null;
+        }
+
+        DateTimeFormatter formatter = selectFormatter(value);
+        if (formatter != null) {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = formatter.parseUnresolved(value, position);
+            if (parsed != null && position.getErrorIndex() < 0 && position.getIndex() == value.length()) {
+                return toDate(parsed);
+            }
+        }
+
+        // Không đúng dạng chuẩn => Parse theo cách cũ
+        return parseLegacy(value);
+    }
+
+    private static Date toDate(TemporalAccessor parsed) {
+        int year = (int) parsed.getLong(ChronoField.YEAR);
+        int month = (int) parsed.getLong(ChronoField.MONTH_OF_YEAR);
+        int day = (int) parsed.getLong(ChronoField.DAY_OF_MONTH);
+        int hour = getOrZero(parsed, ChronoField.HOUR_OF_DAY);
+        int minute = getOrZero(parsed, ChronoField.MINUTE_OF_HOUR);
+        int second = getOrZero(parsed, ChronoField.SECOND_OF_MINUTE);
+
+        // Trước năm chuyển sang lịch Gregory cách cũ (SimpleDateFormat) tính theo lịch Julius => Tính như cách cũ
+        if (year < GREGORIAN_YEAR) {
+            return toLegacyDate(year, month, day, hour, minute, second);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > YearMonth.of(year, month).lengthOfMonth()
+                || hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+
+        LocalDateTime dateTime = LocalDateTime.of(year, month, day, hour, minute, second);
+        return Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date toLegacyDate(int year, int month, int day, int hour, int minute, int second) {
+        GregorianCalendar calendar = new GregorianCalendar();
+        calendar.clear();
+        calendar.setLenient(false);
+        calendar.set(year, month - 1, day, hour, minute, second);
+        try {
+            return calendar.getTime();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Date parseLegacy(String value) {
         try {
-            JsonNode node = parser.getCodec().readTree(parser);
-            String value = node.textValue();
-            return DateUtils.parseDateStrictly(value, DATE_FORMATS);
-        } catch (Exception e) {
-            throw new BadRequestException("Định dạng chuỗi không đúng để convert thành Date");
+            return DateUtils.parseDateStrictly(value, LEGACY_FORMATS);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    // Chọn formatter theo hình dạng chuỗi: ký tự phân cách ngày tháng và số thành phần thời gian
+    private static DateTimeFormatter selectFormatter(String value) {
+
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+
+        int length = value.length();
+        int firstNonDigit = 0;
+        while (firstNonDigit < length && isDigit(value.charAt(firstNonDigit))) {
+            firstNonDigit++;
         }
+
+        if (firstNonDigit == length) {
+            return length == COMPACT_LENGTH ? COMPACT_FORMATTER : null;
+        }
+
+        int separator = -1;
+        for (int i = 0; i < SEPARATORS.length; i++) {
+            if (value.charAt(firstNonDigit) == SEPARATORS[i]) {
+                separator = i;
+            }
+        }
+
+        if (separator < 0) {
+            return null;
+        }
+
+        int timeParts = 0;
+        int space = value.indexOf(' ', firstNonDigit);
+        if (space >= 0) {
+            timeParts = 1;
+            for (int i = space + 1; i < length; i++) {
+                if (value.charAt(i) == ':') {
+                    timeParts++;
+                }
+            }
+        }
+
+        return timeParts < FORMATTERS[separator].length ? FORMATTERS[separator][timeParts] : null;
+    }
+
+    private static int getOrZero(TemporalAccessor parsed, ChronoField field) {
+        return parsed.isSupported(field) ? (int) parsed.getLong(field) : 0;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
     }
 }
@@ -0,0 +1,77 @@
+package com.system.management.utils;
+
+import com.system.management.utils.exception.BadRequestException;
+
+import java.util.*;
+
+import static com.system.management.utils.constants.ErrorMessage.INVALID_FIELD;
+
+/* Danh sách trường FE cần lấy ở API danh sách (sparse fieldset), không truyền => Lấy toàn bộ.
+   Chỉ select các cột cần cho những trường này => Không đọc cột LOB (ảnh đại diện, logo) và bỏ qua các bước làm giàu dữ liệu không cần */
+
+public final class FieldSet {
+
+    public static final FieldSet ALL = new FieldSet(Collections.emptySet());
+
+    // Các trường chung của BaseDto
+    private static final Map<String, List<String>> BASE_COLUMNS = Map.of(
+            "status", List.of("status"),
+            "createdAt", List.of("created_at"),
+            "createdBy", List.of("created_by as txt_created_by"),
+            "modifiedAt", List.of("modified_at"),
+            "modifiedBy", List.of("modified_by as txt_modified_by"));
+
+    private final Set<String> fields;
+
+    private FieldSet(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    // columns: tên trường trong DTO => các cột cần select để tính trường đó, trường không có trong danh mục => Ném ra lỗi
+    public static FieldSet of(Collection<String> fields, Map<String, List<String>> columns) {
+
+        if (fields == null || fields.isEmpty()) {
+            return ALL;
+        }
+
+        Set<String> result = new HashSet<>();
+        for (String field : fields) {
+            String name = field == null ? "" : field.trim();
+            if (!name.equals("id") && !columns.containsKey(name) && !BASE_COLUMNS.containsKey(name)) {
+                throw new BadRequestException(INVALID_FIELD.replace("$[0]", name));
+            }
+            result.add(name);
+        }
+
+        return new FieldSet(result);
+    }
+
+    public boolean isAll() {
+        return fields.isEmpty();
+    }
+
+    // Trường có được FE yêu cầu hay không
+    public boolean has(String field) {
+        return fields.isEmpty() || fields.contains(field);
+    }
+
+    // Danh sách cột cho câu select, luôn có id và modified_at (dùng cho ETag, vị trí đồng bộ)
+    // alias = null => Không thêm tiền tố bảng
+    public String toSelect(String alias, Map<String, List<String>> columns) {
+
+        String prefix = alias == null ? "" : alias + ".";
+
+        if (isAll()) {
+            return prefix + "*, " + prefix + "created_by as txt_created_by, " + prefix + "modified_by as txt_modified_by";
+        }
+
+        Set<String> selected = new LinkedHashSet<>(List.of("id", "modified_at"));
+        for (String field : fields) {
+            selected.addAll(columns.getOrDefault(field, BASE_COLUMNS.getOrDefault(field, List.of())));
+        }
+
+        StringJoiner joiner = new StringJoiner(", ");
+        selected.forEach(column -> joiner.add(prefix + column));
+        return joiner.toString();
+    }
+}
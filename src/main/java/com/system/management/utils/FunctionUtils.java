@@ -5,19 +5,73 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
 import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /* Class chứa các function dùng chung xuyên suốt toàn bộ project */
 
 @Component
 public class FunctionUtils {
 
+    public static final String ROOT_CADASTRAL_PATH = "/";
+
+    private static final int FOLD_TABLE_SIZE = 0x1F00;
+
+    private static final char COMBINING_MARK_START = '\u0300';
+
+    private static final char COMBINING_MARK_END = '\u036F';
+
+    private static final char[] FOLD_TABLE = buildFoldTable();
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss dd-MM-yyyy");
+
     private FunctionUtils() {
     }
 
-    // Chuyển đổi từ thành không dấu và viết thường toàn bộ. Ví dụ: "Hà Nội" -> "ha noi"
+    // Thời điểm hiện tại dạng chuỗi dùng cho trường timestamp của response. Ví dụ: "08:30:00 19-10-2026"
+    public static String currentTimestamp() {
+        return formatTimestamp(LocalDateTime.now());
+    }
+
+    public static String formatTimestamp(LocalDateTime dateTime) {
+        return TIMESTAMP_FORMATTER.format(dateTime);
+    }
+
+    // Chuyển đổi từ thành không dấu và viết thường toàn bộ. Ví dụ: "Hà Nội" -> "ha noi", "Đống Đa" -> "dong da"
     public static String normalizeAndLowercase(String input) {
-        return Normalizer.normalize(input.toLowerCase(), Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        char[] output = new char[input.length()];
+        int length = 0;
+
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+
+            // Bỏ qua dấu rời (chuỗi đã ở dạng tổ hợp NFD)
+            if (c >= COMBINING_MARK_START && c <= COMBINING_MARK_END) {
+                continue;
+            }
+
+            output[length++] = c < FOLD_TABLE.length ? FOLD_TABLE[c] : Character.toLowerCase(c);
+        }
+
+        return new String(output, 0, length);
+    }
+
+    // Bảng tra ký tự -> ký tự viết thường không dấu cho dải Latin (bao gồm toàn bộ bảng chữ cái tiếng Việt)
+    private static char[] buildFoldTable() {
+        char[] table = new char[FOLD_TABLE_SIZE];
+
+        for (char c = 0; c < FOLD_TABLE_SIZE; c++) {
+            char lower = Character.toLowerCase(c);
+            String base = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD)
+                    .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+            table[c] = base.length() == 1 ? base.charAt(0) : lower;
+        }
+
+        // "đ" không có dạng tổ hợp NFD nên phải gán riêng
+        table['đ'] = 'd';
+        table['Đ'] = 'd';
+
+        return table;
     }
 
     // Kiểm tra giá trị Long truyền xuống có null hoặc bằng 0
@@ -30,6 +84,28 @@ public class FunctionUtils {
         return (value == null || value == 0);
     }
 
+    // Đường dẫn địa chính dạng /tỉnh/quận/phường/, dừng ở cấp đầu tiên không có dữ liệu. Cấp trung ương là "/"
+    // Bản ghi thuộc phạm vi một đơn vị khi đường dẫn của bản ghi bắt đầu bằng đường dẫn của đơn vị đó
+    public static String buildCadastralPath(Long cityId, Long districtId, Long wardId) {
+
+        StringBuilder path = new StringBuilder(ROOT_CADASTRAL_PATH);
+
+        if (isNullOrZero(cityId)) {
+            return path.toString();
+        }
+        path.append(cityId).append('/');
+
+        if (isNullOrZero(districtId)) {
+            return path.toString();
+        }
+        path.append(districtId).append('/');
+
+        if (isNullOrZero(wardId)) {
+            return path.toString();
+        }
+        return path.append(wardId).append('/').toString();
+    }
+
     // Xóa bỏ khoảng trắng đầu cuối và bị thừa ở giữa các thành phần trong từ. Ví dụ: " Hà    Nội " -> "Hà Nội"
     public static String capitalizeFully(String str) {
         String[] words = str.split("\\s+");
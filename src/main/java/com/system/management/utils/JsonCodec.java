@@ -0,0 +1,26 @@
+package com.system.management.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+/* Lớp đọc / ghi JSON dùng chung cho các luồng xử lý ngoài Spring MVC (filter, migration, cache)
+   Dùng chung ObjectMapper của Spring (cùng cấu hình, module với response của MVC), ObjectMapper tự cache serializer theo kiểu dữ liệu */
+
+@Component
+public class JsonCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public String write(Object value) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    public <T> T read(String content, Class<T> type) throws JsonProcessingException {
+        return objectMapper.readValue(content, type);
+    }
+}
@@ -0,0 +1,88 @@
+package com.system.management.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/* Cache LRU giới hạn số phần tử, dùng chung cho các cache nhỏ trong bộ nhớ */
+
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    // Số lần xóa (evict / clear), tăng mỗi lần xóa để phát hiện lần xóa chạy xen giữa lúc load
+    private long evictions;
+
+    public LruCache(int maxSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // Lấy giá trị trong cache, nếu chưa có thì load bằng loader (loader chạy ngoài khóa)
+    // Có lần xóa trong lúc load => Giá trị vừa load có thể đã cũ, vẫn trả về nhưng không đưa vào cache
+    public V get(K key, Function<K, V> loader) {
+        long stamp;
+        synchronized (this) {
+            V value = entries.get(key);
+            if (value != null) {
+                return value;
+            }
+            stamp = evictions;
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            putIfNotEvicted(key, value, stamp);
+        }
+        return value;
+    }
+
+    // Lấy mốc trước khi load, truyền lại cho putIfNotEvicted sau khi load xong
+    public synchronized long stamp() {
+        return evictions;
+    }
+
+    // Chỉ đưa vào cache khi không có lần xóa nào kể từ mốc stamp => Giá trị load trước lần xóa không ghi đè lại bản mới
+    // Không phân biệt key: lần xóa key khác cũng bỏ qua lần put này, lần đọc sau load lại
+    public synchronized boolean putIfNotEvicted(K key, V value, long stamp) {
+        if (stamp != evictions) {
+            return false;
+        }
+        entries.put(key, value);
+        return true;
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void evict(K key) {
+        evictions++;
+        entries.remove(key);
+    }
+
+    // Lấy và xóa phần tử (giá trị chỉ dùng một lần), hai luồng cùng lấy thì chỉ một luồng nhận được giá trị
+    public synchronized V remove(K key) {
+        evictions++;
+        return entries.remove(key);
+    }
+
+    public synchronized List<V> values() {
+        return new ArrayList<>(entries.values());
+    }
+
+    public synchronized void clear() {
+        evictions++;
+        entries.clear();
+    }
+}
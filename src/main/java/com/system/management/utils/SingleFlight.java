@@ -0,0 +1,148 @@
+package com.system.management.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/* Gộp các request đồng thời có cùng khóa (cùng câu query, cùng điều kiện lọc và phạm vi địa chính):
+   request đến trước thực thi, các request đến sau chờ và dùng chung kết quả.
+   ttl > 0 => Giữ kết quả thêm ttl (ms) sau khi thực thi xong cho các request cùng khóa đến ngay sau đó.
+   Giữ tối đa max_size khóa, request đến sau chờ tối đa wait_timeout (ms) rồi tự thực thi */
+
+@Component
+public class SingleFlight {
+
+    private final long ttl;
+
+    private final int maxSize;
+
+    private final long waitTimeout;
+
+    private final ConcurrentHashMap<String, Call> calls = new ConcurrentHashMap<>();
+
+    // Số khóa đang giữ trong calls, tăng trước khi thêm khóa => Không bao giờ vượt quá maxSize
+    private final AtomicInteger size = new AtomicInteger();
+
+    public SingleFlight(@Value("${config.single_flight.ttl:0}") long ttl,
+                        @Value("${config.single_flight.max_size:1024}") int maxSize,
+                        @Value("${config.single_flight.wait_timeout:30000}") long waitTimeout) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String key, Supplier<V> loader) {
+
+        while (true) {
+            Call existing = calls.get(key);
+
+            if (existing != null) {
+
+                // Kết quả đã quá thời gian giữ lại => Thực thi lại
+                if (existing.isExpired(ttl)) {
+                    remove(key, existing);
+                    continue;
+                }
+
+                // Request đến trước chạy quá waitTimeout => Không chờ tiếp, tự thực thi
+                return (V) existing.await(waitTimeout, (Supplier<Object>) loader);
+            }
+
+            // Đã giữ đủ maxSize khóa kể cả sau khi xóa kết quả hết hạn => Thực thi trực tiếp, không gộp
+            if (!reserve()) {
+                return loader.get();
+            }
+
+            Call call = new Call();
+            if (calls.putIfAbsent(key, call) != null) {
+                size.decrementAndGet();
+                continue;
+            }
+
+            return run(key, call, loader);
+        }
+    }
+
+    private <V> V run(String key, Call call, Supplier<V> loader) {
+
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            // Lỗi không được giữ lại, các request đang chờ nhận cùng lỗi
+            remove(key, call);
+            call.future.completeExceptionally(e);
+            throw e;
+        }
+
+        call.completedAt = System.currentTimeMillis();
+        call.future.complete(value);
+
+        if (ttl <= 0) {
+            remove(key, call);
+        }
+
+        return value;
+    }
+
+    private boolean reserve() {
+
+        if (size.incrementAndGet() <= maxSize) {
+            return true;
+        }
+        size.decrementAndGet();
+
+        calls.forEach((key, call) -> {
+            if (call.isExpired(ttl)) {
+                remove(key, call);
+            }
+        });
+
+        if (size.incrementAndGet() <= maxSize) {
+            return true;
+        }
+        size.decrementAndGet();
+        return false;
+    }
+
+    private void remove(String key, Call call) {
+        if (calls.remove(key, call)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private static class Call {
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        // 0 => Đang thực thi
+        private volatile long completedAt;
+
+        private boolean isExpired(long ttl) {
+            return completedAt > 0 && System.currentTimeMillis() - completedAt > ttl;
+        }
+
+        private Object await(long timeout, Supplier<Object> loader) {
+            try {
+                return future.get(timeout, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.system.management.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/* Cache câu SQL của API danh sách theo tổ hợp điều kiện lọc (bitmask các điều kiện có dữ liệu + cấp phạm vi địa chính):
+   mỗi tổ hợp chỉ ghép chuỗi một lần, các request sau chỉ bind giá trị tham số.
+   Cùng tổ hợp luôn cùng một câu SQL => NamedParameterJdbcTemplate dùng lại kết quả parse tham số,
+   driver dùng lại prepared statement đã cache (cachePrepStmts, useServerPrepStmts) */
+
+public class SqlShapeCache {
+
+    private final ConcurrentHashMap<Integer, SqlShape> shapes = new ConcurrentHashMap<>();
+
+    // cacheable = false (VD danh sách trường tùy chọn) => Ghép lại mỗi lần, câu SQL vẫn ổn định theo bộ trường
+    public SqlShape get(int shape, boolean cacheable, IntFunction<SqlShape> builder) {
+        return cacheable ? shapes.computeIfAbsent(shape, builder::apply) : builder.apply(shape);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SqlShape {
+
+        // Câu query đến hết điều kiện lọc, dùng tính ETag
+        private final String filterSql;
+
+        // Câu query đầy đủ kèm sắp xếp và phân trang
+        private final String listSql;
+    }
+}
@@ -12,6 +12,7 @@ public class ErrorMessage {
     public static final String BLOCKED_ACCESS_TOKEN = "Access token đã bị chặn";
     public static final String EXPIRED_ACCESS_TOKEN = "Access token đã hết hạn";
     public static final String VERIFY_TOKEN_FAILED = "Xác thực token thất bại";
+    public static final String INVALID_NOTIFICATION_TICKET = "Vé đăng ký nhận thông báo không hợp lệ hoặc đã hết hạn";
     public static final String CITY_NOT_EXISTS = "Tỉnh/Thành phố không tồn tại";
     public static final String CITY_EXISTS_WITH_CODE = "Đã tồn tại tỉnh thành phố có mã truyền xuống";
     public static final String DISTRICT_NOT_EXISTS = "Quận/Huyện không tồn tại";
@@ -19,6 +20,7 @@ public class ErrorMessage {
     public static final String WARD_NOT_EXISTS = "Phường/Xã không tồn tại";
     public static final String WARD_EXISTS_WITH_CODE = "Trong quận huyện đã tồn tại phường xã có mã truyền xuống";
     public static final String POLICE_NOT_EXISTS = "Cảnh sát không tồn tại";
+    public static final String NOT_POLICE_ROLE = "Chỉ được phân công giám sát đối tượng cho cảnh sát";
     public static final String DRUG_ADDICT_NOT_EXISTS = "Đối tượng không tồn tại";
     public static final String REQUEST_NOT_EXISTS = "Yêu cầu không tồn tại";
     public static final String TREATMENT_PLACE_NOT_EXISTS = "Nơi cai nghiện không tồn tại";
@@ -37,6 +39,16 @@ public class ErrorMessage {
     public static final String NOT_ALLOW_ASSIGNED_CADASTRAL = "Không thể phân công cảnh sát hỗ trợ chính địa chính nơi đang công tác";
     public static final String REQUIRED_NEW_SHERIFF = "Hãy bổ nhiệm Cảnh sát trưởng mới để thay đổi vai trò cảnh sát trưởng cũ";
     public static final String NOT_ALLOW_CHANGE_CADASTRAL_SHERIFF = "Không thể thay đổi đơn vị công tác của cảnh sát trưởng";
+    public static final String INVALID_MERGE_SOURCE = "Địa chính sáp nhập không được trùng với địa chính nhận sáp nhập";
+    public static final String JOB_NOT_EXISTS = "Không tìm thấy thông tin tác vụ";
+    public static final String NOTHING_TO_HANDOVER = "Cảnh sát đã bị xóa và không còn đối tượng, địa chính cần bàn giao";
+    public static final String INVALID_HANDOVER_POLICE = "Cảnh sát nhận bàn giao không được trùng với cảnh sát bàn giao";
+    public static final String INVALID_IMPORT_FILE = "File dữ liệu địa chính không hợp lệ";
+    public static final String INVALID_IMPORT_RECORD = "Dòng $[0] trong dữ liệu địa chính không hợp lệ";
+    public static final String INVALID_CHANGE_FEED_TYPE = "Loại dữ liệu đồng bộ không hợp lệ";
+    public static final String INVALID_CURSOR = "Vị trí đồng bộ không hợp lệ";
+    public static final String INVALID_SIZE = "Số lượng bản ghi không hợp lệ";
+    public static final String INVALID_FIELD = "Trường dữ liệu $[0] không hợp lệ";
 
     private ErrorMessage() {
     }
@@ -0,0 +1,15 @@
+package com.system.management.utils.constants;
+
+import org.springframework.http.MediaType;
+
+/* Danh mục định dạng response: JSON mặc định, Smile / CBOR (nhị phân) khi FE gửi header Accept tương ứng */
+
+public class MediaTypes {
+
+    public static final String APPLICATION_JSON = MediaType.APPLICATION_JSON_VALUE;
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+    public static final String APPLICATION_CBOR = MediaType.APPLICATION_CBOR_VALUE;
+
+    private MediaTypes() {
+    }
+}
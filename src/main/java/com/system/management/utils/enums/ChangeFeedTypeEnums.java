@@ -0,0 +1,23 @@
+package com.system.management.utils.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Danh mục loại dữ liệu hỗ trợ đồng bộ thay đổi (change feed), value là tên bảng */
+
+@Getter
+@AllArgsConstructor
+public enum ChangeFeedTypeEnums {
+
+    DRUG_ADDICT("drug_addicts", "Đối tượng nghiện"),
+
+    POLICE("polices", "Cảnh sát"),
+
+    TREATMENT_PLACE("treatment_places", "Cơ sở cai nghiện"),
+
+    ASSIGN_SUPPORT("assign_supports", "Phân công giám sát / hỗ trợ địa chính");
+
+    private final String value;
+
+    private final String label;
+}
@@ -0,0 +1,21 @@
+package com.system.management.utils.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Danh mục trạng thái tác vụ chạy nền */
+
+@Getter
+@AllArgsConstructor
+public enum JobStatusEnums {
+
+    WAITING("Chờ chạy"),
+
+    RUNNING("Đang chạy"),
+
+    SUCCESS("Hoàn thành"),
+
+    FAILED("Lỗi");
+
+    private final String value;
+}
@@ -0,0 +1,23 @@
+package com.system.management.utils.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Danh mục loại tác vụ chạy nền */
+
+@Getter
+@AllArgsConstructor
+public enum JobTypeEnums {
+
+    MERGE_WARD("Sáp nhập phường/xã"),
+
+    MOVE_WARD("Chuyển phường/xã sang quận/huyện khác"),
+
+    MERGE_DISTRICT("Sáp nhập quận/huyện"),
+
+    MOVE_DISTRICT("Chuyển quận/huyện sang tỉnh/thành phố khác"),
+
+    HANDOVER_CASELOAD("Bàn giao đối tượng và địa chính phụ trách của cảnh sát");
+
+    private final String value;
+}
@@ -0,0 +1,19 @@
+package com.system.management.utils.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/* Danh mục loại thông báo đẩy qua Server-Sent Events */
+
+@Getter
+@AllArgsConstructor
+public enum NotificationTypeEnums {
+
+    POLICE_REQUEST("Yêu cầu cập nhật thông tin cảnh sát"),
+
+    DRUG_ADDICT_REQUEST("Yêu cầu cập nhật thông tin đối tượng"),
+
+    ASSIGN_SUPPORT("Thay đổi phân công giám sát / hỗ trợ địa chính");
+
+    private final String value;
+}
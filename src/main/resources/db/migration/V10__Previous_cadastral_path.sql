@@ -0,0 +1,7 @@
+-- Change feed: bản ghi chuyển ra khỏi đơn vị (sáp nhập địa chính, chuyển công tác, duyệt yêu cầu cập nhật)
+-- vẫn được trả cho đơn vị cũ dưới dạng bản ghi xóa => Lưu đường dẫn địa chính trước lần chuyển gần nhất
+
+alter table drug_addicts add column previous_cadastral_path varchar(64);
+alter table polices add column previous_cadastral_path varchar(64);
+alter table treatment_places add column previous_cadastral_path varchar(64);
+alter table assign_supports add column previous_cadastral_path varchar(64);
@@ -0,0 +1,18 @@
+-- ETag chi tiết, danh sách và con trỏ change feed dựa trên modified_at
+-- datetime chỉ chính xác đến giây => Hai lần sửa trong cùng một giây cho cùng ETag, FE giữ bản cũ
+-- Lưu modified_at đến mili giây, khớp với thời điểm ứng dụng gán khi cập nhật
+
+alter table cities modify column modified_at datetime(3);
+alter table districts modify column modified_at datetime(3);
+alter table wards modify column modified_at datetime(3);
+alter table polices modify column modified_at datetime(3);
+alter table police_requests modify column modified_at datetime(3);
+alter table treatment_places modify column modified_at datetime(3);
+alter table drug_addicts modify column modified_at datetime(3);
+alter table drug_addict_requests modify column modified_at datetime(3);
+alter table assign_supports modify column modified_at datetime(3);
+
+-- Tên địa chính, địa chỉ đầy đủ trong DTO được băm vào ETag theo max(modified_at) của bảng địa chính
+create index idx_cities_last_modified on cities (modified_at);
+create index idx_districts_last_modified on districts (modified_at);
+create index idx_wards_last_modified on wards (modified_at);
@@ -0,0 +1,220 @@
+-- Cấu trúc bảng ban đầu, tương ứng với schema do hibernate ddl-auto: update sinh ra trước đây
+-- Database đã có dữ liệu sẽ được baseline tại version 1 nên script này chỉ chạy trên database mới
+
+create table if not exists cities
+(
+    id            bigint not null auto_increment,
+    code          varchar(255),
+    full_name     varchar(255),
+    unsigned_name varchar(255),
+    status        varchar(255),
+    created_at    datetime,
+    created_by    varchar(255),
+    modified_at   datetime,
+    modified_by   varchar(255),
+    primary key (id)
+);
+
+create table if not exists districts
+(
+    id            bigint not null auto_increment,
+    code          varchar(255),
+    full_name     varchar(255),
+    unsigned_name varchar(255),
+    city_id       bigint,
+    status        varchar(255),
+    created_at    datetime,
+    created_by    varchar(255),
+    modified_at   datetime,
+    modified_by   varchar(255),
+    primary key (id)
+);
+
+create table if not exists wards
+(
+    id            bigint not null auto_increment,
+    code          varchar(255),
+    full_name     varchar(255),
+    unsigned_name varchar(255),
+    city_id       bigint,
+    district_id   bigint,
+    status        varchar(255),
+    created_at    datetime,
+    created_by    varchar(255),
+    modified_at   datetime,
+    modified_by   varchar(255),
+    primary key (id)
+);
+
+create table if not exists polices
+(
+    id              bigint not null auto_increment,
+    avatar          longblob,
+    identify_number varchar(255),
+    password        varchar(255),
+    full_name       varchar(255),
+    gender          integer,
+    date_of_birth   datetime,
+    phone_number    varchar(255),
+    email           varchar(255),
+    city_id         bigint,
+    district_id     bigint,
+    ward_id         bigint,
+    level           integer,
+    role            integer,
+    assign_status   integer,
+    status          varchar(255),
+    created_at      datetime,
+    created_by      varchar(255),
+    modified_at     datetime,
+    modified_by     varchar(255),
+    primary key (id)
+);
+
+create table if not exists police_requests
+(
+    id              bigint not null auto_increment,
+    police_id       bigint,
+    avatar          longblob,
+    identify_number varchar(255),
+    full_name       varchar(255),
+    gender          integer,
+    date_of_birth   datetime,
+    phone_number    varchar(255),
+    email           varchar(255),
+    city_id         bigint,
+    district_id     bigint,
+    ward_id         bigint,
+    level           integer,
+    role            integer,
+    reason_rejected varchar(255),
+    status          varchar(255),
+    created_at      datetime,
+    created_by      varchar(255),
+    modified_at     datetime,
+    modified_by     varchar(255),
+    primary key (id)
+);
+
+create table if not exists treatment_places
+(
+    id                     bigint not null auto_increment,
+    logo                   longblob,
+    full_name              varchar(255),
+    city_id                bigint,
+    district_id            bigint,
+    ward_id                bigint,
+    address_detail         varchar(255),
+    leader_full_name       varchar(255),
+    leader_identify_number varchar(255),
+    leader_phone_number    varchar(255),
+    leader_email           varchar(255),
+    status                 varchar(255),
+    created_at             datetime,
+    created_by             varchar(255),
+    modified_at            datetime,
+    modified_by            varchar(255),
+    primary key (id)
+);
+
+create table if not exists drug_addicts
+(
+    id                       bigint not null auto_increment,
+    avatar                   longblob,
+    identify_number          varchar(255),
+    full_name                varchar(255),
+    gender                   integer,
+    date_of_birth            datetime,
+    phone_number             varchar(255),
+    email                    varchar(255),
+    police_id                bigint,
+    treatment_place_id       bigint,
+    permanent_city_id        bigint,
+    permanent_district_id    bigint,
+    permanent_ward_id        bigint,
+    permanent_address_detail varchar(255),
+    current_city_id          bigint,
+    current_district_id      bigint,
+    current_ward_id          bigint,
+    current_address_detail   varchar(255),
+    is_at_permanent          bit,
+    status                   varchar(255),
+    created_at               datetime,
+    created_by               varchar(255),
+    modified_at              datetime,
+    modified_by              varchar(255),
+    primary key (id)
+);
+
+create table if not exists drug_addict_requests
+(
+    id                       bigint not null auto_increment,
+    drug_addict_id           bigint,
+    avatar                   longblob,
+    identify_number          varchar(255),
+    full_name                varchar(255),
+    gender                   integer,
+    date_of_birth            datetime,
+    phone_number             varchar(255),
+    email                    varchar(255),
+    police_id                bigint,
+    treatment_place_id       bigint,
+    permanent_city_id        bigint,
+    permanent_district_id    bigint,
+    permanent_ward_id        bigint,
+    permanent_address_detail varchar(255),
+    current_city_id          bigint,
+    current_district_id      bigint,
+    current_ward_id          bigint,
+    current_address_detail   varchar(255),
+    is_at_permanent          bit,
+    reason_rejected          varchar(255),
+    status                   varchar(255),
+    created_at               datetime,
+    created_by               varchar(255),
+    modified_at              datetime,
+    modified_by              varchar(255),
+    primary key (id)
+);
+
+create table if not exists assign_supports
+(
+    id             bigint not null auto_increment,
+    police_id      bigint,
+    drug_addict_id bigint,
+    city_id        bigint,
+    district_id    bigint,
+    ward_id        bigint,
+    level          integer,
+    status         varchar(255),
+    created_at     datetime,
+    created_by     varchar(255),
+    modified_at    datetime,
+    modified_by    varchar(255),
+    primary key (id)
+);
+
+create table if not exists black_list
+(
+    id         bigint       not null auto_increment,
+    token      varchar(255) not null,
+    block_date datetime     not null,
+    primary key (id)
+);
+
+create table if not exists refresh_token
+(
+    id          bigint not null auto_increment,
+    police_id   bigint,
+    token       varchar(255),
+    expiry_date datetime,
+    primary key (id)
+);
+
+create table if not exists email_contents
+(
+    id      bigint not null auto_increment,
+    type    varchar(255),
+    content varchar(255),
+    primary key (id)
+);
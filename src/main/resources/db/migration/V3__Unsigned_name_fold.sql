@@ -0,0 +1,8 @@
+-- Tên không dấu trước đây còn giữ ký tự "đ" (Normalizer không tách được "đ" thành "d")
+-- Cập nhật lại để khớp với chuỗi tìm kiếm sau khi normalizeAndLowercase chuyển "đ" -> "d"
+
+update cities set unsigned_name = replace(unsigned_name, 'đ', 'd');
+
+update districts set unsigned_name = replace(unsigned_name, 'đ', 'd');
+
+update wards set unsigned_name = replace(unsigned_name, 'đ', 'd');
@@ -0,0 +1,35 @@
+-- Index cho các điều kiện lọc của getList và các hàm exists* / find* trong repository
+
+create index idx_cities_code_status on cities (code, status);
+
+create index idx_districts_city_code_status on districts (city_id, code, status);
+
+create index idx_wards_district_code_status on wards (district_id, code, status);
+create index idx_wards_city_district_status on wards (city_id, district_id, status);
+
+create index idx_polices_identify_number_status on polices (identify_number, status);
+create index idx_polices_cadastral_role_status on polices (city_id, district_id, ward_id, role, status);
+
+create index idx_police_requests_police_status on police_requests (police_id, status);
+create index idx_police_requests_cadastral_status on police_requests (city_id, district_id, ward_id, status, created_at);
+
+create index idx_treatment_places_cadastral_status on treatment_places (city_id, district_id, ward_id, status);
+
+create index idx_drug_addicts_identify_number_status on drug_addicts (identify_number, status);
+create index idx_drug_addicts_police_status on drug_addicts (police_id, status);
+create index idx_drug_addicts_permanent_status on drug_addicts (permanent_city_id, permanent_district_id, permanent_ward_id, status);
+create index idx_drug_addicts_status_created_at on drug_addicts (status, created_at);
+
+create index idx_drug_addict_requests_drug_addict_status on drug_addict_requests (drug_addict_id, status);
+create index idx_drug_addict_requests_permanent_status on drug_addict_requests (permanent_city_id, permanent_district_id, permanent_ward_id, status, created_at);
+
+create index idx_assign_supports_police_drug_addict_status on assign_supports (police_id, drug_addict_id, status);
+create index idx_assign_supports_drug_addict_status on assign_supports (drug_addict_id, status);
+create index idx_assign_supports_police_cadastral_status on assign_supports (police_id, city_id, district_id, ward_id, status);
+
+create index idx_black_list_token on black_list (token);
+
+create index idx_refresh_token_token on refresh_token (token);
+create index idx_refresh_token_police on refresh_token (police_id);
+
+create index idx_email_contents_type on email_contents (type);
@@ -0,0 +1,11 @@
+-- Khóa phân vùng theo tỉnh thành phố cho assign_supports
+-- Phân công đối tượng: tỉnh thành phố thường trú của đối tượng
+-- Phân công địa chính: tỉnh thành phố được phân công (cấp trung ương là 0)
+
+alter table assign_supports add column shard_city_id bigint not null default 0;
+
+update assign_supports
+set shard_city_id = coalesce((select d.permanent_city_id from drug_addicts d where d.id = assign_supports.drug_addict_id),
+                             city_id, 0);
+
+create index idx_assign_supports_shard_police_status on assign_supports (shard_city_id, police_id, status);
@@ -0,0 +1,5 @@
+-- Danh sách cảnh sát: sắp xếp theo ngày tạo khi tài khoản cấp trung ương xem toàn bộ
+create index idx_polices_status_created_at on polices (status, created_at);
+
+-- Danh sách cảnh sát: kiểm tra exists yêu cầu thuộc đơn vị công tác theo từng cảnh sát
+create index idx_police_requests_police_cadastral on police_requests (police_id, city_id, district_id, ward_id);
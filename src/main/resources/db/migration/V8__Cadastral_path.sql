@@ -0,0 +1,55 @@
+-- Đường dẫn địa chính dạng /tỉnh/quận/phường/ (cấp trung ương là "/")
+-- Lọc theo đơn vị công tác ở mọi cấp là một lần quét khoảng theo tiền tố: cadastral_path like '/1/2/%'
+
+alter table drug_addicts add column cadastral_path varchar(64);
+alter table polices add column cadastral_path varchar(64);
+alter table treatment_places add column cadastral_path varchar(64);
+alter table assign_supports add column cadastral_path varchar(64);
+
+-- Đối tượng nghiện: theo địa chỉ thường trú
+update drug_addicts
+set cadastral_path = case
+    when permanent_city_id is null or permanent_city_id = 0 then '/'
+    else concat('/', permanent_city_id, '/', case
+        when permanent_district_id is null or permanent_district_id = 0 then ''
+        else concat(permanent_district_id, '/', case
+            when permanent_ward_id is null or permanent_ward_id = 0 then ''
+            else concat(permanent_ward_id, '/') end) end) end;
+
+update polices
+set cadastral_path = case
+    when city_id is null or city_id = 0 then '/'
+    else concat('/', city_id, '/', case
+        when district_id is null or district_id = 0 then ''
+        else concat(district_id, '/', case
+            when ward_id is null or ward_id = 0 then ''
+            else concat(ward_id, '/') end) end) end;
+
+update treatment_places
+set cadastral_path = case
+    when city_id is null or city_id = 0 then '/'
+    else concat('/', city_id, '/', case
+        when district_id is null or district_id = 0 then ''
+        else concat(district_id, '/', case
+            when ward_id is null or ward_id = 0 then ''
+            else concat(ward_id, '/') end) end) end;
+
+-- Phân công đối tượng: theo đường dẫn của đối tượng. Phân công địa chính: theo địa chính được phân công
+update assign_supports
+set cadastral_path = (select d.cadastral_path from drug_addicts d where d.id = assign_supports.drug_addict_id)
+where drug_addict_id is not null;
+
+update assign_supports
+set cadastral_path = case
+    when city_id is null or city_id = 0 then '/'
+    else concat('/', city_id, '/', case
+        when district_id is null or district_id = 0 then ''
+        else concat(district_id, '/', case
+            when ward_id is null or ward_id = 0 then ''
+            else concat(ward_id, '/') end) end) end
+where drug_addict_id is null;
+
+create index idx_drug_addicts_cadastral_path_status on drug_addicts (cadastral_path, status);
+create index idx_polices_cadastral_path_status on polices (cadastral_path, status);
+create index idx_treatment_places_cadastral_path_status on treatment_places (cadastral_path, status);
+create index idx_assign_supports_cadastral_path_status on assign_supports (cadastral_path, status);
@@ -0,0 +1,12 @@
+-- Change feed: đọc các bản ghi thay đổi sau một mốc (modified_at, id)
+-- Bản ghi cũ chưa có modified_at lấy theo created_at để con trỏ không bỏ sót
+
+update drug_addicts set modified_at = coalesce(created_at, current_timestamp) where modified_at is null;
+update polices set modified_at = coalesce(created_at, current_timestamp) where modified_at is null;
+update treatment_places set modified_at = coalesce(created_at, current_timestamp) where modified_at is null;
+update assign_supports set modified_at = coalesce(created_at, current_timestamp) where modified_at is null;
+
+create index idx_drug_addicts_modified_at on drug_addicts (modified_at, id);
+create index idx_polices_modified_at on polices (modified_at, id);
+create index idx_treatment_places_modified_at on treatment_places (modified_at, id);
+create index idx_assign_supports_modified_at on assign_supports (modified_at, id);
@@ -0,0 +1,58 @@
+package com.system.management;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/* Đo thời gian thực thi cho các class *Benchmark (chạy bằng profile benchmark).
+   Mỗi phép đo chạy một số vòng khởi động cho JIT, sau đó đo nhiều vòng, mỗi vòng gọi lặp lại trong khoảng thời gian cố định,
+   kết quả là trung vị ns/op của các vòng đo. Giá trị trả về được ghi vào sink để JIT không bỏ phép tính */
+
+public final class BenchmarkRunner {
+
+    private static final int WARMUP_ROUNDS = Integer.getInteger("benchmark.warmup_rounds", 5);
+
+    private static final int MEASURED_ROUNDS = Integer.getInteger("benchmark.rounds", 10);
+
+    private static final long ROUND_NANOS = Long.getLong("benchmark.round_ms", 200L) * 1_000_000L;
+
+    public static volatile Object sink;
+
+    private BenchmarkRunner() {
+    }
+
+    // Trả về trung vị ns/op, in kết quả kèm tên phép đo
+    public static double measure(String name, Callable<?> operation) throws Exception {
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runRound(operation);
+        }
+
+        double[] rounds = new double[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            rounds[i] = runRound(operation);
+        }
+
+        Arrays.sort(rounds);
+        double median = rounds[MEASURED_ROUNDS / 2];
+
+        System.out.printf("[benchmark] %-60s %14.1f ns/op  (min %.1f, max %.1f)%n", name, median, rounds[0], rounds[MEASURED_ROUNDS - 1]);
+        return median;
+    }
+
+    // In kích thước dữ liệu (byte) để so sánh cùng thời gian
+    public static void size(String name, long bytes) {
+        System.out.printf("[benchmark] %-60s %14d bytes%n", name, bytes);
+    }
+
+    private static double runRound(Callable<?> operation) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink = operation.call();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        return (double) elapsed / operations;
+    }
+}
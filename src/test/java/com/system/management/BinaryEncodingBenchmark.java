@@ -0,0 +1,103 @@
+package com.system.management;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.management.model.dto.CityDto;
+import com.system.management.model.dto.DistrictDto;
+import com.system.management.model.dto.DrugAddictDto;
+import com.system.management.model.dto.WardDto;
+import com.system.management.model.response.SuccessResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/* Mã hóa trang 100 đối tượng nghiện bằng JSON / Smile / CBOR (ObjectMapper của các converter MVC):
+   thời gian ghi và kích thước response, trang không có ảnh đại diện và trang có ảnh đại diện 8 KB */
+
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class BinaryEncodingBenchmark {
+
+    private static final int AVATAR_BYTES = 8 * 1024;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Test
+    void encodePage() throws Exception {
+        Map<String, ObjectMapper> mappers = Map.of(
+                "json", jsonConverter.getObjectMapper(),
+                "smile", smileConverter.getObjectMapper(),
+                "cbor", cborConverter.getObjectMapper());
+
+        for (boolean avatars : new boolean[]{false, true}) {
+            SuccessResponse<Object> page = new SuccessResponse<>(buildPage(avatars));
+            String name = avatars ? "100-row page with avatars, " : "100-row page, ";
+
+            for (String format : List.of("json", "smile", "cbor")) {
+                ObjectMapper mapper = mappers.get(format);
+                BenchmarkRunner.measure(name + format, () -> mapper.writeValueAsBytes(page));
+                BenchmarkRunner.size(name + format, mapper.writeValueAsBytes(page).length);
+            }
+        }
+    }
+
+    // Một trang 100 đối tượng cùng phường xã như danh sách thực tế của một đơn vị
+    private static List<DrugAddictDto> buildPage(boolean avatars) {
+        CityDto city = new CityDto();
+        city.setId(1L);
+        city.setCode("01");
+        city.setFullName("Thành phố Hà Nội");
+
+        DistrictDto district = new DistrictDto();
+        district.setId(2L);
+        district.setCode("001");
+        district.setFullName("Quận Ba Đình");
+
+        WardDto ward = new WardDto();
+        ward.setId(3L);
+        ward.setCode("00001");
+        ward.setFullName("Phường Phúc Xá");
+
+        Random random = new Random(47L);
+        List<DrugAddictDto> page = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            DrugAddictDto dto = new DrugAddictDto();
+            dto.setId(i);
+            dto.setIdentifyNumber(String.format("0010%08d", i));
+            dto.setFullName("Nguyễn Văn " + i);
+            dto.setPermanentCity(city);
+            dto.setPermanentDistrict(district);
+            dto.setPermanentWard(ward);
+            dto.setCurrentCity(city);
+            dto.setCurrentDistrict(district);
+            dto.setCurrentWard(ward);
+            dto.setFullPermanent("Số " + i + ", Phường Phúc Xá, Quận Ba Đình, Thành phố Hà Nội");
+            dto.setStatus("ACTIVE");
+            if (avatars) {
+                byte[] avatar = new byte[AVATAR_BYTES];
+                random.nextBytes(avatar);
+                dto.setStrAvatar(Base64.getEncoder().encodeToString(avatar));
+            }
+            page.add(dto);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,97 @@
+package com.system.management;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.system.management.model.dto.CityDto;
+import com.system.management.model.dto.DistrictDto;
+import com.system.management.model.dto.DrugAddictDto;
+import com.system.management.model.dto.WardDto;
+import com.system.management.model.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Response danh sách mã hóa Smile / CBOR: cùng nội dung với JSON nhưng kích thước nhỏ hơn */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BinaryEncodingTests {
+
+    @Autowired
+    private HttpMessageConverters httpMessageConverters;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jsonConverter;
+
+    @Test
+    void binaryEncodingsSmallerThanJson() throws Exception {
+        assertTrue(httpMessageConverters.getConverters().contains(smileConverter));
+        assertTrue(httpMessageConverters.getConverters().contains(cborConverter));
+
+        SuccessResponse<Object> page = new SuccessResponse<>(buildPage());
+
+        byte[] json = jsonConverter.getObjectMapper().writeValueAsBytes(page);
+        byte[] smile = smileConverter.getObjectMapper().writeValueAsBytes(page);
+        byte[] cbor = cborConverter.getObjectMapper().writeValueAsBytes(page);
+
+        assertTrue(smile.length < json.length, "smile " + smile.length + " / json " + json.length);
+        assertTrue(cbor.length < json.length, "cbor " + cbor.length + " / json " + json.length);
+
+        // Giải mã lại được cùng nội dung, ngày tháng giữ nguyên định dạng của JSON
+        JsonNode expected = jsonConverter.getObjectMapper().readTree(json);
+        assertEquals(expected, smileConverter.getObjectMapper().readTree(smile));
+        assertEquals(expected, cborConverter.getObjectMapper().readTree(cbor));
+    }
+
+    // Một trang 100 đối tượng cùng phường xã như danh sách thực tế của một đơn vị
+    private static List<DrugAddictDto> buildPage() {
+        CityDto city = new CityDto();
+        city.setId(1L);
+        city.setCode("01");
+        city.setFullName("Thành phố Hà Nội");
+
+        DistrictDto district = new DistrictDto();
+        district.setId(2L);
+        district.setCode("001");
+        district.setFullName("Quận Ba Đình");
+
+        WardDto ward = new WardDto();
+        ward.setId(3L);
+        ward.setCode("00001");
+        ward.setFullName("Phường Phúc Xá");
+
+        List<DrugAddictDto> page = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            DrugAddictDto dto = new DrugAddictDto();
+            dto.setId(i);
+            dto.setIdentifyNumber(String.format("0010%08d", i));
+            dto.setFullName("Nguyễn Văn " + i);
+            dto.setPermanentCity(city);
+            dto.setPermanentDistrict(district);
+            dto.setPermanentWard(ward);
+            dto.setCurrentCity(city);
+            dto.setCurrentDistrict(district);
+            dto.setCurrentWard(ward);
+            dto.setFullPermanent("Số " + i + ", Phường Phúc Xá, Quận Ba Đình, Thành phố Hà Nội");
+            dto.setStatus("ACTIVE");
+            page.add(dto);
+        }
+        return page;
+    }
+}
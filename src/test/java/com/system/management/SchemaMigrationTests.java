@@ -0,0 +1,85 @@
+package com.system.management;
+
+import com.system.management.config.migration.V12__Remove_province_partitions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Chạy toàn bộ migration trên H2 (chế độ MySQL) và kiểm tra schema sau khi migrate.
+   Khóa chính các bảng từng được phân vùng theo tỉnh thành phố phải chỉ gồm id như định danh entity của Hibernate */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTests {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void allMigrationsApplied() {
+        assertEquals(0, flyway.info().pending().length);
+        assertTrue(flyway.info().applied().length > 0);
+    }
+
+    @Test
+    void hotQueryIndexesCreated() {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.indexes where index_name = 'idx_drug_addicts_permanent_status'",
+                Integer.class);
+        assertTrue(count != null && count > 0);
+    }
+
+    @Test
+    void cadastralPathIndexesCreated() {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(distinct index_name) from information_schema.indexes where index_name like 'idx_%_cadastral_path_status'",
+                Integer.class);
+        assertEquals(4, count);
+    }
+
+    @Test
+    void changeFeedIndexesCreated() {
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(distinct index_name) from information_schema.indexes where index_name like 'idx_%_modified_at'",
+                Integer.class);
+        assertEquals(4, count);
+    }
+
+    @Test
+    void unpartitionedTablesKeyedById() {
+        for (String table : V12__Remove_province_partitions.TABLES) {
+            assertEquals(List.of("id"), primaryKey(table), table);
+        }
+
+        Integer count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.indexes where index_name = 'idx_assign_supports_shard_police_status'",
+                Integer.class);
+        assertTrue(count != null && count > 0);
+    }
+
+    private List<String> primaryKey(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            List<String> columns = new ArrayList<>();
+            try (ResultSet rs = connection.getMetaData().getPrimaryKeys(null, null, table)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+            return columns;
+        });
+    }
+}
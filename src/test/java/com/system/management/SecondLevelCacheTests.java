@@ -0,0 +1,52 @@
+package com.system.management;
+
+import com.system.management.model.entity.TreatmentPlace;
+import com.system.management.repository.TreatmentPlaceRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static com.system.management.utils.enums.StatusEnums.ACTIVE;
+import static com.system.management.utils.enums.StatusEnums.DELETED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Query findByIdAndStatus / existsByIdAndStatus lấy từ cache và bị huỷ khi bản ghi được lưu lại */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTests {
+
+    @Autowired
+    private TreatmentPlaceRepository treatmentPlaceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void lookupsServedFromCacheAndInvalidatedOnSave() {
+        TreatmentPlace treatmentPlace = new TreatmentPlace();
+        treatmentPlace.setStatus(ACTIVE.name());
+        treatmentPlace = treatmentPlaceRepository.save(treatmentPlace);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(treatmentPlaceRepository.existsByIdAndStatus(treatmentPlace.getId(), ACTIVE.name()));
+        }
+        assertEquals(1, statistics.getQueryExecutionCount());
+
+        treatmentPlace.setStatus(DELETED.name());
+        treatmentPlaceRepository.save(treatmentPlace);
+
+        assertFalse(treatmentPlaceRepository.existsByIdAndStatus(treatmentPlace.getId(), ACTIVE.name()));
+        assertFalse(treatmentPlaceRepository.findByIdAndStatus(treatmentPlace.getId(), ACTIVE.name()).isPresent());
+    }
+}
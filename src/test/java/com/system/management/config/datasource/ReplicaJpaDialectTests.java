@@ -0,0 +1,42 @@
+package com.system.management.config.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Transaction read-only (đọc replica) chỉ đọc second-level cache, không ghi; transaction ghi vẫn ghi cache như bình thường */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReplicaJpaDialectTests {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void readOnlyTransactionDoesNotPutIntoCache() {
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory);
+        transactionManager.setJpaDialect(new ReplicaJpaDialect());
+
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+
+        assertEquals(CacheMode.GET, readTransaction.execute(status -> currentCacheMode()));
+        assertEquals(CacheMode.NORMAL, writeTransaction.execute(status -> currentCacheMode()));
+    }
+
+    private CacheMode currentCacheMode() {
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory).unwrap(Session.class).getCacheMode();
+    }
+}
@@ -0,0 +1,145 @@
+package com.system.management.config.datasource;
+
+import com.system.management.model.dto.PoliceDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/* Định tuyến trên hai database H2: transaction read-only đọc replica, transaction ghi vào database chính,
+   tài khoản vừa commit đọc database chính trong read_your_writes_window, replica lỗi bị loại khỏi vòng đọc.
+   Độ trễ đọc được cả trên MySQL cũ chỉ có "show slave status" */
+
+class ReplicaRoutingTests {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate writeTransaction;
+
+    private TransactionTemplate readTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = createDatabase("routing_primary");
+        DataSource replica = createDatabase("routing_replica");
+
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setReadYourWritesWindow(60000);
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), properties);
+        routingDataSource.afterPropertiesSet();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyToReplicaWriteToPrimary() {
+        login(1L);
+        assertEquals("routing_primary", writeTransaction.execute(status -> currentDatabase()));
+
+        login(2L);
+        assertEquals("routing_replica", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void readYourWritesAfterCommitOnly() {
+        login(3L);
+
+        // Transaction ghi rollback => Không ghi nhận, vẫn đọc replica
+        writeTransaction.execute(status -> {
+            currentDatabase();
+            status.setRollbackOnly();
+            return null;
+        });
+        assertEquals("routing_replica", readTransaction.execute(status -> currentDatabase()));
+
+        // Đã commit => Trong read_your_writes_window đọc database chính
+        writeTransaction.execute(status -> currentDatabase());
+        assertEquals("routing_primary", readTransaction.execute(status -> currentDatabase()));
+
+        // Tài khoản khác không bị ảnh hưởng
+        login(4L);
+        assertEquals("routing_replica", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void unhealthyReplicaRemovedFromRotation() {
+        // H2 không hỗ trợ "show replica status" => Kiểm tra độ trễ lỗi, replica bị loại
+        routingDataSource.checkReplicaLag();
+
+        login(5L);
+        assertEquals("routing_primary", readTransaction.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void lagReadFromLegacySlaveStatus() {
+        JdbcOperations legacy = mock(JdbcOperations.class);
+        when(legacy.queryForList("show replica status"))
+                .thenThrow(new BadSqlGrammarException("status", "show replica status", new SQLException("You have an error in your SQL syntax")));
+        when(legacy.queryForList("show slave status"))
+                .thenReturn(List.of(Map.of("Seconds_Behind_Master", 3L)), List.of(Map.of("Seconds_Behind_Master", 30L)));
+
+        // MySQL trước 8.0.22 => Dùng "show slave status", các lần kiểm tra sau không chạy lại câu lệnh mới
+        assertTrue(routingDataSource.isHealthy("replica-0", legacy));
+        assertFalse(routingDataSource.isHealthy("replica-0", legacy));
+        verify(legacy, times(1)).queryForList("show replica status");
+
+        JdbcOperations current = mock(JdbcOperations.class);
+        when(current.queryForList("show replica status")).thenReturn(List.of(Map.of("Seconds_Behind_Source", 2L)));
+        assertTrue(routingDataSource.isHealthy("replica-1", current));
+        verify(current, never()).queryForList("show slave status");
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject(" select name from routing_target ", String.class);
+    }
+
+    private static DataSource createDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(" create table if not exists routing_target (name varchar(32)) ");
+        jdbcTemplate.update(" delete from routing_target ");
+        jdbcTemplate.update(" insert into routing_target (name) values (?) ", name);
+        return dataSource;
+    }
+
+    private static void login(Long id) {
+        PoliceDto police = new PoliceDto();
+        police.setId(id);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(police, null, List.of());
+        authentication.setDetails(police);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
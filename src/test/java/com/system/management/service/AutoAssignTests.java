@@ -0,0 +1,178 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.assign_support.AutoAssignDrugAddictRequest;
+import com.system.management.utils.enums.AssignStatusEnums;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.BadRequestException;
+import com.system.management.utils.exception.ForbiddenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* Phân công tự động: tài khoản trung ương chọn tỉnh + phường xã (không có quận huyện) chỉ phân công đối tượng thuộc phường xã đó,
+   đối tượng còn police_id nhưng không còn phân công đang hoạt động được phân công lại và cảnh sát cũ về Chưa phân công.
+   Cảnh sát ngoài đơn vị công tác hoặc là cảnh sát trưởng bị từ chối, hai lần chạy đồng thời không phân công một đối tượng hai lần */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AutoAssignTests extends DatabaseFixture {
+
+    private static final long CITY_ID = 901L;
+
+    private static final long DISTRICT_ID = 9011L;
+
+    private static final long OTHER_CITY_ID = 902L;
+
+    @Autowired
+    private AssignSupportService assignSupportService;
+
+    @BeforeEach
+    void login() {
+        login(null);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void wardWithoutDistrictAndStaleSupervisor() {
+        long targetId = insertPolice("A0001", AssignStatusEnums.UN_ASSIGN.getValue());
+        long staleId = insertPolice("A0002", AssignStatusEnums.ASSIGNED.getValue());
+
+        long inWardId = insertDrugAddict(90111L, null);
+        long otherWardId = insertDrugAddict(90112L, null);
+        long staleDrugAddictId = insertDrugAddict(90111L, staleId);
+
+        AutoAssignDrugAddictRequest request = new AutoAssignDrugAddictRequest();
+        request.setPoliceIds(List.of(targetId));
+        request.setCityId(CITY_ID);
+        request.setWardId(90111L);
+
+        assignSupportService.autoAssignDrugAddict(request);
+
+        assertEquals(targetId, queryLong(" select police_id from drug_addicts where id = :id ", inWardId));
+        assertEquals(targetId, queryLong(" select police_id from drug_addicts where id = :id ", staleDrugAddictId));
+        assertNull(queryLong(" select police_id from drug_addicts where id = :id ", otherWardId));
+
+        assertEquals(AssignStatusEnums.ASSIGNED.getValue(), queryLong(" select assign_status from polices where id = :id ", targetId).intValue());
+        assertEquals(AssignStatusEnums.UN_ASSIGN.getValue(), queryLong(" select assign_status from polices where id = :id ", staleId).intValue());
+    }
+
+    @Test
+    void outOfScopeOrSheriffRejected() {
+        long inScopeId = insertPolice("A0003", AssignStatusEnums.UN_ASSIGN.getValue());
+        long otherCityId = insertPolice("A0004", RoleEnums.POLICE.value, AssignStatusEnums.UN_ASSIGN.getValue(), OTHER_CITY_ID);
+        long sheriffId = insertPolice("A0005", RoleEnums.SHERIFF.value, AssignStatusEnums.UN_ASSIGN.getValue(), CITY_ID);
+
+        // Cảnh sát trưởng cấp tỉnh chỉ được phân công cho cảnh sát thuộc tỉnh của mình
+        login(CITY_ID);
+
+        AutoAssignDrugAddictRequest request = new AutoAssignDrugAddictRequest();
+        request.setWardId(90113L);
+
+        request.setPoliceIds(List.of(inScopeId, otherCityId));
+        assertThrows(ForbiddenException.class, () -> assignSupportService.autoAssignDrugAddict(request));
+
+        request.setPoliceIds(List.of(inScopeId, sheriffId));
+        assertThrows(BadRequestException.class, () -> assignSupportService.autoAssignDrugAddict(request));
+    }
+
+    @Test
+    void concurrentRunsAssignOnce() throws Exception {
+        long firstId = insertPolice("A0006", AssignStatusEnums.UN_ASSIGN.getValue());
+        long secondId = insertPolice("A0007", AssignStatusEnums.UN_ASSIGN.getValue());
+
+        List<Long> drugAddictIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            drugAddictIds.add(insertDrugAddict(90114L, null));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (long policeId : List.of(firstId, secondId)) {
+                runs.add(executor.submit(() -> {
+                    login(null);
+                    AutoAssignDrugAddictRequest request = new AutoAssignDrugAddictRequest();
+                    request.setPoliceIds(List.of(policeId));
+                    request.setCityId(CITY_ID);
+                    request.setWardId(90114L);
+                    start.await();
+                    return assignSupportService.autoAssignDrugAddict(request);
+                }));
+            }
+            start.countDown();
+            for (Future<?> run : runs) {
+                run.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Mỗi đối tượng chỉ có một bản ghi phân công đang hoạt động, cảnh sát giám sát khớp với bản ghi đó
+        for (long drugAddictId : drugAddictIds) {
+            assertEquals(1L, queryLong(" select count(*) from assign_supports where drug_addict_id = :id and status = 'ACTIVE' ", drugAddictId));
+            assertEquals(queryLong(" select police_id from assign_supports where drug_addict_id = :id and status = 'ACTIVE' ", drugAddictId),
+                    queryLong(" select police_id from drug_addicts where id = :id ", drugAddictId));
+        }
+    }
+
+    private void login(Long cityId) {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(cityId == null ? LevelEnums.CENTRAL.value : LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private long insertPolice(String identifyNumber, int assignStatus) {
+        return insertPolice(identifyNumber, RoleEnums.POLICE.value, assignStatus, CITY_ID);
+    }
+
+    private long insertPolice(String identifyNumber, int role, int assignStatus, long cityId) {
+        return insert(" insert into polices (identify_number, full_name, city_id, level, role, assign_status, cadastral_path, status)"
+                        + " values (:identify_number, :identify_number, :city_id, 2, :role, :assign_status, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("identify_number", identifyNumber)
+                        .addValue("city_id", cityId)
+                        .addValue("role", role)
+                        .addValue("assign_status", assignStatus)
+                        .addValue("cadastral_path", "/" + cityId + "/"));
+    }
+
+    private long insertDrugAddict(long wardId, Long policeId) {
+        return insert(" insert into drug_addicts (police_id, permanent_city_id, permanent_district_id, permanent_ward_id, cadastral_path, status)"
+                        + " values (:police_id, :city_id, :district_id, :ward_id, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("police_id", policeId)
+                        .addValue("city_id", CITY_ID)
+                        .addValue("district_id", DISTRICT_ID)
+                        .addValue("ward_id", wardId)
+                        .addValue("cadastral_path", "/" + CITY_ID + "/" + DISTRICT_ID + "/" + wardId + "/"));
+    }
+}
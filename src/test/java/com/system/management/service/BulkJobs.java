@@ -0,0 +1,31 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.utils.enums.JobStatusEnums;
+
+/* Chờ tác vụ nền của BulkJobService kết thúc trong test: đọc lại tiến độ theo chu kỳ ngắn đến khi thành công / lỗi hoặc hết thời gian */
+
+final class BulkJobs {
+
+    private static final long POLL_INTERVAL = 20;
+
+    private BulkJobs() {
+    }
+
+    static JobDto await(BulkJobService bulkJobService, String id, long timeout) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeout;
+
+        JobDto job = bulkJobService.get(id);
+        while (job != null && !isFinished(job) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_INTERVAL);
+            job = bulkJobService.get(id);
+        }
+
+        return job;
+    }
+
+    private static boolean isFinished(JobDto job) {
+        return JobStatusEnums.SUCCESS.name().equals(job.getStatus()) || JobStatusEnums.FAILED.name().equals(job.getStatus());
+    }
+}
@@ -0,0 +1,52 @@
+package com.system.management.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/* Chuỗi địa chỉ tính sẵn theo cây địa chính và được tính lại ở luồng nền khi đổi tên địa chính */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CadastralAddressTests extends DatabaseFixture {
+
+    @Autowired
+    private CadastralCacheService cadastralCacheService;
+
+    @Test
+    void suffixRecomputedAfterRename() throws InterruptedException {
+        cadastralCacheService.evictHierarchy();
+
+        long cityId = insert(" insert into cities (code, full_name, status) values ('T01', 'Hà Nội', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long districtId = insert(" insert into districts (code, full_name, city_id, status) values ('Q01', 'Ba Đình', :city_id, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId));
+        long wardId = insert(" insert into wards (code, full_name, city_id, district_id, status) values ('P01', 'Kim Mã', :city_id, :district_id, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId).addValue("district_id", districtId));
+
+        cadastralCacheService.evictHierarchy();
+        awaitSuffix(cityId, districtId, wardId, "Kim Mã, Ba Đình, Hà Nội");
+
+        // Phường xã không thuộc quận huyện truyền vào => Nơi gọi tự ghép chuỗi
+        assertNull(cadastralCacheService.getAddressSuffix(cityId, null, wardId));
+
+        namedParameterJdbcTemplate.update(" update districts set full_name = 'Hoàn Kiếm' where id = :id ",
+                new MapSqlParameterSource("id", districtId));
+        cadastralCacheService.evictHierarchy();
+
+        awaitSuffix(cityId, districtId, wardId, "Kim Mã, Hoàn Kiếm, Hà Nội");
+        assertEquals("Hoàn Kiếm, Hà Nội", cadastralCacheService.getAddressSuffix(cityId, districtId, null));
+    }
+
+    private void awaitSuffix(long cityId, long districtId, long wardId, String expected) throws InterruptedException {
+        for (int i = 0; i < 50 && !expected.equals(cadastralCacheService.getAddressSuffix(cityId, districtId, wardId)); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(expected, cadastralCacheService.getAddressSuffix(cityId, districtId, wardId));
+    }
+}
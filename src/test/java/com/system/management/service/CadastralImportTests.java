@@ -0,0 +1,104 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.CadastralImportDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.city.CadastralRecordRequest;
+import com.system.management.model.request.city.ImportCadastralRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Nạp bộ dữ liệu địa chính: lần đầu thêm mới toàn bộ, lần sau chỉ cập nhật địa chính đổi tên và thêm địa chính mới */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CadastralImportTests {
+
+    @Autowired
+    private CadastralImportService cadastralImportService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @BeforeEach
+    void login() {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CENTRAL.value);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void importThenReimportAppliesDiff() {
+        String csv = "\uFEFFTỉnh Thành Phố,Mã TP,Quận Huyện,Mã QH,Phường Xã,Mã PX\n"
+                + "Tỉnh  Nhập Liệu,I01,Huyện Một,I011,\"Xã Một, Thôn A\",I0111\n"
+                + "Tỉnh  Nhập Liệu,I01,Huyện Một,I011,Xã Hai,I0112\n"
+                + "\n"
+                + "Tỉnh  Nhập Liệu,I01,Huyện Hai,I012,,\n";
+
+        CadastralImportDto first = (CadastralImportDto) cadastralImportService.importCsv(new MockMultipartFile(
+                "file", "cadastral.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)), false).getData();
+
+        assertEquals(1, first.getInsertedCities());
+        assertEquals(2, first.getInsertedDistricts());
+        assertEquals(2, first.getInsertedWards());
+
+        Map<String, Object> ward = namedParameterJdbcTemplate.queryForMap(
+                " select w.full_name, w.unsigned_name from wards w join districts d on d.id = w.district_id"
+                        + " where w.code = 'I0111' and d.code = 'I011' and w.status = 'ACTIVE' ", new MapSqlParameterSource());
+        assertEquals("Xã Một, Thôn A", ward.get("full_name"));
+        assertEquals("xa mot, thon a", ward.get("unsigned_name"));
+
+        ImportCadastralRequest request = new ImportCadastralRequest();
+        request.setRecords(List.of(
+                record("I0111", "Xã Một, Thôn A"),
+                record("I0112", "Phường Hai"),
+                record("I0113", "Xã Ba")));
+
+        CadastralImportDto second = (CadastralImportDto) cadastralImportService.importRecords(request).getData();
+
+        assertEquals(0, second.getInsertedCities());
+        assertEquals(0, second.getUpdatedCities());
+        assertEquals(0, second.getInsertedDistricts());
+        assertEquals(0, second.getUpdatedDistricts());
+        assertEquals(1, second.getInsertedWards());
+        assertEquals(1, second.getUpdatedWards());
+        assertEquals(0, second.getDeletedWards());
+    }
+
+    private CadastralRecordRequest record(String wardCode, String wardName) {
+        CadastralRecordRequest record = new CadastralRecordRequest();
+        record.setCityCode("I01");
+        record.setCityName("Tỉnh Nhập Liệu");
+        record.setDistrictCode("I011");
+        record.setDistrictName("Huyện Một");
+        record.setWardCode(wardCode);
+        record.setWardName(wardName);
+        return record;
+    }
+}
@@ -0,0 +1,74 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.utils.enums.JobStatusEnums;
+import com.system.management.utils.enums.JobTypeEnums;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Sáp nhập phường xã: dữ liệu tham chiếu và đường dẫn địa chính được chuyển sang phường xã nhận sáp nhập */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CadastralMergeTests extends DatabaseFixture {
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    private CadastralReferenceService cadastralReferenceService;
+
+    @Test
+    void mergeWardsMovesReferences() throws InterruptedException {
+        long cityId = insert(" insert into cities (code, full_name, status) values ('T91', 'Tỉnh A', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long districtId = insert(" insert into districts (code, full_name, city_id, status) values ('Q91', 'Huyện B', :city_id, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId));
+        long sourceWardId = insertWard("P91", cityId, districtId);
+        long targetWardId = insertWard("P92", cityId, districtId);
+
+        String sourcePath = "/" + cityId + "/" + districtId + "/" + sourceWardId + "/";
+        String targetPath = "/" + cityId + "/" + districtId + "/" + targetWardId + "/";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("city_id", cityId)
+                .addValue("district_id", districtId)
+                .addValue("ward_id", sourceWardId)
+                .addValue("cadastral_path", sourcePath);
+
+        long drugAddictId = insert(" insert into drug_addicts (permanent_city_id, permanent_district_id, permanent_ward_id, cadastral_path, status)"
+                + " values (:city_id, :district_id, :ward_id, :cadastral_path, 'ACTIVE') ", params);
+        long assignSupportId = insert(" insert into assign_supports (police_id, drug_addict_id, shard_city_id, cadastral_path, status)"
+                + " values (1, " + drugAddictId + ", :city_id, :cadastral_path, 'ACTIVE') ", params);
+
+        JobDto job = bulkJobService.submit(JobTypeEnums.MERGE_WARD, 1L, CadastralReferenceService.totalSteps(1),
+                bulkJob -> cadastralReferenceService.moveWards(bulkJob, List.of(sourceWardId), Map.of(sourceWardId, sourcePath),
+                        cityId, districtId, targetWardId, 1L));
+
+        JobDto result = BulkJobs.await(bulkJobService, job.getId(), 10000);
+        assertEquals(JobStatusEnums.SUCCESS.name(), result.getStatus(), result.getMessage());
+        assertEquals(result.getTotalSteps(), result.getCompletedSteps());
+
+        Map<String, Object> drugAddict = namedParameterJdbcTemplate.queryForMap(
+                " select permanent_ward_id, cadastral_path from drug_addicts where id = :id ", new MapSqlParameterSource("id", drugAddictId));
+        assertEquals(targetWardId, ((Number) drugAddict.get("permanent_ward_id")).longValue());
+        assertEquals(targetPath, drugAddict.get("cadastral_path"));
+
+        String assignSupportPath = namedParameterJdbcTemplate.queryForObject(
+                " select cadastral_path from assign_supports where id = :id ", new MapSqlParameterSource("id", assignSupportId), String.class);
+        assertEquals(targetPath, assignSupportPath);
+    }
+
+    private long insertWard(String code, long cityId, long districtId) {
+        return insert(" insert into wards (code, full_name, city_id, district_id, status) values (:code, :code, :city_id, :district_id, 'ACTIVE') ",
+                new MapSqlParameterSource("code", code).addValue("city_id", cityId).addValue("district_id", districtId));
+    }
+}
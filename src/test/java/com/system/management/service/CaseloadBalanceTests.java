@@ -0,0 +1,56 @@
+package com.system.management.service;
+
+import com.system.management.model.entity.DrugAddict;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Kiểm tra thuật toán chia đối tượng cho cảnh sát của phân công tự động */
+
+class CaseloadBalanceTests {
+
+    @Test
+    void evensOutCaseloads() {
+        List<AssignSupportService.Caseload> caseloads = List.of(
+                new AssignSupportService.Caseload(1L, "A", 10L, 5),
+                new AssignSupportService.Caseload(2L, "B", 10L, 0),
+                new AssignSupportService.Caseload(3L, "C", 20L, 2));
+
+        AssignSupportService.balanceCaseloads(caseloads, drugAddicts(10, 10L), false);
+
+        int total = caseloads.stream().mapToInt(caseload -> caseload.toResult().getCaseload()).sum();
+        assertEquals(17, total);
+        caseloads.forEach(caseload -> {
+            int value = caseload.toResult().getCaseload();
+            assertTrue(value == 5 || value == 6, "caseload " + value);
+        });
+    }
+
+    @Test
+    void prefersSameWardWithinTolerance() {
+        List<AssignSupportService.Caseload> caseloads = List.of(
+                new AssignSupportService.Caseload(1L, "A", 10L, 0),
+                new AssignSupportService.Caseload(2L, "B", 20L, 0));
+
+        AssignSupportService.balanceCaseloads(caseloads, drugAddicts(6, 20L), true);
+
+        // Cảnh sát cùng phường xã nhận đối tượng cho tới khi lệch quá 2 đối tượng so với cảnh sát còn lại
+        assertEquals(2, caseloads.get(0).toResult().getAssignedCount());
+        assertEquals(4, caseloads.get(1).toResult().getAssignedCount());
+    }
+
+    private List<DrugAddict> drugAddicts(int count, Long wardId) {
+        List<DrugAddict> drugAddicts = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            DrugAddict drugAddict = new DrugAddict();
+            drugAddict.setId(i);
+            drugAddict.setPermanentWardId(wardId);
+            drugAddicts.add(drugAddict);
+        }
+        return drugAddicts;
+    }
+}
@@ -0,0 +1,128 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.police.HandoverPoliceRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.ProcessException;
+import com.system.management.utils.enums.AssignStatusEnums;
+import com.system.management.utils.enums.JobStatusEnums;
+import com.system.management.utils.enums.JobTypeEnums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* Bàn giao đối tượng và địa chính phụ trách: địa chính cảnh sát nhận bàn giao đã được phân công thì bị hủy, còn lại được chuyển sang.
+   Bàn giao lại cảnh sát đã bị xóa chỉ khi cảnh sát đó còn đối tượng hoặc địa chính chưa được chuyển */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CaseloadHandoverTests extends DatabaseFixture {
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    private CaseloadHandoverService caseloadHandoverService;
+
+    @Autowired
+    private PoliceService policeService;
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void handoverMovesCaseloadAndDropsDuplicateCadastral() throws InterruptedException {
+        long sourceId = insertPolice("H0001", "/1/");
+        long targetId = insertPolice("H0002", "/1/");
+
+        long drugAddictId = insert(" insert into drug_addicts (police_id, permanent_city_id, cadastral_path, status)"
+                + " values (:police_id, 1, '/1/', 'ACTIVE') ", new MapSqlParameterSource("police_id", sourceId));
+        long drugAddictAssignId = insertAssignSupport(sourceId, drugAddictId, null, "/1/");
+        long duplicateAssignId = insertAssignSupport(sourceId, null, 2L, "/2/");
+        long movedAssignId = insertAssignSupport(sourceId, null, 3L, "/3/");
+        insertAssignSupport(targetId, null, 2L, "/2/");
+
+        JobDto job = bulkJobService.submit(JobTypeEnums.HANDOVER_CASELOAD, 1L, CaseloadHandoverService.TOTAL_STEPS,
+                bulkJob -> caseloadHandoverService.handover(bulkJob, sourceId, targetId, 1L));
+
+        JobDto result = BulkJobs.await(bulkJobService, job.getId(), 10000);
+        assertEquals(JobStatusEnums.SUCCESS.name(), result.getStatus(), result.getMessage());
+        assertEquals(result.getTotalSteps(), result.getCompletedSteps());
+
+        assertEquals(targetId, queryLong(" select police_id from drug_addicts where id = :id ", drugAddictId));
+        assertEquals(targetId, queryLong(" select police_id from assign_supports where id = :id ", drugAddictAssignId));
+        assertEquals(targetId, queryLong(" select police_id from assign_supports where id = :id ", movedAssignId));
+        assertEquals("DELETED", namedParameterJdbcTemplate.queryForObject(" select status from assign_supports where id = :id ",
+                new MapSqlParameterSource("id", duplicateAssignId), String.class));
+
+        assertEquals(AssignStatusEnums.UN_ASSIGN.getValue(), queryLong(" select assign_status from polices where id = :id ", sourceId).intValue());
+        assertEquals(AssignStatusEnums.ASSIGNED.getValue(), queryLong(" select assign_status from polices where id = :id ", targetId).intValue());
+    }
+
+    @Test
+    void rehandoverDeletedPoliceOnlyWithRemainingCaseload() throws InterruptedException {
+        login();
+
+        long handedOverId = insertPolice("H0003", "/1/");
+        long remainingId = insertPolice("H0004", "/1/");
+        namedParameterJdbcTemplate.update(" update polices set status = 'DELETED' where id in (:ids) ",
+                new MapSqlParameterSource("ids", List.of(handedOverId, remainingId)));
+
+        // Lần bàn giao lúc xóa đã chuyển hết => Không bàn giao lại
+        HandoverPoliceRequest request = new HandoverPoliceRequest();
+        request.setPoliceId(handedOverId);
+        assertThrows(ProcessException.class, () -> policeService.handover(request));
+
+        // Lần bàn giao lúc xóa dừng giữa chừng => Bàn giao lại phần còn lại
+        long assignId = insertAssignSupport(remainingId, null, 4L, "/4/");
+        request.setPoliceId(remainingId);
+
+        JobDto job = (JobDto) policeService.handover(request).getData();
+        JobDto result = BulkJobs.await(bulkJobService, job.getId(), 10000);
+        assertEquals(JobStatusEnums.SUCCESS.name(), result.getStatus(), result.getMessage());
+        assertEquals("DELETED", namedParameterJdbcTemplate.queryForObject(" select status from assign_supports where id = :id ",
+                new MapSqlParameterSource("id", assignId), String.class));
+    }
+
+    private void login() {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CENTRAL.value);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private long insertPolice(String identifyNumber, String cadastralPath) {
+        return insert(" insert into polices (identify_number, full_name, city_id, level, role, assign_status, cadastral_path, status)"
+                        + " values (:identify_number, :identify_number, 1, 2, 1, :assign_status, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("identify_number", identifyNumber)
+                        .addValue("assign_status", AssignStatusEnums.ASSIGNED.getValue())
+                        .addValue("cadastral_path", cadastralPath));
+    }
+
+    private long insertAssignSupport(long policeId, Long drugAddictId, Long cityId, String cadastralPath) {
+        return insert(" insert into assign_supports (police_id, drug_addict_id, city_id, shard_city_id, cadastral_path, status)"
+                        + " values (:police_id, :drug_addict_id, :city_id, 1, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("police_id", policeId)
+                        .addValue("drug_addict_id", drugAddictId)
+                        .addValue("city_id", cityId)
+                        .addValue("cadastral_path", cadastralPath));
+    }
+}
@@ -0,0 +1,135 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.ChangeFeedDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.dto.TreatmentPlaceDto;
+import com.system.management.model.request.change_feed.GetChangeFeedRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Đồng bộ thay đổi: lấy lần lượt theo vị trí đồng bộ, chỉ trong phạm vi đơn vị công tác, bản ghi xóa mềm vẫn được trả về,
+   bản ghi chuyển ra khỏi đơn vị được trả cho đơn vị cũ dưới dạng bản ghi xóa */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeFeedTests extends DatabaseFixture {
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void pagesThroughChangesInScope() {
+        long cityId = insert(" insert into cities (code, full_name, status) values ('C81', 'Tỉnh Đồng Bộ', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long otherCityId = insert(" insert into cities (code, full_name, status) values ('C82', 'Tỉnh Khác', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        Date past = new Date(System.currentTimeMillis() - 3600000);
+
+        long firstId = insertTreatmentPlace(cityId, "ACTIVE", past);
+        long secondId = insertTreatmentPlace(cityId, "DELETED", past);
+        long thirdId = insertTreatmentPlace(cityId, "ACTIVE", new Date(past.getTime() + 1000));
+        insertTreatmentPlace(otherCityId, "ACTIVE", past);
+
+        // Vừa cập nhật, chưa qua safety_lag => Lấy ở lần đồng bộ sau
+        insertTreatmentPlace(cityId, "ACTIVE", new Date());
+
+        login(cityId);
+
+        ChangeFeedDto firstPage = getChanges(null, 2);
+        assertEquals(List.of(firstId, secondId), ids(firstPage));
+        assertEquals("DELETED", ((TreatmentPlaceDto) firstPage.getItems().get(1)).getStatus());
+        assertTrue(firstPage.getHasMore());
+
+        ChangeFeedDto secondPage = getChanges(firstPage.getNextCursor(), 2);
+        assertEquals(List.of(thirdId), ids(secondPage));
+        assertFalse(secondPage.getHasMore());
+
+        ChangeFeedDto emptyPage = getChanges(secondPage.getNextCursor(), 2);
+        assertTrue(emptyPage.getItems().isEmpty());
+        assertEquals(secondPage.getNextCursor(), emptyPage.getNextCursor());
+    }
+
+    @Test
+    void movedOutOfScopeReturnedAsTombstone() {
+        long cityId = insert(" insert into cities (code, full_name, status) values ('C83', 'Tỉnh Cũ', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long otherCityId = insert(" insert into cities (code, full_name, status) values ('C84', 'Tỉnh Mới', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        // Nơi cai nghiện đã chuyển từ tỉnh cũ sang tỉnh mới
+        long movedId = insert(" insert into treatment_places (full_name, city_id, cadastral_path, previous_cadastral_path, status, created_at, modified_at)"
+                        + " values ('Cơ sở', :city_id, :cadastral_path, :previous_cadastral_path, 'ACTIVE', :modified_at, :modified_at) ",
+                new MapSqlParameterSource()
+                        .addValue("city_id", otherCityId)
+                        .addValue("cadastral_path", "/" + otherCityId + "/")
+                        .addValue("previous_cadastral_path", "/" + cityId + "/")
+                        .addValue("modified_at", new Date(System.currentTimeMillis() - 3600000)));
+
+        login(cityId);
+        TreatmentPlaceDto tombstone = (TreatmentPlaceDto) getChanges(null, 10).getItems().get(0);
+        assertEquals(movedId, tombstone.getId());
+        assertEquals("DELETED", tombstone.getStatus());
+        assertNull(tombstone.getFullName());
+
+        login(otherCityId);
+        TreatmentPlaceDto moved = (TreatmentPlaceDto) getChanges(null, 10).getItems().get(0);
+        assertEquals("ACTIVE", moved.getStatus());
+        assertEquals("Cơ sở", moved.getFullName());
+
+        assertThrows(BadRequestException.class, () -> getChanges(null, -5));
+    }
+
+    private ChangeFeedDto getChanges(String cursor, int size) {
+        GetChangeFeedRequest request = new GetChangeFeedRequest();
+        request.setType("TREATMENT_PLACE");
+        request.setCursor(cursor);
+        request.setSize(size);
+        return (ChangeFeedDto) changeFeedService.getList(request).getData();
+    }
+
+    private static List<Long> ids(ChangeFeedDto changeFeed) {
+        return changeFeed.getItems().stream().map(item -> ((TreatmentPlaceDto) item).getId()).toList();
+    }
+
+    private void login(long cityId) {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private long insertTreatmentPlace(long cityId, String status, Date modifiedAt) {
+        return insert(" insert into treatment_places (full_name, city_id, cadastral_path, status, created_at, modified_at)"
+                        + " values ('Cơ sở', :city_id, :cadastral_path, :status, :modified_at, :modified_at) ",
+                new MapSqlParameterSource()
+                        .addValue("city_id", cityId)
+                        .addValue("cadastral_path", "/" + cityId + "/")
+                        .addValue("status", status)
+                        .addValue("modified_at", modifiedAt));
+    }
+}
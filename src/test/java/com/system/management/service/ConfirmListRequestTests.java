@@ -0,0 +1,107 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.ConfirmRequestResultDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.drug_addict_request.ConfirmDrugAddictRequestRequest;
+import com.system.management.model.request.drug_addict_request.ConfirmListDrugAddictRequestRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Duyệt nhiều yêu cầu cùng lúc: yêu cầu hợp lệ được ghi, yêu cầu không hợp lệ được bỏ qua kèm lý do */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ConfirmListRequestTests extends DatabaseFixture {
+
+    @Autowired
+    private DrugAddictRequestService drugAddictRequestService;
+
+    @BeforeEach
+    void login() {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CENTRAL.value);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void confirmListAppliesValidRequestsOnly() {
+        long drugAddictId = insert(" insert into drug_addicts (full_name, permanent_city_id, permanent_district_id, cadastral_path, status)"
+                + " values ('Nguyễn Văn A', 7, 70, '/7/70/', 'ACTIVE') ", new MapSqlParameterSource());
+        long assignSupportId = insert(" insert into assign_supports (police_id, drug_addict_id, shard_city_id, cadastral_path, status)"
+                + " values (1, :drug_addict_id, 7, '/7/70/', 'ACTIVE') ", new MapSqlParameterSource("drug_addict_id", drugAddictId));
+
+        long acceptId = insertRequest(drugAddictId, "Nguyễn Văn B", 8L);
+        long rejectId = insertRequest(drugAddictId, "Nguyễn Văn C", 7L);
+
+        ConfirmListDrugAddictRequestRequest request = new ConfirmListDrugAddictRequestRequest();
+        request.setRequests(List.of(
+                item(acceptId, "ACCEPT", null),
+                item(rejectId, "REJECT", null),
+                item(-1L, "ACCEPT", null),
+                item(acceptId, "ACCEPT", null)));
+
+        List<ConfirmRequestResultDto> results = (List<ConfirmRequestResultDto>) drugAddictRequestService.confirmList(request).getData();
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).getSuccess());
+        assertFalse(results.get(1).getSuccess());
+        assertFalse(results.get(2).getSuccess());
+        assertFalse(results.get(3).getSuccess());
+
+        Map<String, Object> drugAddict = namedParameterJdbcTemplate.queryForMap(
+                " select full_name, cadastral_path from drug_addicts where id = :id ", new MapSqlParameterSource("id", drugAddictId));
+        assertEquals("Nguyễn Văn B", drugAddict.get("full_name"));
+        assertEquals("/8/", drugAddict.get("cadastral_path"));
+
+        assertEquals("/8/", namedParameterJdbcTemplate.queryForObject(" select cadastral_path from assign_supports where id = :id ",
+                new MapSqlParameterSource("id", assignSupportId), String.class));
+        assertEquals("ACCEPT", status(acceptId));
+        assertEquals("WAIT", status(rejectId));
+    }
+
+    private String status(long requestId) {
+        return namedParameterJdbcTemplate.queryForObject(" select status from drug_addict_requests where id = :id ",
+                new MapSqlParameterSource("id", requestId), String.class);
+    }
+
+    private ConfirmDrugAddictRequestRequest item(Long id, String status, String reasonRejected) {
+        ConfirmDrugAddictRequestRequest item = new ConfirmDrugAddictRequestRequest();
+        item.setId(id);
+        item.setStatus(status);
+        item.setReasonRejected(reasonRejected);
+        return item;
+    }
+
+    private long insertRequest(long drugAddictId, String fullName, Long permanentCityId) {
+        return insert(" insert into drug_addict_requests (drug_addict_id, full_name, permanent_city_id, status)"
+                        + " values (:drug_addict_id, :full_name, :permanent_city_id, 'WAIT') ",
+                new MapSqlParameterSource("drug_addict_id", drugAddictId)
+                        .addValue("full_name", fullName)
+                        .addValue("permanent_city_id", permanentCityId));
+    }
+}
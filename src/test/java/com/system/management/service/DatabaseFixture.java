@@ -0,0 +1,26 @@
+package com.system.management.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+/* Dữ liệu test dùng chung cho các test chạy trên database H2: thêm bản ghi bằng JDBC và đọc lại theo id */
+
+abstract class DatabaseFixture {
+
+    @Autowired
+    protected NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Thêm bản ghi, trả về id tự tăng
+    protected long insert(String sql, MapSqlParameterSource params) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.update(sql, params, keyHolder, new String[]{"id"});
+        return keyHolder.getKey().longValue();
+    }
+
+    // Đọc một cột kiểu số của bản ghi theo id (:id)
+    protected Long queryLong(String sql, long id) {
+        return namedParameterJdbcTemplate.queryForObject(sql, new MapSqlParameterSource("id", id), Long.class);
+    }
+}
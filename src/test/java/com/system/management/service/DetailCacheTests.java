@@ -0,0 +1,77 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.ForbiddenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* API chi tiết dùng lại DTO đã convert khi bản ghi chưa thay đổi, vẫn kiểm tra phạm vi địa chính của tài khoản mỗi lần đọc */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DetailCacheTests extends DatabaseFixture {
+
+    @Autowired
+    private TreatmentPlaceService treatmentPlaceService;
+
+    @Autowired
+    private DetailCacheService detailCacheService;
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void detailReusedUntilEvicted() {
+        long cityId = insert(" insert into cities (code, full_name, status) values ('C81', 'Tỉnh Chi Tiết', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long otherCityId = insert(" insert into cities (code, full_name, status) values ('C82', 'Tỉnh Khác', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        long id = insert(" insert into treatment_places (full_name, city_id, cadastral_path, status, created_at, modified_at)"
+                        + " values ('Cơ sở Chi Tiết', :city_id, :cadastral_path, 'ACTIVE', current_timestamp, current_timestamp) ",
+                new MapSqlParameterSource()
+                        .addValue("city_id", cityId)
+                        .addValue("cadastral_path", "/" + cityId + "/"));
+
+        login(cityId);
+        Object first = treatmentPlaceService.get(id).getData();
+        assertSame(first, treatmentPlaceService.get(id).getData());
+
+        // Tài khoản ngoài phạm vi địa chính không đọc được DTO đã cache
+        login(otherCityId);
+        assertThrows(ForbiddenException.class, () -> treatmentPlaceService.get(id));
+
+        // Sửa / xóa bản ghi => Convert lại
+        login(cityId);
+        detailCacheService.evictTreatmentPlace(id);
+        Object second = treatmentPlaceService.get(id).getData();
+        assertNotSame(first, second);
+        assertSame(second, treatmentPlaceService.get(id).getData());
+    }
+
+    private void login(long cityId) {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+}
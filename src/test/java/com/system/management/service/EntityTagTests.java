@@ -0,0 +1,211 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.treatment_place.GetListTreatmentPlaceRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletResponse;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* ETag danh sách và chi tiết: FE gửi lại ETag chưa thay đổi => 304, dữ liệu thay đổi => ETag mới.
+   Danh sách chỉ tính ETag khi có If-None-Match, ETag khác nhau theo Accept */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityTagTests extends DatabaseFixture {
+
+    // FE chưa có ETag danh sách => Gửi ETag không trùng bản nào để nhận ETag
+    private static final String OPT_IN = "W/\"0\"";
+
+    @Autowired
+    private TreatmentPlaceService treatmentPlaceService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long cityId;
+
+    @BeforeEach
+    void login() {
+        cityId = insert(" insert into cities (code, full_name, status) values ('C71', 'Tỉnh ETag', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void listReturnsNotModifiedUntilChanged() {
+        long id = insertTreatmentPlace();
+
+        MockHttpServletResponse first = bindRequest(OPT_IN);
+        assertNotNull(treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()));
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MockHttpServletResponse second = bindRequest(etag);
+        assertNull(treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+
+        namedParameterJdbcTemplate.update(" update treatment_places set status = 'DELETED', modified_at = current_timestamp where id = :id ",
+                new MapSqlParameterSource("id", id));
+
+        MockHttpServletResponse third = bindRequest(etag);
+        assertNotNull(treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()));
+        assertEquals(HttpServletResponse.SC_OK, third.getStatus());
+        assertNotEquals(etag, third.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void detailReturnsNotModified() {
+        long id = insertTreatmentPlace();
+
+        MockHttpServletResponse first = bindRequest(null);
+        assertNotNull(treatmentPlaceService.get(id));
+
+        MockHttpServletResponse second = bindRequest(first.getHeader(HttpHeaders.ETAG));
+        assertNull(treatmentPlaceService.get(id));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, second.getStatus());
+    }
+
+    @Test
+    void editsWithinSameSecondChangeDetailTag() {
+        long id = insertTreatmentPlace();
+
+        setModifiedAt(id, Timestamp.valueOf("2026-03-01 10:00:00.100"));
+        MockHttpServletResponse first = bindRequest(null);
+        treatmentPlaceService.get(id);
+
+        setModifiedAt(id, Timestamp.valueOf("2026-03-01 10:00:00.200"));
+        MockHttpServletResponse second = bindRequest(first.getHeader(HttpHeaders.ETAG));
+        assertNotNull(treatmentPlaceService.get(id));
+        assertEquals(HttpServletResponse.SC_OK, second.getStatus());
+        assertNotEquals(first.getHeader(HttpHeaders.ETAG), second.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void cadastralRenameChangesListAndDetailTags() {
+        long id = insertTreatmentPlace();
+
+        MockHttpServletResponse list = bindRequest(OPT_IN);
+        treatmentPlaceService.getList(new GetListTreatmentPlaceRequest());
+        String listTag = list.getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse detail = bindRequest(null);
+        treatmentPlaceService.get(id);
+        String detailTag = detail.getHeader(HttpHeaders.ETAG);
+
+        // Đổi tên tỉnh: bản ghi nơi cai nghiện không đổi nhưng địa chỉ đầy đủ trong DTO đã khác
+        Timestamp lastModified = namedParameterJdbcTemplate.queryForObject(
+                " select max(modified_at) from cities ", new MapSqlParameterSource(), Timestamp.class);
+        namedParameterJdbcTemplate.update(" update cities set full_name = 'Tỉnh ETag mới', modified_at = :modified_at where id = :id ",
+                new MapSqlParameterSource()
+                        .addValue("id", cityId)
+                        .addValue("modified_at", new Timestamp(lastModified == null ? System.currentTimeMillis() : lastModified.getTime() + 1)));
+
+        MockHttpServletResponse listAfter = bindRequest(listTag);
+        assertNotNull(treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()));
+        assertEquals(HttpServletResponse.SC_OK, listAfter.getStatus());
+
+        MockHttpServletResponse detailAfter = bindRequest(detailTag);
+        assertNotNull(treatmentPlaceService.get(id));
+        assertEquals(HttpServletResponse.SC_OK, detailAfter.getStatus());
+    }
+
+    @Test
+    void listTagOnlyWithIfNoneMatch() {
+        insertTreatmentPlace();
+
+        MockHttpServletResponse response = bindRequest(null);
+        assertNotNull(treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void tagVariesWithAccept() {
+        long id = insertTreatmentPlace();
+
+        MockHttpServletResponse json = bindRequest(null, MediaType.APPLICATION_JSON_VALUE);
+        treatmentPlaceService.get(id);
+
+        MockHttpServletResponse cbor = bindRequest(null, MediaType.APPLICATION_CBOR_VALUE);
+        treatmentPlaceService.get(id);
+
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), cbor.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT, json.getHeader(HttpHeaders.VARY));
+
+        // ETag của định dạng JSON không dùng được cho request CBOR
+        MockHttpServletResponse cborAgain = bindRequest(json.getHeader(HttpHeaders.ETAG), MediaType.APPLICATION_CBOR_VALUE);
+        assertNotNull(treatmentPlaceService.get(id));
+        assertEquals(HttpServletResponse.SC_OK, cborAgain.getStatus());
+    }
+
+    private void setModifiedAt(long id, Timestamp modifiedAt) {
+        namedParameterJdbcTemplate.update(" update treatment_places set modified_at = :modified_at where id = :id ",
+                new MapSqlParameterSource()
+                        .addValue("id", id)
+                        .addValue("modified_at", modifiedAt));
+
+        // Cập nhật bằng JDBC không đi qua Hibernate => Xóa second-level cache để đọc lại bản ghi
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAll();
+    }
+
+    private MockHttpServletResponse bindRequest(String ifNoneMatch) {
+        return bindRequest(ifNoneMatch, null);
+    }
+
+    private MockHttpServletResponse bindRequest(String ifNoneMatch, String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+
+    private long insertTreatmentPlace() {
+        return insert(" insert into treatment_places (full_name, city_id, cadastral_path, status, created_at, modified_at)"
+                        + " values ('Cơ sở ETag', :city_id, :cadastral_path, 'ACTIVE', current_timestamp, current_timestamp) ",
+                new MapSqlParameterSource()
+                        .addValue("city_id", cityId)
+                        .addValue("cadastral_path", "/" + cityId + "/"));
+    }
+}
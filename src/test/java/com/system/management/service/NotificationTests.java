@@ -0,0 +1,232 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.NotificationDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.response.SuccessResponse;
+import com.system.management.utils.enums.NotificationTypeEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.UnauthorizedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Thông báo chỉ gửi cho cảnh sát trưởng có đơn vị công tác hiện tại bao gồm địa chính của yêu cầu,
+   kết nối hỏng bị bỏ khỏi danh sách nhận, kết nối chậm không chặn kết nối khác.
+   Thông báo của một kết nối đến theo thứ tự gửi => Thông báo đầu tiên nhận được cho biết các thông báo trước đó đã bị lọc.
+   Vé đăng ký chỉ dùng một lần, thông báo trong transaction chỉ gửi khi commit */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class NotificationTests extends DatabaseFixture {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sheriffReceivesOnlyCurrentScope() throws InterruptedException {
+        long sheriffId = insertPolice("N0001", RoleEnums.SHERIFF.value, "/801/");
+        long officerId = insertPolice("N0002", RoleEnums.POLICE.value, "/801/");
+
+        RecordingEmitter sheriff = subscribe(sheriffId);
+        RecordingEmitter officer = subscribe(officerId);
+
+        notificationService.notifySheriffs(NotificationTypeEnums.DRUG_ADDICT_REQUEST, 1L, "/802/5/");
+        notificationService.notifySheriffs(NotificationTypeEnums.DRUG_ADDICT_REQUEST, 2L, "/801/3/");
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(officerId));
+
+        assertEquals(2L, sheriff.next());
+        assertEquals(officerId, officer.next());
+
+        // Chuyển công tác sau khi đăng ký => Nhận thông báo theo đơn vị mới
+        namedParameterJdbcTemplate.update(" update polices set cadastral_path = '/802/' where id = :id ",
+                new MapSqlParameterSource("id", sheriffId));
+
+        notificationService.notifySheriffs(NotificationTypeEnums.DRUG_ADDICT_REQUEST, 3L, "/801/3/");
+        notificationService.notifySheriffs(NotificationTypeEnums.DRUG_ADDICT_REQUEST, 4L, "/802/5/");
+
+        assertEquals(4L, sheriff.next());
+    }
+
+    @Test
+    void deadEmitterDropped() throws InterruptedException {
+        long brokenId = insertPolice("N0003", RoleEnums.POLICE.value, "/801/");
+
+        RecordingEmitter broken = subscribe(brokenId, new RecordingEmitter(true, null));
+
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(brokenId));
+        broken.awaitFirstAttempt();
+
+        // Kết nối đã bị bỏ => Thông báo sau không ghi vào kết nối nữa
+        long liveId = insertPolice("N0004", RoleEnums.POLICE.value, "/801/");
+        RecordingEmitter live = subscribe(liveId);
+
+        notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(brokenId, liveId));
+        assertEquals(liveId, live.next());
+        assertEquals(1, broken.attempts.get());
+    }
+
+    @Test
+    void slowEmitterDoesNotBlockOthers() throws InterruptedException {
+        long slowId = insertPolice("N0005", RoleEnums.POLICE.value, "/801/");
+        long fastId = insertPolice("N0006", RoleEnums.POLICE.value, "/801/");
+
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = subscribe(slowId, new RecordingEmitter(false, release));
+        RecordingEmitter fast = subscribe(fastId);
+
+        try {
+            notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(slowId));
+            slow.awaitFirstAttempt();
+
+            notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(fastId));
+            assertEquals(fastId, fast.next());
+        } finally {
+            release.countDown();
+        }
+
+        assertEquals(slowId, slow.next());
+    }
+
+    @Test
+    void ticketSingleUse() {
+        long policeId = insertPolice("N0007", RoleEnums.POLICE.value, "/801/");
+        login(policeId);
+
+        String ticket = ticketOf(notificationService.createTicket());
+        assertNotNull(notificationService.subscribe(ticket));
+
+        // Vé đã dùng, vé không tồn tại, không có vé => Từ chối
+        assertThrows(UnauthorizedException.class, () -> notificationService.subscribe(ticket));
+        assertThrows(UnauthorizedException.class, () -> notificationService.subscribe("unknown"));
+        assertThrows(UnauthorizedException.class, () -> notificationService.subscribe(null));
+    }
+
+    @Test
+    void sentAfterCommitOnly() throws InterruptedException {
+        long policeId = insertPolice("N0008", RoleEnums.POLICE.value, "/801/");
+        RecordingEmitter emitter = subscribe(policeId);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            notificationService.notifyPolices(NotificationTypeEnums.ASSIGN_SUPPORT, List.of(policeId));
+            status.setRollbackOnly();
+        });
+
+        transactionTemplate.executeWithoutResult(status ->
+                notificationService.notifyPolices(NotificationTypeEnums.DRUG_ADDICT_REQUEST, List.of(policeId)));
+
+        // Thông báo đầu tiên nhận được là của transaction đã commit
+        assertEquals(policeId, emitter.next());
+        assertEquals(NotificationTypeEnums.DRUG_ADDICT_REQUEST.name(), emitter.types.poll());
+    }
+
+    private RecordingEmitter subscribe(long policeId) {
+        return subscribe(policeId, new RecordingEmitter(false, null));
+    }
+
+    private RecordingEmitter subscribe(long policeId, RecordingEmitter emitter) {
+        notificationService.subscribe(emitter, policeId);
+        return emitter;
+    }
+
+    private static void login(long policeId) {
+        PoliceDto police = new PoliceDto();
+        police.setId(policeId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(police, null, List.of());
+        authentication.setDetails(police);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String ticketOf(SuccessResponse<Object> response) {
+        return (String) ((Map<String, Object>) response.getData()).get(NotificationService.TICKET);
+    }
+
+    private long insertPolice(String identifyNumber, int role, String cadastralPath) {
+        return insert(" insert into polices (identify_number, full_name, level, role, cadastral_path, status)"
+                        + " values (:identify_number, :identify_number, 2, :role, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("identify_number", identifyNumber)
+                        .addValue("role", role)
+                        .addValue("cadastral_path", cadastralPath));
+    }
+
+    // Ghi nhận id của các thông báo nhận được, broken => Ghi lỗi như kết nối đã đóng, release => Chặn lần ghi đầu tiên đến khi được thả
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final boolean broken;
+
+        private final CountDownLatch release;
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private final CountDownLatch firstAttempt = new CountDownLatch(1);
+
+        private final BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+
+        private final BlockingQueue<String> types = new LinkedBlockingQueue<>();
+
+        private RecordingEmitter(boolean broken, CountDownLatch release) {
+            this.broken = broken;
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            attempts.incrementAndGet();
+            firstAttempt.countDown();
+            if (broken) {
+                throw new IOException("Broken pipe");
+            }
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            builder.build().forEach(item -> {
+                if (item.getData() instanceof NotificationDto) {
+                    types.add(((NotificationDto) item.getData()).getType());
+                    received.add(((NotificationDto) item.getData()).getId());
+                }
+            });
+        }
+
+        private Long next() throws InterruptedException {
+            return received.poll(5, TimeUnit.SECONDS);
+        }
+
+        private void awaitFirstAttempt() throws InterruptedException {
+            assertTrue(firstAttempt.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.JobDto;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.entity.Police;
+import com.system.management.model.request.assign_support.AutoAssignDrugAddictRequest;
+import com.system.management.repository.PoliceRepository;
+import com.system.management.utils.enums.AssignStatusEnums;
+import com.system.management.utils.enums.JobStatusEnums;
+import com.system.management.utils.enums.JobTypeEnums;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/* Phân công tự động, bàn giao và sáp nhập địa chính cập nhật bảng polices bằng JDBC
+   => Cảnh sát bị thay đổi phải bị xóa khỏi second-level cache, lần đọc sau thấy giá trị mới */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PoliceCacheEvictionTests extends DatabaseFixture {
+
+    private static final long CITY_ID = 905L;
+
+    private static final long DISTRICT_ID = 9051L;
+
+    @Autowired
+    private AssignSupportService assignSupportService;
+
+    @Autowired
+    private BulkJobService bulkJobService;
+
+    @Autowired
+    private CaseloadHandoverService caseloadHandoverService;
+
+    @Autowired
+    private CadastralReferenceService cadastralReferenceService;
+
+    @Autowired
+    private PoliceRepository policeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void autoAssignEvictsAssignedPolice() {
+        long policeId = insertPolice("E0001", AssignStatusEnums.UN_ASSIGN.getValue());
+        insertDrugAddict(90511L, null);
+        cachePolice(policeId);
+
+        login();
+        AutoAssignDrugAddictRequest request = new AutoAssignDrugAddictRequest();
+        request.setPoliceIds(List.of(policeId));
+        request.setCityId(CITY_ID);
+        request.setWardId(90511L);
+        assignSupportService.autoAssignDrugAddict(request);
+
+        assertEvicted(policeId, AssignStatusEnums.ASSIGNED);
+    }
+
+    @Test
+    void handoverEvictsSourceAndTarget() throws InterruptedException {
+        long sourceId = insertPolice("E0002", AssignStatusEnums.ASSIGNED.getValue());
+        long targetId = insertPolice("E0003", AssignStatusEnums.UN_ASSIGN.getValue());
+
+        long drugAddictId = insertDrugAddict(90512L, sourceId);
+        insert(" insert into assign_supports (police_id, drug_addict_id, shard_city_id, cadastral_path, status)"
+                        + " values (:police_id, :drug_addict_id, :city_id, '/905/', 'ACTIVE') ",
+                new MapSqlParameterSource("police_id", sourceId)
+                        .addValue("drug_addict_id", drugAddictId)
+                        .addValue("city_id", CITY_ID));
+
+        cachePolice(sourceId);
+        cachePolice(targetId);
+
+        JobDto job = bulkJobService.submit(JobTypeEnums.HANDOVER_CASELOAD, 1L, CaseloadHandoverService.TOTAL_STEPS,
+                bulkJob -> caseloadHandoverService.handover(bulkJob, sourceId, targetId, 1L));
+        JobDto result = BulkJobs.await(bulkJobService, job.getId(), 10000);
+        assertEquals(JobStatusEnums.SUCCESS.name(), result.getStatus(), result.getMessage());
+
+        assertEvicted(sourceId, AssignStatusEnums.UN_ASSIGN);
+        assertEvicted(targetId, AssignStatusEnums.ASSIGNED);
+    }
+
+    @Test
+    void mergeEvictsPolices() throws InterruptedException {
+        long sourceWardId = insertWard("P95");
+        long targetWardId = insertWard("P96");
+        String sourcePath = "/" + CITY_ID + "/" + DISTRICT_ID + "/" + sourceWardId + "/";
+
+        // Cảnh sát công tác tại phường xã bị sáp nhập => Đơn vị công tác đổi sang phường xã nhận sáp nhập
+        long policeId = insert(" insert into polices (identify_number, full_name, city_id, district_id, ward_id, level, role, cadastral_path, status)"
+                        + " values ('E0004', 'E0004', :city_id, :district_id, :ward_id, 4, 1, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", CITY_ID)
+                        .addValue("district_id", DISTRICT_ID)
+                        .addValue("ward_id", sourceWardId)
+                        .addValue("cadastral_path", sourcePath));
+        cachePolice(policeId);
+
+        JobDto job = bulkJobService.submit(JobTypeEnums.MERGE_WARD, 1L, CadastralReferenceService.totalSteps(1),
+                bulkJob -> cadastralReferenceService.moveWards(bulkJob, List.of(sourceWardId), Map.of(sourceWardId, sourcePath),
+                        CITY_ID, DISTRICT_ID, targetWardId, 1L));
+        JobDto result = BulkJobs.await(bulkJobService, job.getId(), 10000);
+        assertEquals(JobStatusEnums.SUCCESS.name(), result.getStatus(), result.getMessage());
+
+        assertFalse(secondLevelCache().containsEntity(Police.class, policeId));
+        assertEquals(targetWardId, loadPolice(policeId).getWardId());
+    }
+
+    // Đọc trong transaction ghi => Entity được đưa vào second-level cache (transaction read-only chỉ đọc cache)
+    private void cachePolice(long policeId) {
+        loadPolice(policeId);
+        assertTrue(secondLevelCache().containsEntity(Police.class, policeId));
+    }
+
+    private Police loadPolice(long policeId) {
+        return transactionTemplate.execute(status -> policeRepository.findById(policeId).orElseThrow());
+    }
+
+    private void assertEvicted(long policeId, AssignStatusEnums assignStatus) {
+        assertFalse(secondLevelCache().containsEntity(Police.class, policeId));
+        assertEquals(assignStatus.getValue(), loadPolice(policeId).getAssignStatus());
+    }
+
+    private Cache secondLevelCache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    private void login() {
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CENTRAL.value);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private long insertPolice(String identifyNumber, int assignStatus) {
+        return insert(" insert into polices (identify_number, full_name, city_id, level, role, assign_status, cadastral_path, status)"
+                        + " values (:identify_number, :identify_number, :city_id, 2, 1, :assign_status, '/905/', 'ACTIVE') ",
+                new MapSqlParameterSource("identify_number", identifyNumber)
+                        .addValue("city_id", CITY_ID)
+                        .addValue("assign_status", assignStatus));
+    }
+
+    private long insertDrugAddict(long wardId, Long policeId) {
+        return insert(" insert into drug_addicts (police_id, permanent_city_id, permanent_district_id, permanent_ward_id, cadastral_path, status)"
+                        + " values (:police_id, :city_id, :district_id, :ward_id, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("police_id", policeId)
+                        .addValue("city_id", CITY_ID)
+                        .addValue("district_id", DISTRICT_ID)
+                        .addValue("ward_id", wardId)
+                        .addValue("cadastral_path", "/" + CITY_ID + "/" + DISTRICT_ID + "/" + wardId + "/"));
+    }
+
+    private long insertWard(String code) {
+        return insert(" insert into wards (code, full_name, city_id, district_id, status) values (:code, :code, :city_id, :district_id, 'ACTIVE') ",
+                new MapSqlParameterSource("code", code).addValue("city_id", CITY_ID).addValue("district_id", DISTRICT_ID));
+    }
+}
@@ -0,0 +1,94 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.police.GetListPoliceRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Danh sách cảnh sát của tài khoản cấp tỉnh: cảnh sát thuộc đơn vị công tác và cảnh sát đơn vị khác
+   có yêu cầu cập nhật gắn với tỉnh của tài khoản, không có cảnh sát đơn vị khác không liên quan */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PoliceListScopeTests extends DatabaseFixture {
+
+    @Autowired
+    private PoliceService policeService;
+
+    private long cityId;
+
+    private long otherCityId;
+
+    @BeforeEach
+    void login() {
+        cityId = insert(" insert into cities (code, full_name, status) values ('C81', 'Tỉnh Phạm Vi', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        otherCityId = insert(" insert into cities (code, full_name, status) values ('C82', 'Tỉnh Khác', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listsInScopeAndRequestedOfficersOnly() {
+        long inScopeId = insertPolice("S81001", cityId);
+        long requestedId = insertPolice("S81002", otherCityId);
+        long outOfScopeId = insertPolice("S81003", otherCityId);
+
+        // Yêu cầu cập nhật chuyển về tỉnh của tài khoản đang login
+        insert(" insert into police_requests (police_id, identify_number, full_name, city_id, level, role, status)"
+                        + " values (:police_id, 'S81002', 'S81002', :city_id, 2, 1, 'PENDING') ",
+                new MapSqlParameterSource("police_id", requestedId).addValue("city_id", cityId));
+
+        // Yêu cầu của cảnh sát ngoài phạm vi gắn với tỉnh khác => Không làm cảnh sát này hiện ra
+        insert(" insert into police_requests (police_id, identify_number, full_name, city_id, level, role, status)"
+                        + " values (:police_id, 'S81003', 'S81003', :city_id, 2, 1, 'PENDING') ",
+                new MapSqlParameterSource("police_id", outOfScopeId).addValue("city_id", otherCityId));
+
+        GetListPoliceRequest request = new GetListPoliceRequest();
+        request.setIdentifyNumber("S8100");
+
+        Set<Long> ids = ((List<PoliceDto>) policeService.getList(request).getData()).stream()
+                .map(PoliceDto::getId)
+                .collect(Collectors.toSet());
+
+        assertEquals(Set.of(inScopeId, requestedId), ids);
+    }
+
+    private long insertPolice(String identifyNumber, long policeCityId) {
+        return insert(" insert into polices (identify_number, full_name, city_id, level, role, cadastral_path, status, created_at)"
+                        + " values (:identify_number, :identify_number, :city_id, 2, 1, :cadastral_path, 'ACTIVE', current_timestamp) ",
+                new MapSqlParameterSource("identify_number", identifyNumber)
+                        .addValue("city_id", policeCityId)
+                        .addValue("cadastral_path", "/" + policeCityId + "/"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.system.management.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.system.management.BenchmarkRunner;
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.request.drug_addict.GetListDrugAddictRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Random;
+
+/* Danh sách 100 đối tượng nghiện (ảnh đại diện 8 KB) theo từng tập trường FE yêu cầu:
+   thời gian getList (query + convert) và kích thước JSON của response */
+
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class SparseFieldsetBenchmark extends DatabaseFixture {
+
+    private static final int PAGE_SIZE = 100;
+
+    private static final int AVATAR_BYTES = 8 * 1024;
+
+    @Autowired
+    private DrugAddictService drugAddictService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long cityId;
+
+    @BeforeEach
+    void prepare() {
+        cityId = insert(" insert into cities (code, full_name, status) values ('B46', 'Tỉnh Đo Hiệu Năng', 'ACTIVE') ",
+                new MapSqlParameterSource());
+        long districtId = insert(" insert into districts (code, full_name, city_id, status) values ('B461', 'Huyện Đo Hiệu Năng', :city_id, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId));
+        long wardId = insert(" insert into wards (code, full_name, city_id, district_id, status) values ('B4611', 'Xã Đo Hiệu Năng', :city_id, :district_id, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId).addValue("district_id", districtId));
+        String cadastralPath = "/" + cityId + "/" + districtId + "/" + wardId + "/";
+
+        long policeId = insert(" insert into polices (identify_number, full_name, city_id, level, role, cadastral_path, status)"
+                        + " values ('B46001', 'Trần Văn Giám Sát', :city_id, 2, 1, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId).addValue("cadastral_path", "/" + cityId + "/"));
+        long treatmentPlaceId = insert(" insert into treatment_places (full_name, city_id, cadastral_path, status)"
+                        + " values ('Cơ sở cai nghiện B46', :city_id, :cadastral_path, 'ACTIVE') ",
+                new MapSqlParameterSource("city_id", cityId).addValue("cadastral_path", "/" + cityId + "/"));
+
+        Random random = new Random(46L);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            byte[] avatar = new byte[AVATAR_BYTES];
+            random.nextBytes(avatar);
+
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("avatar", avatar)
+                    .addValue("identify_number", String.format("0460%08d", i))
+                    .addValue("full_name", "Nguyễn Văn " + i)
+                    .addValue("police_id", policeId)
+                    .addValue("treatment_place_id", treatmentPlaceId)
+                    .addValue("city_id", cityId)
+                    .addValue("district_id", districtId)
+                    .addValue("ward_id", wardId)
+                    .addValue("cadastral_path", cadastralPath);
+
+            long drugAddictId = insert(" insert into drug_addicts (avatar, identify_number, full_name, gender, phone_number, police_id, treatment_place_id,"
+                    + " permanent_city_id, permanent_district_id, permanent_ward_id, permanent_address_detail,"
+                    + " current_city_id, current_district_id, current_ward_id, current_address_detail, is_at_permanent,"
+                    + " cadastral_path, status, created_at, modified_at)"
+                    + " values (:avatar, :identify_number, :full_name, 1, '0912345678', :police_id, :treatment_place_id,"
+                    + " :city_id, :district_id, :ward_id, 'Số 1', :city_id, :district_id, :ward_id, 'Số 1', true,"
+                    + " :cadastral_path, 'ACTIVE', current_timestamp, current_timestamp) ", params);
+
+            insert(" insert into assign_supports (police_id, drug_addict_id, shard_city_id, cadastral_path, status, created_at)"
+                    + " values (:police_id, :drug_addict_id, :city_id, :cadastral_path, 'ACTIVE', current_timestamp) ",
+                    params.addValue("drug_addict_id", drugAddictId));
+        }
+
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void drugAddictList() throws Exception {
+        measure("all fields", null);
+        measure("no avatar", List.of("identifyNumber", "fullName", "gender", "phoneNumber", "police", "assignAt", "treatmentPlace",
+                "permanentCity", "permanentDistrict", "permanentWard", "fullPermanent",
+                "currentCity", "currentDistrict", "currentWard", "fullCurrent", "isAtPermanent"));
+        measure("name + identify number + ward", List.of("fullName", "identifyNumber", "permanentWard"));
+    }
+
+    private void measure(String name, List<String> fields) throws Exception {
+        GetListDrugAddictRequest request = new GetListDrugAddictRequest();
+        request.setSize(PAGE_SIZE);
+        request.setFields(fields);
+
+        BenchmarkRunner.measure("drug addict list, " + name, () -> drugAddictService.getList(request));
+        BenchmarkRunner.size("drug addict list JSON, " + name, objectMapper.writeValueAsBytes(drugAddictService.getList(request)).length);
+    }
+}
@@ -0,0 +1,85 @@
+package com.system.management.service;
+
+import com.system.management.model.dto.PoliceDto;
+import com.system.management.model.dto.TreatmentPlaceDto;
+import com.system.management.model.request.treatment_place.GetListTreatmentPlaceRequest;
+import com.system.management.utils.enums.LevelEnums;
+import com.system.management.utils.enums.RoleEnums;
+import com.system.management.utils.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Danh sách chỉ lấy các trường FE yêu cầu: không đọc logo, không tính địa chính và địa chỉ đầy đủ */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SparseFieldsetTests extends DatabaseFixture {
+
+    @Autowired
+    private TreatmentPlaceService treatmentPlaceService;
+
+    private long cityId;
+
+    @BeforeEach
+    void login() {
+        cityId = insert(" insert into cities (code, full_name, status) values ('C61', 'Tỉnh Trường Dữ Liệu', 'ACTIVE') ",
+                new MapSqlParameterSource());
+
+        PoliceDto sheriff = new PoliceDto();
+        sheriff.setId(1L);
+        sheriff.setRole(RoleEnums.SHERIFF.value);
+        sheriff.setLevel(LevelEnums.CITY.value);
+        sheriff.setCityId(cityId);
+
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(sheriff, null, List.of());
+        authentication.setDetails(sheriff);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    @AfterEach
+    void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listReturnsOnlyRequestedFields() {
+        insert(" insert into treatment_places (logo, full_name, city_id, address_detail, leader_full_name, cadastral_path, status, created_at, modified_at)"
+                        + " values (X'0102', 'Cơ sở A', :city_id, 'Số 1', 'Nguyễn Văn A', :cadastral_path, 'ACTIVE', current_timestamp, current_timestamp) ",
+                new MapSqlParameterSource().addValue("city_id", cityId).addValue("cadastral_path", "/" + cityId + "/"));
+
+        GetListTreatmentPlaceRequest request = new GetListTreatmentPlaceRequest();
+        request.setFields(List.of("fullName", "leaderFullName"));
+
+        TreatmentPlaceDto sparse = ((List<TreatmentPlaceDto>) treatmentPlaceService.getList(request).getData()).get(0);
+        assertNotNull(sparse.getId());
+        assertEquals("Cơ sở A", sparse.getFullName());
+        assertEquals("Nguyễn Văn A", sparse.getLeaderFullName());
+        assertNull(sparse.getStrLogo());
+        assertNull(sparse.getCity());
+        assertNull(sparse.getFullAddress());
+
+        TreatmentPlaceDto full = ((List<TreatmentPlaceDto>) treatmentPlaceService.getList(new GetListTreatmentPlaceRequest()).getData()).get(0);
+        assertNotNull(full.getStrLogo());
+        assertNotNull(full.getCity());
+        assertNotNull(full.getFullAddress());
+    }
+
+    @Test
+    void unknownFieldRejected() {
+        GetListTreatmentPlaceRequest request = new GetListTreatmentPlaceRequest();
+        request.setFields(List.of("password"));
+        assertThrows(BadRequestException.class, () -> treatmentPlaceService.getList(request));
+    }
+}
@@ -0,0 +1,76 @@
+package com.system.management.utils;
+
+import com.system.management.BenchmarkRunner;
+import com.system.management.model.dto.Auditor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/* Đọc người tạo / người cập nhật cho một trang 100 bản ghi:
+   cách cũ parse chuỗi JSON lưu ở từng bản ghi, cách mới tra id trong AuditorCache (kèm sao chép khi đọc).
+   Kích thước cột created_by của hai cách */
+
+@Tag("benchmark")
+class AuditorCacheBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    // Số cán bộ khác nhau tạo các bản ghi trong một trang
+    private static final int AUDITORS = 10;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolvePage() throws Exception {
+        JsonCodec jsonCodec = new JsonCodec(Jackson2ObjectMapperBuilder.json().build());
+
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> List.of(auditor(invocation.getArgument(1, SqlParameterSource.class).getValue("id"))));
+
+        AuditorCache auditorCache = new AuditorCache(jsonCodec, jdbcTemplate, 1024);
+
+        List<String> jsonReferences = new ArrayList<>();
+        List<String> idReferences = new ArrayList<>();
+        for (long i = 0; i < PAGE_SIZE; i++) {
+            Auditor auditor = auditor(1 + i % AUDITORS);
+            jsonReferences.add(jsonCodec.write(auditor));
+            idReferences.add(AuditorCache.toReference(auditor));
+        }
+
+        BenchmarkRunner.measure("auditor, 100 rows, legacy JSON column", () -> {
+            List<Auditor> result = new ArrayList<>(PAGE_SIZE);
+            for (String reference : jsonReferences) {
+                result.add(jsonCodec.read(reference, Auditor.class));
+            }
+            return result;
+        });
+
+        BenchmarkRunner.measure("auditor, 100 rows, id + AuditorCache", () -> {
+            List<Auditor> result = new ArrayList<>(PAGE_SIZE);
+            for (String reference : idReferences) {
+                result.add(auditorCache.resolve(reference));
+            }
+            return result;
+        });
+
+        BenchmarkRunner.size("created_by, legacy JSON column", jsonReferences.get(0).getBytes(StandardCharsets.UTF_8).length);
+        BenchmarkRunner.size("created_by, id", idReferences.get(0).getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static Auditor auditor(Object id) {
+        long policeId = ((Number) id).longValue();
+        return new Auditor(policeId, String.format("0010990%05d", policeId), "Nguyễn Thị Thanh Hương " + policeId);
+    }
+}
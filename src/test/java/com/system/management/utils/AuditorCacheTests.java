@@ -0,0 +1,44 @@
+package com.system.management.utils;
+
+import com.system.management.model.dto.Auditor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/* Auditor trong cache không bị thay đổi khi nơi gọi sửa giá trị được trả về, kể cả Auditor của hệ thống */
+
+class AuditorCacheTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void callerMutationDoesNotLeak() {
+        NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(new Auditor(7L, "001099000123", "Trần Thị Ánh")));
+
+        AuditorCache auditorCache = new AuditorCache(null, jdbcTemplate, 16);
+
+        Auditor first = auditorCache.resolve("7");
+        first.setFullName("Tên đã bị sửa");
+        first.setIdentifyNumber(null);
+
+        Auditor second = auditorCache.resolve("7");
+        assertNotSame(first, second);
+        assertEquals(new Auditor(7L, "001099000123", "Trần Thị Ánh"), second);
+
+        // Chỉ load từ database một lần
+        verify(jdbcTemplate, times(1)).query(anyString(), any(SqlParameterSource.class), any(RowMapper.class));
+
+        auditorCache.resolve(AuditorCache.SYSTEM_REFERENCE).setFullName("Tên đã bị sửa");
+        assertEquals(new Auditor(0L, "Hệ thống", null), auditorCache.resolve(AuditorCache.SYSTEM_REFERENCE));
+    }
+}
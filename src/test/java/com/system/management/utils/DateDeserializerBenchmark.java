@@ -0,0 +1,51 @@
+package com.system.management.utils;
+
+import com.system.management.BenchmarkRunner;
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.Date;
+
+/* Parse ngày giờ trong request: DateDeserializer so với cách cũ (DateUtils.parseDateStrictly thử lần lượt từng định dạng).
+   Định dạng ở cuối danh sách tốn nhiều lần thử nhất với cách cũ; chuỗi năm 2 chữ số đi qua nhánh tương thích */
+
+@Tag("benchmark")
+class DateDeserializerBenchmark {
+
+    private static final String[] DATE_FORMATS = new String[]{
+            "dd/MM/yyyy",
+            "dd/MM/yyyy HH:mm:ss",
+            "dd/MM/yyyy HH:mm",
+            "dd/MM/yyyy HH",
+            "dd-MM-yyyy",
+            "dd-MM-yyyy HH:mm:ss",
+            "dd-MM-yyyy HH:mm",
+            "dd-MM-yyyy HH",
+            "ddMMyyyyHHmmss"
+    };
+
+    private static final String[] INPUTS = new String[]{
+            "19/10/2026",
+            "19-10-2026 08:30",
+            "19102026083000",
+            "8/2/38"
+    };
+
+    @Test
+    void parse() throws Exception {
+        for (String input : INPUTS) {
+            BenchmarkRunner.measure("\"" + input + "\", legacy parseDateStrictly", () -> legacyParse(input));
+            BenchmarkRunner.measure("\"" + input + "\", DateDeserializer", () -> DateDeserializer.parse(input));
+        }
+    }
+
+    private static Date legacyParse(String value) {
+        try {
+            return DateUtils.parseDateStrictly(value, DATE_FORMATS);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
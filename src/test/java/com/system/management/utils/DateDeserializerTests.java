@@ -0,0 +1,142 @@
+package com.system.management.utils;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Test;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/* So sánh kết quả DateDeserializer với cách parse cũ (DateUtils.parseDateStrictly) trên dữ liệu sinh ngẫu nhiên:
+   ngày giờ đúng dạng, ngày giờ bị sửa ngẫu nhiên vài ký tự và chuỗi ngẫu nhiên bất kỳ.
+   Seed đổi mỗi lần chạy, in trong thông báo lỗi để chạy lại đúng trường hợp */
+
+class DateDeserializerTests {
+
+    private static final String[] DATE_FORMATS = new String[]{
+            "dd/MM/yyyy",
+            "dd/MM/yyyy HH:mm:ss",
+            "dd/MM/yyyy HH:mm",
+            "dd/MM/yyyy HH",
+            "dd-MM-yyyy",
+            "dd-MM-yyyy HH:mm:ss",
+            "dd-MM-yyyy HH:mm",
+            "dd-MM-yyyy HH",
+            "ddMMyyyyHHmmss"
+    };
+
+    private static final String ALPHABET = "0123456789/-: x";
+
+    private final long seed = System.nanoTime();
+
+    private final Random random = new Random(seed);
+
+    @Test
+    void parseMatchesLegacyParserOnGeneratedDates() {
+        for (int i = 0; i < 20000; i++) {
+            assertSameAsLegacy(generateDate());
+        }
+    }
+
+    @Test
+    void parseMatchesLegacyParserOnMutatedDates() {
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder(generateDate());
+            int mutations = 1 + random.nextInt(3);
+            for (int j = 0; j < mutations && value.length() > 0; j++) {
+                int index = random.nextInt(value.length());
+                switch (random.nextInt(3)) {
+                    case 0:
+                        value.deleteCharAt(index);
+                        break;
+                    case 1:
+                        value.insert(index, randomChar());
+                        break;
+                    default:
+                        value.setCharAt(index, randomChar());
+                }
+            }
+            assertSameAsLegacy(value.toString());
+        }
+    }
+
+    @Test
+    void parseMatchesLegacyParserOnRandomInput() {
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder value = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                value.append(randomChar());
+            }
+            assertSameAsLegacy(value.toString());
+        }
+    }
+
+    @Test
+    void shortYearsStillAccepted() {
+        // Năm không đủ 4 chữ số, ngày tháng có số 0 thừa ở đầu: cách cũ nhận => Vẫn nhận
+        for (String value : new String[]{"8/2/38", "08-02-38 7", "1/1/1 0:0:0", "001/02/2020", "1/2/02020 10:30"}) {
+            assertNotNull(DateDeserializer.parse(value), value);
+            assertSameAsLegacy(value);
+        }
+    }
+
+    private void assertSameAsLegacy(String value) {
+        assertEquals(legacyParse(value), DateDeserializer.parse(value), () -> "seed=" + seed + ", value=\"" + value + "\"");
+    }
+
+    private char randomChar() {
+        return ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+    }
+
+    private String generateDate() {
+        String day = twoDigits(random.nextInt(33));
+        String month = twoDigits(random.nextInt(14));
+        String year = String.valueOf(1900 + random.nextInt(201));
+        String hour = twoDigits(random.nextInt(25));
+        String minute = twoDigits(random.nextInt(61));
+        String second = twoDigits(random.nextInt(61));
+
+        // Thỉnh thoảng bỏ số 0 ở đầu ngày / tháng
+        if (random.nextInt(4) == 0 && day.charAt(0) == '0') {
+            day = day.substring(1);
+        }
+        if (random.nextInt(4) == 0 && month.charAt(0) == '0') {
+            month = month.substring(1);
+        }
+
+        int shape = random.nextInt(9);
+        if (shape == 8) {
+            return twoDigits(Integer.parseInt(day)) + twoDigits(Integer.parseInt(month)) + year + hour + minute + second;
+        }
+
+        String separator = shape < 4 ? "/" : "-";
+        String date = day + separator + month + separator + year;
+
+        switch (shape % 4) {
+            case 1:
+                return date + " " + hour + ":" + minute + ":" + second;
+            case 2:
+                return date + " " + hour + ":" + minute;
+            case 3:
+                return date + " " + hour;
+            default:
+                return date;
+        }
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+    private static Date legacyParse(String value) {
+        try {
+            return DateUtils.parseDateStrictly(value, DATE_FORMATS);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+}
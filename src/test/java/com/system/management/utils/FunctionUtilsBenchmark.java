@@ -0,0 +1,36 @@
+package com.system.management.utils;
+
+import com.system.management.BenchmarkRunner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+/* Bỏ dấu tiếng Việt cho tìm kiếm: normalizeAndLowercase (bảng tra) so với cách cũ (NFD + regex),
+   tên ngắn (tên địa chính) và chuỗi dài (địa chỉ đầy đủ), dạng dựng sẵn (NFC) và dạng tổ hợp (NFD) */
+
+@Tag("benchmark")
+class FunctionUtilsBenchmark {
+
+    private static final String SHORT = "Phường Thượng Đình";
+
+    private static final String LONG = "Số 12, ngõ 34, Phường Thượng Đình, Quận Thanh Xuân, Thành phố Hà Nội - Tổ dân phố số 5, khu tập thể Nguyễn Trãi";
+
+    @Test
+    void fold() throws Exception {
+        for (String value : new String[]{SHORT, LONG}) {
+            for (Normalizer.Form form : new Normalizer.Form[]{Normalizer.Form.NFC, Normalizer.Form.NFD}) {
+                String input = Normalizer.normalize(value, form);
+                String name = value.length() + " chars " + form;
+
+                BenchmarkRunner.measure(name + ", legacy NFD + regex", () -> legacyFold(input));
+                BenchmarkRunner.measure(name + ", lookup table", () -> FunctionUtils.normalizeAndLowercase(input));
+            }
+        }
+    }
+
+    private static String legacyFold(String input) {
+        return Normalizer.normalize(input.toLowerCase(), Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+    }
+}
@@ -0,0 +1,76 @@
+package com.system.management.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* So sánh normalizeAndLowercase (bảng tra) với cách cũ (NFD + regex) trên toàn bộ bảng chữ cái tiếng Việt:
+   chữ hoa, chữ thường, dạng dựng sẵn (NFC) và dạng tổ hợp (NFD). Khác biệt duy nhất: "đ", "Đ" -> "d" */
+
+class FunctionUtilsTests {
+
+    // Nguyên âm, kể cả nguyên âm có dấu mũ / trăng / móc
+    private static final String[] VOWELS = {
+            "a", "ă", "â", "e", "ê", "i", "o", "ô", "ơ", "u", "ư", "y"
+    };
+
+    // Thanh điệu: ngang, huyền, sắc, hỏi, ngã, nặng
+    private static final String[] TONES = {"", "̀", "́", "̉", "̃", "̣"};
+
+    private static final String CONSONANTS = "bcdđghklmnpqrstvx";
+
+    @Test
+    void vowelsMatchLegacyFold() {
+        for (String vowel : VOWELS) {
+            for (String tone : TONES) {
+                String combining = Normalizer.normalize(vowel + tone, Normalizer.Form.NFD);
+                String precomposed = Normalizer.normalize(vowel + tone, Normalizer.Form.NFC);
+
+                // Mọi nguyên âm tiếng Việt đều có một ký tự dựng sẵn
+                assertEquals(1, precomposed.length(), combining);
+
+                for (String letter : new String[]{combining, precomposed, combining.toUpperCase(), precomposed.toUpperCase()}) {
+                    assertEquals(expected(letter), FunctionUtils.normalizeAndLowercase(letter), letter);
+                    assertEquals(combining.substring(0, 1), FunctionUtils.normalizeAndLowercase(letter), letter);
+                }
+            }
+        }
+    }
+
+    @Test
+    void consonantsMatchLegacyFold() {
+        for (char consonant : CONSONANTS.toCharArray()) {
+            for (String letter : new String[]{String.valueOf(consonant), String.valueOf(Character.toUpperCase(consonant))}) {
+                assertEquals(expected(letter), FunctionUtils.normalizeAndLowercase(letter), letter);
+            }
+        }
+
+        assertEquals("d", FunctionUtils.normalizeAndLowercase("đ"));
+        assertEquals("d", FunctionUtils.normalizeAndLowercase("Đ"));
+    }
+
+    @Test
+    void namesMatchLegacyFold() {
+        String[] names = {"Thành phố Hồ Chí Minh", "Quận Đống Đa", "Xã Ea H'Leo", "Phường Thượng Đình", "Huyện Mường Tè",
+                "TỈNH THỪA THIÊN HUẾ", "Thị trấn Ỷ La", "Nguyễn Văn Quýnh", "Hà Nội 2024", ""};
+
+        for (String name : names) {
+            for (Normalizer.Form form : new Normalizer.Form[]{Normalizer.Form.NFC, Normalizer.Form.NFD}) {
+                String value = Normalizer.normalize(name, form);
+                assertEquals(expected(value), FunctionUtils.normalizeAndLowercase(value), value);
+            }
+        }
+    }
+
+    // Cách cũ, "đ" không có dạng tổ hợp nên cách cũ giữ nguyên => Kết quả mới đổi "đ" thành "d"
+    private static String expected(String input) {
+        return legacyFold(input).replace('đ', 'd');
+    }
+
+    private static String legacyFold(String input) {
+        return Normalizer.normalize(input.toLowerCase(), Normalizer.Form.NFD)
+                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+    }
+}
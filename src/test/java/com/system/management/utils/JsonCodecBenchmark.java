@@ -0,0 +1,78 @@
+package com.system.management.utils;
+
+import com.google.gson.Gson;
+import com.system.management.BenchmarkRunner;
+import com.system.management.model.dto.CityDto;
+import com.system.management.model.dto.DistrictDto;
+import com.system.management.model.dto.DrugAddictDto;
+import com.system.management.model.dto.WardDto;
+import com.system.management.model.response.ErrorResponse;
+import com.system.management.model.response.SuccessResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* Ghi JSON bằng JsonCodec (ObjectMapper) so với Gson trước đây:
+   response lỗi ghi trong filter và một trang 100 đối tượng */
+
+@Tag("benchmark")
+class JsonCodecBenchmark {
+
+    private final Gson gson = new Gson();
+
+    private final JsonCodec jsonCodec = new JsonCodec(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    void writeErrorResponse() throws Exception {
+        ErrorResponse response = new ErrorResponse(401, "Token không hợp lệ hoặc đã hết hạn", "/police/get-list");
+
+        BenchmarkRunner.measure("error response, Gson", () -> gson.toJson(response));
+        BenchmarkRunner.measure("error response, JsonCodec", () -> jsonCodec.write(response));
+    }
+
+    @Test
+    void writePage() throws Exception {
+        SuccessResponse<Object> page = new SuccessResponse<>(buildPage());
+
+        BenchmarkRunner.measure("100-row page, Gson", () -> gson.toJson(page));
+        BenchmarkRunner.measure("100-row page, JsonCodec", () -> jsonCodec.write(page));
+    }
+
+    private static List<DrugAddictDto> buildPage() {
+        CityDto city = new CityDto();
+        city.setId(1L);
+        city.setCode("01");
+        city.setFullName("Thành phố Hà Nội");
+
+        DistrictDto district = new DistrictDto();
+        district.setId(2L);
+        district.setCode("001");
+        district.setFullName("Quận Ba Đình");
+
+        WardDto ward = new WardDto();
+        ward.setId(3L);
+        ward.setCode("00001");
+        ward.setFullName("Phường Phúc Xá");
+
+        List<DrugAddictDto> page = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            DrugAddictDto dto = new DrugAddictDto();
+            dto.setId(i);
+            dto.setIdentifyNumber(String.format("0010%08d", i));
+            dto.setFullName("Nguyễn Văn " + i);
+            dto.setPermanentCity(city);
+            dto.setPermanentDistrict(district);
+            dto.setPermanentWard(ward);
+            dto.setCurrentCity(city);
+            dto.setCurrentDistrict(district);
+            dto.setCurrentWard(ward);
+            dto.setFullPermanent("Số " + i + ", Phường Phúc Xá, Quận Ba Đình, Thành phố Hà Nội");
+            dto.setStatus("ACTIVE");
+            page.add(dto);
+        }
+        return page;
+    }
+}
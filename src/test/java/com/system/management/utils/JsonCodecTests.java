@@ -0,0 +1,86 @@
+package com.system.management.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import com.system.management.model.dto.Auditor;
+import com.system.management.model.response.ErrorResponse;
+import com.system.management.model.response.SuccessResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/* Response ghi bằng JsonCodec (ObjectMapper của Spring) giống bản ghi bằng Gson trước đây,
+   auditor lưu dạng JSON cũ đọc lại được, timestamp định dạng giống SimpleDateFormat cũ */
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JsonCodecTests {
+
+    private final Gson gson = new Gson();
+
+    @Autowired
+    private JsonCodec jsonCodec;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void errorResponseMatchesGson() throws Exception {
+        assertSameJson(new ErrorResponse(401, "Token không hợp lệ <hết hạn> & 'sai'", "/police/get-list"));
+
+        // Trường null bị bỏ qua ở cả hai cách
+        assertSameJson(new ErrorResponse(403, "Tài khoản không được phép thực hiện yêu cầu này", null));
+    }
+
+    @Test
+    void successResponseMatchesGson() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", 12L);
+        data.put("fullName", "Nguyễn Văn Đức");
+        data.put("ids", List.of(1L, 2L, 3L));
+        data.put("active", true);
+
+        assertSameJson(new SuccessResponse<>());
+        assertSameJson(new SuccessResponse<>(data));
+        assertSameJson(new SuccessResponse<>(List.of("Hà Nội", "Đà Nẵng")));
+    }
+
+    @Test
+    void legacyAuditorReadBack() throws Exception {
+        Auditor auditor = new Auditor(null, "001099000123", "Trần Thị Ánh");
+
+        assertEquals(auditor, jsonCodec.read(gson.toJson(auditor), Auditor.class));
+        assertEquals(auditor, gson.fromJson(jsonCodec.write(auditor), Auditor.class));
+    }
+
+    @Test
+    void timestampMatchesLegacyFormatter() {
+        SimpleDateFormat legacy = new SimpleDateFormat("HH:mm:ss dd-MM-yyyy");
+        Random random = new Random(20261019L);
+
+        for (int i = 0; i < 10000; i++) {
+            LocalDateTime dateTime = LocalDateTime.of(1900 + random.nextInt(300), 1 + random.nextInt(12), 1 + random.nextInt(28),
+                    random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(1000) * 1000000);
+            Date date = Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+
+            assertEquals(legacy.format(date), FunctionUtils.formatTimestamp(dateTime), dateTime.toString());
+        }
+    }
+
+    // So sánh theo cây JSON: cùng tên trường, cùng giá trị. Gson escape ký tự HTML (<, >, &, ') dạng \u003c nên không so sánh chuỗi
+    private void assertSameJson(Object value) throws Exception {
+        assertEquals(objectMapper.readTree(gson.toJson(value)), objectMapper.readTree(jsonCodec.write(value)));
+    }
+}
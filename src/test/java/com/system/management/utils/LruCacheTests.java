@@ -0,0 +1,40 @@
+package com.system.management.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Giá trị load xong sau một lần xóa không được đưa lại vào cache, giá trị load bình thường chỉ load một lần */
+
+class LruCacheTests {
+
+    @Test
+    void loadedOnce() {
+        LruCache<Long, String> cache = new LruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get(1L, key -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadRacingEvictNotCached() {
+        LruCache<Long, String> cache = new LruCache<>(10);
+
+        // Bản ghi được sửa và xóa cache trong lúc đang load bản cũ
+        assertEquals("old", cache.get(1L, key -> {
+            cache.evict(key);
+            return "old";
+        }));
+        assertNull(cache.get(1L));
+        assertEquals("new", cache.get(1L, key -> "new"));
+
+        long stamp = cache.stamp();
+        cache.clear();
+        assertFalse(cache.putIfNotEvicted(2L, "old", stamp));
+        assertNull(cache.get(2L));
+    }
+}
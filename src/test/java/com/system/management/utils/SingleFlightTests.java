@@ -0,0 +1,114 @@
+package com.system.management.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/* Request đồng thời cùng khóa chỉ thực thi một lần, lỗi được trả cho mọi request đang chờ và không được giữ lại,
+   không giữ quá max_size khóa và không chờ quá wait_timeout */
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(0, 16, 5000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "value";
+            }));
+            started.await();
+
+            List<Future<String>> followers = List.of(
+                    executor.submit(() -> singleFlight.execute("key", () -> "other" + executions.incrementAndGet())),
+                    executor.submit(() -> singleFlight.execute("key", () -> "other" + executions.incrementAndGet())));
+
+            // Đợi các request sau vào hàng chờ rồi mới cho request đầu chạy xong
+            Thread.sleep(200);
+            release.countDown();
+
+            assertEquals("value", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("value", follower.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, executions.get());
+
+            // ttl = 0 => Request đến sau khi đã xong thì thực thi lại
+            assertEquals("again", singleFlight.execute("key", () -> "again"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureNotCached() {
+        SingleFlight singleFlight = new SingleFlight(60000, 16, 5000);
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("value", singleFlight.execute("key", () -> "value"));
+
+        // ttl > 0 => Dùng lại kết quả vừa thực thi
+        assertEquals("value", singleFlight.execute("key", () -> "other"));
+    }
+
+    @Test
+    void maxSizeIsHardCap() {
+        SingleFlight singleFlight = new SingleFlight(60000, 1, 5000);
+
+        assertEquals("first", singleFlight.execute("first", () -> "first"));
+
+        // Đã giữ đủ 1 khóa chưa hết hạn => Khóa mới thực thi trực tiếp, không được giữ lại
+        assertEquals("second", singleFlight.execute("second", () -> "second"));
+        assertEquals("again", singleFlight.execute("second", () -> "again"));
+
+        assertEquals("first", singleFlight.execute("first", () -> "other"));
+    }
+
+    @Test
+    void waitIsBounded() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(0, 16, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "slow";
+            }));
+            started.await();
+
+            // Request đến trước chưa xong sau wait_timeout => Tự thực thi
+            assertEquals("own", singleFlight.execute("key", () -> "own"));
+
+            release.countDown();
+            assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
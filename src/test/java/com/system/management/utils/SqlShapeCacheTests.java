@@ -0,0 +1,29 @@
+package com.system.management.utils;
+
+import com.system.management.utils.SqlShapeCache.SqlShape;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/* Cùng tổ hợp điều kiện lọc chỉ ghép câu SQL một lần, tổ hợp khác hoặc không cho phép cache thì ghép lại */
+
+class SqlShapeCacheTests {
+
+    @Test
+    void sameShapeBuiltOnce() {
+        SqlShapeCache cache = new SqlShapeCache();
+        AtomicInteger builds = new AtomicInteger();
+
+        SqlShape first = cache.get(3, true, shape -> new SqlShape("filter " + shape + builds.incrementAndGet(), "list"));
+        SqlShape second = cache.get(3, true, shape -> new SqlShape("filter " + shape + builds.incrementAndGet(), "list"));
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+
+        assertNotSame(first, cache.get(5, true, shape -> new SqlShape("filter " + shape + builds.incrementAndGet(), "list")));
+        assertNotSame(first, cache.get(3, false, shape -> new SqlShape("filter " + shape + builds.incrementAndGet(), "list")));
+        assertEquals(3, builds.get());
+    }
+}